@@ -0,0 +1,266 @@
+package speedith.core.lang;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * A node of a reduced ordered binary decision diagram (see {@link BddRegion}).
+ * <p>Nodes are hash-consed: there is at most one living node with a given
+ * variable and given children, so two nodes represent the same Boolean
+ * function iff they are the same object. Variables are ordered by their
+ * ids.</p>
+ */
+final class BddNode {
+
+    private static final int TerminalVariable = Integer.MAX_VALUE;
+    private static final InterningPool<BddNode> pool = new InterningPool<>();
+
+    /**
+     * The constant {@code false} function.
+     */
+    static final BddNode False = new BddNode(TerminalVariable, null, null, 0x5f0b1d2e);
+    /**
+     * The constant {@code true} function.
+     */
+    static final BddNode True = new BddNode(TerminalVariable, null, null, 0x3a7c4e91);
+
+    final int variable;
+    final BddNode low;
+    final BddNode high;
+    private final int hash;
+
+    private BddNode(int variable, BddNode low, BddNode high, int hash) {
+        this.variable = variable;
+        this.low = low;
+        this.high = high;
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the node that tests the given variable and continues with the
+     * {@code low} child if it is {@code false} or with the {@code high} child
+     * otherwise.
+     */
+    static BddNode make(int variable, BddNode low, BddNode high) {
+        if (low == high) {
+            return low;
+        }
+        int hash = (variable * 31 + low.hash) * 31 + high.hash;
+        return pool.intern(new BddNode(variable, low, high, hash));
+    }
+
+    /**
+     * Returns the function that is {@code true} only for the given variable
+     * values. The variables not in {@code trueVariables} or {@code
+     * falseVariables} may take any value.
+     *
+     * @param trueVariables  the ids of variables that must be {@code true}.
+     * @param falseVariables the ids of variables that must be {@code false}.
+     * @param variablesCount the number of variables.
+     */
+    static BddNode cube(BitSet trueVariables, BitSet falseVariables, int variablesCount) {
+        if (trueVariables.intersects(falseVariables)) {
+            return False;
+        }
+        BddNode node = True;
+        for (int variable = variablesCount - 1; variable >= 0; variable--) {
+            if (trueVariables.get(variable)) {
+                node = make(variable, False, node);
+            } else if (falseVariables.get(variable)) {
+                node = make(variable, node, False);
+            }
+        }
+        return node;
+    }
+
+    boolean isTerminal() {
+        return variable == TerminalVariable;
+    }
+
+    /**
+     * Returns the value of this function for the given variable values.
+     */
+    boolean evaluate(BitSet trueVariables) {
+        BddNode node = this;
+        while (!node.isTerminal()) {
+            node = trueVariables.get(node.variable) ? node.high : node.low;
+        }
+        return node == True;
+    }
+
+    static BddNode and(BddNode a, BddNode b) {
+        return apply(Operation.And, a, b, new HashMap<NodePair, BddNode>());
+    }
+
+    static BddNode or(BddNode a, BddNode b) {
+        return apply(Operation.Or, a, b, new HashMap<NodePair, BddNode>());
+    }
+
+    static BddNode andNot(BddNode a, BddNode b) {
+        return apply(Operation.AndNot, a, b, new HashMap<NodePair, BddNode>());
+    }
+
+    static BddNode not(BddNode a) {
+        return not(a, new IdentityHashMap<BddNode, BddNode>());
+    }
+
+    /**
+     * Returns the number of variable assignments (over the given number of
+     * variables) for which this function is {@code true}.
+     */
+    BigInteger countSatisfying(int variablesCount) {
+        return countSatisfying(this, 0, variablesCount, new IdentityHashMap<BddNode, BigInteger>());
+    }
+
+    /**
+     * Returns the number of nodes in this diagram (including the terminals).
+     */
+    int size() {
+        return size(this, new IdentityHashMap<BddNode, Boolean>());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        // This is called only by the pool, where children are already
+        // canonical and may therefore be compared by reference.
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof BddNode) {
+            BddNode other = (BddNode) obj;
+            return variable == other.variable && low == other.low && high == other.high;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private enum Operation {
+
+        And, Or, AndNot;
+
+        BddNode terminalResult(BddNode a, BddNode b) {
+            switch (this) {
+                case And:
+                    if (a == False || b == False) {
+                        return False;
+                    } else if (a == True) {
+                        return b;
+                    } else if (b == True || a == b) {
+                        return a;
+                    }
+                    return null;
+                case Or:
+                    if (a == True || b == True) {
+                        return True;
+                    } else if (a == False) {
+                        return b;
+                    } else if (b == False || a == b) {
+                        return a;
+                    }
+                    return null;
+                default:
+                    if (a == False || b == True || a == b) {
+                        return False;
+                    } else if (b == False) {
+                        return a;
+                    }
+                    return null;
+            }
+        }
+    }
+
+    private static BddNode apply(Operation operation, BddNode a, BddNode b, HashMap<NodePair, BddNode> memo) {
+        BddNode result = operation.terminalResult(a, b);
+        if (result != null) {
+            return result;
+        }
+        NodePair key = new NodePair(a, b);
+        result = memo.get(key);
+        if (result == null) {
+            int variable = Math.min(a.variable, b.variable);
+            BddNode aLow = a.variable == variable ? a.low : a;
+            BddNode aHigh = a.variable == variable ? a.high : a;
+            BddNode bLow = b.variable == variable ? b.low : b;
+            BddNode bHigh = b.variable == variable ? b.high : b;
+            result = make(variable, apply(operation, aLow, bLow, memo), apply(operation, aHigh, bHigh, memo));
+            memo.put(key, result);
+        }
+        return result;
+    }
+
+    private static BddNode not(BddNode a, IdentityHashMap<BddNode, BddNode> memo) {
+        if (a == True) {
+            return False;
+        } else if (a == False) {
+            return True;
+        }
+        BddNode result = memo.get(a);
+        if (result == null) {
+            result = make(a.variable, not(a.low, memo), not(a.high, memo));
+            memo.put(a, result);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the satisfying assignments of the variables with ids from {@code
+     * level} on.
+     */
+    private static BigInteger countSatisfying(BddNode node, int level, int variablesCount, IdentityHashMap<BddNode, BigInteger> memo) {
+        if (node == False) {
+            return BigInteger.ZERO;
+        }
+        int nodeLevel = node.isTerminal() ? variablesCount : node.variable;
+        BigInteger count;
+        if (node == True) {
+            count = BigInteger.ONE;
+        } else {
+            count = memo.get(node);
+            if (count == null) {
+                count = countSatisfying(node.low, nodeLevel + 1, variablesCount, memo)
+                        .add(countSatisfying(node.high, nodeLevel + 1, variablesCount, memo));
+                memo.put(node, count);
+            }
+        }
+        // Every variable skipped between 'level' and this node may take any
+        // value.
+        return count.shiftLeft(nodeLevel - level);
+    }
+
+    private static int size(BddNode node, IdentityHashMap<BddNode, Boolean> visited) {
+        if (visited.put(node, Boolean.TRUE) != null) {
+            return 0;
+        }
+        return node.isTerminal() ? 1 : 1 + size(node.low, visited) + size(node.high, visited);
+    }
+
+    /**
+     * A pair of nodes compared by reference (a key of the memo in {@link
+     * BddNode#apply}).
+     */
+    private static final class NodePair {
+
+        private final BddNode first;
+        private final BddNode second;
+
+        NodePair(BddNode first, BddNode second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NodePair && ((NodePair) obj).first == first && ((NodePair) obj).second == second;
+        }
+
+        @Override
+        public int hashCode() {
+            return first.hash * 31 + second.hash;
+        }
+    }
+}
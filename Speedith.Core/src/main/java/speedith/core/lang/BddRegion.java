@@ -0,0 +1,312 @@
+package speedith.core.lang;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * A set of zones over a fixed set of contours (the universe), represented
+ * symbolically by a reduced ordered binary decision diagram over the
+ * contours.
+ * <p>A zone is in the region iff the diagram evaluates to {@code true} when
+ * the zone's in-contours are set to {@code true} and its out-contours to
+ * {@code false}. Regions such as "all zones outside contour A" therefore take
+ * space linear in the number of contours, whereas the equivalent {@link
+ * Region} contains 2<sup>n-1</sup> zones.</p>
+ * <p>Set operations take time polynomial in the sizes of the diagrams.
+ * Emptiness and equivalence checks take constant time, because diagram nodes
+ * are hash-consed. All operands of a binary operation must have the same
+ * universe, which must not be empty.</p>
+ * <p>Use {@link BddRegion#fromRegion(speedith.core.lang.Region,
+ * java.util.Collection)} and {@link BddRegion#toRegion()} to convert between
+ * this class and {@link Region}.</p>
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class BddRegion {
+
+    private final ContourSymbols universe;
+    private final BddNode root;
+
+    private BddRegion(ContourSymbols universe, BddNode root) {
+        this.universe = universe;
+        this.root = root;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Factory Methods">
+
+    /**
+     * Returns the empty region over the given contours.
+     *
+     * @param universe the contours over which the region is defined.
+     * @return the empty region over the given contours.
+     */
+    public static BddRegion empty(Collection<String> universe) {
+        return new BddRegion(toUniverse(universe), BddNode.False);
+    }
+
+    /**
+     * Returns the region of all zones over the given contours.
+     *
+     * @param universe the contours over which the region is defined.
+     * @return the region of all zones over the given contours.
+     */
+    public static BddRegion all(Collection<String> universe) {
+        return new BddRegion(toUniverse(universe), BddNode.True);
+    }
+
+    /**
+     * Returns the region of all zones over the given contours that are inside
+     * all the given in-contours and outside all the given out-contours.
+     *
+     * @param universe    the contours over which the region is defined.
+     * @param inContours  the contours that contain all zones of the region
+     *                    (may be {@code null}).
+     * @param outContours the contours that contain no zone of the region (may
+     *                    be {@code null}).
+     * @return the region of zones with the given in- and out-contours.
+     */
+    public static BddRegion zonesWith(Collection<String> universe, Collection<String> inContours, Collection<String> outContours) {
+        ContourSymbols symbols = toUniverse(universe);
+        return new BddRegion(symbols, BddNode.cube(ids(symbols, inContours), ids(symbols, outContours), symbols.size()));
+    }
+
+    /**
+     * Converts the given region to a region over the given contours.
+     *
+     * @param region   the region to convert.
+     * @param universe the contours over which the region is defined. Every zone
+     *                 of the given region must mention exactly these contours.
+     * @return the region with the same zones as the given one.
+     */
+    public static BddRegion fromRegion(Region region, Collection<String> universe) {
+        if (region == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "region"));
+        }
+        ContourSymbols symbols = toUniverse(universe);
+        BddNode root = BddNode.False;
+        for (Zone zone : region.sortedZones()) {
+            if (!zone.isValid(symbols.asSortedSet())) {
+                throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "region"));
+            }
+            root = BddNode.or(root, BddNode.cube(ids(symbols, zone.getInContours()), ids(symbols, zone.getOutContours()), symbols.size()));
+        }
+        return new BddRegion(symbols, root);
+    }
+
+    /**
+     * Converts the given non-empty region to a region over the contours of its
+     * zones.
+     *
+     * @param region the region to convert. All its zones must mention the same
+     *               contours.
+     * @return the region with the same zones as the given one.
+     */
+    public static BddRegion fromRegion(Region region) {
+        if (region == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "region"));
+        }
+        if (region.getZonesCount() == 0) {
+            throw new IllegalArgumentException(i18n("GERR_EMPTY_ARGUMENT", "region"));
+        }
+        return fromRegion(region, region.sortedZones().first().getAllContours());
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Properties">
+
+    /**
+     * Returns the contours over which this region is defined.
+     *
+     * @return the contours over which this region is defined.
+     */
+    public SortedSet<String> getUniverse() {
+        return universe.asSortedSet();
+    }
+
+    /**
+     * Indicates whether this region contains no zones.
+     *
+     * @return {@code true} iff this region contains no zones.
+     */
+    public boolean isEmpty() {
+        return root == BddNode.False;
+    }
+
+    /**
+     * Returns the number of zones in this region.
+     *
+     * @return the number of zones in this region.
+     */
+    public BigInteger getZonesCount() {
+        return root.countSatisfying(universe.size());
+    }
+
+    /**
+     * Returns the number of nodes in the decision diagram of this region.
+     *
+     * @return the number of nodes in the decision diagram of this region.
+     */
+    public int getDiagramSize() {
+        return root.size();
+    }
+
+    /**
+     * Indicates whether the given zone is in this region.
+     *
+     * @param zone the zone to look up.
+     * @return {@code true} iff the zone mentions exactly the contours of this
+     *         region's universe and is in this region.
+     */
+    public boolean contains(Zone zone) {
+        return zone != null
+               && zone.isValid(universe.asSortedSet())
+               && root.evaluate(ids(universe, zone.getInContours()));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Set Operations">
+
+    /**
+     * Returns the region of zones that are in this or the other region.
+     *
+     * @param other a region over the same universe.
+     * @return the union of the two regions.
+     */
+    public BddRegion union(BddRegion other) {
+        return new BddRegion(universe, BddNode.or(root, checkUniverse(other).root));
+    }
+
+    /**
+     * Returns the region of zones that are in this and the other region.
+     *
+     * @param other a region over the same universe.
+     * @return the intersection of the two regions.
+     */
+    public BddRegion intersect(BddRegion other) {
+        return new BddRegion(universe, BddNode.and(root, checkUniverse(other).root));
+    }
+
+    /**
+     * Returns the region of zones that are in this region but not in the other.
+     *
+     * @param other a region over the same universe.
+     * @return the difference of the two regions.
+     */
+    public BddRegion subtract(BddRegion other) {
+        return new BddRegion(universe, BddNode.andNot(root, checkUniverse(other).root));
+    }
+
+    /**
+     * Returns the region of all zones (over this region's universe) that are
+     * not in this region.
+     *
+     * @return the complement of this region.
+     */
+    public BddRegion complement() {
+        return new BddRegion(universe, BddNode.not(root));
+    }
+
+    /**
+     * Indicates whether all zones of this region are also in the other region.
+     *
+     * @param other a region over the same universe.
+     * @return {@code true} iff this region is a subregion of the other.
+     */
+    public boolean isSubregionOf(BddRegion other) {
+        return BddNode.andNot(root, checkUniverse(other).root) == BddNode.False;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Conversion">
+
+    /**
+     * Returns the {@link Region} with the same zones as this region.
+     * <p><span style="font-weight:bold">Note</span>: the returned region
+     * contains {@link BddRegion#getZonesCount() all zones} explicitly, which
+     * may be exponentially many.</p>
+     *
+     * @return the region with the same zones as this region.
+     */
+    public Region toRegion() {
+        ArrayList<Zone> zones = new ArrayList<>();
+        VennZones vennZones = new VennZones(universe.asSortedSet());
+        collectZones(root, new ArrayList<String>(), new ArrayList<String>(), vennZones, zones);
+        return new Region(zones);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Equality">
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj
+               || (obj instanceof BddRegion
+                   && root == ((BddRegion) obj).root
+                   && universe.equals(((BddRegion) obj).universe));
+    }
+
+    @Override
+    public int hashCode() {
+        return universe.hashCode() * 31 + root.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "BddRegion{universe=" + universe + ", zones=" + getZonesCount() + '}';
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Methods">
+    private BddRegion checkUniverse(BddRegion other) {
+        if (other == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "other"));
+        }
+        if (!universe.equals(other.universe)) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "other"));
+        }
+        return other;
+    }
+
+    private static ContourSymbols toUniverse(Collection<String> universe) {
+        // There are no zones over an empty set of contours (see VennZones).
+        if (universe == null || universe.isEmpty()) {
+            throw new IllegalArgumentException(i18n("GERR_EMPTY_ARGUMENT", "universe"));
+        }
+        return ContourSymbols.fromContours(universe);
+    }
+
+    private static BitSet ids(ContourSymbols symbols, Collection<String> contours) {
+        BitSet ids = new BitSet(symbols.size());
+        if (contours != null) {
+            for (String contour : contours) {
+                int id = symbols.indexOf(contour);
+                if (id < 0) {
+                    throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "contours"));
+                }
+                ids.set(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Adds the zones of every path to {@code True} (a cube of zones with the
+     * contours on the path fixed).
+     */
+    private void collectZones(BddNode node, ArrayList<String> inContours, ArrayList<String> outContours, VennZones vennZones, ArrayList<Zone> zones) {
+        if (node == BddNode.True) {
+            for (Zone zone : vennZones.zonesWith(inContours, outContours)) {
+                zones.add(zone);
+            }
+        } else if (node != BddNode.False) {
+            String contour = universe.getContour(node.variable);
+            outContours.add(contour);
+            collectZones(node.low, inContours, outContours, vennZones, zones);
+            outContours.remove(outContours.size() - 1);
+            inContours.add(contour);
+            collectZones(node.high, inContours, outContours, vennZones, zones);
+            inContours.remove(inContours.size() - 1);
+        }
+    }
+    // </editor-fold>
+}
@@ -28,6 +28,8 @@ package speedith.core.lang;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import static speedith.core.i18n.Translations.i18n;
 
@@ -89,7 +91,13 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
     private ArrayList<SpiderDiagram> operands;
     private boolean hashInvalid = true;
     private int hash;
-    private int subDiagramCount = -1;
+    /**
+     * The number of sub-diagrams. It is computed on construction (from the
+     * counts of the operands), so that very deep diagrams never compute it
+     * recursively.
+     */
+    private final int subDiagramCount;
+    private volatile SubDiagramTable subDiagramTable;
 
 
     /**
@@ -133,6 +141,11 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
         }
         this.operator = operator;
         this.operands = operands;
+        int count = 1;
+        for (SpiderDiagram operand : operands) {
+            count += operand.getSubDiagramCount();
+        }
+        this.subDiagramCount = count;
     }
 
 
@@ -193,33 +206,28 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
      */
     @Override
     public SpiderDiagram getSubDiagramAt(int index) {
-        if (index == 0) {
-            return this;
-        } else if (index > 0) {
-            --index;
-            for (int i = 0; i < operands.size(); i++) {
-                SpiderDiagram sub = operands.get(i);
-                int subCount = sub.getSubDiagramCount();
-                if (subCount > index) {
-                    return sub.getSubDiagramAt(index);
-                }
-                index -= subCount;
-            }
-        }
-        return null;
+        return getSubDiagramTable().getNode(index);
     }
 
     @Override
     public int getSubDiagramCount() {
-        if (subDiagramCount < 0) {
-            subDiagramCount = 1;
-            for (int i = 0; i < operands.size(); i++) {
-                subDiagramCount += operands.get(i).getSubDiagramCount();
-            }
-        }
         return subDiagramCount;
     }
 
+    /**
+     * Returns the pre-order table of all sub-diagrams of this diagram. The
+     * table is built on first use.
+     */
+    @Override
+    SubDiagramTable getSubDiagramTable() {
+        SubDiagramTable table = subDiagramTable;
+        if (table == null) {
+            table = SubDiagramTable.of(this);
+            subDiagramTable = table;
+        }
+        return table;
+    }
+
     @Override
     public boolean isValid() {
         for (SpiderDiagram spiderDiagram : operands) {
@@ -235,24 +243,47 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
         if (t == null) {
             throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "t"));
         }
-        return transform(t, this, 0, trackParents ? new ArrayList<CompoundSpiderDiagram>() : null, trackParents ? new ArrayList<Integer>() : null);
+        return transform(TraversalAdapters.adapt(t, trackParents));
+    }
+
+    @Override
+    public SpiderDiagram transform(ContextTransformer t) {
+        if (t == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "t"));
+        }
+        return transform(t, this, 0, new TraversalContext());
+    }
+
+    @Override
+    public SpiderDiagram transform(ThreadSafeTransformer t, ForkJoinPool pool, int threshold) {
+        if (t == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "t"));
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "pool"));
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "threshold"));
+        }
+        return pool.invoke(new ParallelTransform(t, threshold, this, 0, new TraversalContext()));
     }
 
     @Override
     public <T> T visit(DiagramVisitor<T> visitor, boolean trackParents) {
+        if (visitor == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "visitor"));
+        }
+        return visit(TraversalAdapters.adapt(visitor, trackParents));
+    }
+
+    @Override
+    public <T> T visit(ContextDiagramVisitor<T> visitor) {
         if (visitor == null) {
             throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "visitor"));
         }
         visitor.init(this);
         if (!visitor.isDone()) {
-            __visitCompoundSD(
-                    visitor,
-                    this,
-                    0,
-                    trackParents ? new ArrayList<CompoundSpiderDiagram>() : null,
-                    trackParents ? new ArrayList<Integer>() : null,
-                    trackParents ? new ArrayList<Integer>() : null
-            );
+            visit(visitor, this, new TraversalContext());
         }
         visitor.end();
         return visitor.getResult();
@@ -356,37 +387,26 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
         if (other == this) {
             return true;
         } else if (other instanceof CompoundSpiderDiagram) {
-            return __isCsdEqual((CompoundSpiderDiagram) other);
+            // Two distinct interned diagrams are never equal (there is only
+            // one interned instance of every diagram).
+            CompoundSpiderDiagram csd = (CompoundSpiderDiagram) other;
+            return !(isCanonical() && csd.isCanonical()) && __isCsdEqual(csd);
         } else {
             return false;
         }
     }
 
-    @Override
-    public boolean isSEquivalentTo(SpiderDiagram other) {
-        if (equals(other)) {
-            return true;
-        }
-        // 1.) We know that this diagram will equal to another compound spider
-        // diagram if they have the same operator and semantically equivalent
-        // operands:
-        if (other instanceof CompoundSpiderDiagram) {
-            CompoundSpiderDiagram csd = (CompoundSpiderDiagram) other;
-            boolean operandsSame = operandsSemanticallyEquivalent(csd);
-            if (operandsSame && operator.equals(csd.operator)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     public int hashCode() {
         if (hashInvalid) {
+            // The operands are interned diagrams, so their structural ids
+            // identify them and we do not have to descend into them.
             hash = operator.hashCode();
             if (operands != null) {
                 for (SpiderDiagram sd : operands) {
-                    hash += sd.hashCode();
+                    assert sd.isCanonical();
+                    long id = sd.getStructuralId() * 0x9e3779b97f4a7c15L;
+                    hash = 31 * hash + (int) (id ^ (id >>> 32));
                 }
             }
             hashInvalid = false;
@@ -394,6 +414,31 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
         return hash;
     }
 
+    @Override
+    long computeFingerprint() {
+        long fingerprint = Fingerprints.combine(Fingerprints.CompoundSeed, Fingerprints.ofString(operator.getName()));
+        for (SpiderDiagram sd : operands) {
+            fingerprint = Fingerprints.combine(fingerprint, sd.getFingerprint());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * The canonical form of a compound diagram has the same operator and the
+     * canonical forms of this diagram's operands.
+     */
+    @Override
+    SpiderDiagram computeCanonicalForm() {
+        ArrayList<SpiderDiagram> canonicalOperands = new ArrayList<>(operands.size());
+        boolean changed = false;
+        for (SpiderDiagram operand : operands) {
+            SpiderDiagram canonicalOperand = operand.getCanonicalForm();
+            changed |= canonicalOperand != operand;
+            canonicalOperands.add(canonicalOperand);
+        }
+        return changed ? SpiderDiagrams.createCompoundSD(operator, canonicalOperands, false) : this;
+    }
+
     @Override
     public void toString(Appendable sb) throws IOException {
         if (sb == null) {
@@ -453,12 +498,11 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
 
 
     /**
-     * Compares the other non-{
-     *
-     * @param other
-     * @return
-     * @ null} {@link CompoundSpiderDiagram} to this one and returns
-     * {@code true} iff they share the same operand and the same operators.
+     * Compares the other non-{@code null} {@link CompoundSpiderDiagram} to
+     * this one and returns {@code true} iff they share the same operand and the
+     * same operators.
+     * <p>This comparison is shallow: the operands are interned diagrams and
+     * are compared by reference.</p>
      */
     @SuppressWarnings("AccessingNonPublicFieldOfAnotherObject")
     private boolean __isCsdEqual(CompoundSpiderDiagram other) {
@@ -467,188 +511,216 @@ public class CompoundSpiderDiagram extends SpiderDiagram {
                 && operands.equals(other.operands);
     }
 
+    /**
+     * Transforms the given diagram and all its sub-diagrams in pre-order.
+     * <p>The traversal does not recurse: the context is the stack of parents
+     * and its child indices tell which operand of each parent comes next. The
+     * depth of the diagram is, therefore, limited only by the heap.</p>
+     * <p>The given diagram need not be the root of the traversal. In this case
+     * the context must already contain its parents.</p>
+     */
     @SuppressWarnings("AccessingNonPublicFieldOfAnotherObject")
-    private static SpiderDiagram transform(Transformer t, CompoundSpiderDiagram curSD, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
-        // Try to transform this sub-diagram.
-        SpiderDiagram transformedSD = t.transform(curSD, subDiagramIndex, parents, childIndices);
-        // What did the transformer return? Is it done yet?
+    private static SpiderDiagram transform(ContextTransformer t, CompoundSpiderDiagram root, int rootIndex, TraversalContext context) {
+        // Try to transform the whole diagram first.
+        SpiderDiagram transformedSD = t.transform(root, rootIndex, context);
         if (transformedSD != null) {
             // The transformer either changed the diagram, or it indicated that
-            // we should not descend into it. In this case the transformed
-            // diagram has to be returned:
+            // we should not descend into it.
             return transformedSD;
         } else if (t.isDone()) {
-            // The transformer doesn't want to do anything anymore and the
-            // transformed diagram is null. So, we have to return the unchanged
-            // spider diagram.
-            return curSD;
-        } else {
-            pushParent(parents, curSD);
-            // This array will hold the children (if at least one of them was
-            // transformed).
-            ArrayList<SpiderDiagram> transformedChildren = null;
-            // Now traverse all the children:
-            for (int childIndex = 0; childIndex < curSD.operands.size(); ++childIndex) {
-                SpiderDiagram childSD = curSD.operands.get(childIndex);
-
-                // Transform the child
-                pushChildIndex(childIndices, childIndex);
-                transformedSD = __applyTransform(childSD, t, subDiagramIndex + 1, parents, childIndices);
-                popChildIndex(childIndices);
-
-                // If the child was actually transformed, put it into the list
-                // of transformed children.
-                if (transformedSD != null && !transformedSD.equals(childSD)) {
-                    if (transformedChildren == null) {
-                        transformedChildren = new ArrayList<SpiderDiagram>(curSD.operands);
+            return root;
+        }
+        // The transformed operands of every parent on the stack (or null if
+        // none of its operands changed yet).
+        SpiderDiagram[][] transformedChildren = new SpiderDiagram[8][];
+        int baseDepth = context.getDepth();
+        context.push(root, rootIndex);
+        // The sub-diagram index of the next operand to be transformed.
+        int subDiagramIndex = rootIndex + 1;
+        while (true) {
+            int level = context.getDepth() - 1 - baseDepth;
+            CompoundSpiderDiagram parentSD = context.topParent();
+            int childIndex = context.topChildIndex();
+            SpiderDiagram childSD;
+            if (childIndex < parentSD.operands.size()) {
+                childSD = parentSD.operands.get(childIndex);
+                if (childSD instanceof CompoundSpiderDiagram) {
+                    transformedSD = t.transform((CompoundSpiderDiagram) childSD, subDiagramIndex, context);
+                    if (transformedSD == null && !t.isDone()) {
+                        // Descend into the operands of the child.
+                        context.push((CompoundSpiderDiagram) childSD, subDiagramIndex);
+                        if (level + 1 == transformedChildren.length) {
+                            transformedChildren = Arrays.copyOf(transformedChildren, transformedChildren.length * 2);
+                        }
+                        ++subDiagramIndex;
+                        continue;
                     }
-                    transformedChildren.set(childIndex, transformedSD);
+                } else if (childSD instanceof PrimarySpiderDiagram) {
+                    transformedSD = t.transform((PrimarySpiderDiagram) childSD, subDiagramIndex, context);
+                } else {
+                    transformedSD = t.transform((NullSpiderDiagram) childSD, subDiagramIndex, context);
                 }
-                // If the transformed indicates it's finished. Stop the
-                // traversal.
-                if (t.isDone()) {
-                    break;
+            } else {
+                // All operands of the parent were transformed (or the
+                // transformer is done). Did any of them change? If none
+                // changed, we must return the unchanged diagram. But if at
+                // least one changed, we have to create a new one.
+                SpiderDiagram[] changedOperands = transformedChildren[level];
+                transformedChildren[level] = null;
+                childSD = parentSD;
+                transformedSD = changedOperands == null ? parentSD : SpiderDiagrams.createCompoundSD(parentSD.getOperator(), changedOperands);
+                subDiagramIndex = context.topParentIndex();
+                context.pop();
+                if (level == 0) {
+                    return transformedSD;
                 }
-                // When continuing to the next child, we have to increase its
-                // sub diagram index by the number of sub-diagrams in the
-                // previous child. The child index, however, is incremented by
-                // one only (naturally).
-                subDiagramIndex += childSD.getSubDiagramCount();
+                // Continue with the parent of the finished diagram.
+                --level;
+                parentSD = context.topParent();
+                childIndex = context.topChildIndex();
             }
-            popParent(parents);
-            // Did any of the children change? If none changed, we must return
-            // the unchanged diagram. But if at least one changed, we have to
-            // create a new one.
-            return transformedChildren == null ? curSD : SpiderDiagrams.createCompoundSD(curSD.getOperator(), transformedChildren, false);
-        }
-    }
-
-    /**
-     * Applies the transformer on the given spider diagram based on the type of
-     * the spider diagram.
-     */
-    private static SpiderDiagram __applyTransform(SpiderDiagram sd, Transformer t, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
-        if (sd instanceof CompoundSpiderDiagram) {
-            return transform(t, (CompoundSpiderDiagram) sd, subDiagramIndex, parents, childIndices);
-        } else if (sd instanceof PrimarySpiderDiagram) {
-            return t.transform((PrimarySpiderDiagram) sd, subDiagramIndex, parents, childIndices);
-        } else {
-            return t.transform((NullSpiderDiagram) sd, subDiagramIndex, parents, childIndices);
-        }
-    }
 
-    /**
-     * Applies the visit function of the visitor on the given spider diagram.
-     * This method returns {@code true} if and only if the visitor is done and
-     * no further calls to visit must be made.
-     */
-    private static <T> boolean __visitCompoundSD(DiagramVisitor<T> visitor, CompoundSpiderDiagram curSD, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
-        // Visit the current spider diagram.
-        visitor.visit(curSD, subDiagramIndex, parents, childIndices, parentIndices);
-
-        // Now visit the child spider diagrams, if it is not finished yet
-        // and if there are actually any child spider diagrams.
-        if (curSD.getOperandCount() > 0 && !visitor.isDone()) {
-            pushParent(parents, curSD);
-            pushParentIndex(parentIndices, subDiagramIndex);
-
-            subDiagramIndex++;
-
-            // Visit all the children.
-            for (int childIndex = 0; childIndex < curSD.operands.size(); ++childIndex) {
-                SpiderDiagram childSD = curSD.operands.get(childIndex);
-                int subDiagramCount = childSD.getSubDiagramCount();
-                // Apply the visitor to the current spider diagram and return
-                // if it's finished.
-                pushChildIndex(childIndices, childIndex);
-                final boolean visitResult = __visitSD(childSD, visitor, subDiagramIndex, parents, childIndices, parentIndices);
-                popChildIndex(childIndices);
-                if (visitResult) {
-                    return true;
+            // If the child was actually transformed, put it into the list of
+            // transformed children.
+            if (transformedSD != null && !transformedSD.equals(childSD)) {
+                SpiderDiagram[] changedOperands = transformedChildren[level];
+                if (changedOperands == null) {
+                    changedOperands = parentSD.operands.toArray(new SpiderDiagram[parentSD.operands.size()]);
+                    transformedChildren[level] = changedOperands;
                 }
+                changedOperands[childIndex] = transformedSD;
+            }
+            if (t.isDone()) {
+                // Skip the remaining operands of the parent. The remaining
+                // parents on the stack are finished in the same way.
+                context.setChildIndex(parentSD.operands.size());
+            } else {
                 // When continuing to the next child, we have to increase its
                 // sub diagram index by the number of sub-diagrams in the
                 // previous child. The child index, however, is incremented by
                 // one only (naturally).
-                subDiagramIndex += subDiagramCount;
+                subDiagramIndex += childSD.getSubDiagramCount();
+                context.setChildIndex(childIndex + 1);
             }
-            popParent(parents);
-            popParentIndex(parentIndices);
-        }
-        return visitor.isDone();
-    }
-
-    private static void popParentIndex(ArrayList<Integer> parentIndices) {
-        if (parentIndices != null) {
-            parentIndices.remove(parentIndices.size() - 1);
-        }
-    }
-
-    private static void pushParentIndex(ArrayList<Integer> parentIndices, int subDiagramIndex) {
-        if (parentIndices != null) {
-            parentIndices.add(subDiagramIndex);
         }
     }
 
     /**
-     * Applies the visit function of the visitor on the given spider diagram.
-     * This method returns {@code true} if and only if the visitor is done and
-     * no further calls to visit must be made.
+     * Visits the given diagram and all its sub-diagrams in pre-order until
+     * the visitor is done.
+     * <p>Like {@link CompoundSpiderDiagram#transform(ContextTransformer,
+     * CompoundSpiderDiagram, int, TraversalContext)}, the traversal keeps its stack
+     * in the context and does not recurse.</p>
      */
-    private static <T> boolean __visitSD(SpiderDiagram sd, DiagramVisitor<T> visitor, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
-        if (sd instanceof CompoundSpiderDiagram) {
-            return __visitCompoundSD(visitor, (CompoundSpiderDiagram) sd, subDiagramIndex, parents, childIndices, parentIndices);
-        } else {
-            visitor.visit(sd, subDiagramIndex, parents, childIndices, parentIndices);
-            return visitor.isDone();
+    @SuppressWarnings("AccessingNonPublicFieldOfAnotherObject")
+    private static <T> void visit(ContextDiagramVisitor<T> visitor, CompoundSpiderDiagram root, TraversalContext context) {
+        visitor.visit(root, 0, context);
+        if (root.operands.isEmpty() || visitor.isDone()) {
+            return;
+        }
+        context.push(root, 0);
+        // Every visited sub-diagram takes the next index in pre-order.
+        int subDiagramIndex = 1;
+        while (context.getDepth() > 0) {
+            CompoundSpiderDiagram parentSD = context.topParent();
+            int childIndex = context.topChildIndex();
+            if (childIndex < parentSD.operands.size()) {
+                SpiderDiagram childSD = parentSD.operands.get(childIndex);
+                visitor.visit(childSD, subDiagramIndex++, context);
+                if (visitor.isDone()) {
+                    return;
+                }
+                if (childSD instanceof CompoundSpiderDiagram && ((CompoundSpiderDiagram) childSD).operands.size() > 0) {
+                    // Descend into the operands of the child.
+                    context.push((CompoundSpiderDiagram) childSD, subDiagramIndex - 1);
+                } else {
+                    context.setChildIndex(childIndex + 1);
+                }
+            } else {
+                // All operands of the parent were visited. Continue with the
+                // next operand of its own parent.
+                context.pop();
+                if (context.getDepth() > 0) {
+                    context.setChildIndex(context.topChildIndex() + 1);
+                }
+            }
         }
     }
 
     /**
-     * Compares the operands of this and the other compound diagram. <p>This
-     * method returns {@code true} iff they have the same number of operands and
-     * if the operands at the same indices are semantically equivalent.</p>
+     * Transforms a compound sub-diagram and, if it is large enough, transforms
+     * its operands as parallel tasks.
+     * <p>Every task gets its own copy of the context, so that the transformer
+     * sees the same parents as in a sequential transform. Tasks nest as deep
+     * as compound sub-diagrams with at least {@code threshold} sub-diagrams
+     * do, so long chains of such diagrams should be transformed
+     * sequentially.</p>
      */
-    private boolean operandsSemanticallyEquivalent(CompoundSpiderDiagram other) {
-        Iterator<SpiderDiagram> itThis = operands.iterator();
-        Iterator<SpiderDiagram> itOther = other.operands.iterator();
-        // Firstly, the operands have to be equally many.
-        if (operands.size() == other.operands.size()) {
-            while (itThis.hasNext()) {
-                if (!itThis.next().isSEquivalentTo(itOther.next())) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return false;
-    }
+    @SuppressWarnings("AccessingNonPublicFieldOfAnotherObject")
+    private static final class ParallelTransform extends RecursiveTask<SpiderDiagram> {
 
-    private static void popParent(ArrayList<CompoundSpiderDiagram> parents) {
-        // We have finished traversing the children of the current compound
-        // diagram. Remove it from the stack of parents.
-        if (parents != null) {
-            parents.remove(parents.size() - 1);
-        }
-    }
+        private static final long serialVersionUID = 1L;
 
-    private static void pushParent(ArrayList<CompoundSpiderDiagram> parents, CompoundSpiderDiagram curSD) {
-        // If we want to process the children of the current SD, make
-        // this one the bottom-most parent.
-        if (parents != null) {
-            parents.add(curSD);
-        }
-    }
+        private final ThreadSafeTransformer t;
+        private final int threshold;
+        private final CompoundSpiderDiagram sd;
+        private final int subDiagramIndex;
+        private final TraversalContext context;
 
-    private static void pushChildIndex(ArrayList<Integer> childIndices, int childIndex) {
-        if (childIndices != null) {
-            childIndices.add(childIndex);
+        ParallelTransform(ThreadSafeTransformer t, int threshold, CompoundSpiderDiagram sd, int subDiagramIndex, TraversalContext context) {
+            this.t = t;
+            this.threshold = threshold;
+            this.sd = sd;
+            this.subDiagramIndex = subDiagramIndex;
+            this.context = context;
         }
-    }
 
-    private static void popChildIndex(ArrayList<Integer> childIndices) {
-        if (childIndices != null) {
-            childIndices.remove(childIndices.size() - 1);
+        @Override
+        protected SpiderDiagram compute() {
+            if (sd.getSubDiagramCount() < threshold) {
+                return transform(t, sd, subDiagramIndex, context);
+            }
+            SpiderDiagram transformedSD = t.transform(sd, subDiagramIndex, context);
+            if (transformedSD != null) {
+                return transformedSD;
+            }
+            // Transform the compound operands as separate tasks and the
+            // atomic ones directly.
+            int operandCount = sd.operands.size();
+            SpiderDiagram[] transformedOperands = new SpiderDiagram[operandCount];
+            ParallelTransform[] operandTasks = new ParallelTransform[operandCount];
+            ArrayList<ParallelTransform> tasks = new ArrayList<>(operandCount);
+            int childSubDiagramIndex = subDiagramIndex + 1;
+            for (int childIndex = 0; childIndex < operandCount; childIndex++) {
+                SpiderDiagram childSD = sd.operands.get(childIndex);
+                TraversalContext childContext = context.copy();
+                childContext.push(sd, subDiagramIndex);
+                childContext.setChildIndex(childIndex);
+                if (childSD instanceof CompoundSpiderDiagram) {
+                    operandTasks[childIndex] = new ParallelTransform(t, threshold, (CompoundSpiderDiagram) childSD, childSubDiagramIndex, childContext);
+                    tasks.add(operandTasks[childIndex]);
+                } else if (childSD instanceof PrimarySpiderDiagram) {
+                    transformedOperands[childIndex] = t.transform((PrimarySpiderDiagram) childSD, childSubDiagramIndex, childContext);
+                } else {
+                    transformedOperands[childIndex] = t.transform((NullSpiderDiagram) childSD, childSubDiagramIndex, childContext);
+                }
+                childSubDiagramIndex += childSD.getSubDiagramCount();
+            }
+            invokeAll(tasks);
+            // Did any of the operands change? If none changed, we must return
+            // the unchanged diagram.
+            boolean changed = false;
+            for (int childIndex = 0; childIndex < operandCount; childIndex++) {
+                if (operandTasks[childIndex] != null) {
+                    transformedOperands[childIndex] = operandTasks[childIndex].join();
+                }
+                if (transformedOperands[childIndex] == null || transformedOperands[childIndex].equals(sd.operands.get(childIndex))) {
+                    transformedOperands[childIndex] = sd.operands.get(childIndex);
+                } else {
+                    changed = true;
+                }
+            }
+            return changed ? SpiderDiagrams.createCompoundSD(sd.getOperator(), transformedOperands) : sd;
         }
     }
 }
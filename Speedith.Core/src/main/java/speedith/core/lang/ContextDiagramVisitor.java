@@ -0,0 +1,51 @@
+package speedith.core.lang;
+
+/**
+ * A {@link DiagramVisitor} that receives the position of the current
+ * sub-diagram as a {@link TraversalContext} instead of lists of parents, child
+ * indices and parent indices. See {@link
+ * SpiderDiagram#visit(speedith.core.lang.ContextDiagramVisitor)}.
+ * <p>The context is valid only during the call. Visitors must not keep
+ * it.</p>
+ *
+ * @param <T> the type of the result of the visit.
+ */
+public interface ContextDiagramVisitor<T> {
+
+    /**
+     * See {@link DiagramVisitor#init(speedith.core.lang.SpiderDiagram)}.
+     *
+     * @param root the diagram on which the visiting should happen.
+     */
+    void init(SpiderDiagram root);
+
+    /**
+     * See {@link DiagramVisitor#end()}.
+     */
+    void end();
+
+    /**
+     * This function is called for every traversed sub-diagram of a root
+     * diagram.
+     *
+     * @param subDiagram      the currently visited sub-diagram.
+     * @param subDiagramIndex the index of the sub-diagram (relative to the
+     *                        root).
+     * @param context         the parents of the sub-diagram.
+     */
+    void visit(SpiderDiagram subDiagram, int subDiagramIndex, TraversalContext context);
+
+    /**
+     * See {@link DiagramVisitor#isDone()}.
+     *
+     * @return {@code true} if this visitor has no more visiting to do.
+     */
+    boolean isDone();
+
+    /**
+     * Returns the final result of the visit.
+     *
+     * @return the final result of the visit.
+     */
+    T getResult();
+}
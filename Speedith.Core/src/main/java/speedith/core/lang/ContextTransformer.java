@@ -0,0 +1,63 @@
+package speedith.core.lang;
+
+/**
+ * A {@link Transformer} that receives the position of the current sub-diagram
+ * as a {@link TraversalContext} instead of lists of parents and child indices.
+ * <p>The transform methods follow the contract of the corresponding {@link
+ * Transformer} methods: a returned diagram replaces the current one, {@code
+ * null} descends into the current one and {@link ContextTransformer#isDone()}
+ * stops the traversal. See {@link
+ * SpiderDiagram#transform(speedith.core.lang.ContextTransformer)}.</p>
+ * <p>The context is valid only during the call. Transformers must not keep
+ * it.</p>
+ */
+public interface ContextTransformer {
+
+    /**
+     * See {@link Transformer#transform(speedith.core.lang.PrimarySpiderDiagram,
+     * int, java.util.ArrayList, java.util.ArrayList)}.
+     *
+     * @param sd           the current spider diagram to transform.
+     * @param diagramIndex the sub-diagram index of the current spider diagram.
+     * @param context      the parents of the current spider diagram.
+     * @return a transformed spider diagram, {@code null}, or the given spider
+     *         diagram.
+     * @throws TransformationException thrown if the transformation failed.
+     */
+    SpiderDiagram transform(PrimarySpiderDiagram sd, int diagramIndex, TraversalContext context) throws TransformationException;
+
+    /**
+     * See {@link Transformer#transform(speedith.core.lang.NullSpiderDiagram,
+     * int, java.util.ArrayList, java.util.ArrayList)}.
+     *
+     * @param sd           the current spider diagram to transform.
+     * @param diagramIndex the sub-diagram index of the current spider diagram.
+     * @param context      the parents of the current spider diagram.
+     * @return a transformed spider diagram, {@code null}, or the given spider
+     *         diagram.
+     * @throws TransformationException thrown if the transformation failed.
+     */
+    SpiderDiagram transform(NullSpiderDiagram sd, int diagramIndex, TraversalContext context) throws TransformationException;
+
+    /**
+     * See {@link Transformer#transform(speedith.core.lang.CompoundSpiderDiagram,
+     * int, java.util.ArrayList, java.util.ArrayList)}.
+     *
+     * @param sd           the current spider diagram to transform.
+     * @param diagramIndex the sub-diagram index of the current spider diagram.
+     * @param context      the parents of the current spider diagram.
+     * @return a transformed spider diagram, {@code null}, or the given spider
+     *         diagram.
+     * @throws TransformationException thrown if the transformation failed.
+     */
+    SpiderDiagram transform(CompoundSpiderDiagram sd, int diagramIndex, TraversalContext context) throws TransformationException;
+
+    /**
+     * Indicates that this transformer has done all the transformations it
+     * intends to do (see {@link Transformer#isDone()}).
+     *
+     * @return {@code true} if this transformer has no more transformations to
+     *         do.
+     */
+    boolean isDone();
+}
@@ -0,0 +1,201 @@
+package speedith.core.lang;
+
+import java.util.*;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * An alphabetically sorted table of distinct contour names, which assigns each
+ * contour a small integer id (its position in the table).
+ * <p>{@link Zone Zones} use this table to store their in- and out-contours as
+ * bit masks over contour ids. All zones of a valid {@link
+ * PrimarySpiderDiagram primary diagram} mention the same contours, so they all
+ * share one table, which effectively becomes the diagram's contour symbol
+ * table.</p>
+ * <p>Tables are interned: there is at most one living table for any given set
+ * of contour names. Two zones therefore mention the same contours if and only
+ * if they reference the same table.</p>
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class ContourSymbols {
+
+    /**
+     * The maximum number of contours for which zones use a single {@code long}
+     * bit mask. Zones over more contours fall back to {@link BitSet bit sets}.
+     */
+    public static final int MaxCompactContours = 64;
+
+    private static final InterningPool<ContourSymbols> pool = new InterningPool<>();
+
+    /**
+     * The table without any contours.
+     */
+    public static final ContourSymbols Empty = intern(new String[0]);
+
+    private final String[] contours;
+    private final int hash;
+    private SortedSet<String> contourSet;
+    private volatile long[] contourFingerprints;
+
+    private ContourSymbols(String[] sortedContours) {
+        this.contours = sortedContours;
+        this.hash = Arrays.hashCode(sortedContours);
+    }
+
+    /**
+     * Returns the interned table of the union of the given contour names.
+     *
+     * @param inContours  the first collection of contour names (may be {@code null}).
+     * @param outContours the second collection of contour names (may be {@code null}).
+     * @return the interned table of the union of the given contour names.
+     */
+    public static ContourSymbols fromContours(Collection<String> inContours, Collection<String> outContours) {
+        TreeSet<String> allContours = new TreeSet<>();
+        if (inContours != null) {
+            allContours.addAll(inContours);
+        }
+        if (outContours != null) {
+            allContours.addAll(outContours);
+        }
+        return allContours.isEmpty() ? Empty : intern(allContours.toArray(new String[allContours.size()]));
+    }
+
+    /**
+     * Returns the interned table of the given contour names.
+     *
+     * @param contours the names of contours (duplicates are ignored).
+     * @return the interned table of the given contour names.
+     */
+    public static ContourSymbols fromContours(Collection<String> contours) {
+        return fromContours(contours, null);
+    }
+
+    /**
+     * Returns the number of contours in this table.
+     *
+     * @return the number of contours in this table.
+     */
+    public int size() {
+        return contours.length;
+    }
+
+    /**
+     * Indicates whether zones over this table store their contours in single
+     * {@code long} bit masks.
+     *
+     * @return {@code true} iff this table has at most {@link
+     *         ContourSymbols#MaxCompactContours} contours.
+     */
+    public boolean isCompact() {
+        return contours.length <= MaxCompactContours;
+    }
+
+    /**
+     * Returns the name of the contour with the given id.
+     *
+     * @param id the id of the contour.
+     * @return the name of the contour with the given id.
+     */
+    public String getContour(int id) {
+        return contours[id];
+    }
+
+    /**
+     * Returns the id of the given contour, or a negative number if the contour
+     * is not in this table.
+     *
+     * @param contour the name of the contour to look up.
+     * @return the id of the given contour, or a negative number if the contour
+     *         is not in this table.
+     */
+    public int indexOf(String contour) {
+        return Arrays.binarySearch(contours, contour);
+    }
+
+    /**
+     * Returns an unmodifiable sorted set view of all contours in this table.
+     * <p>The same instance is returned on every call.</p>
+     *
+     * @return an unmodifiable sorted set of all contours in this table.
+     */
+    public SortedSet<String> asSortedSet() {
+        if (contourSet == null) {
+            contourSet = Collections.unmodifiableSortedSet(new TreeSet<>(Arrays.asList(contours)));
+        }
+        return contourSet;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj
+               || (obj instanceof ContourSymbols
+                   && hash == ((ContourSymbols) obj).hash
+                   && Arrays.equals(contours, ((ContourSymbols) obj).contours));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(contours);
+    }
+
+    /**
+     * Returns the bit mask (over this table's ids) of the given contours.
+     * <p>This method may be used only on {@link ContourSymbols#isCompact()
+     * compact} tables.</p>
+     */
+    long toMask(Collection<String> contourNames) {
+        long mask = 0L;
+        if (contourNames != null) {
+            for (String contour : contourNames) {
+                mask |= 1L << idOf(contour);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the bit set (over this table's ids) of the given contours.
+     */
+    BitSet toBitSet(Collection<String> contourNames) {
+        BitSet bits = new BitSet(contours.length);
+        if (contourNames != null) {
+            for (String contour : contourNames) {
+                bits.set(idOf(contour));
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the {@link Fingerprints#ofString(java.lang.CharSequence)
+     * fingerprint} of the name of the contour with the given id.
+     */
+    long getFingerprint(int id) {
+        long[] fingerprints = contourFingerprints;
+        if (fingerprints == null) {
+            fingerprints = new long[contours.length];
+            for (int i = 0; i < contours.length; i++) {
+                fingerprints[i] = Fingerprints.ofString(contours[i]);
+            }
+            contourFingerprints = fingerprints;
+        }
+        return fingerprints[id];
+    }
+
+    private int idOf(String contour) {
+        int id = indexOf(contour);
+        if (id < 0) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "contour"));
+        }
+        return id;
+    }
+
+    private static ContourSymbols intern(String[] sortedContours) {
+        return pool.intern(new ContourSymbols(sortedContours));
+    }
+}
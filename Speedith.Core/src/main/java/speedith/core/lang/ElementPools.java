@@ -0,0 +1,74 @@
+package speedith.core.lang;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * Global pools of {@link Zone zones} and {@link Region regions}.
+ * <p>Zones and regions are immutable, so equal ones can be shared by any
+ * number of diagrams. Interning them makes equal zones and regions the same
+ * instance, which saves memory when many diagrams mention the same zones (and
+ * makes their equality checks trivial).</p>
+ * <p>The pools reference their instances weakly (see {@link InterningPool}),
+ * so interned zones and regions are dropped once no diagram uses them. The
+ * pools are safe to use from multiple threads concurrently.</p>
+ */
+public final class ElementPools {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private static final InterningPool<Zone> zonePool = new InterningPool<>();
+    private static final InterningPool<Region> regionPool = new InterningPool<>();
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Disabled Constructor">
+    private ElementPools() {
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Returns the pooled zone that equals the given one. If there is no such
+     * zone, the given zone is put into the pool and returned.
+     *
+     * @param zone the zone to intern.
+     * @return the canonical instance of the zone.
+     */
+    public static Zone intern(Zone zone) {
+        if (zone == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "zone"));
+        }
+        return zonePool.intern(zone);
+    }
+
+    /**
+     * Returns the pooled region that equals the given one. If there is no such
+     * region, the given region is put into the pool and returned.
+     *
+     * @param region the region to intern.
+     * @return the canonical instance of the region.
+     */
+    public static Region intern(Region region) {
+        if (region == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "region"));
+        }
+        return regionPool.intern(region);
+    }
+
+    /**
+     * Returns a snapshot of the counters of the zone pool.
+     *
+     * @return a snapshot of the counters of the zone pool.
+     */
+    public static PoolStatistics getZonePoolStatistics() {
+        return zonePool.getStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the counters of the region pool.
+     *
+     * @return a snapshot of the counters of the region pool.
+     */
+    public static PoolStatistics getRegionPoolStatistics() {
+        return regionPool.getStatistics();
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,71 @@
+package speedith.core.lang;
+
+/**
+ * Helpers for computing {@link SpiderDiagram#getFingerprint() 64-bit
+ * fingerprints} of spider diagrams and their elements.
+ * <p>The fingerprints depend only on the characters of contour and spider
+ * names and the structure of diagrams (they do not use {@link
+ * String#hashCode()} or any other hash that may change between JVM
+ * versions). They are therefore stable across JVM runs.</p>
+ */
+final class Fingerprints {
+
+    private static final long FnvOffsetBasis = 0xcbf29ce484222325L;
+    private static final long FnvPrime = 0x100000001b3L;
+    private static final long GoldenGamma = 0x9e3779b97f4a7c15L;
+
+    static final long NullSeed = ofString("NullSD");
+    static final long PrimarySeed = ofString("PrimarySD");
+    static final long CompoundSeed = ofString("CompoundSD");
+    static final long ZoneSeed = ofString("Zone");
+    static final long RegionSeed = ofString("Region");
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the UTF-16 code units of the given
+     * string (the high byte of each code unit first).
+     */
+    static long ofString(CharSequence str) {
+        long hash = FnvOffsetBasis;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            hash = (hash ^ (c >>> 8)) * FnvPrime;
+            hash = (hash ^ (c & 0xff)) * FnvPrime;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the fingerprint of the given region, which is the combination of
+     * the fingerprints of its zones in their natural order.
+     */
+    static long ofRegion(Region region) {
+        long hash = combine(RegionSeed, region.getZonesCount());
+        for (Zone zone : region.sortedZones()) {
+            hash = combine(hash, zone.getFingerprint());
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the given value into the given (partial) fingerprint. The result
+     * depends on the order in which values are combined.
+     */
+    static long combine(long hash, long value) {
+        return mix(hash ^ (value + GoldenGamma + (hash << 6) + (hash >>> 2)));
+    }
+
+    /**
+     * The finalisation step of the 64-bit MurmurHash3.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -34,6 +34,10 @@ import java.util.ArrayList;
  * which returns the value of the field {@link IdTransformer#done}). This means
  * that by default this transformer visits all the sub-diagrams in a spider
  * diagram.
+ * <p>Transformers that change only one sub-diagram should pass its index to
+ * {@link IdTransformer#IdTransformer(int)}. Such a transformer returns compound
+ * sub-diagrams that do not contain the target unchanged, so the traversal
+ * skips them and only the parents of the target are rebuilt.</p>
  * @author Matej Urbas [matej.urbas@gmail.com]
  */
 public class IdTransformer implements Transformer {
@@ -45,6 +49,33 @@ public class IdTransformer implements Transformer {
      * they are finished with the transformation.</p>
      */
     protected boolean done = false;
+    /**
+     * The index of the only sub-diagram this transformer changes, or a
+     * negative number if it may change any sub-diagram.
+     */
+    private final int targetSubDiagramIndex;
+
+    /**
+     * Creates a transformer that visits all the sub-diagrams in a spider
+     * diagram.
+     */
+    public IdTransformer() {
+        this(-1);
+    }
+
+    /**
+     * Creates a transformer that changes only the sub-diagram at the given
+     * index. By default, {@link IdTransformer#transform(CompoundSpiderDiagram,
+     * int, ArrayList, ArrayList)} returns compound diagrams that do not contain
+     * the target unchanged, so the traversal does not descend into them.
+     *
+     * @param targetSubDiagramIndex the index of the target sub-diagram (or a
+     *                              negative number if the transformer may
+     *                              change any sub-diagram).
+     */
+    protected IdTransformer(int targetSubDiagramIndex) {
+        this.targetSubDiagramIndex = targetSubDiagramIndex;
+    }
 
     @Override
     public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
@@ -58,11 +89,32 @@ public class IdTransformer implements Transformer {
 
     @Override
     public SpiderDiagram transform(CompoundSpiderDiagram csd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
-        return null;
+        return containsTarget(csd, diagramIndex) ? null : csd;
     }
 
     @Override
     public boolean isDone() {
         return done;
     }
+
+    /**
+     * Returns the index of the only sub-diagram this transformer changes, or a
+     * negative number if it may change any sub-diagram.
+     */
+    public int getTargetSubDiagramIndex() {
+        return targetSubDiagramIndex;
+    }
+
+    /**
+     * Indicates whether the given sub-diagram (found at the given index) is
+     * the target of this transformer or contains it. This method returns
+     * {@code true} if the transformer has no single target.
+     *
+     * @param sd           the sub-diagram.
+     * @param diagramIndex the index of the sub-diagram.
+     */
+    protected boolean containsTarget(SpiderDiagram sd, int diagramIndex) {
+        return targetSubDiagramIndex < 0
+                || (targetSubDiagramIndex >= diagramIndex && targetSubDiagramIndex < diagramIndex + sd.getSubDiagramCount());
+    }
 }
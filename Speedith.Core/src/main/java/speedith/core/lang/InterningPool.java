@@ -0,0 +1,198 @@
+package speedith.core.lang;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A thread-safe, weakly referencing pool of canonical instances (a hash-consing
+ * table).
+ * <p>The pool is split into independently locked segments, so threads that
+ * intern objects with different hashes do not contend for the same lock.
+ * Pooled instances are referenced weakly and are dropped from the pool once
+ * they are no longer reachable from elsewhere.</p>
+ * <p>Each segment counts lookups that found a canonical instance (hits),
+ * lookups that inserted a new one (misses), and entries dropped after their
+ * instance had been garbage collected (evictions). See {@link
+ * InterningPool#getStatistics()}.</p>
+ * <p>Subclasses may override {@link InterningPool#onInterned(java.lang.Object)}
+ * to tag instances as they become canonical.</p>
+ *
+ * @param <T> the type of pooled instances. Its {@code equals} and {@code
+ *            hashCode} methods define which instances are interchangeable.
+ */
+class InterningPool<T> {
+
+    private static final int SegmentsCount = 32;
+    private static final int SegmentShift = Integer.SIZE - Integer.numberOfTrailingZeros(SegmentsCount);
+    private final Segment<T>[] segments;
+
+    @SuppressWarnings("unchecked")
+    InterningPool() {
+        segments = (Segment<T>[]) new Segment<?>[SegmentsCount];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * Returns the pooled instance that equals the given candidate. If there is
+     * no such instance, the candidate itself is put into the pool and
+     * returned.
+     *
+     * @param candidate the object to intern (must not be {@code null}).
+     * @return the canonical instance equal to the candidate.
+     */
+    T intern(T candidate) {
+        int hash = spread(candidate.hashCode());
+        return segments[hash >>> SegmentShift].intern(this, candidate, hash);
+    }
+
+    /**
+     * Returns the pooled instance that equals the given object, or {@code null}
+     * if there is none. This lookup does not change the pool's statistics.
+     *
+     * @param probe the object to look up (must not be {@code null}).
+     * @return the pooled instance that equals the given object, or {@code null}.
+     */
+    T get(T probe) {
+        int hash = spread(probe.hashCode());
+        return segments[hash >>> SegmentShift].get(probe, hash);
+    }
+
+    /**
+     * Returns a snapshot of the pool's counters.
+     *
+     * @return a snapshot of the pool's counters.
+     */
+    PoolStatistics getStatistics() {
+        long hits = 0, misses = 0, evictions = 0, size = 0;
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                segment.expungeStaleEntries();
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+                size += segment.size;
+            }
+        }
+        return new PoolStatistics(hits, misses, evictions, size);
+    }
+
+    /**
+     * Called when the given instance becomes the canonical one (i.e., when it
+     * is put into the pool). This method is called while the instance's
+     * segment is locked and before any other thread can obtain the instance
+     * from the pool. The default implementation does nothing.
+     *
+     * @param instance the new canonical instance.
+     */
+    void onInterned(T instance) {
+    }
+
+    private static int spread(int hash) {
+        // Mix the high bits into the low ones (and vice versa), so that both
+        // the segment and the bucket indices depend on the whole hash.
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash;
+    }
+
+    private static final class Entry<T> extends WeakReference<T> {
+
+        final int hash;
+        Entry<T> next;
+
+        Entry(T referent, int hash, ReferenceQueue<? super T> queue, Entry<T> next) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private static final class Segment<T> {
+
+        private static final int InitialCapacity = 16;
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        private Entry<T>[] table = newTable(InitialCapacity);
+        private int size;
+        private long hits;
+        private long misses;
+        private long evictions;
+
+        synchronized T intern(InterningPool<T> owner, T candidate, int hash) {
+            expungeStaleEntries();
+            T pooled = find(candidate, hash);
+            if (pooled != null) {
+                ++hits;
+                return pooled;
+            }
+            ++misses;
+            owner.onInterned(candidate);
+            int index = hash & (table.length - 1);
+            table[index] = new Entry<>(candidate, hash, queue, table[index]);
+            if (++size > table.length - (table.length >>> 2)) {
+                resize();
+            }
+            return candidate;
+        }
+
+        synchronized T get(T probe, int hash) {
+            expungeStaleEntries();
+            return find(probe, hash);
+        }
+
+        private T find(T probe, int hash) {
+            for (Entry<T> entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+                if (entry.hash == hash) {
+                    T pooled = entry.get();
+                    if (pooled != null && (pooled == probe || pooled.equals(probe))) {
+                        return pooled;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        void expungeStaleEntries() {
+            Entry<T> stale;
+            while ((stale = (Entry<T>) queue.poll()) != null) {
+                int index = stale.hash & (table.length - 1);
+                Entry<T> previous = null;
+                for (Entry<T> entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+                    if (entry == stale) {
+                        if (previous == null) {
+                            table[index] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                        --size;
+                        ++evictions;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void resize() {
+            Entry<T>[] newTable = newTable(table.length << 1);
+            for (Entry<T> head : table) {
+                Entry<T> entry = head;
+                while (entry != null) {
+                    Entry<T> next = entry.next;
+                    int index = entry.hash & (newTable.length - 1);
+                    entry.next = newTable[index];
+                    newTable[index] = entry;
+                    entry = next;
+                }
+            }
+            table = newTable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Entry<T>[] newTable(int capacity) {
+            return (Entry<T>[]) new Entry<?>[capacity];
+        }
+    }
+}
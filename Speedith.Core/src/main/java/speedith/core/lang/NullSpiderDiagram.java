@@ -72,6 +72,15 @@ public class NullSpiderDiagram extends SpiderDiagram {
         return curTransform == null ? this : curTransform;
     }
 
+    @Override
+    public SpiderDiagram transform(ContextTransformer t) {
+        if (t == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "t"));
+        }
+        SpiderDiagram curTransform = t.transform(this, 0, new TraversalContext());
+        return curTransform == null ? this : curTransform;
+    }
+
     @Override
     public int getSubDiagramCount() {
         return 1;
@@ -109,6 +118,16 @@ public class NullSpiderDiagram extends SpiderDiagram {
     public int hashCode() {
         return 0xb8e9561a;
     }
+
+    @Override
+    long computeFingerprint() {
+        return Fingerprints.NullSeed;
+    }
+
+    @Override
+    SpiderDiagram computeCanonicalForm() {
+        return this;
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="The Singleton Holder Class">
@@ -120,6 +139,7 @@ public class NullSpiderDiagram extends SpiderDiagram {
 
     // <editor-fold defaultstate="collapsed" desc="Private Constructor">
     private NullSpiderDiagram() {
+        assignStructuralId();
     }
     // </editor-fold>
 
@@ -0,0 +1,501 @@
+package speedith.core.lang;
+
+import java.util.*;
+
+/**
+ * An immutable sorted map that shares structure with the maps derived from
+ * it.
+ * <p>The map is a weight-balanced binary search tree over the natural order
+ * of its keys. {@link PersistentSortedMap#plus(java.lang.Object,
+ * java.lang.Object)} and {@link PersistentSortedMap#minus(java.lang.Object)}
+ * return new maps in {@code O(log n)} time. The new map copies only the path
+ * from the root to the changed entry and shares all other nodes with this
+ * one.</p>
+ * <p>The map implements the read-only part of {@link SortedMap} and compares
+ * equal to any other map with the same entries. All mutators throw {@link
+ * UnsupportedOperationException}.</p>
+ *
+ * @param <K> the type of keys. Keys must be mutually {@link Comparable}.
+ * @param <V> the type of values.
+ */
+final class PersistentSortedMap<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+
+    /**
+     * The balance parameters of the tree (see Hirai and Yamamoto, "Balancing
+     * weight-balanced trees", 2011).
+     */
+    private static final int Delta = 3;
+    private static final int Ratio = 2;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSortedMap Empty = new PersistentSortedMap<>(null);
+
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Node<K, V> root) {
+        this.root = root;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Factory Methods">
+
+    /**
+     * Returns the empty map.
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentSortedMap<K, V> empty() {
+        return Empty;
+    }
+
+    /**
+     * Returns a map with the entries of the given map. Takes linear time if
+     * the given map is sorted by the natural order of its keys.
+     *
+     * @param map the entries of the new map (may be {@code null}).
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentSortedMap<K, V> copyOf(Map<K, V> map) {
+        if (map instanceof PersistentSortedMap) {
+            return (PersistentSortedMap<K, V>) map;
+        } else if (map == null || map.isEmpty()) {
+            return empty();
+        }
+        Object[] keys = new Object[map.size()];
+        Object[] values = new Object[map.size()];
+        if (map instanceof SortedMap && ((SortedMap<K, V>) map).comparator() == null) {
+            int i = 0;
+            for (Entry<K, V> entry : map.entrySet()) {
+                keys[i] = entry.getKey();
+                values[i++] = entry.getValue();
+            }
+            return new PersistentSortedMap<>(PersistentSortedMap.<K, V>build(keys, values, 0, keys.length));
+        }
+        // Keys of a map are distinct, so sorting them suffices.
+        Object[] entries = map.entrySet().toArray();
+        Arrays.sort(entries, new Comparator<Object>() {
+            @Override
+            public int compare(Object a, Object b) {
+                return compareKeys(((Entry<?, ?>) a).getKey(), ((Entry<?, ?>) b).getKey());
+            }
+        });
+        for (int i = 0; i < entries.length; i++) {
+            Entry<?, ?> entry = (Entry<?, ?>) entries[i];
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue();
+        }
+        return new PersistentSortedMap<>(PersistentSortedMap.<K, V>build(keys, values, 0, keys.length));
+    }
+
+    /**
+     * Returns a map from the first {@code count} given keys, which must be
+     * sorted and distinct, to the given value. Takes linear time.
+     */
+    static <K, V> PersistentSortedMap<K, V> fromSortedKeys(Object[] keys, int count, V value) {
+        Object[] values = new Object[count];
+        Arrays.fill(values, value);
+        return count == 0 ? PersistentSortedMap.<K, V>empty() : new PersistentSortedMap<>(PersistentSortedMap.<K, V>build(keys, values, 0, count));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Persistent Updates">
+
+    /**
+     * Returns a map with the given entry added (or its value replaced). Returns
+     * this map if it already contains an equal entry.
+     */
+    PersistentSortedMap<K, V> plus(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        Node<K, V> newRoot = plus(root, key, value);
+        return newRoot == root ? this : new PersistentSortedMap<>(newRoot);
+    }
+
+    /**
+     * Returns a map without the entry with the given key. Returns this map if
+     * it contains no such entry.
+     */
+    PersistentSortedMap<K, V> minus(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Node<K, V> newRoot = minus(root, key);
+        return newRoot == root ? this : new PersistentSortedMap<>(newRoot);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Map Implementation">
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new NodeIterator<K, V, Entry<K, V>>(root) {
+                    @Override
+                    Entry<K, V> element(Node<K, V> node) {
+                        return node;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PersistentSortedMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the keys of this map in ascending order.
+     */
+    Iterator<K> keyIterator() {
+        return new NodeIterator<K, V, K>(root) {
+            @Override
+            K element(Node<K, V> node) {
+                return node.key;
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+
+    @Override
+    public K firstKey() {
+        return firstEntry().getKey();
+    }
+
+    @Override
+    public K lastKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node<K, V> node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.key;
+    }
+
+    /**
+     * Returns the entry with the smallest key.
+     *
+     * @throws NoSuchElementException if the map is empty.
+     */
+    Entry<K, V> firstEntry() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        Node<K, V> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        if (compareKeys(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return range(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return range(null, toKey);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return range(fromKey, null);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Tree Operations">
+
+    /**
+     * Compares the given keys by their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    static int compareKeys(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private Node<K, V> find(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = compareKeys(key, node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a new map with the entries whose keys lie in the given half-open
+     * range (a {@code null} bound is unbounded). Takes time linear in the size
+     * of the result.
+     */
+    private PersistentSortedMap<K, V> range(K fromKey, K toKey) {
+        ArrayList<Node<K, V>> nodes = new ArrayList<>();
+        collect(root, fromKey, toKey, nodes);
+        Object[] keys = new Object[nodes.size()];
+        Object[] values = new Object[nodes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = nodes.get(i).key;
+            values[i] = nodes.get(i).value;
+        }
+        return keys.length == size() ? this : new PersistentSortedMap<>(PersistentSortedMap.<K, V>build(keys, values, 0, keys.length));
+    }
+
+    private static <K, V> void collect(Node<K, V> node, K fromKey, K toKey, ArrayList<Node<K, V>> nodes) {
+        if (node != null) {
+            boolean aboveFrom = fromKey == null || compareKeys(node.key, fromKey) >= 0;
+            boolean belowTo = toKey == null || compareKeys(node.key, toKey) < 0;
+            if (aboveFrom) {
+                collect(node.left, fromKey, toKey, nodes);
+            }
+            if (aboveFrom && belowTo) {
+                nodes.add(node);
+            }
+            if (belowTo) {
+                collect(node.right, fromKey, toKey, nodes);
+            }
+        }
+    }
+
+    /**
+     * Builds a perfectly balanced tree from the given sorted keys.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> build(Object[] keys, Object[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node<>((K) keys[middle], (V) values[middle], PersistentSortedMap.<K, V>build(keys, values, from, middle), PersistentSortedMap.<K, V>build(keys, values, middle + 1, to));
+    }
+
+    private static <K, V> Node<K, V> plus(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = compareKeys(key, node.key);
+        if (cmp < 0) {
+            Node<K, V> left = plus(node.left, key, value);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node<K, V> right = plus(node.right, key, value);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        } else if (value == null ? node.value == null : value.equals(node.value)) {
+            return node;
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    private static <K, V> Node<K, V> minus(Node<K, V> node, Object key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compareKeys(key, node.key);
+        if (cmp < 0) {
+            Node<K, V> left = minus(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node<K, V> right = minus(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return glue(node.left, node.right);
+    }
+
+    /**
+     * Joins two balanced trees whose sizes are within the balance bounds and
+     * whose keys are all smaller in the left one.
+     */
+    private static <K, V> Node<K, V> glue(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.size > right.size) {
+            Node<K, V> max = left;
+            while (max.right != null) {
+                max = max.right;
+            }
+            return balance(max.key, max.value, removeMax(left), right);
+        } else {
+            Node<K, V> min = right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            return balance(min.key, min.value, left, removeMin(right));
+        }
+    }
+
+    private static <K, V> Node<K, V> removeMin(Node<K, V> node) {
+        return node.left == null ? node.right : balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    private static <K, V> Node<K, V> removeMax(Node<K, V> node) {
+        return node.right == null ? node.left : balance(node.key, node.value, node.left, removeMax(node.right));
+    }
+
+    /**
+     * Creates a node with the given children, which may be off balance by at
+     * most one insertion or deletion, and restores the balance by rotations.
+     */
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        if (!isBalanced(left, right)) {
+            return isSingle(right.left, right.right)
+                   ? new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right)
+                   : new Node<>(right.left.key, right.left.value, new Node<>(key, value, left, right.left.left), new Node<>(right.key, right.value, right.left.right, right.right));
+        } else if (!isBalanced(right, left)) {
+            return isSingle(left.right, left.left)
+                   ? new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right))
+                   : new Node<>(left.right.key, left.right.value, new Node<>(left.key, left.value, left.left, left.right.left), new Node<>(key, value, left.right.right, right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * Indicates whether the {@code heavy} subtree is not too heavy compared to
+     * the {@code light} one.
+     */
+    private static boolean isBalanced(Node<?, ?> light, Node<?, ?> heavy) {
+        return Delta * (size(light) + 1) >= size(heavy) + 1;
+    }
+
+    private static boolean isSingle(Node<?, ?> inner, Node<?, ?> outer) {
+        return size(inner) + 1 < Ratio * (size(outer) + 1);
+    }
+
+    static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Nodes and Iteration">
+
+    /**
+     * An immutable tree node, which is also the map entry it holds.
+     */
+    static final class Node<K, V> implements Entry<K, V> {
+
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) obj;
+            return key.equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Visits the nodes of a tree in order with an explicit stack.
+     */
+    abstract static class NodeIterator<K, V, T> implements Iterator<T> {
+
+        private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+
+        NodeIterator(Node<K, V> root) {
+            pushLeftPath(root);
+        }
+
+        abstract T element(Node<K, V> node);
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = stack.pop();
+            pushLeftPath(node.right);
+            return element(node);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void pushLeftPath(Node<K, V> node) {
+            for (; node != null; node = node.left) {
+                stack.push(node);
+            }
+        }
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,168 @@
+package speedith.core.lang;
+
+import java.util.*;
+
+/**
+ * An immutable sorted set that shares structure with the sets derived from
+ * it (see {@link PersistentSortedMap}, which stores the elements as keys).
+ * <p>The set implements the read-only part of {@link SortedSet} and compares
+ * equal to any other set with the same elements. All mutators throw {@link
+ * UnsupportedOperationException}.</p>
+ *
+ * @param <E> the type of elements. Elements must be mutually {@link
+ *            Comparable}.
+ */
+final class PersistentSortedSet<E> extends AbstractSet<E> implements SortedSet<E> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSortedSet Empty = new PersistentSortedSet<Object>(PersistentSortedMap.<Object, Boolean>empty());
+
+    private final PersistentSortedMap<E, Boolean> map;
+
+    private PersistentSortedSet(PersistentSortedMap<E, Boolean> map) {
+        this.map = map;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Factory Methods">
+
+    /**
+     * Returns the empty set.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentSortedSet<E> empty() {
+        return Empty;
+    }
+
+    /**
+     * Returns a set with the elements of the given collection. Takes linear
+     * time if the collection is a set sorted by the natural order of its
+     * elements.
+     *
+     * @param elements the elements of the new set (duplicates are ignored). May
+     *                 be {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentSortedSet<E> copyOf(Collection<E> elements) {
+        if (elements instanceof PersistentSortedSet) {
+            return (PersistentSortedSet<E>) elements;
+        } else if (elements == null || elements.isEmpty()) {
+            return empty();
+        }
+        Object[] sorted = elements.toArray();
+        int count = sorted.length;
+        if (!(elements instanceof SortedSet && ((SortedSet<E>) elements).comparator() == null)) {
+            Arrays.sort(sorted);
+            count = 0;
+            for (Object element : sorted) {
+                if (count == 0 || PersistentSortedMap.compareKeys(sorted[count - 1], element) != 0) {
+                    sorted[count++] = element;
+                }
+            }
+        }
+        return new PersistentSortedSet<>(PersistentSortedMap.<E, Boolean>fromSortedKeys(sorted, count, Boolean.TRUE));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Persistent Updates">
+
+    /**
+     * Returns a set with the given element added. Returns this set if it
+     * already contains the element.
+     */
+    PersistentSortedSet<E> plus(E element) {
+        PersistentSortedMap<E, Boolean> newMap = map.plus(element, Boolean.TRUE);
+        return newMap == map ? this : new PersistentSortedSet<>(newMap);
+    }
+
+    /**
+     * Returns a set with all the given elements added. Returns this set if it
+     * already contains all of them.
+     */
+    PersistentSortedSet<E> plusAll(Collection<? extends E> elements) {
+        PersistentSortedMap<E, Boolean> newMap = map;
+        for (E element : elements) {
+            newMap = newMap.plus(element, Boolean.TRUE);
+        }
+        return newMap == map ? this : new PersistentSortedSet<>(newMap);
+    }
+
+    /**
+     * Returns a set without the given element. Returns this set if it does not
+     * contain the element.
+     */
+    PersistentSortedSet<E> minus(Object element) {
+        PersistentSortedMap<E, Boolean> newMap = map.minus(element);
+        return newMap == map ? this : new PersistentSortedSet<>(newMap);
+    }
+
+    /**
+     * Returns a set without any of the given elements. Returns this set if it
+     * contains none of them.
+     */
+    PersistentSortedSet<E> minusAll(Collection<?> elements) {
+        PersistentSortedMap<E, Boolean> newMap = map;
+        for (Object element : elements) {
+            newMap = newMap.minus(element);
+        }
+        return newMap == map ? this : new PersistentSortedSet<>(newMap);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Set Implementation">
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return map.containsKey(element);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return map.keyIterator();
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return null;
+    }
+
+    @Override
+    public E first() {
+        return map.firstKey();
+    }
+
+    @Override
+    public E last() {
+        return map.lastKey();
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return fromRange(map.subMap(fromElement, toElement));
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return fromRange(map.headMap(toElement));
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return fromRange(map.tailMap(fromElement));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Methods">
+    private PersistentSortedSet<E> fromRange(SortedMap<E, Boolean> range) {
+        return range == map ? this : new PersistentSortedSet<>((PersistentSortedMap<E, Boolean>) range);
+    }
+    // </editor-fold>
+}
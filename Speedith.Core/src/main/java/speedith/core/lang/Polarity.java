@@ -0,0 +1,26 @@
+package speedith.core.lang;
+
+/**
+ * The polarity of a sub-diagram relative to the whole spider diagram (see
+ * {@link SpiderDiagram#getPolarityOf(int)}).
+ * <p>A sub-diagram is negative if it is below an odd number of negations and
+ * left-hand sides of implications. Sub-diagrams below an equivalence are
+ * neither positive nor negative.</p>
+ */
+public enum Polarity {
+
+    /**
+     * The sub-diagram appears positively (for example, the whole diagram or
+     * the right-hand side of an implication).
+     */
+    Positive,
+    /**
+     * The sub-diagram appears negatively (for example, the operand of a
+     * negation or the left-hand side of an implication).
+     */
+    Negative,
+    /**
+     * The sub-diagram appears within an operand of an equivalence.
+     */
+    Equivalence
+}
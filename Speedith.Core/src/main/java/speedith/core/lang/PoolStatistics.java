@@ -0,0 +1,78 @@
+package speedith.core.lang;
+
+/**
+ * A snapshot of the counters of the spider diagram pool (see {@link
+ * SpiderDiagrams#getPoolStatistics()}).
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class PoolStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+
+    PoolStatistics(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of lookups that found an equal diagram in the pool
+     * (and returned the pooled instance).
+     *
+     * @return the number of lookups that found an equal diagram in the pool.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find an equal diagram in the
+     * pool (and put a new diagram into it).
+     *
+     * @return the number of lookups that put a new diagram into the pool.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of pooled diagrams that were dropped from the pool
+     * after they had been garbage collected.
+     *
+     * @return the number of diagrams evicted from the pool.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of diagrams in the pool at the time of the snapshot.
+     * <p>This number may include diagrams that have already been garbage
+     * collected but whose pool entries have not been evicted yet.</p>
+     *
+     * @return the number of diagrams in the pool.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the ratio of hits to all lookups, or {@code 0} if there were no
+     * lookups.
+     *
+     * @return the ratio of hits to all lookups.
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size + '}';
+    }
+}
@@ -29,7 +29,6 @@ package speedith.core.lang;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
-import propity.util.Sets;
 import static propity.util.Sets.equal;
 import static speedith.core.i18n.Translations.i18n;
 
@@ -80,14 +79,17 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * diagrams (see {@link SpiderDiagram#toString()}).</p>
      */
     public static final String SDTextSpidersAttribute = "spiders";
-    private final TreeSet<String> spiders;
-    private final TreeMap<String, Region> spiderHabitatsMap;
-    private final TreeSet<Zone> shadedZones;
-    private final TreeSet<Zone> presentZones;
-    private TreeSet<String> contours;
+    // Persistent collections let derived diagrams share all unchanged
+    // structure with the diagrams they were derived from.
+    private final PersistentSortedSet<String> spiders;
+    private final PersistentSortedMap<String, Region> spiderHabitatsMap;
+    private final PersistentSortedSet<Zone> shadedZones;
+    private final PersistentSortedSet<Zone> presentZones;
+    private SortedSet<String> contours;
     private boolean hashInvalid = true;
     private int hash;
     private Boolean valid;
+    private volatile ZoneSpiderIndex zoneSpiderIndex;
 
     /**
      * Creates an instance of a primary spider diagram with the given spiders,
@@ -103,17 +105,18 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * if possible (see {@link PrimarySpiderDiagram#getPresentZones()}).
      */
     PrimarySpiderDiagram(Collection<String> spiders, Map<String, Region> habitats, Collection<Zone> shadedZones, Collection<Zone> presentZones) {
-        this(spiders == null ? null : new TreeSet<>(spiders),
-                habitats == null ? null : new TreeMap<>(habitats),
-                shadedZones == null ? null : new TreeSet<>(shadedZones),
-                presentZones == null ? null : new TreeSet<>(presentZones));
+        this(PersistentSortedSet.copyOf(spiders),
+                PersistentSortedMap.copyOf(habitats),
+                PersistentSortedSet.copyOf(shadedZones),
+                PersistentSortedSet.copyOf(presentZones));
     }
 
     /**
      * Initialises a new primary spider diagram with the given set of spiders,
      * habitats and shaded zones. <p>Note that this method does <span
      * style="font-weight:bold">not</span> make copies of the input
-     * parameters.</p>
+     * parameters (which are immutable and may be shared with other
+     * diagrams).</p>
      *
      * @param spiders a set of spiders (their names) that appear in this spider
      * diagram.
@@ -123,7 +126,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * @param presentZones the set of zones that should be drawn in the diagram
      * if possible (see {@link PrimarySpiderDiagram#getPresentZones()}).
      */
-    PrimarySpiderDiagram(TreeSet<String> spiders, TreeMap<String, Region> habitats, TreeSet<Zone> shadedZones, TreeSet<Zone> presentZones) {
+    PrimarySpiderDiagram(PersistentSortedSet<String> spiders, PersistentSortedMap<String, Region> habitats, PersistentSortedSet<Zone> shadedZones, PersistentSortedSet<Zone> presentZones) {
         // TODO: This should be checked in 'isValid'. The construction of a
         // primary spider diagram should be as quick as possible (just reference
         // assignments). Also check that no habitat is an empty or null region
@@ -140,15 +143,17 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
         } else if (habitats != null) {
             // But if there are some spiders, then we have to check that the
             // habitats don't talk about non-existent spiders.
-            if (!Sets.isNaturalSubset(habitats.navigableKeySet(), spiders)) {
-                throw new IllegalArgumentException(i18n("ERR_SD_HABITATS_WITHOUT_SPIDERS"));
+            for (String spider : habitats.keySet()) {
+                if (!spiders.contains(spider)) {
+                    throw new IllegalArgumentException(i18n("ERR_SD_HABITATS_WITHOUT_SPIDERS"));
+                }
             }
         }
 
-        this.spiders = spiders == null ? new TreeSet<String>() : spiders;
-        this.spiderHabitatsMap = habitats == null ? new TreeMap<String, Region>() : habitats;
-        this.shadedZones = shadedZones == null ? new TreeSet<Zone>() : shadedZones;
-        this.presentZones = presentZones == null ? new TreeSet<Zone>() : presentZones;
+        this.spiders = spiders == null ? PersistentSortedSet.<String>empty() : spiders;
+        this.spiderHabitatsMap = habitats == null ? PersistentSortedMap.<String, Region>empty() : habitats;
+        this.shadedZones = shadedZones == null ? PersistentSortedSet.<Zone>empty() : shadedZones;
+        this.presentZones = presentZones == null ? PersistentSortedSet.<Zone>empty() : presentZones;
     }
 
     /**
@@ -160,7 +165,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * {@link Region habitats}.
      */
     public SortedMap<String, Region> getHabitats() {
-        return Collections.unmodifiableSortedMap(spiderHabitatsMap);
+        return spiderHabitatsMap;
     }
 
     /**
@@ -181,7 +186,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * @return a set of shaded {@link Zone zones} in this spider diagram..
      */
     public SortedSet<Zone> getShadedZones() {
-        return Collections.unmodifiableSortedSet(shadedZones);
+        return shadedZones;
     }
 
     /**
@@ -208,7 +213,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * {@code null}.</p>
      */
     public SortedSet<Zone> getPresentZones() {
-        return Collections.unmodifiableSortedSet(presentZones);
+        return presentZones;
     }
 
     /**
@@ -231,7 +236,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * diagram.
      */
     public SortedSet<String> getSpiders() {
-        return Collections.unmodifiableSortedSet(spiders);
+        return spiders;
     }
 
     /**
@@ -296,15 +301,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * @return the number of spider that have a foot in the given zone.
      */
     public int getSpiderCountInZone(Zone z) {
-        int count = 0;
-        if (getHabitatsCount() > 0) {
-            for (Region region : getHabitats().values()) {
-                if (region.contains(z)) {
-                    ++count;
-                }
-            }
-        }
-        return count;
+        return getZoneSpiderIndex().getSpiderCount(z);
     }
 
     /**
@@ -313,15 +310,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * @return the spiders that have a foot in the given zone.
      */
     public TreeSet<String> getSpidersInZone(Zone z) {
-        TreeSet<String> count = new TreeSet<>();
-        if (getHabitatsCount() > 0) {
-            for (Entry<String, Region> habitat : getHabitats().entrySet()) {
-                if (habitat.getValue().contains(z)) {
-                    count.add(habitat.getKey());
-                }
-            }
-        }
-        return count;
+        return getZoneSpiderIndex().getSpiders(z);
     }
 
     @Override
@@ -341,6 +330,15 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
         return curTransform == null ? this : curTransform;
     }
 
+    @Override
+    public SpiderDiagram transform(ContextTransformer t) {
+        if (t == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "t"));
+        }
+        SpiderDiagram curTransform = t.transform(this, 0, new TraversalContext());
+        return curTransform == null ? this : curTransform;
+    }
+
     @Override
     public int getSubDiagramCount() {
         return 1;
@@ -365,54 +363,24 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
     }
 
     public PrimarySpiderDiagram addShading(Collection<Zone> zones) {
-        TreeSet<Zone> newShadedZones = new TreeSet<>(shadedZones);
         for (Zone newShadedZone : zones) {
             if (!newShadedZone.isValid(getAllContours())) {
                 throw new IllegalArgumentException("The zone '" + newShadedZone + "' is not valid in this diagram.");
             }
         }
-        newShadedZones.addAll(zones);
-        return new PrimarySpiderDiagram(
-                spiders,
-                spiderHabitatsMap,
-                newShadedZones,
-                presentZones
-        );
+        return new PrimarySpiderDiagramBuilder(this).addShadedZones(zones).build();
     }
 
     @Override
     public boolean equals(Object other) {
+        // Two distinct interned diagrams are never equal (there is only one
+        // interned instance of every diagram).
         return other == this ||
                (other instanceof PrimarySpiderDiagram &&
+                !(isCanonical() && ((PrimarySpiderDiagram) other).isCanonical()) &&
                 __isPsdEqual((PrimarySpiderDiagram) other));
     }
 
-    @Override
-    public boolean isSEquivalentTo(SpiderDiagram other) {
-        if (equals(other)) {
-            return true;
-        }
-        // Well, firstly, the diagrams have to be of the same type:
-        if (other instanceof PrimarySpiderDiagram) {
-            PrimarySpiderDiagram psd = (PrimarySpiderDiagram) other;
-            // The primary spider diagrams must have the same number of spiders:
-            if (getSpidersCount() != psd.getSpidersCount()) {
-                return false;
-            }
-            // Now they also have to have the same habitats (with possibly mixed
-            // spider names)
-            if (!__sameHabitats(psd)) {
-                return false;
-            }
-            // Also, shaded zones should be the same!
-            return equal(shadedZones, psd.shadedZones);
-
-            // NOTE: Present zones do not influence the semantics of the spider
-            // diagram.
-        }
-        return false;
-    }
-
     @Override
     public int hashCode() {
         if (hashInvalid) {
@@ -425,6 +393,44 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
         return hash;
     }
 
+    @Override
+    long computeFingerprint() {
+        long fingerprint = Fingerprints.combine(Fingerprints.PrimarySeed, spiders.size());
+        for (String spider : spiders) {
+            fingerprint = Fingerprints.combine(fingerprint, Fingerprints.ofString(spider));
+        }
+        fingerprint = Fingerprints.combine(fingerprint, spiderHabitatsMap.size());
+        for (Entry<String, Region> habitat : spiderHabitatsMap.entrySet()) {
+            fingerprint = Fingerprints.combine(fingerprint, Fingerprints.ofString(habitat.getKey()));
+            fingerprint = Fingerprints.combine(fingerprint, Fingerprints.ofRegion(habitat.getValue()));
+        }
+        fingerprint = combineZoneFingerprints(fingerprint, shadedZones);
+        return combineZoneFingerprints(fingerprint, presentZones);
+    }
+
+    /**
+     * The canonical form of a primary diagram has no present zones and its
+     * spiders are renamed so that the {@code i}-th spider gets the {@code
+     * i}-th habitat in the natural order of regions (spiders without a habitat
+     * come last). Thus two diagrams have the same canonical form iff they have
+     * the same number of spiders, the same habitats (regardless of spider
+     * names), and the same shaded zones.
+     */
+    @Override
+    SpiderDiagram computeCanonicalForm() {
+        Region[] habitats = spiderHabitatsMap.values().toArray(new Region[spiderHabitatsMap.size()]);
+        Arrays.sort(habitats);
+        PrimarySpiderDiagramBuilder builder = new PrimarySpiderDiagramBuilder().addShadedZones(shadedZones);
+        for (int i = 0; i < spiders.size(); i++) {
+            String spider = "s" + i;
+            builder.addSpider(spider);
+            if (i < habitats.length) {
+                builder.setHabitat(spider, habitats[i]);
+            }
+        }
+        return builder.build();
+    }
+
     /**
      * Creates a copy of this primary spider diagram that contains the given
      * spider and its habitat. <p>If the original primary spider diagram already
@@ -437,28 +443,41 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      * spider and its habitat.
      */
     public PrimarySpiderDiagram addSpider(String spider, Region habitat) {
-        // Add the habitat to the map of spiders and their habitats.
-        TreeMap<String, Region> newHabitats = (spiderHabitatsMap == null) ? new TreeMap<String, Region>() : new TreeMap<>(spiderHabitatsMap);
-        newHabitats.put(spider, habitat);
-        // Now add the spider to the set of all spiders. Maybe we can reuse the
-        // set if it already contains the spider.
-        TreeSet<String> newSpiders;
-        if (spiders != null) {
-            if (spiders.contains(spider)) {
-                newSpiders = spiders;
-            } else {
-                newSpiders = new TreeSet<>(spiders);
-                newSpiders.add(spider);
-            }
-        } else {
-            newSpiders = new TreeSet<>();
-            newSpiders.add(spider);
-        }
-        // Finally construct the spider diagram (without making any copies of
-        // the spiders, habitats, and shaded zones collections).
-        return SpiderDiagrams.createPrimarySD(newSpiders, newHabitats, shadedZones, presentZones, false);
+        // The new diagram shares the zone sets and all unchanged parts of the
+        // spider set and habitat map with this diagram.
+        return new PrimarySpiderDiagramBuilder(this).addSpider(spider, habitat).build();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Builder Support">
+    /**
+     * Returns the persistent set of spiders of this diagram.
+     */
+    PersistentSortedSet<String> getSpiderSet() {
+        return spiders;
+    }
+
+    /**
+     * Returns the persistent map of habitats of this diagram.
+     */
+    PersistentSortedMap<String, Region> getHabitatMap() {
+        return spiderHabitatsMap;
+    }
+
+    /**
+     * Returns the persistent set of shaded zones of this diagram.
+     */
+    PersistentSortedSet<Zone> getShadedZoneSet() {
+        return shadedZones;
     }
 
+    /**
+     * Returns the persistent set of present zones of this diagram.
+     */
+    PersistentSortedSet<Zone> getPresentZoneSet() {
+        return presentZones;
+    }
+    // </editor-fold>
+
     @Override
     public void toString(Appendable sb) throws IOException {
         if (sb == null) {
@@ -538,6 +557,14 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
         sb.append(']');
     }
 
+    private static long combineZoneFingerprints(long fingerprint, SortedSet<Zone> zones) {
+        fingerprint = Fingerprints.combine(fingerprint, zones.size());
+        for (Zone zone : zones) {
+            fingerprint = Fingerprints.combine(fingerprint, zone.getFingerprint());
+        }
+        return fingerprint;
+    }
+
     /**
      * Checks for syntactical and
      */
@@ -551,86 +578,44 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
     }
 
     /**
-     * Checks whether this and the given primary spider diagrams have the same
-     * habitats for their spiders (invariant under spider names). <p>This method
-     * can be used to check for semantic equivalence.</p>
+     * Picks a zone mentioned in this primary spider diagram and takes the
+     * {@link ContourSymbols contour table} of that zone as the set of all
+     * contours in this diagram.
      */
-    private boolean __sameHabitats(PrimarySpiderDiagram psd) {
-        if (getHabitatsCount() != psd.getHabitatsCount()) {
-            return false;
-        } else if (getHabitatsCount() <= 0) {
-            return true;
-        }
-        // There are some habitats. We have to make sure that they are exactly
-        // the same if both are sorted:
-        Object[] habitatsA = spiderHabitatsMap.values().toArray();
-        Object[] habitatsB = psd.spiderHabitatsMap.values().toArray();
-        Arrays.sort(habitatsA);
-        Arrays.sort(habitatsB);
-        for (int i = 0; i < habitatsA.length; i++) {
-            if (!habitatsA[i].equals(habitatsB[i])) {
-                return false;
-            }
+    private void extractContours() {
+        if (contours == null) {
+            Zone zone = getAnyZone();
+            contours = zone == null ? ContourSymbols.Empty.asSortedSet() : zone.getAllContours();
         }
-        return true;
     }
 
     /**
-     * Traverses all zones mentioned in this primary spider diagram and collects
-     * all names of contours mentioned in these zones.
+     * Returns the index of spiders by the zones in which they have a foot. The
+     * index is built on first use.
      */
-    private void extractContours() {
-        if (contours == null) {
-            contours = new TreeSet<>();
-            if (extractContoursFromHabitats()
-                    || extractContoursFromShadedZones()
-                    || extractContoursFromPresentZones());
+    private ZoneSpiderIndex getZoneSpiderIndex() {
+        ZoneSpiderIndex index = zoneSpiderIndex;
+        if (index == null) {
+            index = new ZoneSpiderIndex(spiderHabitatsMap);
+            zoneSpiderIndex = index;
         }
+        return index;
     }
 
-    private boolean extractContoursFromHabitats() {
+    private Zone getAnyZone() {
         if (getHabitatsCount() > 0) {
             Region region = spiderHabitatsMap.firstEntry().getValue();
             if (region.getZonesCount() > 0) {
-                Zone zone = region.sortedZones().first();
-                if (zone.getInContoursCount() > 0) {
-                    contours.addAll(zone.getInContours());
-                }
-                if (zone.getOutContoursCount() > 0) {
-                    contours.addAll(zone.getOutContours());
-                }
-                return true;
+                return region.sortedZones().first();
             }
         }
-        return false;
-    }
-
-    private boolean extractContoursFromShadedZones() {
         if (getShadedZonesCount() > 0) {
-            Zone zone = shadedZones.first();
-            if (zone.getInContoursCount() > 0) {
-                contours.addAll(zone.getInContours());
-            }
-            if (zone.getOutContoursCount() > 0) {
-                contours.addAll(zone.getOutContours());
-            }
-            return true;
+            return shadedZones.first();
         }
-        return false;
-    }
-
-    private boolean extractContoursFromPresentZones() {
         if (getPresentZonesCount() > 0) {
-            Zone zone = presentZones.first();
-            if (zone.getInContoursCount() > 0) {
-                contours.addAll(zone.getInContours());
-            }
-            if (zone.getOutContoursCount() > 0) {
-                contours.addAll(zone.getOutContours());
-            }
-            return true;
+            return presentZones.first();
         }
-        return false;
+        return null;
     }
 
     /**
@@ -708,7 +693,7 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
      */
     SortedSet<String> getContours() {
         extractContours();
-        return Collections.unmodifiableSortedSet(contours);
+        return contours;
     }
 
     /**
@@ -720,7 +705,8 @@ public class PrimarySpiderDiagram extends SpiderDiagram {
         sb.append('(');
         printString(sb, spider);
         sb.append(", ");
-        region.toString(sb).append(')');
+        printRegion(sb, region);
+        sb.append(')');
     }
 
     static class AtomicSpiderDiagramIterator implements Iterator<SpiderDiagram> {
@@ -0,0 +1,241 @@
+package speedith.core.lang;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * A mutable builder of {@link PrimarySpiderDiagram primary spider diagrams}.
+ * <p>The builder collects spiders, habitats, shaded zones and present zones
+ * and {@link PrimarySpiderDiagramBuilder#build() builds} the diagram without
+ * copying them again. The built diagram is interned into the pool of spider
+ * diagrams exactly once (see {@link SpiderDiagrams}).</p>
+ * <p>The builder keeps its collections in persistent structures. A builder
+ * that starts from an existing diagram shares the diagram's collections, and
+ * every change creates only the few tree nodes on the path to the changed
+ * element. For example, adding a spider to a diagram with a thousand spiders
+ * allocates about a dozen nodes and leaves the shaded and present zones
+ * untouched. Built diagrams share their collections with the builder, so the
+ * builder may be used again after {@link PrimarySpiderDiagramBuilder#build()}.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class PrimarySpiderDiagramBuilder {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private PersistentSortedSet<String> spiders;
+    private PersistentSortedMap<String, Region> habitats;
+    private PersistentSortedSet<Zone> shadedZones;
+    private PersistentSortedSet<Zone> presentZones;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+
+    /**
+     * Creates a builder of a diagram without spiders and zones.
+     */
+    public PrimarySpiderDiagramBuilder() {
+        spiders = PersistentSortedSet.empty();
+        habitats = PersistentSortedMap.empty();
+        shadedZones = PersistentSortedSet.empty();
+        presentZones = PersistentSortedSet.empty();
+    }
+
+    /**
+     * Creates a builder that starts with the spiders, habitats, shaded zones
+     * and present zones of the given diagram.
+     *
+     * @param diagram the diagram to start from.
+     */
+    public PrimarySpiderDiagramBuilder(PrimarySpiderDiagram diagram) {
+        if (diagram == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "diagram"));
+        }
+        spiders = diagram.getSpiderSet();
+        habitats = diagram.getHabitatMap();
+        shadedZones = diagram.getShadedZoneSet();
+        presentZones = diagram.getPresentZoneSet();
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Spiders and Habitats">
+
+    /**
+     * Adds the given spider (without changing its habitat).
+     *
+     * @param spider the name of the spider.
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder addSpider(String spider) {
+        checkNotNull(spider, "spider");
+        spiders = spiders.plus(spider);
+        return this;
+    }
+
+    /**
+     * Adds the given spider and sets its habitat (replacing the old one).
+     *
+     * @param spider  the name of the spider.
+     * @param habitat the habitat of the spider.
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder addSpider(String spider, Region habitat) {
+        return addSpider(spider).setHabitat(spider, habitat);
+    }
+
+    /**
+     * Adds all the given spiders (without changing their habitats).
+     *
+     * @param spiders the names of spiders (may be {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder addSpiders(Collection<String> spiders) {
+        if (spiders != null) {
+            for (String spider : spiders) {
+                addSpider(spider);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Removes the given spider together with its habitat.
+     *
+     * @param spider the name of the spider.
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder removeSpider(String spider) {
+        spiders = spiders.minus(spider);
+        habitats = habitats.minus(spider);
+        return this;
+    }
+
+    /**
+     * Removes all the given spiders together with their habitats.
+     *
+     * @param spiders the names of spiders (may be {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder removeSpiders(Collection<String> spiders) {
+        if (spiders != null) {
+            for (String spider : spiders) {
+                removeSpider(spider);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets the habitat of the given spider (replacing the old one).
+     * <p>This method does not add the spider. A diagram with habitats of
+     * spiders that were not added cannot be {@link
+     * PrimarySpiderDiagramBuilder#build() built}.</p>
+     *
+     * @param spider  the name of the spider.
+     * @param habitat the habitat of the spider.
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder setHabitat(String spider, Region habitat) {
+        checkNotNull(spider, "spider");
+        checkNotNull(habitat, "habitat");
+        habitats = habitats.plus(spider, habitat);
+        return this;
+    }
+
+    /**
+     * Sets the habitats of all the given spiders (see {@link
+     * PrimarySpiderDiagramBuilder#setHabitat(java.lang.String,
+     * speedith.core.lang.Region)}).
+     *
+     * @param habitats a map from spider names to their habitats (may be
+     *                 {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder setHabitats(Map<String, Region> habitats) {
+        if (habitats != null) {
+            for (Map.Entry<String, Region> habitat : habitats.entrySet()) {
+                setHabitat(habitat.getKey(), habitat.getValue());
+            }
+        }
+        return this;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Zones">
+
+    /**
+     * Adds the given zones to the shaded zones.
+     *
+     * @param zones the zones to shade (may be {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder addShadedZones(Collection<Zone> zones) {
+        if (zones != null) {
+            shadedZones = shadedZones.plusAll(zones);
+        }
+        return this;
+    }
+
+    /**
+     * Removes the given zones from the shaded zones.
+     *
+     * @param zones the zones to unshade (may be {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder removeShadedZones(Collection<Zone> zones) {
+        if (zones != null) {
+            shadedZones = shadedZones.minusAll(zones);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the given zones to the present zones (see {@link
+     * PrimarySpiderDiagram#getPresentZones()}).
+     *
+     * @param zones the zones to add (may be {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder addPresentZones(Collection<Zone> zones) {
+        if (zones != null) {
+            presentZones = presentZones.plusAll(zones);
+        }
+        return this;
+    }
+
+    /**
+     * Removes the given zones from the present zones (see {@link
+     * PrimarySpiderDiagram#getPresentZones()}).
+     *
+     * @param zones the zones to remove (may be {@code null}).
+     * @return this builder.
+     */
+    public PrimarySpiderDiagramBuilder removePresentZones(Collection<Zone> zones) {
+        if (zones != null) {
+            presentZones = presentZones.minusAll(zones);
+        }
+        return this;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Building">
+
+    /**
+     * Returns the pooled primary spider diagram with the spiders, habitats and
+     * zones of this builder.
+     *
+     * @return the pooled primary spider diagram.
+     */
+    public PrimarySpiderDiagram build() {
+        return SpiderDiagrams.createPrimarySD(spiders, habitats, shadedZones, presentZones);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Methods">
+    private static void checkNotNull(Object argument, String name) {
+        if (argument == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", name));
+        }
+    }
+    // </editor-fold>
+}
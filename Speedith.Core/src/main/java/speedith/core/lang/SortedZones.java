@@ -0,0 +1,370 @@
+package speedith.core.lang;
+
+import java.util.*;
+
+/**
+ * An immutable set of zones stored in a sorted array (the storage behind
+ * {@link Region}).
+ * <p>If all zones are valid zones over the same {@link
+ * ContourSymbols#isCompact() compact} contour table (the common case of
+ * habitats and shaded regions), then the set also stores the in-contour mask
+ * of every zone. The masks are sorted in the natural order of the zones they
+ * stand for and set operations work on the masks only. The zones themselves
+ * are kept as given (so interned zones stay shared) or, in the results of set
+ * operations, created on first access and kept from then on. All other sets
+ * store only their zones.</p>
+ * <p>Union, difference, subset checks and comparison are linear merges of the
+ * two sorted arrays.</p>
+ */
+final class SortedZones extends AbstractCollection<Zone> {
+
+    /**
+     * The set with no zones.
+     */
+    static final SortedZones Empty = new SortedZones(null, null, new Zone[0]);
+
+    /**
+     * The contour table of all zones (if {@code inMasks} is not {@code null}).
+     */
+    private final ContourSymbols contours;
+    private final long[] inMasks;
+    /**
+     * The zones of this set in their natural order. If {@code inMasks} is not
+     * {@code null}, an entry is {@code null} until the zone is first accessed.
+     */
+    private final Zone[] zones;
+
+    private SortedZones(ContourSymbols contours, long[] inMasks, Zone[] zones) {
+        this.contours = contours;
+        this.inMasks = inMasks;
+        this.zones = zones;
+    }
+
+    /**
+     * Returns the set of the given zones.
+     *
+     * @param zones the zones (duplicates are ignored). May be {@code null}, in
+     *              which case the empty set is returned.
+     */
+    static SortedZones of(Collection<Zone> zones) {
+        if (zones == null || zones.isEmpty()) {
+            return Empty;
+        }
+        Zone[] sorted = zones.toArray(new Zone[zones.size()]);
+        Arrays.sort(sorted);
+        int count = 0;
+        for (Zone zone : sorted) {
+            if (count == 0 || !sorted[count - 1].equals(zone)) {
+                sorted[count++] = zone;
+            }
+        }
+        return fromSorted(sorted, count);
+    }
+
+    /**
+     * Returns the number of zones in this set.
+     */
+    @Override
+    public int size() {
+        return zones.length;
+    }
+
+    /**
+     * Returns the zone at the given position in the natural order of the zones
+     * in this set.
+     */
+    Zone get(int index) {
+        Zone zone = zones[index];
+        if (zone == null) {
+            // Zones are immutable, so threads racing here at worst create two
+            // equal zones of which one is kept.
+            zone = new Zone(contours, inMasks[index], outMask(inMasks[index]));
+            zones[index] = zone;
+        }
+        return zone;
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+        if (!(obj instanceof Zone)) {
+            return false;
+        }
+        Zone zone = (Zone) obj;
+        if (inMasks == null) {
+            return Arrays.binarySearch(zones, zone) >= 0;
+        }
+        return zone.getContourSymbols() == contours
+               && zone.getOutMask() == outMask(zone.getInMask())
+               && indexOfMask(zone.getInMask()) >= 0;
+    }
+
+    @Override
+    public Iterator<Zone> iterator() {
+        return new Iterator<Zone>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size();
+            }
+
+            @Override
+            public Zone next() {
+                if (next >= size()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Returns an unmodifiable sorted set with the zones of this set. The set
+     * is created anew on every call.
+     */
+    SortedSet<Zone> toSortedSet() {
+        TreeSet<Zone> sortedSet = new TreeSet<>();
+        for (int i = 0; i < size(); i++) {
+            sortedSet.add(get(i));
+        }
+        return Collections.unmodifiableSortedSet(sortedSet);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Set Operations">
+
+    /**
+     * Returns the set of zones that are in this or the other set.
+     */
+    SortedZones union(SortedZones other) {
+        if (other.size() == 0) {
+            return this;
+        } else if (size() == 0) {
+            return other;
+        } else if (sharesTableWith(other)) {
+            long[] result = new long[size() + other.size()];
+            Zone[] resultZones = new Zone[result.length];
+            int i = 0, j = 0, count = 0;
+            while (i < inMasks.length && j < other.inMasks.length) {
+                int cmp = Zone.compareMasks(inMasks[i], other.inMasks[j]);
+                if (cmp <= 0) {
+                    resultZones[count] = zones[i];
+                    result[count++] = inMasks[i++];
+                    j += cmp == 0 ? 1 : 0;
+                } else {
+                    resultZones[count] = other.zones[j];
+                    result[count++] = other.inMasks[j++];
+                }
+            }
+            while (i < inMasks.length) {
+                resultZones[count] = zones[i];
+                result[count++] = inMasks[i++];
+            }
+            while (j < other.inMasks.length) {
+                resultZones[count] = other.zones[j];
+                result[count++] = other.inMasks[j++];
+            }
+            return count == size() ? this : new SortedZones(contours, Arrays.copyOf(result, count), Arrays.copyOf(resultZones, count));
+        }
+        Zone[] result = new Zone[size() + other.size()];
+        int i = 0, j = 0, count = 0;
+        while (i < size() && j < other.size()) {
+            Zone zone = get(i);
+            Zone otherZone = other.get(j);
+            int cmp = zone.compareTo(otherZone);
+            if (cmp <= 0) {
+                result[count++] = zone;
+                ++i;
+                j += cmp == 0 ? 1 : 0;
+            } else {
+                result[count++] = otherZone;
+                ++j;
+            }
+        }
+        while (i < size()) {
+            result[count++] = get(i++);
+        }
+        while (j < other.size()) {
+            result[count++] = other.get(j++);
+        }
+        return fromSorted(result, count);
+    }
+
+    /**
+     * Returns the set of zones that are in this set but not in the other one.
+     */
+    SortedZones subtract(SortedZones other) {
+        if (size() == 0 || other.size() == 0) {
+            return this;
+        } else if (sharesTableWith(other)) {
+            long[] result = new long[size()];
+            Zone[] resultZones = new Zone[result.length];
+            int i = 0, j = 0, count = 0;
+            while (i < inMasks.length && j < other.inMasks.length) {
+                int cmp = Zone.compareMasks(inMasks[i], other.inMasks[j]);
+                if (cmp < 0) {
+                    resultZones[count] = zones[i];
+                    result[count++] = inMasks[i++];
+                } else {
+                    i += cmp == 0 ? 1 : 0;
+                    ++j;
+                }
+            }
+            while (i < inMasks.length) {
+                resultZones[count] = zones[i];
+                result[count++] = inMasks[i++];
+            }
+            if (count == size()) {
+                return this;
+            }
+            return count == 0 ? Empty : new SortedZones(contours, Arrays.copyOf(result, count), Arrays.copyOf(resultZones, count));
+        }
+        Zone[] result = new Zone[size()];
+        int i = 0, j = 0, count = 0;
+        while (i < size() && j < other.size()) {
+            Zone zone = get(i);
+            int cmp = zone.compareTo(other.get(j));
+            if (cmp < 0) {
+                result[count++] = zone;
+                ++i;
+            } else {
+                i += cmp == 0 ? 1 : 0;
+                ++j;
+            }
+        }
+        while (i < size()) {
+            result[count++] = get(i++);
+        }
+        return fromSorted(result, count);
+    }
+
+    /**
+     * Indicates whether every zone of this set is also in the other set.
+     */
+    boolean isSubsetOf(SortedZones other) {
+        if (size() > other.size()) {
+            return false;
+        }
+        boolean sameTable = sharesTableWith(other);
+        int j = 0;
+        for (int i = 0; i < size(); i++) {
+            int cmp = 1;
+            while (j < other.size() && (cmp = compare(i, other, j, sameTable)) > 0) {
+                ++j;
+            }
+            if (cmp != 0) {
+                return false;
+            }
+            ++j;
+        }
+        return true;
+    }
+
+    /**
+     * Compares the sorted sequences of zones of the two sets
+     * lexicographically (a proper prefix is smaller).
+     */
+    int compareTo(SortedZones other) {
+        boolean sameTable = sharesTableWith(other);
+        int common = Math.min(size(), other.size());
+        for (int i = 0; i < common; i++) {
+            int cmp = compare(i, other, i, sameTable);
+            if (cmp != 0) {
+                return cmp < 0 ? -1 : 1;
+            }
+        }
+        return size() == other.size() ? 0 : (size() < other.size() ? -1 : 1);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Equality">
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof SortedZones) {
+            // The representation depends only on the zones, so equal sets
+            // always have the same representation.
+            SortedZones other = (SortedZones) obj;
+            return inMasks == null
+                   ? other.inMasks == null && Arrays.equals(zones, other.zones)
+                   : contours == other.contours && Arrays.equals(inMasks, other.inMasks);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return inMasks == null ? Arrays.hashCode(zones) : contours.hashCode() * 31 + Arrays.hashCode(inMasks);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Methods">
+
+    /**
+     * Returns the set of the first {@code count} zones of the given array,
+     * which must be sorted and without duplicates. The array is not referenced
+     * by the returned set.
+     */
+    private static SortedZones fromSorted(Zone[] sorted, int count) {
+        if (count == 0) {
+            return Empty;
+        }
+        ContourSymbols contours = sorted[0].getContourSymbols();
+        if (contours.isCompact()) {
+            long[] inMasks = new long[count];
+            for (int i = 0; i < count; i++) {
+                Zone zone = sorted[i];
+                if (zone.getContourSymbols() != contours || zone.getOutMask() != (allMask(contours) & ~zone.getInMask())) {
+                    inMasks = null;
+                    break;
+                }
+                inMasks[i] = zone.getInMask();
+            }
+            if (inMasks != null) {
+                return new SortedZones(contours, inMasks, Arrays.copyOf(sorted, count));
+            }
+        }
+        return new SortedZones(null, null, Arrays.copyOf(sorted, count));
+    }
+
+    private boolean sharesTableWith(SortedZones other) {
+        return inMasks != null && other.inMasks != null && contours == other.contours;
+    }
+
+    private int compare(int index, SortedZones other, int otherIndex, boolean sameTable) {
+        return sameTable
+               ? Zone.compareMasks(inMasks[index], other.inMasks[otherIndex])
+               : get(index).compareTo(other.get(otherIndex));
+    }
+
+    private int indexOfMask(long inMask) {
+        int low = 0;
+        int high = inMasks.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = Zone.compareMasks(inMasks[middle], inMask);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private long outMask(long inMask) {
+        return allMask(contours) & ~inMask;
+    }
+
+    private static long allMask(ContourSymbols contours) {
+        return contours.size() == Long.SIZE ? -1L : (1L << contours.size()) - 1;
+    }
+    // </editor-fold>
+}
@@ -31,6 +31,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import speedith.core.reasoning.args.SubDiagramIndexArg;
 
@@ -54,9 +56,10 @@ public abstract class SpiderDiagram implements Iterable<SpiderDiagram>, SpiderDi
      * Compares this spider diagram with another and returns {@code true} iff
      * they are equivalent up to spider renaming and region reordering.
      * <p/>
-     * <p>The default implementation of this
-     * method simply calls the {@link
-     * SpiderDiagram#equals(java.lang.Object) syntactical equality method}.</p>
+     * <p>This method compares the {@link SpiderDiagram#getCanonicalHash()
+     * canonical hashes} of the diagrams first and confirms a match by
+     * comparing their {@link SpiderDiagram#getCanonicalForm() canonical
+     * forms}. Both are computed once per diagram and then cached.</p>
      * <p/>
      * <p>If this method returns {@code true} then this spider diagram equals
      * semantically to the other. However, if this method returns {@code false}
@@ -67,7 +70,10 @@ public abstract class SpiderDiagram implements Iterable<SpiderDiagram>, SpiderDi
      *         established. Otherwise it returns {@code false}.
      */
     public boolean isSEquivalentTo(SpiderDiagram other) {
-        return equals(other);
+        return other == this
+               || (other != null
+                   && getCanonicalHash() == other.getCanonicalHash()
+                   && getCanonicalForm().equals(other.getCanonicalForm()));
     }
 
     /**
@@ -148,6 +154,46 @@ public abstract class SpiderDiagram implements Iterable<SpiderDiagram>, SpiderDi
      */
     public abstract SpiderDiagram transform(Transformer t, boolean trackParents);
 
+    /**
+     * Visits the given spider diagram and its children in a parent-first left-
+     * to-right order (see {@link
+     * SpiderDiagram#transform(speedith.core.lang.Transformer, boolean)}).
+     * <p>The transformer gets the parents of the current sub-diagram in a
+     * {@link TraversalContext}, which is reused for the whole traversal.</p>
+     *
+     * @param t the object that transforms particular sub-diagrams.
+     * @return the transformed spider diagram.
+     */
+    public abstract SpiderDiagram transform(ContextTransformer t);
+
+    /**
+     * Transforms this diagram like {@link
+     * SpiderDiagram#transform(speedith.core.lang.ContextTransformer)}, but
+     * transforms the operands of large compound sub-diagrams in parallel.
+     * <p>The operands of a compound sub-diagram are transformed as separate
+     * tasks in the given pool if the compound sub-diagram has at least {@code
+     * threshold} sub-diagrams. Smaller sub-diagrams are transformed
+     * sequentially. The transformer gets the same sub-diagram indices and
+     * contexts as in a sequential transform, and the result is the same
+     * interned diagram.</p>
+     *
+     * @param t         the object that transforms particular sub-diagrams.
+     * @param pool      the pool that runs the parallel tasks.
+     * @param threshold the smallest number of sub-diagrams of a compound
+     *                  sub-diagram whose operands are transformed in parallel.
+     * @return the transformed spider diagram.
+     */
+    public SpiderDiagram transform(ThreadSafeTransformer t, ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "pool"));
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "threshold"));
+        }
+        // There are no operands to split.
+        return transform(t);
+    }
+
     /**
      * Visits every sub-diagram in this diagram and calls the appropriate
      * methods of the given {@link DiagramVisitor visitor}. <p>This method
@@ -195,6 +241,29 @@ public abstract class SpiderDiagram implements Iterable<SpiderDiagram>, SpiderDi
         return visitor.getResult();
     }
 
+    /**
+     * Visits every sub-diagram in this diagram and calls the appropriate
+     * methods of the given {@link ContextDiagramVisitor visitor}. <p>The
+     * visitor gets the parents of the current sub-diagram in a {@link
+     * TraversalContext}, which is reused for the whole traversal.</p>
+     *
+     * @param <T>     the type of the result produced by the visitor.
+     * @param visitor the object that will receive calls upon visiting
+     *                particular elements.
+     * @return the result produced by the visitor.
+     */
+    public <T> T visit(ContextDiagramVisitor<T> visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "visitor"));
+        }
+        visitor.init(this);
+        if (!visitor.isDone()) {
+            visitor.visit(this, 0, new TraversalContext());
+        }
+        visitor.end();
+        return visitor.getResult();
+    }
+
     /**
      * Returns the spider sub-diagram at the given index within this spider
      * diagram. <p>This index indicates the number of appearance (from left to
@@ -224,39 +293,11 @@ public abstract class SpiderDiagram implements Iterable<SpiderDiagram>, SpiderDi
      * Returns the first index of the given spider diagram.
      *
      * @param sd the sub-diagram for which we want to look up the index
-     * @return the first index of the given spider diagram.
+     * @return the first index of the given spider diagram, or {@code -1} if it
+     *         is not a sub-diagram of this diagram.
      */
     public int getSubDiagramIndex(final SpiderDiagram sd) {
-        Integer index = this.visit(new DiagramVisitor<Integer>() {
-
-            private int foundIndex = -1;
-
-            @Override
-            public void init(SpiderDiagram root) {
-            }
-
-            @Override
-            public void end() {
-            }
-
-            @Override
-            public void visit(SpiderDiagram subDiagram, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
-                if (subDiagram.equals(sd)) {
-                    foundIndex = subDiagramIndex;
-                }
-            }
-
-            @Override
-            public boolean isDone() {
-                return foundIndex != -1;
-            }
-
-            @Override
-            public Integer getResult() {
-                return foundIndex;
-            }
-        }, false);
-        return index;
+        return getSubDiagramTable().indexOf(sd);
     }
 
     /**
@@ -317,50 +358,210 @@ public abstract class SpiderDiagram implements Iterable<SpiderDiagram>, SpiderDi
         if (zones != null) {
             Iterator<Zone> spIterator = zones.iterator();
             if (spIterator.hasNext()) {
-                spIterator.next().toString(sb);
+                printZone(sb, spIterator.next());
                 while (spIterator.hasNext()) {
-                    spIterator.next().toString(sb.append(", "));
+                    printZone(sb.append(", "), spIterator.next());
                 }
             }
         }
         sb.append(']');
     }
 
+    /**
+     * Prints the zone. A {@link SpiderDiagramWriter} takes the text of the
+     * zone from its cache.
+     */
+    static void printZone(Appendable sb, Zone zone) throws IOException {
+        if (sb instanceof SpiderDiagramWriter.TextBuffer) {
+            ((SpiderDiagramWriter.TextBuffer) sb).appendZone(zone);
+        } else {
+            zone.toString(sb);
+        }
+    }
+
+    /**
+     * Prints the region. A {@link SpiderDiagramWriter} takes the text of the
+     * region from its cache.
+     */
+    static void printRegion(Appendable sb, Region region) throws IOException {
+        if (sb instanceof SpiderDiagramWriter.TextBuffer) {
+            ((SpiderDiagramWriter.TextBuffer) sb).appendRegion(region);
+        } else {
+            region.toString(sb);
+        }
+    }
+
+    /**
+     * Returns the index of the parent of the sub-diagram at the given index.
+     *
+     * @param childIndex the index of a sub-diagram in this diagram.
+     * @return the index of the parent, {@code -1} if the sub-diagram is this
+     *         diagram, or {@code -2} if there is no sub-diagram at the given
+     *         index.
+     */
     public int getParentIndexOf(final int childIndex) {
-        return visit(new DiagramVisitor<Integer>() {
-            private static final int PARENT_NOT_YET_NDETERMINED = -2;
-            private static final int HAS_NO_PARENT = -1;
-            public int parentIndex = PARENT_NOT_YET_NDETERMINED;
+        return getSubDiagramTable().getParentIndex(childIndex);
+    }
 
-            @Override
-            public void init(SpiderDiagram root) {
-            }
+    /**
+     * Returns the position of the sub-diagram at the given index among the
+     * operands of its parent.
+     *
+     * @param subDiagramIndex the index of a sub-diagram in this diagram.
+     * @return the operand index of the sub-diagram in its parent, or {@code -1}
+     *         if the sub-diagram is this diagram.
+     * @throws IndexOutOfBoundsException if there is no sub-diagram at the given
+     *                                   index.
+     */
+    public int getChildPositionOf(int subDiagramIndex) {
+        return getSubDiagramTable().getChildPosition(subDiagramIndex);
+    }
 
-            @Override
-            public void end() {
-            }
+    /**
+     * Returns the polarity of the sub-diagram at the given index relative to
+     * this diagram.
+     *
+     * @param subDiagramIndex the index of a sub-diagram in this diagram.
+     * @return the polarity of the sub-diagram.
+     * @throws IndexOutOfBoundsException if there is no sub-diagram at the given
+     *                                   index.
+     */
+    public Polarity getPolarityOf(int subDiagramIndex) {
+        return getSubDiagramTable().getPolarity(subDiagramIndex);
+    }
 
-            @Override
-            public void visit(SpiderDiagram subDiagram, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
-                if (subDiagramIndex == childIndex) {
-                    if (parents == null || parents.size() < 1) {
-                        parentIndex = HAS_NO_PARENT;
-                    } else {
-                        parentIndex = parentIndices.get(parentIndices.size() - 1);
-                    }
-                }
-            }
+    /**
+     * Returns the pre-order table of all sub-diagrams of this diagram.
+     */
+    SubDiagramTable getSubDiagramTable() {
+        return SubDiagramTable.ofAtomic(this);
+    }
+    // </editor-fold>
 
-            @Override
-            public boolean isDone() {
-                return parentIndex != PARENT_NOT_YET_NDETERMINED;
-            }
+    // <editor-fold defaultstate="collapsed" desc="Structural Identity">
+    private static final AtomicLong nextStructuralId = new AtomicLong();
+    private volatile long fingerprint;
+    private volatile boolean fingerprintValid;
+    private volatile SpiderDiagram canonicalForm;
+    /**
+     * The unique id of this diagram among all living canonical diagrams, or
+     * {@code 0} if this diagram is not canonical (see {@link
+     * SpiderDiagram#getStructuralId()}).
+     */
+    private volatile long structuralId;
 
-            @Override
-            public Integer getResult() {
-                return parentIndex;
-            }
-        });
+    /**
+     * Returns the 64-bit structural fingerprint of this diagram.
+     * <p>The fingerprint is computed from the operators and operands of
+     * compound diagrams, and from the spiders, habitats, shaded zones and
+     * present zones of primary diagrams. Equal diagrams have equal
+     * fingerprints. Different diagrams have equal fingerprints only with a
+     * negligible probability.</p>
+     * <p>Unlike {@link SpiderDiagram#hashCode()}, the fingerprint does not
+     * depend on {@link String#hashCode()} or on the order in which diagrams
+     * were created. It is the same in every JVM run, so it may be stored (e.g.,
+     * as a key of an on-disk cache).</p>
+     * <p>The fingerprint is computed once and then cached.</p>
+     *
+     * @return the 64-bit structural fingerprint of this diagram.
+     */
+    public final long getFingerprint() {
+        if (!fingerprintValid) {
+            fingerprint = computeFingerprint();
+            fingerprintValid = true;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Computes the {@link SpiderDiagram#getFingerprint() fingerprint} of this
+     * diagram (using {@link Fingerprints}).
+     *
+     * @return the fingerprint of this diagram.
+     */
+    abstract long computeFingerprint();
+
+    /**
+     * Returns the canonical form of this diagram, which is invariant under
+     * spider renaming.
+     * <p>Two diagrams have the same canonical form iff one is {@link
+     * SpiderDiagram#isSEquivalentTo(speedith.core.lang.SpiderDiagram)
+     * semantically equivalent} to the other. In particular, primary diagrams
+     * are equivalent iff they have the same number of spiders, the same
+     * multiset of habitats, and the same shaded zones. Compound diagrams are
+     * equivalent iff they have the same operator and pairwise equivalent
+     * operands.</p>
+     * <p>The canonical form is taken from the pool, so it may be used as a key
+     * in hash maps to group equivalent diagrams. It is computed once and then
+     * cached.</p>
+     *
+     * @return the canonical form of this diagram.
+     */
+    public final SpiderDiagram getCanonicalForm() {
+        SpiderDiagram form = canonicalForm;
+        if (form == null) {
+            form = computeCanonicalForm();
+            canonicalForm = form;
+        }
+        return form;
+    }
+
+    /**
+     * Returns the {@link SpiderDiagram#getFingerprint() fingerprint} of the
+     * {@link SpiderDiagram#getCanonicalForm() canonical form} of this diagram.
+     * <p>Semantically equivalent diagrams have the same canonical hash. Like
+     * the fingerprint, the canonical hash is the same in every JVM run.</p>
+     *
+     * @return the fingerprint of the canonical form of this diagram.
+     */
+    public final long getCanonicalHash() {
+        return getCanonicalForm().getFingerprint();
+    }
+
+    /**
+     * Computes the {@link SpiderDiagram#getCanonicalForm() canonical form} of
+     * this diagram.
+     *
+     * @return the canonical form of this diagram.
+     */
+    abstract SpiderDiagram computeCanonicalForm();
+
+    /**
+     * Returns the unique id of this diagram if it is the canonical instance of
+     * its structure, otherwise it returns {@code 0}.
+     * <p>All diagrams obtained from {@link SpiderDiagrams} are canonical
+     * (they are taken from the pool). There is at most one living canonical
+     * instance of any spider diagram, therefore two canonical diagrams are
+     * {@link SpiderDiagram#equals(java.lang.Object) equal} iff they have the
+     * same id.</p>
+     *
+     * @return the unique id of this diagram, or {@code 0} if it is not
+     *         canonical.
+     */
+    final long getStructuralId() {
+        return structuralId;
+    }
+
+    /**
+     * Indicates whether this diagram is the canonical instance of its
+     * structure (see {@link SpiderDiagram#getStructuralId()}).
+     * <p>Note that a canonical instance need not be its own {@link
+     * SpiderDiagram#getCanonicalForm() canonical form}: the latter is
+     * invariant under spider renaming.</p>
+     *
+     * @return {@code true} iff this diagram has a structural id.
+     */
+    final boolean isCanonical() {
+        return structuralId != 0;
+    }
+
+    /**
+     * Gives this diagram a fresh structural id. This method is called once,
+     * when the diagram becomes the canonical instance of its structure.
+     */
+    final void assignStructuralId() {
+        assert structuralId == 0;
+        structuralId = nextStructuralId.incrementAndGet();
     }
     // </editor-fold>
 }
@@ -0,0 +1,295 @@
+package speedith.core.lang;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.IdentityHashMap;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * Writes spider diagrams in their textual representation (the same text as
+ * {@link SpiderDiagram#toString()}, see {@link
+ * speedith.core.lang.reader.SpiderDiagramsReader#readSpiderDiagram(java.lang.String)}).
+ * <p>The diagrams format themselves (see {@link
+ * SpiderDiagram#toString(java.lang.Appendable)}) into a scratch buffer that is
+ * reused from one diagram to the next. When writing to a {@link Writer}, the
+ * buffer is flushed whenever it fills up, so even very large diagrams need
+ * only a fixed amount of memory.</p>
+ * <p>The formatted text of every zone and region is cached by the identity of
+ * the zone or region. Diagrams read by {@link
+ * speedith.core.lang.reader.SpiderDiagramsReader} share one instance of every
+ * distinct zone and region (see also {@link ElementPools}), so every zone and
+ * region is formatted only once per writer. The cache belongs to the writer
+ * and keeps the cached zones and regions from being collected until {@link
+ * SpiderDiagramWriter#clearCache()} is called or the writer itself is
+ * dropped. It holds at most {@link SpiderDiagramWriter#MaxCachedElements}
+ * entries and is emptied when it grows beyond that.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class SpiderDiagramWriter {
+
+    // <editor-fold defaultstate="collapsed" desc="Constants">
+    /**
+     * The maximum number of zones and regions whose formatted text is cached.
+     */
+    public static final int MaxCachedElements = 4096;
+    /**
+     * The initial size of the scratch buffer (in characters). When writing to
+     * a {@link Writer} the buffer never grows beyond this size.
+     */
+    private static final int InitialBufferSize = 1024;
+    /**
+     * The scratch buffers that grow beyond this size (when formatting a large
+     * diagram into a string) are dropped after use.
+     */
+    private static final int MaxRetainedBufferSize = 1 << 16;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final TextBuffer text = new TextBuffer();
+    private CharsetEncoder encoder;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Returns the textual representation of the given diagram.
+     *
+     * @param sd the diagram to format.
+     * @return the textual representation of the diagram.
+     */
+    public String toString(SpiderDiagram sd) {
+        if (sd == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "sd"));
+        }
+        try {
+            sd.toString(text);
+            return new String(text.buffer, 0, text.length);
+        } catch (IOException ex) {
+            // There is no sink, so nothing can throw.
+            throw new RuntimeException(ex);
+        } finally {
+            text.reset();
+        }
+    }
+
+    /**
+     * Writes the textual representation of the given diagram to the given
+     * writer.
+     *
+     * @param sd     the diagram to write.
+     * @param writer the writer to which to write the diagram.
+     * @throws IOException thrown if the writer throws an exception.
+     */
+    public void write(SpiderDiagram sd, Writer writer) throws IOException {
+        if (sd == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "sd"));
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "writer"));
+        }
+        text.sink = writer;
+        try {
+            sd.toString(text);
+            text.flush();
+        } finally {
+            text.sink = null;
+            text.reset();
+        }
+    }
+
+    /**
+     * Writes the textual representation of the given diagram in UTF-8 into
+     * the given byte buffer. If the text does not fit into the remaining
+     * space of the buffer, the position of the buffer is left unchanged.
+     *
+     * @param sd     the diagram to write.
+     * @param target the buffer into which to write the diagram.
+     * @throws BufferOverflowException thrown if the text does not fit into
+     *                                 the remaining space of the buffer.
+     */
+    public void write(SpiderDiagram sd, ByteBuffer target) {
+        if (sd == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "sd"));
+        }
+        if (target == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "target"));
+        }
+        try {
+            sd.toString(text);
+            if (encoder == null) {
+                encoder = UTF8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            int start = target.position();
+            CoderResult result = encoder.reset().encode(CharBuffer.wrap(text.buffer, 0, text.length), target, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(target);
+            }
+            if (result.isOverflow()) {
+                target.position(start);
+                throw new BufferOverflowException();
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+        } catch (CharacterCodingException ex) {
+            // Malformed characters are replaced.
+            throw new RuntimeException(ex);
+        } catch (IOException ex) {
+            // There is no sink, so nothing can throw.
+            throw new RuntimeException(ex);
+        } finally {
+            text.reset();
+        }
+    }
+
+    /**
+     * Empties the cache of formatted zones and regions.
+     */
+    public void clearCache() {
+        text.formattedElements.clear();
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Text Buffer">
+    /**
+     * The scratch buffer into which the diagrams format themselves. The
+     * diagrams print their zones and regions through {@link
+     * TextBuffer#appendZone(Zone)} and {@link TextBuffer#appendRegion(Region)}
+     * (see {@link SpiderDiagram#printZone(Appendable, Zone)}), which take the
+     * text from the cache.
+     */
+    static final class TextBuffer implements Appendable {
+
+        private char[] buffer = new char[InitialBufferSize];
+        private int length;
+        /**
+         * The writer to which to flush the buffer when it fills up. If this is
+         * {@code null}, the buffer grows instead.
+         */
+        private Writer sink;
+        private final IdentityHashMap<Object, char[]> formattedElements = new IdentityHashMap<>();
+        private final StringBuilder elementScratch = new StringBuilder();
+
+        private TextBuffer() {
+        }
+
+        @Override
+        public TextBuffer append(CharSequence csq) throws IOException {
+            return csq == null ? append("null") : append(csq, 0, csq.length());
+        }
+
+        @Override
+        public TextBuffer append(CharSequence csq, int start, int end) throws IOException {
+            if (csq == null) {
+                csq = "null";
+            }
+            int count = end - start;
+            if (length + count > buffer.length) {
+                if (sink != null && count > buffer.length) {
+                    flush();
+                    sink.append(csq, start, end);
+                    return this;
+                }
+                makeRoom(count);
+            }
+            if (csq instanceof String) {
+                ((String) csq).getChars(start, end, buffer, length);
+            } else {
+                for (int i = start; i < end; i++) {
+                    buffer[length + i - start] = csq.charAt(i);
+                }
+            }
+            length += count;
+            return this;
+        }
+
+        @Override
+        public TextBuffer append(char c) throws IOException {
+            if (length == buffer.length) {
+                makeRoom(1);
+            }
+            buffer[length++] = c;
+            return this;
+        }
+
+        void appendZone(Zone zone) throws IOException {
+            char[] formatted = formattedElements.get(zone);
+            if (formatted == null) {
+                elementScratch.setLength(0);
+                zone.toString(elementScratch);
+                formatted = cache(zone);
+            }
+            append(formatted);
+        }
+
+        void appendRegion(Region region) throws IOException {
+            char[] formatted = formattedElements.get(region);
+            if (formatted == null) {
+                elementScratch.setLength(0);
+                region.toString(elementScratch);
+                formatted = cache(region);
+            }
+            append(formatted);
+        }
+
+        private char[] cache(Object element) {
+            char[] formatted = new char[elementScratch.length()];
+            elementScratch.getChars(0, formatted.length, formatted, 0);
+            if (formattedElements.size() >= MaxCachedElements) {
+                formattedElements.clear();
+            }
+            formattedElements.put(element, formatted);
+            return formatted;
+        }
+
+        private void append(char[] formatted) throws IOException {
+            if (length + formatted.length > buffer.length) {
+                if (sink != null && formatted.length > buffer.length) {
+                    flush();
+                    sink.write(formatted);
+                    return;
+                }
+                makeRoom(formatted.length);
+            }
+            System.arraycopy(formatted, 0, buffer, length, formatted.length);
+            length += formatted.length;
+        }
+
+        /**
+         * Makes sure that the given number of characters fits into the buffer
+         * (the number must not be greater than the size of the buffer if there
+         * is a sink).
+         */
+        private void makeRoom(int count) throws IOException {
+            if (sink != null) {
+                flush();
+            } else {
+                char[] newBuffer = new char[Math.max(buffer.length << 1, length + count)];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+        }
+
+        private void flush() throws IOException {
+            sink.write(buffer, 0, length);
+            length = 0;
+        }
+
+        private void reset() {
+            length = 0;
+            if (buffer.length > MaxRetainedBufferSize) {
+                buffer = new char[InitialBufferSize];
+            }
+        }
+    }
+    // </editor-fold>
+}
@@ -26,14 +26,10 @@
  */
 package speedith.core.lang;
 
-import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.WeakHashMap;
 import static speedith.core.i18n.Translations.*;
 
 /**
@@ -42,13 +38,20 @@ import static speedith.core.i18n.Translations.*;
  * <p><span style="font-weight:bold">Note</span>: This class must be used when
  * constructing spider diagrams.</p>
  * <p>It maintains a pool of living spider diagrams and reuses same spider
- * diagrams instead of creating new ones (for faster equality comparison).</p>
+ * diagrams instead of creating new ones (for faster equality comparison).
+ * The pool is safe to use from multiple threads concurrently (see {@link
+ * InterningPool}).</p>
  * @author Matej Urbas [matej.urbas@gmail.com]
  */
 public class SpiderDiagrams {
 
     // <editor-fold defaultstate="collapsed" desc="Fields">
-    private static final WeakHashMap<SpiderDiagram, WeakReference<SpiderDiagram>> pool = new WeakHashMap<SpiderDiagram, WeakReference<SpiderDiagram>>();
+    private static final InterningPool<SpiderDiagram> pool = new InterningPool<SpiderDiagram>() {
+        @Override
+        void onInterned(SpiderDiagram sd) {
+            sd.assignStructuralId();
+        }
+    };
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="Disabled Constructors">
@@ -80,7 +83,7 @@ public class SpiderDiagrams {
      * @return the primary spider diagram.
      */
     public static PrimarySpiderDiagram createPrimarySD(Collection<String> spiders, Map<String, Region> habitats, Collection<Zone> shadedZones, Collection<Zone> presentZones) {
-        return createPrimarySD(spiders, habitats, shadedZones, presentZones, true);
+        return __createPrimarySD(new PrimarySpiderDiagram(spiders, habitats, shadedZones, presentZones));
     }
     
     /**
@@ -98,11 +101,11 @@ public class SpiderDiagrams {
 
     /**
      * <p>Creates a new primary spider diagram with the given parameters.</p>
-     * <p><span style="font-weight:bold">Note</span>: this method does not make
-     * a copy of the given collections if possible.</p>
-     * <p><span style="font-weight:bold">Warning</span>: you should use this
-     * method only if you are sure that you will never modify the given
-     * collections (of spiders, habitats and shaded zones) again.</p>
+     * <p><span style="font-weight:bold">Note</span>: primary spider diagrams
+     * store their collections in persistent structures, so this method copies
+     * the given collections just like {@link
+     * SpiderDiagrams#createPrimarySD(java.util.Collection, java.util.Map,
+     * java.util.Collection, java.util.Collection)} does.</p>
      * @param spiders a set of spiders (their names) that appear in this
      * spider diagram.
      * @param habitats a key-value map of spiders and their corresponding
@@ -113,26 +116,16 @@ public class SpiderDiagrams {
      * @return the primary spider diagram.
      */
     public static PrimarySpiderDiagram createPrimarySDNoCopy(Collection<String> spiders, Map<String, Region> habitats, Collection<Zone> shadedZones, Collection<Zone> presentZones) {
-        return createPrimarySD(spiders, habitats, shadedZones, presentZones, false);
+        return __createPrimarySD(new PrimarySpiderDiagram(spiders, habitats, shadedZones, presentZones));
     }
 
     /**
-     * <p>Creates a new primary spider diagram with the given parameters.</p>
-     * <p><span style="font-weight:bold">Note</span>: setting the {@code
-     * copyCollections} flag to {@code false} makes this operation a bit faster,
-     * as this method will not create a copy of the given collections. However,
-     * you <span style="font-weight:bold">must not</span> change these
-     * collections afterwards, or it will lead to unexpected behaviour.</p>
-     * <p>Creates a primary spider diagram from the given collections of
-     * spiders, habitats and shaded zones without making a copy of these
-     * collections. Afterwards it checks whether the created spider diagram is
-     * in the pool already. If it is, it returns the one which is in the pool
-     * and finishes. If it is not, however, then it puts the newly created
-     * spider diagram into the pool. <span style="font-weight:bold">Note</span>:
-     * If the {@code copyCollections} flag is set then before putting the newly
-     * created spider diagram into the pool it first creates a new primary
-     * spider diagram that actually copies the collections and puts this one
-     * into the pool instead.</p>
+     * <p>Creates a new primary spider diagram from the given persistent
+     * collections (without copying them).</p>
+     * <p>Checks whether an equal spider diagram is in the pool already. If it
+     * is, it returns the one which is in the pool. Otherwise it puts the newly
+     * created spider diagram into the pool. As the collections are immutable,
+     * the pooled diagram may share them with other diagrams.</p>
      * @param spiders a set of spiders (their names) that appear in this
      * spider diagram.
      * @param habitats a key-value map of spiders and their corresponding
@@ -140,12 +133,10 @@ public class SpiderDiagrams {
      * @param shadedZones a set of shaded {@link Zone zones}. 
      * @param presentZones the set of zones that should be drawn in the diagram
      * if possible (see {@link PrimarySpiderDiagram#getPresentZones()}).
-     * @param copyCollections indicates whether a copy of the above collections
-     * should be made to construct the new primary spider diagram.
      * @return the primary spider diagram.
      */
-    static PrimarySpiderDiagram createPrimarySD(TreeSet<String> spiders, TreeMap<String, Region> habitats, TreeSet<Zone> shadedZones, TreeSet<Zone> presentZones, boolean copyCollections) {
-        return __createPrimarySD(spiders, habitats, shadedZones, presentZones, copyCollections);
+    static PrimarySpiderDiagram createPrimarySD(PersistentSortedSet<String> spiders, PersistentSortedMap<String, Region> habitats, PersistentSortedSet<Zone> shadedZones, PersistentSortedSet<Zone> presentZones) {
+        return __createPrimarySD(new PrimarySpiderDiagram(spiders, habitats, shadedZones, presentZones));
     }
 
     /**
@@ -246,68 +237,28 @@ public class SpiderDiagrams {
     }
     // </editor-fold>
 
-    //<editor-fold defaultstate="collapsed" desc="Private Helper Methods">
-    private static PrimarySpiderDiagram createPrimarySD(Collection<String> spiders, Map<String, Region> habitats, Collection<Zone> shadedZones, Collection<Zone> presentZones, boolean copyCollections) {
-        if ((spiders == null || spiders instanceof TreeSet)
-                && (habitats == null || habitats instanceof TreeMap)
-                && (shadedZones == null || shadedZones instanceof TreeSet)
-                && (presentZones == null || presentZones instanceof TreeSet)) {
-            return createPrimarySD(spiders == null ? null : (TreeSet<String>) spiders,
-                    habitats == null ? null : (TreeMap<String, Region>) habitats,
-                    shadedZones == null ? null : (TreeSet<Zone>) shadedZones,
-                    presentZones == null ? null : (TreeSet<Zone>) presentZones,
-                    copyCollections);
-        } else {
-            TreeSet<String> spidersCopy = spiders == null ? null : new TreeSet<String>(spiders);
-            TreeMap<String, Region> habitatsCopy = habitats == null ? null : new TreeMap<String, Region>(habitats);
-            TreeSet<Zone> shadedZonesCopy = shadedZones == null ? null : new TreeSet<Zone>(shadedZones);
-            TreeSet<Zone> presentZonesCopy = presentZones == null ? null : new TreeSet<Zone>(presentZones);
-            return __createPrimarySD(spidersCopy, habitatsCopy, shadedZonesCopy, presentZonesCopy, false);
-        }
+    // <editor-fold defaultstate="collapsed" desc="Pool Statistics">
+    /**
+     * Returns a snapshot of the counters of the spider diagram pool.
+     * <p>Every call to one of the primary or compound spider diagram factory
+     * methods is counted either as a hit (an equal diagram was already in the
+     * pool and was returned) or a miss (the new diagram was put into the
+     * pool).</p>
+     * @return a snapshot of the counters of the spider diagram pool.
+     */
+    public static PoolStatistics getPoolStatistics() {
+        return pool.getStatistics();
     }
+    // </editor-fold>
 
-    @SuppressWarnings("unchecked")
-    private static PrimarySpiderDiagram __createPrimarySD(TreeSet<String> spiders, TreeMap<String, Region> habitats, TreeSet<Zone> shadedZones, TreeSet<Zone> presentZones, boolean copyCollections) {
-        synchronized (pool) {
-            // TODO: Create separate classes for Habitats and Spiders, and use
-            // Region for 'shadedZones' and 'presentZones. This way, we will
-            // never have to worry about copying these sets, recalculating
-            // hashes and extracting mentioned contours.
-
-            // Create the "temporary" primary spider diagram.
-            PrimarySpiderDiagram psd = null;
-            if (copyCollections) {
-                psd = new PrimarySpiderDiagram(spiders == null ? null : (TreeSet<String>) spiders.clone(),
-                        habitats == null ? null : (TreeMap<String, Region>) habitats.clone(),
-                        shadedZones == null ? null : (TreeSet<Zone>) shadedZones.clone(),
-                        presentZones == null ? null : (TreeSet<Zone>) presentZones.clone());
-            } else {
-                psd = new PrimarySpiderDiagram(spiders, habitats, shadedZones, presentZones);
-            }
-
-            // Check if an exact copy of it exists in the pool already.
-            SpiderDiagram exPsd = __getSDFromPool(psd);
-
-            // Is the spider diagram already in the pool?
-            if (exPsd == null) {
-                // It is not. Then add the newly created one into the pool and
-                // return it.
-                pool.put(psd, new WeakReference<SpiderDiagram>(psd));
-                return psd;
-            } else {
-                // Otherwise discard the newly created one and return the old one.
-                assert (exPsd instanceof PrimarySpiderDiagram) : i18n("GERR_ILLEGAL_STATE_EXPLANATION", i18n("ERR_PRIMARY_SD_EQUALS_NON_PRIMARY_SD"));
-                // The diagram is already in the pool. Just return it.
-                assert (((PrimarySpiderDiagram) exPsd).equals(psd)) : i18n("GERR_ILLEGAL_STATE");
-                assert (psd.equals(exPsd)) : i18n("GERR_ILLEGAL_STATE");
-                // The spider diagram might have been removed already (just
-                // after we fetched it from the pool and before the reference
-                // was assigned to the local variable). So, add it again to the
-                // pool.
-                pool.put(exPsd, new WeakReference<SpiderDiagram>(exPsd));
-                return (PrimarySpiderDiagram) exPsd;
-            }
-        }
+    //<editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private static PrimarySpiderDiagram __createPrimarySD(PrimarySpiderDiagram psd) {
+        // Return the pooled copy of it (or put this one into the pool if it
+        // is not there yet).
+        SpiderDiagram exPsd = pool.intern(psd);
+        assert (exPsd instanceof PrimarySpiderDiagram) : i18n("GERR_ILLEGAL_STATE_EXPLANATION", i18n("ERR_PRIMARY_SD_EQUALS_NON_PRIMARY_SD"));
+        assert (exPsd.equals(psd)) : i18n("GERR_ILLEGAL_STATE");
+        return (PrimarySpiderDiagram) exPsd;
     }
 
     /**
@@ -322,34 +273,21 @@ public class SpiderDiagrams {
      * @return 
      */
     private static CompoundSpiderDiagram __createCompoundSD(CompoundSpiderDiagram csd, boolean copyCollection, String operator, Collection<SpiderDiagram> operands) {
-        synchronized (pool) {
-            SpiderDiagram exCsd = __getSDFromPool(csd);
-            // Is the spider diagram already in the pool?
-            if (exCsd == null) {
-                // It is not. Then add this newly created one into the pool and
-                // return it.
-                if (copyCollection) {
-                    csd = new CompoundSpiderDiagram(operator, operands);
-                }
-                pool.put(csd, new WeakReference<SpiderDiagram>(csd));
-                return csd;
+        // The returned reference keeps a pooled diagram alive. If there is
+        // none, only the copy (never the caller's collection) may get into
+        // the pool. Should another thread intern an equal diagram in the
+        // meantime, we simply get that one.
+        SpiderDiagram exCsd = pool.get(csd);
+        if (exCsd == null) {
+            if (copyCollection) {
+                csd = new CompoundSpiderDiagram(operator, operands);
             }
-            // The diagram is already in the pool. Just return it.
-            assert (exCsd instanceof CompoundSpiderDiagram) : i18n("GERR_ILLEGAL_STATE_EXPLANATION", i18n("ERR_COMPOUND_SD_EQUALS_NON_COMPOUND_SD"));
-            assert (((CompoundSpiderDiagram) exCsd).equals(csd)) : i18n("GERR_ILLEGAL_STATE");
-            assert (csd.equals(exCsd)) : i18n("GERR_ILLEGAL_STATE");
-            // The spider diagram might have been removed already (just
-            // after we fetched it from the pool and before the reference
-            // was assigned to the local variable). So, add it again to the
-            // pool.
-            pool.put(exCsd, new WeakReference<SpiderDiagram>(exCsd));
-            return (CompoundSpiderDiagram) exCsd;
+            exCsd = pool.intern(csd);
         }
-    }
-
-    private static SpiderDiagram __getSDFromPool(SpiderDiagram psd) {
-        WeakReference<SpiderDiagram> poolSD = pool.get(psd);
-        return poolSD == null ? null : poolSD.get();
+        // The diagram is in the pool. Just return it.
+        assert (exCsd instanceof CompoundSpiderDiagram) : i18n("GERR_ILLEGAL_STATE_EXPLANATION", i18n("ERR_COMPOUND_SD_EQUALS_NON_COMPOUND_SD"));
+        assert (exCsd.equals(csd)) : i18n("GERR_ILLEGAL_STATE");
+        return (CompoundSpiderDiagram) exCsd;
     }
     //</editor-fold>
 }
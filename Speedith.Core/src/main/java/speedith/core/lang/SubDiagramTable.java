@@ -0,0 +1,137 @@
+package speedith.core.lang;
+
+/**
+ * A flat table of all sub-diagrams of a spider diagram in pre-order (the
+ * order of {@link SpiderDiagram#getSubDiagramAt(int) sub-diagram indices}).
+ * <p>For the sub-diagram at index {@code i} the table stores the sub-diagram
+ * itself, the index of its parent, the position of the sub-diagram among the
+ * operands of its parent and its {@link Polarity polarity} relative to the
+ * root. All lookups by index are array reads.</p>
+ */
+final class SubDiagramTable {
+
+    private static final int[] NoParent = {-1};
+    private static final Polarity[] RootPolarity = {Polarity.Positive};
+
+    private final SpiderDiagram[] nodes;
+    private final int[] parents;
+    private final int[] childPositions;
+    private final Polarity[] polarities;
+
+    private SubDiagramTable(SpiderDiagram[] nodes, int[] parents, int[] childPositions, Polarity[] polarities) {
+        this.nodes = nodes;
+        this.parents = parents;
+        this.childPositions = childPositions;
+        this.polarities = polarities;
+    }
+
+    /**
+     * Returns the table of a diagram without sub-diagrams.
+     */
+    static SubDiagramTable ofAtomic(SpiderDiagram diagram) {
+        return new SubDiagramTable(new SpiderDiagram[]{diagram}, NoParent, NoParent, RootPolarity);
+    }
+
+    /**
+     * Builds the table of the given compound diagram.
+     */
+    static SubDiagramTable of(CompoundSpiderDiagram root) {
+        int count = root.getSubDiagramCount();
+        SpiderDiagram[] nodes = new SpiderDiagram[count];
+        int[] parents = new int[count];
+        int[] childPositions = new int[count];
+        Polarity[] polarities = new Polarity[count];
+        nodes[0] = root;
+        parents[0] = -1;
+        childPositions[0] = -1;
+        polarities[0] = Polarity.Positive;
+        // Every compound node fills in the rows of its direct operands. The
+        // rows are visited in pre-order, so parents are filled in before
+        // their children.
+        for (int index = 0; index < count; index++) {
+            if (nodes[index] instanceof CompoundSpiderDiagram) {
+                CompoundSpiderDiagram parent = (CompoundSpiderDiagram) nodes[index];
+                int childIndex = index + 1;
+                for (int position = 0; position < parent.getOperandCount(); position++) {
+                    SpiderDiagram child = parent.getOperand(position);
+                    nodes[childIndex] = child;
+                    parents[childIndex] = index;
+                    childPositions[childIndex] = position;
+                    polarities[childIndex] = childPolarity(polarities[index], parent.getOperator(), position);
+                    childIndex += child.getSubDiagramCount();
+                }
+            }
+        }
+        return new SubDiagramTable(nodes, parents, childPositions, polarities);
+    }
+
+    /**
+     * Returns the number of sub-diagrams (including the root).
+     */
+    int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the sub-diagram at the given index or {@code null} if the index
+     * is out of bounds.
+     */
+    SpiderDiagram getNode(int index) {
+        return isInBounds(index) ? nodes[index] : null;
+    }
+
+    /**
+     * Returns the index of the parent of the given sub-diagram, {@code -1} for
+     * the root or {@code -2} if the index is out of bounds.
+     */
+    int getParentIndex(int index) {
+        return isInBounds(index) ? parents[index] : -2;
+    }
+
+    /**
+     * Returns the position of the given sub-diagram among the operands of its
+     * parent or {@code -1} for the root.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    int getChildPosition(int index) {
+        return childPositions[index];
+    }
+
+    /**
+     * Returns the polarity of the given sub-diagram relative to the root.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    Polarity getPolarity(int index) {
+        return polarities[index];
+    }
+
+    /**
+     * Returns the first index of a sub-diagram that equals the given one or
+     * {@code -1} if there is none.
+     */
+    int indexOf(SpiderDiagram diagram) {
+        for (int index = 0; index < nodes.length; index++) {
+            if (nodes[index].equals(diagram)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Methods">
+    private boolean isInBounds(int index) {
+        return index >= 0 && index < nodes.length;
+    }
+
+    private static Polarity childPolarity(Polarity parentPolarity, Operator operator, int position) {
+        if (parentPolarity == Polarity.Equivalence || operator == Operator.Equivalence) {
+            return Polarity.Equivalence;
+        } else if (operator == Operator.Negation || (operator == Operator.Implication && position == 0)) {
+            return parentPolarity == Polarity.Positive ? Polarity.Negative : Polarity.Positive;
+        }
+        return parentPolarity;
+    }
+    // </editor-fold>
+}
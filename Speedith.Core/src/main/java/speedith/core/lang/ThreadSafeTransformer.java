@@ -0,0 +1,19 @@
+package speedith.core.lang;
+
+/**
+ * A {@link ContextTransformer} that may be called from several threads at
+ * once. Only such transformers may be used with {@link
+ * SpiderDiagram#transform(ThreadSafeTransformer, java.util.concurrent.ForkJoinPool,
+ * int) parallel transforms}.
+ * <p>Implementations declare that:</p>
+ * <ul>
+ * <li>their transform methods may run concurrently for different
+ * sub-diagrams and depend only on their arguments (not on the order in which
+ * sub-diagrams are transformed), and</li>
+ * <li>{@link ContextTransformer#isDone()} always returns {@code false}. A
+ * parallel transform visits all sub-diagrams that are not replaced by their
+ * ancestors.</li>
+ * </ul>
+ */
+public interface ThreadSafeTransformer extends ContextTransformer {
+}
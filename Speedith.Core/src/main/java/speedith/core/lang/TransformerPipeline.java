@@ -0,0 +1,108 @@
+package speedith.core.lang;
+
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * Applies several transformers, each to its own sub-diagram, in a single
+ * traversal of a spider diagram.
+ * <p>Every transformer is registered with the index of its target sub-diagram
+ * (see {@link TransformerPipeline#add(int, Transformer)}) and is called only
+ * for that sub-diagram. All indices refer to the original diagram, so
+ * rewriting one target does not move the others. Compound sub-diagrams that
+ * contain no target are skipped, the traversal stops after the last target
+ * and the parents of all changed targets are rebuilt only once.</p>
+ * <p>If a transformer rewrites a compound sub-diagram, the transformers of
+ * its sub-diagrams are not called.</p>
+ * <p>Like other transformers, a pipeline should be used for a single
+ * transformation only.</p>
+ */
+public final class TransformerPipeline implements Transformer {
+
+    private final TreeMap<Integer, Transformer> transformers = new TreeMap<>();
+    private boolean done = false;
+
+    /**
+     * Registers the transformer of the sub-diagram at the given index.
+     *
+     * @param subDiagramIndex the index of the target sub-diagram in the
+     *                        original diagram.
+     * @param transformer     the transformer to call on the target.
+     * @return this pipeline.
+     * @throws IllegalArgumentException if the index is negative or another
+     *                                  transformer was already registered for
+     *                                  it.
+     */
+    public TransformerPipeline add(int subDiagramIndex, Transformer transformer) {
+        if (transformer == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "transformer"));
+        }
+        if (subDiagramIndex < 0) {
+            throw new IllegalArgumentException(i18n("GERR_INDEX_OUT_OF_RANGE_LOWONLY", subDiagramIndex, 0));
+        }
+        if (transformers.containsKey(subDiagramIndex)) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "subDiagramIndex"));
+        }
+        transformers.put(subDiagramIndex, transformer);
+        return this;
+    }
+
+    /**
+     * Returns the number of registered transformers.
+     */
+    public int size() {
+        return transformers.size();
+    }
+
+    @Override
+    public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+        Transformer transformer = transformers.get(diagramIndex);
+        SpiderDiagram transformedSD = transformer == null ? null : transformer.transform(psd, diagramIndex, parents, childIndices);
+        skipTo(diagramIndex + 1);
+        return transformedSD;
+    }
+
+    @Override
+    public SpiderDiagram transform(NullSpiderDiagram nsd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+        Transformer transformer = transformers.get(diagramIndex);
+        SpiderDiagram transformedSD = transformer == null ? null : transformer.transform(nsd, diagramIndex, parents, childIndices);
+        skipTo(diagramIndex + 1);
+        return transformedSD;
+    }
+
+    @Override
+    public SpiderDiagram transform(CompoundSpiderDiagram csd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+        Transformer transformer = transformers.get(diagramIndex);
+        if (transformer != null) {
+            SpiderDiagram transformedSD = transformer.transform(csd, diagramIndex, parents, childIndices);
+            if (transformedSD != null) {
+                // The operands of the transformed diagram are not traversed.
+                skipTo(diagramIndex + csd.getSubDiagramCount());
+                return transformedSD;
+            }
+        }
+        int end = diagramIndex + csd.getSubDiagramCount();
+        Integer nextTarget = transformers.higherKey(diagramIndex);
+        if (nextTarget == null || nextTarget >= end) {
+            // There are no targets within this diagram. Leave it as it is.
+            skipTo(end);
+            return csd;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Tells the pipeline that the traversal continues with the sub-diagram at
+     * the given index. The pipeline is done once no targets are left.
+     */
+    private void skipTo(int nextDiagramIndex) {
+        done = transformers.isEmpty() || transformers.lastKey() < nextDiagramIndex;
+    }
+}
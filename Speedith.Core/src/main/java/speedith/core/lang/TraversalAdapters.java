@@ -0,0 +1,160 @@
+package speedith.core.lang;
+
+import java.util.ArrayList;
+
+/**
+ * Adapters that run {@link Transformer transformers} and {@link DiagramVisitor
+ * visitors} with list-based signatures on the {@link TraversalContext
+ * context-based} traversal.
+ * <p>The adapters keep one set of lists per traversal and update only their
+ * last rows when the traversal moves to the next sub-diagram. Sub-diagrams are
+ * traversed in pre-order, so all other rows are already correct.</p>
+ */
+final class TraversalAdapters {
+
+    private TraversalAdapters() {
+    }
+
+    /**
+     * Returns a context transformer that forwards all calls to the given
+     * transformer.
+     *
+     * @param transformer  the transformer with list-based signatures.
+     * @param trackParents indicates whether the transformer should get lists
+     *                     of parents and child indices (otherwise it gets
+     *                     {@code null} lists).
+     */
+    static ContextTransformer adapt(Transformer transformer, boolean trackParents) {
+        return new TransformerAdapter(transformer, trackParents ? new ParentLists() : null);
+    }
+
+    /**
+     * Returns a context visitor that forwards all calls to the given visitor.
+     *
+     * @param visitor      the visitor with list-based signatures.
+     * @param trackParents indicates whether the visitor should get lists of
+     *                     parents, child indices and parent indices (otherwise
+     *                     it gets {@code null} lists).
+     */
+    static <T> ContextDiagramVisitor<T> adapt(DiagramVisitor<T> visitor, boolean trackParents) {
+        return new DiagramVisitorAdapter<>(visitor, trackParents ? new ParentLists() : null);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Adapters">
+    private static final class TransformerAdapter implements ContextTransformer {
+
+        private final Transformer transformer;
+        private final ParentLists lists;
+
+        TransformerAdapter(Transformer transformer, ParentLists lists) {
+            this.transformer = transformer;
+            this.lists = lists;
+        }
+
+        @Override
+        public SpiderDiagram transform(PrimarySpiderDiagram sd, int diagramIndex, TraversalContext context) {
+            sync(lists, context);
+            return transformer.transform(sd, diagramIndex, parents(lists), childIndices(lists));
+        }
+
+        @Override
+        public SpiderDiagram transform(NullSpiderDiagram sd, int diagramIndex, TraversalContext context) {
+            sync(lists, context);
+            return transformer.transform(sd, diagramIndex, parents(lists), childIndices(lists));
+        }
+
+        @Override
+        public SpiderDiagram transform(CompoundSpiderDiagram sd, int diagramIndex, TraversalContext context) {
+            sync(lists, context);
+            return transformer.transform(sd, diagramIndex, parents(lists), childIndices(lists));
+        }
+
+        @Override
+        public boolean isDone() {
+            return transformer.isDone();
+        }
+    }
+
+    private static final class DiagramVisitorAdapter<T> implements ContextDiagramVisitor<T> {
+
+        private final DiagramVisitor<T> visitor;
+        private final ParentLists lists;
+
+        DiagramVisitorAdapter(DiagramVisitor<T> visitor, ParentLists lists) {
+            this.visitor = visitor;
+            this.lists = lists;
+        }
+
+        @Override
+        public void init(SpiderDiagram root) {
+            visitor.init(root);
+        }
+
+        @Override
+        public void end() {
+            visitor.end();
+        }
+
+        @Override
+        public void visit(SpiderDiagram subDiagram, int subDiagramIndex, TraversalContext context) {
+            sync(lists, context);
+            visitor.visit(subDiagram, subDiagramIndex, parents(lists), childIndices(lists), lists == null ? null : lists.parentIndices);
+        }
+
+        @Override
+        public boolean isDone() {
+            return visitor.isDone();
+        }
+
+        @Override
+        public T getResult() {
+            return visitor.getResult();
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Parent Lists">
+    private static final class ParentLists {
+
+        final ArrayList<CompoundSpiderDiagram> parents = new ArrayList<>();
+        final ArrayList<Integer> childIndices = new ArrayList<>();
+        final ArrayList<Integer> parentIndices = new ArrayList<>();
+    }
+
+    /**
+     * Makes the lists describe the current position of the context.
+     */
+    private static void sync(ParentLists lists, TraversalContext context) {
+        if (lists == null) {
+            return;
+        }
+        int depth = context.getDepth();
+        for (int level = lists.parents.size() - 1; level >= depth; level--) {
+            lists.parents.remove(level);
+            lists.childIndices.remove(level);
+            lists.parentIndices.remove(level);
+        }
+        // The traversal either descended by one level or moved on to the next
+        // operand of one of the parents, so only the last row can differ.
+        if (lists.parents.size() == depth && depth > 0) {
+            int last = depth - 1;
+            lists.parents.set(last, context.getParent(last));
+            lists.childIndices.set(last, context.getChildIndex(last));
+            lists.parentIndices.set(last, context.getParentIndex(last));
+        }
+        for (int level = lists.parents.size(); level < depth; level++) {
+            lists.parents.add(context.getParent(level));
+            lists.childIndices.add(context.getChildIndex(level));
+            lists.parentIndices.add(context.getParentIndex(level));
+        }
+    }
+
+    private static ArrayList<CompoundSpiderDiagram> parents(ParentLists lists) {
+        return lists == null ? null : lists.parents;
+    }
+
+    private static ArrayList<Integer> childIndices(ParentLists lists) {
+        return lists == null ? null : lists.childIndices;
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,189 @@
+package speedith.core.lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * The position of the currently traversed sub-diagram within the root diagram
+ * (see {@link ContextTransformer} and {@link ContextDiagramVisitor}).
+ * <p>The context holds the stack of parents of the current sub-diagram in
+ * plain arrays. A single context is reused for all sub-diagrams of one
+ * traversal, so traversals allocate nothing per visited sub-diagram.</p>
+ * <p>Clients can only read the context. Its content changes as the traversal
+ * moves on, so use {@link TraversalContext#copyParents()} and {@link
+ * TraversalContext#copyChildIndices()} to keep the current position.</p>
+ */
+public final class TraversalContext {
+
+    private static final int InitialCapacity = 8;
+
+    private CompoundSpiderDiagram[] parents = new CompoundSpiderDiagram[InitialCapacity];
+    private int[] childIndices = new int[InitialCapacity];
+    private int[] parentIndices = new int[InitialCapacity];
+    private int depth;
+
+    TraversalContext() {
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Read-Only View">
+
+    /**
+     * Returns the number of parents of the current sub-diagram ({@code 0} for
+     * the root).
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the parent at the given level. The root is at level {@code 0}
+     * and the direct parent of the current sub-diagram is at level {@code
+     * getDepth() - 1}.
+     *
+     * @throws IndexOutOfBoundsException if the level is not between {@code 0}
+     *                                   and {@code getDepth() - 1}.
+     */
+    public CompoundSpiderDiagram getParent(int level) {
+        return parents[checkLevel(level)];
+    }
+
+    /**
+     * Returns the direct parent of the current sub-diagram or {@code null} if
+     * the current sub-diagram is the root.
+     */
+    public CompoundSpiderDiagram getDirectParent() {
+        return depth == 0 ? null : parents[depth - 1];
+    }
+
+    /**
+     * Returns the operand index at which the parent at level {@code level + 1}
+     * appears within the parent at the given level. For the last level this is
+     * the operand index of the current sub-diagram within its direct parent.
+     *
+     * @throws IndexOutOfBoundsException if the level is not between {@code 0}
+     *                                   and {@code getDepth() - 1}.
+     */
+    public int getChildIndex(int level) {
+        return childIndices[checkLevel(level)];
+    }
+
+    /**
+     * Returns the sub-diagram index of the parent at the given level.
+     *
+     * @throws IndexOutOfBoundsException if the level is not between {@code 0}
+     *                                   and {@code getDepth() - 1}.
+     */
+    public int getParentIndex(int level) {
+        return parentIndices[checkLevel(level)];
+    }
+
+    /**
+     * Returns a new list with the parents of the current sub-diagram (in the
+     * format of {@link Transformer}).
+     */
+    public ArrayList<CompoundSpiderDiagram> copyParents() {
+        return new ArrayList<>(Arrays.asList(parents).subList(0, depth));
+    }
+
+    /**
+     * Returns a new list with the child indices of the current sub-diagram and
+     * its parents (in the format of {@link Transformer}).
+     */
+    public ArrayList<Integer> copyChildIndices() {
+        ArrayList<Integer> copy = new ArrayList<>(depth);
+        for (int level = 0; level < depth; level++) {
+            copy.add(childIndices[level]);
+        }
+        return copy;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Traversal">
+
+    /**
+     * Returns a new context with the same parents and child indices (for a
+     * traversal that continues independently of this one).
+     */
+    TraversalContext copy() {
+        TraversalContext copy = new TraversalContext();
+        if (depth >= copy.parents.length) {
+            int capacity = depth * 2;
+            copy.parents = new CompoundSpiderDiagram[capacity];
+            copy.childIndices = new int[capacity];
+            copy.parentIndices = new int[capacity];
+        }
+        System.arraycopy(parents, 0, copy.parents, 0, depth);
+        System.arraycopy(childIndices, 0, copy.childIndices, 0, depth);
+        System.arraycopy(parentIndices, 0, copy.parentIndices, 0, depth);
+        copy.depth = depth;
+        return copy;
+    }
+
+    /**
+     * Makes the given diagram the direct parent of the next sub-diagrams.
+     *
+     * @param parent      the compound diagram whose operands will be
+     *                    traversed.
+     * @param parentIndex the sub-diagram index of the parent.
+     */
+    void push(CompoundSpiderDiagram parent, int parentIndex) {
+        if (depth == parents.length) {
+            int capacity = depth * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            childIndices = Arrays.copyOf(childIndices, capacity);
+            parentIndices = Arrays.copyOf(parentIndices, capacity);
+        }
+        parents[depth] = parent;
+        parentIndices[depth] = parentIndex;
+        childIndices[depth] = 0;
+        ++depth;
+    }
+
+    /**
+     * Sets the operand index of the current sub-diagram within its direct
+     * parent.
+     */
+    void setChildIndex(int childIndex) {
+        childIndices[depth - 1] = childIndex;
+    }
+
+    /**
+     * Removes the direct parent (after all its operands were traversed).
+     */
+    void pop() {
+        parents[--depth] = null;
+    }
+
+    /**
+     * Returns the direct parent without checking the depth.
+     */
+    CompoundSpiderDiagram topParent() {
+        return parents[depth - 1];
+    }
+
+    /**
+     * Returns the operand index of the current sub-diagram within its direct
+     * parent without checking the depth.
+     */
+    int topChildIndex() {
+        return childIndices[depth - 1];
+    }
+
+    /**
+     * Returns the sub-diagram index of the direct parent without checking the
+     * depth.
+     */
+    int topParentIndex() {
+        return parentIndices[depth - 1];
+    }
+    // </editor-fold>
+
+    private int checkLevel(int level) {
+        if (level < 0 || level >= depth) {
+            throw new IndexOutOfBoundsException(i18n("GERR_INDEX_OUT_OF_BOUNDS"));
+        }
+        return level;
+    }
+}
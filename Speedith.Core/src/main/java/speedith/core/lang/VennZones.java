@@ -0,0 +1,259 @@
+package speedith.core.lang;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * The set of all zones over a given set of contours (i.e., the zones of the
+ * Venn diagram of the contours).
+ * <p>Unlike {@link Zones#allZonesForContours(java.lang.String...)}, this
+ * class never materialises the 2<sup>n</sup> zones. It counts zones
+ * arithmetically, checks membership by looking at a single zone, and creates
+ * zones lazily while they are being iterated. {@link
+ * VennZones#zonesWith(java.util.Collection, java.util.Collection)} enumerates
+ * only the zones with some contours fixed as in- or out-contours.</p>
+ * <p>As with {@link Zones#allZonesForContours(java.lang.String...)}, there are
+ * no zones over an empty set of contours.</p>
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class VennZones implements Iterable<Zone> {
+
+    private final ContourSymbols contours;
+
+    /**
+     * Creates the set of all zones over the given contours.
+     *
+     * @param contours the names of contours (duplicates are ignored).
+     */
+    public VennZones(String... contours) {
+        this(Arrays.asList(contours));
+    }
+
+    /**
+     * Creates the set of all zones over the given contours.
+     *
+     * @param contours the names of contours (duplicates are ignored).
+     */
+    public VennZones(Collection<String> contours) {
+        if (contours == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "contours"));
+        }
+        this.contours = ContourSymbols.fromContours(contours);
+    }
+
+    /**
+     * Returns the contours over which the zones in this set are defined.
+     *
+     * @return the contours over which the zones in this set are defined.
+     */
+    public SortedSet<String> getContours() {
+        return contours.asSortedSet();
+    }
+
+    /**
+     * Returns the number of zones in this set (i.e., 2<sup>n</sup>, where n is
+     * the number of contours).
+     *
+     * @return the number of zones in this set.
+     */
+    public BigInteger getZonesCount() {
+        return countZones(null, null);
+    }
+
+    /**
+     * Returns the number of zones in this set that have all the given
+     * in-contours and out-contours (see {@link
+     * VennZones#zonesWith(java.util.Collection, java.util.Collection)}).
+     *
+     * @param inContours  the contours that must contain the counted zones (may
+     *                    be {@code null}).
+     * @param outContours the contours that must not contain the counted zones
+     *                    (may be {@code null}).
+     * @return the number of zones with the given in- and out-contours.
+     */
+    public BigInteger countZones(Collection<String> inContours, Collection<String> outContours) {
+        BitSet fixedIn = ids(inContours);
+        BitSet fixedOut = ids(outContours);
+        if (contours.size() == 0 || fixedIn.intersects(fixedOut)) {
+            return BigInteger.ZERO;
+        }
+        return BigInteger.ONE.shiftLeft(contours.size() - fixedIn.cardinality() - fixedOut.cardinality());
+    }
+
+    /**
+     * Indicates whether the given zone is in this set (i.e., whether it
+     * mentions exactly the contours of this set and no contour is both its in-
+     * and out-contour).
+     *
+     * @param zone the zone to check.
+     * @return {@code true} iff the given zone is in this set.
+     */
+    public boolean contains(Zone zone) {
+        return zone != null && contours.size() > 0 && zone.isValid(contours.asSortedSet());
+    }
+
+    /**
+     * Returns all zones in this set. The zones are created lazily, while
+     * iterating.
+     *
+     * @return an iterator over all zones in this set.
+     */
+    @Override
+    public Iterator<Zone> iterator() {
+        return zonesWith(null, null).iterator();
+    }
+
+    /**
+     * Returns the zones of this set that have all the given in-contours and
+     * out-contours. Only these zones are enumerated (lazily, while iterating)
+     * and the other zones of this set are never visited.
+     * <p>The given contours that are not in this set are ignored. If a contour
+     * is both a given in- and out-contour, then there are no such zones.</p>
+     *
+     * @param inContours  the contours that must contain the returned zones (may
+     *                    be {@code null}).
+     * @param outContours the contours that must not contain the returned zones
+     *                    (may be {@code null}).
+     * @return the zones with the given in- and out-contours.
+     */
+    public Iterable<Zone> zonesWith(Collection<String> inContours, Collection<String> outContours) {
+        final BitSet fixedIn = ids(inContours);
+        final BitSet fixedOut = ids(outContours);
+        return new Iterable<Zone>() {
+            @Override
+            public Iterator<Zone> iterator() {
+                if (contours.size() == 0 || fixedIn.intersects(fixedOut)) {
+                    return Collections.<Zone>emptyList().iterator();
+                } else if (contours.isCompact()) {
+                    return new CompactZonesIterator(toMask(fixedIn), toMask(fixedOut));
+                } else {
+                    return new WideZonesIterator(fixedIn, fixedOut);
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "VennZones" + contours;
+    }
+
+    private BitSet ids(Collection<String> contourNames) {
+        BitSet ids = new BitSet(contours.size());
+        if (contourNames != null) {
+            for (String contour : contourNames) {
+                int id = contours.indexOf(contour);
+                if (id >= 0) {
+                    ids.set(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static long toMask(BitSet ids) {
+        long mask = 0L;
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            mask |= 1L << id;
+        }
+        return mask;
+    }
+
+    /**
+     * Enumerates the subsets of the free contours by the standard
+     * {@code next = (subset - free) & free} trick.
+     */
+    private final class CompactZonesIterator implements Iterator<Zone> {
+
+        private final long allMask;
+        private final long fixedInMask;
+        private final long freeMask;
+        private long subset;
+        private boolean hasNext = true;
+
+        CompactZonesIterator(long fixedInMask, long fixedOutMask) {
+            this.allMask = contours.size() == Long.SIZE ? -1L : (1L << contours.size()) - 1;
+            this.fixedInMask = fixedInMask;
+            this.freeMask = allMask & ~(fixedInMask | fixedOutMask);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public Zone next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            long inMask = fixedInMask | subset;
+            subset = (subset - freeMask) & freeMask;
+            hasNext = subset != 0;
+            return new Zone(contours, inMask, allMask & ~inMask);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Enumerates the subsets of the free contours by counting in binary over
+     * their ids.
+     */
+    private final class WideZonesIterator implements Iterator<Zone> {
+
+        private final BitSet fixedIn;
+        private final int[] freeIds;
+        private final BitSet subset = new BitSet();
+        private boolean hasNext = true;
+
+        WideZonesIterator(BitSet fixedIn, BitSet fixedOut) {
+            this.fixedIn = fixedIn;
+            BitSet free = new BitSet(contours.size());
+            free.set(0, contours.size());
+            free.andNot(fixedIn);
+            free.andNot(fixedOut);
+            freeIds = new int[free.cardinality()];
+            for (int i = 0, id = free.nextSetBit(0); id >= 0; i++, id = free.nextSetBit(id + 1)) {
+                freeIds[i] = id;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public Zone next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+            BitSet inIds = (BitSet) fixedIn.clone();
+            for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+                inIds.set(freeIds[i]);
+            }
+            ArrayList<String> inContours = new ArrayList<>();
+            ArrayList<String> outContours = new ArrayList<>();
+            for (int id = 0; id < contours.size(); id++) {
+                (inIds.get(id) ? inContours : outContours).add(contours.getContour(id));
+            }
+            // Increment the subset (a binary number over the free contours).
+            int lowestClear = subset.nextClearBit(0);
+            subset.clear(0, lowestClear);
+            subset.set(lowestClear);
+            hasNext = lowestClear < freeIds.length;
+            return new Zone(inContours, outContours);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
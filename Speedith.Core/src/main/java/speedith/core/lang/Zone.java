@@ -31,7 +31,6 @@ import propity.util.Sets;
 import java.io.IOException;
 import java.util.*;
 
-import static propity.util.Sets.equal;
 import static speedith.core.i18n.Translations.i18n;
 
 /**
@@ -39,6 +38,10 @@ import static speedith.core.i18n.Translations.i18n;
  * <p>For more information see
  * <a href="http://journals.cambridge.org/action/displayAbstract?fromPage=online&aid=6564924" title="10.1112/S1461157000000942">
  * Spider Diagrams (2005)</a>.</p>
+ * <p>A zone references the interned {@link ContourSymbols table} of all the
+ * contours it mentions and stores its in- and out-contours as bit masks over
+ * the ids in that table. Comparison, equality and hashing therefore work on
+ * the masks and never walk contour names of zones that share a table.</p>
  * <p>Instances of this class (and its derived classes) are immutable.</p>
  *
  * @author Matej Urbas [matej.urbas@gmail.com]
@@ -46,11 +49,23 @@ import static speedith.core.i18n.Translations.i18n;
 public class Zone implements Comparable<Zone>, SpiderDiagramElement {
 
     // <editor-fold defaultstate="collapsed" desc="Private Fields">
-    private TreeSet<String> inContours;
-    private TreeSet<String> outContours;
+    private final ContourSymbols contours;
+    /**
+     * The in- and out-contour masks. Used only when {@link
+     * ContourSymbols#isCompact() the contour table is compact}.
+     */
+    private final long inMask;
+    private final long outMask;
+    /**
+     * The in- and out-contour masks for tables with more than {@link
+     * ContourSymbols#MaxCompactContours} contours ({@code null} otherwise).
+     */
+    private final BitSet wideInMask;
+    private final BitSet wideOutMask;
     private boolean hashInvalid = true;
     private int hash;
-    private SortedSet<String> allContours;
+    private SortedSet<String> inContourSet;
+    private SortedSet<String> outContourSet;
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="Constructors">
@@ -76,19 +91,25 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *                    <p>Note that duplicated contour names will be ignored.</p>
      */
     public Zone(Collection<String> inContours, Collection<String> outContours) {
-        this(inContours == null ? null : new TreeSet<>(inContours),
-             outContours == null ? null : new TreeSet<>(outContours));
+        this.contours = ContourSymbols.fromContours(inContours, outContours);
+        if (contours.isCompact()) {
+            this.inMask = contours.toMask(inContours);
+            this.outMask = contours.toMask(outContours);
+            this.wideInMask = null;
+            this.wideOutMask = null;
+        } else {
+            this.inMask = 0L;
+            this.outMask = 0L;
+            this.wideInMask = contours.toBitSet(inContours);
+            this.wideOutMask = contours.toBitSet(outContours);
+        }
     }
 
     /**
      * Creates a new zone and initialises it with the two given collections of
      * contour names.
-     * <p><span style="font-weight:bold">Important</span>: this method does
-     * not make a copy of the given in- and out- contour sets. With this, one
-     * can violate the immutability property of this class (which means that the
-     * contract for the {@link Zone#hashCode()} method might be broken). So,
-     * make sure that you do not change the given sets after creating this zone
-     * with them.</p>
+     * <p>The given sets are not referenced by the new zone after
+     * construction.</p>
      *
      * @param inContours  the collection of names of contours which contain this
      *                    new zone.
@@ -98,8 +119,25 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *                    <p>Note that duplicated contour names will be ignored.</p>
      */
     Zone(TreeSet<String> inContours, TreeSet<String> outContours) {
-        this.inContours = inContours == null ? new TreeSet<String>() : inContours;
-        this.outContours = outContours == null ? new TreeSet<String>() : outContours;
+        this((Collection<String>) inContours, (Collection<String>) outContours);
+    }
+
+    /**
+     * Creates a new zone over the given compact contour table directly from
+     * the in- and out-contour masks.
+     *
+     * @param contours the contour table. It must be {@link
+     *                 ContourSymbols#isCompact() compact} and every contour in it
+     *                 must be set in at least one of the masks.
+     * @param inMask   the ids of the in-contours.
+     * @param outMask  the ids of the out-contours.
+     */
+    Zone(ContourSymbols contours, long inMask, long outMask) {
+        this.contours = contours;
+        this.inMask = inMask;
+        this.outMask = outMask;
+        this.wideInMask = null;
+        this.wideOutMask = null;
     }
     // </editor-fold>
 
@@ -135,7 +173,10 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *         <p>These are the contours that contain this zone.</p>
      */
     public SortedSet<String> getInContours() {
-        return Collections.unmodifiableSortedSet(inContours);
+        if (inContourSet == null) {
+            inContourSet = contourNames(inMask, wideInMask);
+        }
+        return inContourSet;
     }
 
     /**
@@ -144,7 +185,19 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      * @return the number of {@link Zone#getInContours() in-contours}.
      */
     public int getInContoursCount() {
-        return inContours.size();
+        return wideInMask == null ? Long.bitCount(inMask) : wideInMask.cardinality();
+    }
+
+    /**
+     * Returns the table of all contours mentioned in this zone (both in- and
+     * out-contours).
+     * <p>All zones that mention exactly the same contours return the same
+     * table instance.</p>
+     *
+     * @return the table of all contours mentioned in this zone.
+     */
+    public ContourSymbols getContourSymbols() {
+        return contours;
     }
     // </editor-fold>
 
@@ -160,7 +213,10 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *         <p>These are the contours that lie outside this zone.</p>
      */
     public SortedSet<String> getOutContours() {
-        return Collections.unmodifiableSortedSet(outContours);
+        if (outContourSet == null) {
+            outContourSet = contourNames(outMask, wideOutMask);
+        }
+        return outContourSet;
     }
 
     /**
@@ -169,7 +225,7 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      * @return the number of {@link Zone#getOutContours() out-contours}.
      */
     public int getOutContoursCount() {
-        return outContours.size();
+        return wideOutMask == null ? Long.bitCount(outMask) : wideOutMask.cardinality();
     }
 
     /**
@@ -177,9 +233,10 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      * {@code 0}, or {@code 1} if this zone is alphabetically smaller, equal, or
      * larger (respectively) than the other zone.
      * <p>This function should be used to order zones alphabetically.</p>
-     * <p>Note: this method uses the
+     * <p>Note: zones that share a {@link ContourSymbols contour table} are
+     * compared on their bit masks. Other zones are compared with the
      * {@link Sets#compareNaturally(java.util.SortedSet, java.util.SortedSet) }
-     * method internally (to compare the contour names with each other).</p>
+     * method (on the contour names).</p>
      *
      * @param other the other zone with which to compare this one.
      * @return {@code -1}, {@code 0}, or {@code 1} if this zone is
@@ -193,10 +250,16 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
         }
         if (this == other) {
             return 0;
+        } else if (contours == other.contours) {
+            int retVal = wideInMask == null ? compareMasks(inMask, other.inMask) : compareMasks(wideInMask, other.wideInMask);
+            if (retVal == 0) {
+                retVal = wideOutMask == null ? compareMasks(outMask, other.outMask) : compareMasks(wideOutMask, other.wideOutMask);
+            }
+            return retVal;
         } else {
-            int retVal = Sets.compareNaturally(inContours, other.inContours);
+            int retVal = Sets.compareNaturally(getInContours(), other.getInContours());
             if (retVal == 0) {
-                retVal = Sets.compareNaturally(outContours, other.outContours);
+                retVal = Sets.compareNaturally(getOutContours(), other.getOutContours());
             }
             return retVal;
         }
@@ -218,7 +281,10 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
             return true;
         } else if (obj instanceof Zone) {
             Zone other = (Zone) obj;
-            return equal(inContours, other.inContours) && equal(outContours, other.outContours);
+            return (contours == other.contours || contours.equals(other.contours))
+                   && (wideInMask == null
+                       ? inMask == other.inMask && outMask == other.outMask
+                       : wideInMask.equals(other.wideInMask) && wideOutMask.equals(other.wideOutMask));
         }
         return false;
     }
@@ -226,8 +292,8 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
     @Override
     public int hashCode() {
         if (hashInvalid) {
-            hash = (inContours == null || inContours.isEmpty() ? 0 : inContours.hashCode())
-                   + (outContours == null || outContours.isEmpty() ? 0 : outContours.hashCode());
+            hash = contours.hashCode() * 31
+                   + (wideInMask == null ? (int) (inMask ^ (inMask >>> 32)) : wideInMask.hashCode());
             hashInvalid = false;
         }
         return hash;
@@ -242,7 +308,7 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *         ones.
      */
     public Zone withInContours(String... inContours) {
-        return new Zone(inContours == null ? null : new TreeSet<>(Arrays.asList(inContours)), this.outContours);
+        return new Zone(inContours == null ? null : Arrays.asList(inContours), getOutContours());
     }
 
     /**
@@ -254,7 +320,7 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *         ones.
      */
     public Zone withOutContours(String... outContours) {
-        return new Zone(this.inContours, outContours == null ? null : new TreeSet<>(Arrays.asList(outContours)));
+        return new Zone(getInContours(), outContours == null ? null : Arrays.asList(outContours));
     }
 
     /**
@@ -271,13 +337,11 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
      *         </ul>
      */
     public boolean isValid(SortedSet<String> contours) {
-        // NOTE: Maybe we can check whether the disjoint sum of 'inCountours'
-        // and 'outContours' equals to 'contours' in a different, more efficient
-        // way.
-        return Sets.naturallyDisjoint(this.inContours, this.outContours)
-               && Sets.isNaturalSubset(this.inContours, contours)
-               && Sets.isNaturalSubset(this.outContours, contours)
-               && contours.size() == this.getInContoursCount() + this.getOutContoursCount();
+        // The in- and out-contours together make up the contour table. If they
+        // are disjoint, the zone is valid iff the table equals 'contours'.
+        return areInAndOutContoursDisjoint()
+               && contours.size() == this.contours.size()
+               && (contours == this.contours.asSortedSet() || Sets.isNaturalSubset(this.contours.asSortedSet(), contours));
     }
     // </editor-fold>
 
@@ -296,9 +360,9 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
                 throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "sb"));
             }
             sb.append('(');
-            SpiderDiagram.printStringList(sb, inContours);
+            SpiderDiagram.printStringList(sb, getInContours());
             sb.append(", ");
-            SpiderDiagram.printStringList(sb, outContours);
+            SpiderDiagram.printStringList(sb, getOutContours());
             sb.append(')');
         } catch (IOException ex) {
             throw new RuntimeException(ex);
@@ -313,17 +377,96 @@ public class Zone implements Comparable<Zone>, SpiderDiagramElement {
     }
 
     public SortedSet<String> getAllContours() {
-        if (allContours == null) {
-            TreeSet<String> contours = new TreeSet<>();
-            if (getInContoursCount() > 0) {
-                contours.addAll(getInContours());
+        return contours.asSortedSet();
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Bit Mask Helpers">
+
+    /**
+     * Returns the in-contour mask of this zone. Valid only for zones over a
+     * {@link ContourSymbols#isCompact() compact} contour table.
+     */
+    long getInMask() {
+        return inMask;
+    }
+
+    /**
+     * Returns the out-contour mask of this zone. Valid only for zones over a
+     * {@link ContourSymbols#isCompact() compact} contour table.
+     */
+    long getOutMask() {
+        return outMask;
+    }
+
+    /**
+     * Returns the stable 64-bit fingerprint of this zone (see {@link
+     * SpiderDiagram#getFingerprint()}). It is a combination of the fingerprints
+     * of the names of all contours (in alphabetical order) and whether they are
+     * in- or out-contours.
+     */
+    long getFingerprint() {
+        long fingerprint = Fingerprints.ZoneSeed;
+        for (int id = 0; id < contours.size(); id++) {
+            boolean in = wideInMask == null ? ((inMask >>> id) & 1) != 0 : wideInMask.get(id);
+            boolean out = wideOutMask == null ? ((outMask >>> id) & 1) != 0 : wideOutMask.get(id);
+            fingerprint = Fingerprints.combine(fingerprint, contours.getFingerprint(id));
+            fingerprint = Fingerprints.combine(fingerprint, (in ? 1 : 0) | (out ? 2 : 0));
+        }
+        return fingerprint;
+    }
+
+    private boolean areInAndOutContoursDisjoint() {
+        return wideInMask == null ? (inMask & outMask) == 0 : !wideInMask.intersects(wideOutMask);
+    }
+
+    private SortedSet<String> contourNames(long mask, BitSet wideMask) {
+        TreeSet<String> names = new TreeSet<>();
+        if (wideMask == null) {
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                names.add(contours.getContour(Long.numberOfTrailingZeros(rest)));
             }
-            if (getOutContoursCount() > 0) {
-                contours.addAll(getOutContours());
+        } else {
+            for (int id = wideMask.nextSetBit(0); id >= 0; id = wideMask.nextSetBit(id + 1)) {
+                names.add(contours.getContour(id));
             }
-            allContours = Collections.unmodifiableSortedSet(contours);
         }
-        return allContours;
+        return Collections.unmodifiableSortedSet(names);
+    }
+
+    /**
+     * Lexicographically compares the sorted contour-name sequences given by
+     * the two masks over the same contour table.
+     * <p>The sequences agree up to the lowest id in which the masks differ.
+     * The mask containing that id is smaller iff the other mask still has a
+     * (larger) contour after it, otherwise it is the longer sequence.</p>
+     */
+    static int compareMasks(long a, long b) {
+        long diff = a ^ b;
+        if (diff == 0) {
+            return 0;
+        }
+        long lowestDiff = diff & -diff;
+        long above = -lowestDiff << 1;
+        if ((a & lowestDiff) != 0) {
+            return (b & above) != 0 ? -1 : 1;
+        } else {
+            return (a & above) != 0 ? 1 : -1;
+        }
+    }
+
+    private static int compareMasks(BitSet a, BitSet b) {
+        BitSet diff = (BitSet) a.clone();
+        diff.xor(b);
+        int lowestDiff = diff.nextSetBit(0);
+        if (lowestDiff < 0) {
+            return 0;
+        }
+        if (a.get(lowestDiff)) {
+            return b.nextSetBit(lowestDiff + 1) >= 0 ? -1 : 1;
+        } else {
+            return a.nextSetBit(lowestDiff + 1) >= 0 ? 1 : -1;
+        }
     }
     // </editor-fold>
 }
@@ -0,0 +1,121 @@
+package speedith.core.lang;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+/**
+ * An immutable index from zones to the spiders that have a foot in them.
+ * <p>Every zone that appears in some habitat gets a small integer id. The
+ * spiders of the zone with id {@code z} are stored (as indices into the
+ * alphabetically sorted array of spider names) in {@code spiders[offsets[z]]}
+ * through {@code spiders[offsets[z + 1] - 1]}, in ascending order. Zones are
+ * mapped to their ids through an open-addressing hash table.</p>
+ */
+final class ZoneSpiderIndex {
+
+    private final String[] spiderNames;
+    private final Zone[] slots;
+    private final int[] slotIds;
+    private final int[] offsets;
+    private final int[] spiders;
+
+    /**
+     * Builds the index of the given habitats.
+     *
+     * @param habitats the habitats of spiders, sorted by spider names.
+     */
+    ZoneSpiderIndex(SortedMap<String, Region> habitats) {
+        spiderNames = habitats.keySet().toArray(new String[habitats.size()]);
+        int feetCount = 0;
+        for (Region region : habitats.values()) {
+            feetCount += region.getZonesCount();
+        }
+        slots = new Zone[tableSize(feetCount)];
+        slotIds = new int[slots.length];
+
+        // Assign zone ids and remember the foot of every spider.
+        int[] footZones = new int[feetCount];
+        int[] footSpiders = new int[feetCount];
+        int[] counts = new int[feetCount + 1];
+        int zonesCount = 0;
+        int foot = 0;
+        int spider = 0;
+        for (Map.Entry<String, Region> habitat : habitats.entrySet()) {
+            for (Zone zone : habitat.getValue().sortedZones()) {
+                int slot = findSlot(zone);
+                if (slots[slot] == null) {
+                    slots[slot] = zone;
+                    slotIds[slot] = zonesCount++;
+                }
+                footZones[foot] = slotIds[slot];
+                footSpiders[foot] = spider;
+                ++counts[slotIds[slot] + 1];
+                ++foot;
+            }
+            ++spider;
+        }
+
+        // Turn the counts into offsets and group the feet by zones. Spiders are
+        // visited in ascending order, so they stay sorted within every zone.
+        offsets = new int[zonesCount + 1];
+        for (int zone = 0; zone < zonesCount; zone++) {
+            offsets[zone + 1] = offsets[zone] + counts[zone + 1];
+        }
+        spiders = new int[feetCount];
+        int[] next = new int[zonesCount];
+        System.arraycopy(offsets, 0, next, 0, zonesCount);
+        for (int i = 0; i < feetCount; i++) {
+            spiders[next[footZones[i]]++] = footSpiders[i];
+        }
+    }
+
+    /**
+     * Returns the number of spiders that have a foot in the given zone.
+     */
+    int getSpiderCount(Zone zone) {
+        int id = getZoneId(zone);
+        return id < 0 ? 0 : offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns a new set of the spiders that have a foot in the given zone.
+     */
+    TreeSet<String> getSpiders(Zone zone) {
+        TreeSet<String> result = new TreeSet<>();
+        int id = getZoneId(zone);
+        if (id >= 0) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                result.add(spiderNames[spiders[i]]);
+            }
+        }
+        return result;
+    }
+
+    private int getZoneId(Zone zone) {
+        if (zone == null || slots.length == 0) {
+            return -1;
+        }
+        int slot = findSlot(zone);
+        return slots[slot] == null ? -1 : slotIds[slot];
+    }
+
+    /**
+     * Returns the slot that contains the given zone or the empty slot in which
+     * the zone would be put.
+     */
+    private int findSlot(Zone zone) {
+        int mask = slots.length - 1;
+        int hash = zone.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (slots[slot] != null && !slots[slot].equals(zone)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int tableSize(int maxEntries) {
+        // Keep the load factor at or below one half.
+        return maxEntries == 0 ? 0 : Integer.highestOneBit(maxEntries) << 2;
+    }
+}
@@ -0,0 +1,264 @@
+package speedith.core.lang.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import speedith.core.lang.reader.ReadingException;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * Constants and primitive encodings of the binary spider diagram format.
+ * <p>A binary stream starts with the {@link BinaryFormat#Magic magic bytes}
+ * and the format version (a varint). Every record that follows is prefixed
+ * with the varint length of its payload. A payload consists of:</p>
+ * <ul>
+ * <li>the record kind (a varint: {@link BinaryFormat#RecordSpiderDiagram} or
+ * {@link BinaryFormat#RecordGoals}),</li>
+ * <li>the string table (a varint count followed by UTF-8 strings, each
+ * prefixed with its varint byte length),</li>
+ * <li>the number of goals (only in goal records), and</li>
+ * <li>the diagrams in pre-order. Every primary and compound diagram gets the
+ * next node id when it is first written. Diagrams that appear again are
+ * written as {@link BinaryFormat#TagBackReference back-references} to their
+ * node ids.</li>
+ * </ul>
+ * <p>A primary diagram lists its contours (string ids) and its distinct zones.
+ * A zone is a pair of bit masks over the contour list, each written as an
+ * unbounded varint. Spiders, habitats, shaded and present zones then refer to
+ * contours and zones by their positions.</p>
+ * <p>Records are self-contained, so any record can be decoded without the
+ * records before it.</p>
+ */
+final class BinaryFormat {
+
+    /**
+     * The bytes at the start of every binary stream.
+     */
+    static final byte[] Magic = {'S', 'D', 'B', 'F'};
+    /**
+     * The latest version of the format.
+     */
+    static final int Version = 1;
+    static final int RecordSpiderDiagram = 1;
+    static final int RecordGoals = 2;
+    static final int TagBackReference = 0;
+    static final int TagNull = 1;
+    static final int TagPrimary = 2;
+    static final int TagCompound = 3;
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * The bytes at the start of every corpus file (see {@link DiagramCorpus}).
+     */
+    static final byte[] CorpusMagic = {'S', 'D', 'B', 'C'};
+    /**
+     * The latest version of the corpus file format.
+     */
+    static final int CorpusVersion = 1;
+    /**
+     * The size of the fixed corpus header: the magic bytes, the version, the
+     * offset of the index, the number of records and the length of the
+     * longest record.
+     */
+    static final int CorpusHeaderSize = 24;
+    /**
+     * The size of an index entry: the offset, length and fingerprint of a
+     * record.
+     */
+    static final int CorpusIndexEntrySize = 20;
+    /**
+     * The size of a fingerprint table slot: a fingerprint and the ordinal of
+     * its record plus one ({@code 0} marks empty slots).
+     */
+    static final int CorpusTableSlotSize = 12;
+    /**
+     * Records are mapped in segments of this many bytes (plus the length of
+     * the longest record, so that every record lies within a single segment).
+     */
+    static final int CorpusSegmentShift = 30;
+    static final int MaxCorpusRecordLength = (1 << CorpusSegmentShift) - 1;
+    /**
+     * The maximum number of records in a corpus. The index of such a corpus
+     * still fits into a single mapped buffer.
+     */
+    static final int MaxCorpusRecords = 1 << 25;
+
+    private BinaryFormat() {
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Reading">
+    /**
+     * Reads a non-negative varint.
+     */
+    static int readVarInt(ByteBuffer buffer) throws ReadingException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = readByte(buffer);
+            if (shift == 28 && (b & 0x70) != 0) {
+                // The fifth byte carries only bits 28 to 31.
+                break;
+            }
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw malformed("varint out of range");
+    }
+
+    /**
+     * Reads a varint and checks that it is smaller than the given bound.
+     */
+    static int readIndex(ByteBuffer buffer, int bound) throws ReadingException {
+        int index = readVarInt(buffer);
+        if (index >= bound) {
+            throw malformed("index " + index + " out of range");
+        }
+        return index;
+    }
+
+    /**
+     * Reads an unbounded varint bit mask and adds the contours at the positions
+     * of its set bits to the given list.
+     */
+    static void readMask(ByteBuffer buffer, String[] contours, List<String> target) throws ReadingException {
+        int position = 0;
+        byte b;
+        do {
+            b = readByte(buffer);
+            for (int bits = b & 0x7f; bits != 0; bits &= bits - 1) {
+                int contour = position + Integer.numberOfTrailingZeros(bits);
+                if (contour >= contours.length) {
+                    throw malformed("zone mask out of range");
+                }
+                target.add(contours[contour]);
+            }
+            position += 7;
+        } while (b < 0);
+    }
+
+    static String readString(ByteBuffer buffer) throws ReadingException {
+        int length = readVarInt(buffer);
+        if (length > buffer.remaining()) {
+            throw malformed("truncated string");
+        }
+        String str;
+        if (buffer.hasArray()) {
+            str = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            str = new String(bytes, UTF8);
+        }
+        return str;
+    }
+
+    /**
+     * Returns the first slot of the given fingerprint in a fingerprint table
+     * with the given (power of two) capacity.
+     */
+    static int fingerprintSlot(long fingerprint, int capacity) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & (capacity - 1);
+    }
+
+    static ReadingException malformed(String detail) {
+        return new ReadingException(i18n("ERR_BINARY_MALFORMED", detail));
+    }
+
+    private static byte readByte(ByteBuffer buffer) throws ReadingException {
+        try {
+            return buffer.get();
+        } catch (BufferUnderflowException ex) {
+            throw new ReadingException(i18n("ERR_BINARY_MALFORMED", "truncated record"), ex);
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Writing">
+    /**
+     * A growable byte array that is reused for many records.
+     */
+    static final class ByteSink {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Writes the bit mask in the given words as an unbounded varint.
+         */
+        void writeMask(long[] words) {
+            int bitCount = 0;
+            for (int i = words.length - 1; i >= 0; i--) {
+                if (words[i] != 0) {
+                    bitCount = i * 64 + 64 - Long.numberOfLeadingZeros(words[i]);
+                    break;
+                }
+            }
+            int position = 0;
+            do {
+                int bits = 0;
+                for (int bit = 0; bit < 7; bit++) {
+                    int index = position + bit;
+                    if (index < bitCount && (words[index >>> 6] & (1L << index)) != 0) {
+                        bits |= 1 << bit;
+                    }
+                }
+                position += 7;
+                writeByte(position < bitCount ? bits | 0x80 : bits);
+            } while (position < bitCount);
+        }
+
+        void writeString(String str) {
+            byte[] encoded = str.getBytes(UTF8);
+            writeVarInt(encoded.length);
+            write(encoded, 0, encoded.length);
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+    // </editor-fold>
+}
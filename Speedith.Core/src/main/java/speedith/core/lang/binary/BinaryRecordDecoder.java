@@ -0,0 +1,262 @@
+package speedith.core.lang.binary;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import speedith.core.lang.Region;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.SpiderDiagrams;
+import speedith.core.lang.Zone;
+import speedith.core.lang.reader.ReadingException;
+import speedith.core.reasoning.Goals;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.binary.BinaryFormat.*;
+
+/**
+ * Decodes the payload of a single record of the {@link BinaryFormat binary
+ * format}.
+ * <p>The payload is read from the current position of the given buffer up to
+ * its limit, so records can be decoded from any buffer (e.g.: a slice of a
+ * memory-mapped file).</p>
+ */
+final class BinaryRecordDecoder {
+
+    private final ByteBuffer buffer;
+    private String[] strings;
+    private final ArrayList<SpiderDiagram> nodes = new ArrayList<>();
+
+    private BinaryRecordDecoder(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Decodes a spider diagram record.
+     *
+     * @param payload the payload of the record.
+     * @return the decoded spider diagram.
+     * @throws ReadingException thrown if the payload is malformed or does not
+     *                          contain a spider diagram.
+     */
+    static SpiderDiagram decodeSpiderDiagram(ByteBuffer payload) throws ReadingException {
+        BinaryRecordDecoder decoder = new BinaryRecordDecoder(payload);
+        decoder.readHeader(RecordSpiderDiagram);
+        SpiderDiagram diagram = decoder.readNode();
+        decoder.readEnd();
+        return diagram;
+    }
+
+    /**
+     * Decodes a goals record.
+     *
+     * @param payload the payload of the record.
+     * @return the decoded goals.
+     * @throws ReadingException thrown if the payload is malformed or does not
+     *                          contain goals.
+     */
+    static Goals decodeGoals(ByteBuffer payload) throws ReadingException {
+        BinaryRecordDecoder decoder = new BinaryRecordDecoder(payload);
+        decoder.readHeader(RecordGoals);
+        int goalCount = decoder.readCount();
+        List<SpiderDiagram> goals = new ArrayList<>(goalCount);
+        for (int i = 0; i < goalCount; i++) {
+            goals.add(decoder.readNode());
+        }
+        decoder.readEnd();
+        return Goals.createGoalsFrom(goals);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Record Structure">
+    private void readHeader(int expectedKind) throws ReadingException {
+        int kind = readVarInt(buffer);
+        if (kind != expectedKind) {
+            throw new ReadingException(i18n("ERR_BINARY_UNEXPECTED_RECORD", recordKindName(expectedKind), recordKindName(kind)));
+        }
+        strings = new String[readCount()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+        }
+    }
+
+    private void readEnd() throws ReadingException {
+        if (buffer.hasRemaining()) {
+            throw malformed("trailing bytes");
+        }
+    }
+
+    private static String recordKindName(int kind) {
+        switch (kind) {
+            case RecordSpiderDiagram:
+                return "a spider diagram";
+            case RecordGoals:
+                return "goals";
+            default:
+                return "an unknown kind (" + kind + ")";
+        }
+    }
+
+    /**
+     * Reads the size of a collection. Every element takes at least one byte,
+     * so larger sizes are rejected before anything is allocated.
+     */
+    private int readCount() throws ReadingException {
+        int count = readVarInt(buffer);
+        if (count > buffer.remaining()) {
+            throw malformed("count " + count + " exceeds the record");
+        }
+        return count;
+    }
+
+    private String readStringId() throws ReadingException {
+        return strings[readIndex(buffer, strings.length)];
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Diagrams">
+    /**
+     * Reads a diagram and its operands. Uses an explicit stack so that deeply
+     * nested diagrams can be read too.
+     */
+    private SpiderDiagram readNode() throws ReadingException {
+        ArrayList<CompoundFrame> frames = new ArrayList<>();
+        while (true) {
+            SpiderDiagram sd;
+            int tag = readVarInt(buffer);
+            switch (tag) {
+                case TagBackReference:
+                    sd = nodes.get(readIndex(buffer, nodes.size()));
+                    if (sd == null) {
+                        throw malformed("a diagram refers to itself");
+                    }
+                    break;
+                case TagNull:
+                    sd = SpiderDiagrams.createNullSD();
+                    break;
+                case TagPrimary:
+                    sd = readPrimary();
+                    nodes.add(sd);
+                    break;
+                case TagCompound:
+                    CompoundFrame frame = new CompoundFrame(readStringId(), readCount(), nodes.size());
+                    // Reserve the id of the compound diagram until its operands
+                    // are read.
+                    nodes.add(null);
+                    if (frame.operands.size() < frame.operandCount) {
+                        frames.add(frame);
+                        continue;
+                    }
+                    sd = frame.create(nodes);
+                    break;
+                default:
+                    throw malformed("unknown diagram tag " + tag);
+            }
+            while (!frames.isEmpty()) {
+                CompoundFrame top = frames.get(frames.size() - 1);
+                top.operands.add(sd);
+                if (top.operands.size() < top.operandCount) {
+                    break;
+                }
+                frames.remove(frames.size() - 1);
+                sd = top.create(nodes);
+            }
+            if (frames.isEmpty()) {
+                return sd;
+            }
+        }
+    }
+
+    private SpiderDiagram readPrimary() throws ReadingException {
+        String[] contours = new String[readCount()];
+        for (int i = 0; i < contours.length; i++) {
+            contours[i] = readStringId();
+        }
+
+        Zone[] zones = new Zone[readCount()];
+        ArrayList<String> inContours = new ArrayList<>();
+        ArrayList<String> outContours = new ArrayList<>();
+        for (int i = 0; i < zones.length; i++) {
+            inContours.clear();
+            outContours.clear();
+            readMask(buffer, contours, inContours);
+            readMask(buffer, contours, outContours);
+            zones[i] = newZone(inContours, outContours);
+        }
+
+        int spiderCount = readCount();
+        ArrayList<String> spiders = new ArrayList<>(spiderCount);
+        for (int i = 0; i < spiderCount; i++) {
+            spiders.add(readStringId());
+        }
+
+        int habitatCount = readCount();
+        TreeMap<String, Region> habitats = new TreeMap<>();
+        for (int i = 0; i < habitatCount; i++) {
+            String spider = readStringId();
+            habitats.put(spider, newRegion(readZones(zones)));
+        }
+
+        ArrayList<Zone> shadedZones = readZones(zones);
+        ArrayList<Zone> presentZones = readZones(zones);
+        try {
+            return SpiderDiagrams.createPrimarySD(spiders, habitats, shadedZones, presentZones);
+        } catch (IllegalArgumentException ex) {
+            throw new ReadingException(i18n("ERR_BINARY_MALFORMED", ex.getLocalizedMessage()), ex);
+        }
+    }
+
+    private ArrayList<Zone> readZones(Zone[] zones) throws ReadingException {
+        int zoneCount = readCount();
+        ArrayList<Zone> result = new ArrayList<>(zoneCount);
+        for (int i = 0; i < zoneCount; i++) {
+            result.add(zones[readIndex(buffer, zones.length)]);
+        }
+        return result;
+    }
+
+    private static Zone newZone(ArrayList<String> inContours, ArrayList<String> outContours) throws ReadingException {
+        try {
+            return new Zone(inContours, outContours);
+        } catch (IllegalArgumentException ex) {
+            throw new ReadingException(i18n("ERR_BINARY_MALFORMED", ex.getLocalizedMessage()), ex);
+        }
+    }
+
+    private static Region newRegion(ArrayList<Zone> zones) throws ReadingException {
+        try {
+            return new Region(zones);
+        } catch (IllegalArgumentException ex) {
+            throw new ReadingException(i18n("ERR_BINARY_MALFORMED", ex.getLocalizedMessage()), ex);
+        }
+    }
+
+    /**
+     * A compound diagram whose operands are still being read.
+     */
+    private static final class CompoundFrame {
+
+        private final String operator;
+        private final int operandCount;
+        private final int nodeId;
+        private final ArrayList<SpiderDiagram> operands;
+
+        CompoundFrame(String operator, int operandCount, int nodeId) {
+            this.operator = operator;
+            this.operandCount = operandCount;
+            this.nodeId = nodeId;
+            this.operands = new ArrayList<>(operandCount);
+        }
+
+        SpiderDiagram create(ArrayList<SpiderDiagram> nodes) throws ReadingException {
+            SpiderDiagram sd;
+            try {
+                sd = SpiderDiagrams.createCompoundSD(operator, operands, false);
+            } catch (IllegalArgumentException ex) {
+                throw new ReadingException(i18n("ERR_BINARY_MALFORMED", ex.getLocalizedMessage()), ex);
+            }
+            nodes.set(nodeId, sd);
+            return sd;
+        }
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,236 @@
+package speedith.core.lang.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import speedith.core.lang.CompoundSpiderDiagram;
+import speedith.core.lang.NullSpiderDiagram;
+import speedith.core.lang.PrimarySpiderDiagram;
+import speedith.core.lang.Region;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.Zone;
+import speedith.core.reasoning.Goals;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.binary.BinaryFormat.*;
+
+/**
+ * Encodes the payload of a single record of the {@link BinaryFormat binary
+ * format}.
+ * <p>An encoder may be reused for many records. It keeps the payload of the
+ * last encoded record until the next one is encoded.</p>
+ */
+final class BinaryRecordEncoder {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final ByteSink header = new ByteSink();
+    private final ByteSink body = new ByteSink();
+    private final HashMap<String, Integer> stringIds = new HashMap<>();
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final IdentityHashMap<SpiderDiagram, Integer> nodeIds = new IdentityHashMap<>();
+    private final ArrayDeque<SpiderDiagram> pending = new ArrayDeque<>();
+    private final HashMap<String, Integer> contourPositions = new HashMap<>();
+    private final LinkedHashMap<Zone, Integer> zoneIds = new LinkedHashMap<>();
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Records">
+    /**
+     * Encodes a spider diagram record.
+     */
+    void encode(SpiderDiagram diagram) {
+        startRecord();
+        writeNode(diagram);
+        endRecord(RecordSpiderDiagram, -1);
+    }
+
+    /**
+     * Encodes a goals record. Sub-diagrams that appear in several goals are
+     * stored only once.
+     */
+    void encode(Goals goals) {
+        startRecord();
+        int goalCount = goals.getGoalsCount();
+        for (int i = 0; i < goalCount; i++) {
+            SpiderDiagram goal = goals.getGoalAt(i);
+            if (goal == null) {
+                throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "goals.getGoalAt(" + i + ")"));
+            }
+            writeNode(goal);
+        }
+        endRecord(RecordGoals, goalCount);
+    }
+
+    /**
+     * Returns the size of the payload of the last encoded record.
+     */
+    int size() {
+        return header.size() + body.size();
+    }
+
+    /**
+     * Writes the payload of the last encoded record to the given stream.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        header.writeTo(out);
+        body.writeTo(out);
+    }
+
+    private void startRecord() {
+        body.reset();
+        stringIds.clear();
+        strings.clear();
+        nodeIds.clear();
+    }
+
+    private void endRecord(int kind, int goalCount) {
+        header.reset();
+        header.writeVarInt(kind);
+        header.writeVarInt(strings.size());
+        for (String str : strings) {
+            header.writeString(str);
+        }
+        if (goalCount >= 0) {
+            header.writeVarInt(goalCount);
+        }
+    }
+
+    private int stringId(String str) {
+        Integer id = stringIds.get(str);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(str, id);
+            strings.add(str);
+        }
+        return id;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Diagrams">
+    /**
+     * Writes the diagram and its operands in pre-order. Uses an explicit stack
+     * so that deeply nested diagrams can be written too.
+     */
+    private void writeNode(SpiderDiagram diagram) {
+        pending.push(diagram);
+        while (!pending.isEmpty()) {
+            SpiderDiagram sd = pending.pop();
+            if (sd instanceof NullSpiderDiagram) {
+                body.writeVarInt(TagNull);
+                continue;
+            }
+            Integer id = nodeIds.get(sd);
+            if (id != null) {
+                body.writeVarInt(TagBackReference);
+                body.writeVarInt(id);
+                continue;
+            }
+            nodeIds.put(sd, nodeIds.size());
+            if (sd instanceof PrimarySpiderDiagram) {
+                writePrimary((PrimarySpiderDiagram) sd);
+            } else if (sd instanceof CompoundSpiderDiagram) {
+                CompoundSpiderDiagram csd = (CompoundSpiderDiagram) sd;
+                body.writeVarInt(TagCompound);
+                body.writeVarInt(stringId(csd.getOperator().getName()));
+                List<SpiderDiagram> operands = csd.getOperands();
+                body.writeVarInt(operands.size());
+                for (int i = operands.size() - 1; i >= 0; i--) {
+                    pending.push(operands.get(i));
+                }
+            } else {
+                throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "diagram"));
+            }
+        }
+    }
+
+    private void writePrimary(PrimarySpiderDiagram psd) {
+        body.writeVarInt(TagPrimary);
+
+        Map<String, Region> habitats = psd.getHabitats();
+        zoneIds.clear();
+        if (habitats != null) {
+            for (Region habitat : habitats.values()) {
+                addZones(habitat.sortedZones());
+            }
+        }
+        addZones(psd.getShadedZones());
+        addZones(psd.getPresentZones());
+
+        // Collect the contours from the zones themselves, which also works for
+        // diagrams whose zones do not agree on the set of contours.
+        TreeSet<String> contours = new TreeSet<>();
+        for (Zone zone : zoneIds.keySet()) {
+            contours.addAll(zone.getAllContours());
+        }
+        contourPositions.clear();
+        body.writeVarInt(contours.size());
+        for (String contour : contours) {
+            contourPositions.put(contour, contourPositions.size());
+            body.writeVarInt(stringId(contour));
+        }
+
+        body.writeVarInt(zoneIds.size());
+        long[] mask = new long[(contours.size() + 63) >>> 6];
+        for (Zone zone : zoneIds.keySet()) {
+            writeZoneMask(zone.getInContours(), mask);
+            writeZoneMask(zone.getOutContours(), mask);
+        }
+
+        SortedSet<String> spiders = psd.getSpiders();
+        body.writeVarInt(spiders == null ? 0 : spiders.size());
+        if (spiders != null) {
+            for (String spider : spiders) {
+                body.writeVarInt(stringId(spider));
+            }
+        }
+
+        body.writeVarInt(habitats == null ? 0 : habitats.size());
+        if (habitats != null) {
+            for (Map.Entry<String, Region> habitat : habitats.entrySet()) {
+                body.writeVarInt(stringId(habitat.getKey()));
+                writeZoneIds(habitat.getValue().sortedZones());
+            }
+        }
+        writeZoneIds(psd.getShadedZones());
+        writeZoneIds(psd.getPresentZones());
+    }
+
+    private void addZones(SortedSet<Zone> zones) {
+        if (zones != null) {
+            for (Zone zone : zones) {
+                if (!zoneIds.containsKey(zone)) {
+                    zoneIds.put(zone, zoneIds.size());
+                }
+            }
+        }
+    }
+
+    private void writeZoneIds(SortedSet<Zone> zones) {
+        body.writeVarInt(zones == null ? 0 : zones.size());
+        if (zones != null) {
+            for (Zone zone : zones) {
+                body.writeVarInt(zoneIds.get(zone));
+            }
+        }
+    }
+
+    private void writeZoneMask(SortedSet<String> zoneContours, long[] mask) {
+        Arrays.fill(mask, 0L);
+        if (zoneContours != null) {
+            for (String contour : zoneContours) {
+                int position = contourPositions.get(contour);
+                mask[position >>> 6] |= 1L << position;
+            }
+        }
+        body.writeMask(mask);
+    }
+    // </editor-fold>
+}
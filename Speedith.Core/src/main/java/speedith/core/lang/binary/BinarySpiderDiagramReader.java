@@ -0,0 +1,208 @@
+package speedith.core.lang.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.reader.ReadingException;
+import speedith.core.reasoning.Goals;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.binary.BinaryFormat.*;
+
+/**
+ * Reads spider diagrams and goals in the {@link BinaryFormat binary format}
+ * (as written by a {@link BinarySpiderDiagramWriter}).
+ * <p>The header of the format is checked when the reader is created. Every
+ * call to {@link BinarySpiderDiagramReader#readSpiderDiagram()} or {@link
+ * BinarySpiderDiagramReader#readGoals()} then reads the next record.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class BinarySpiderDiagramReader implements Closeable {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final InputStream in;
+    private final int version;
+    private byte[] payload = new byte[256];
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates a reader and reads the header of the binary format from the
+     * given stream.
+     *
+     * @param in the stream from which to read the records.
+     * @throws ReadingException thrown if the stream does not start with a
+     *                          header of a supported version of the format.
+     * @throws IOException      thrown if the header could not be read.
+     */
+    public BinarySpiderDiagramReader(InputStream in) throws ReadingException, IOException {
+        if (in == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "in"));
+        }
+        this.in = in;
+        byte[] magic = new byte[Magic.length];
+        if (readFully(magic, magic.length) < magic.length || !Arrays.equals(magic, Magic)) {
+            throw new ReadingException(i18n("ERR_BINARY_NOT_SPEEDITH"));
+        }
+        version = readVarInt(false);
+        if (version != Version) {
+            throw new ReadingException(i18n("ERR_BINARY_UNSUPPORTED_VERSION", version, Version));
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Returns the version of the format in which the stream was written.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Reads the next record, which must contain a spider diagram.
+     *
+     * @return the spider diagram, or {@code null} if there are no more
+     *         records.
+     * @throws ReadingException thrown if the record is malformed or contains
+     *                          goals.
+     * @throws IOException      thrown if the record could not be read.
+     */
+    public SpiderDiagram readSpiderDiagram() throws ReadingException, IOException {
+        ByteBuffer record = readRecord();
+        return record == null ? null : BinaryRecordDecoder.decodeSpiderDiagram(record);
+    }
+
+    /**
+     * Reads the next record, which must contain goals.
+     *
+     * @return the goals, or {@code null} if there are no more records.
+     * @throws ReadingException thrown if the record is malformed or contains
+     *                          a spider diagram.
+     * @throws IOException      thrown if the record could not be read.
+     */
+    public Goals readGoals() throws ReadingException, IOException {
+        ByteBuffer record = readRecord();
+        return record == null ? null : BinaryRecordDecoder.decodeGoals(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the first spider diagram from the given binary stream (e.g.: as
+     * returned by {@link BinarySpiderDiagramWriter#toBytes(SpiderDiagram)}).
+     *
+     * @param input the binary stream.
+     * @return the spider diagram.
+     * @throws ReadingException thrown if the input is malformed or does not
+     *                          contain a spider diagram.
+     */
+    public static SpiderDiagram readSpiderDiagram(byte[] input) throws ReadingException {
+        try {
+            SpiderDiagram diagram = openBytes(input).readSpiderDiagram();
+            if (diagram == null) {
+                throw malformed("no records");
+            }
+            return diagram;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Reads the first goals from the given binary stream (e.g.: as returned by
+     * {@link BinarySpiderDiagramWriter#toBytes(Goals)}).
+     *
+     * @param input the binary stream.
+     * @return the goals.
+     * @throws ReadingException thrown if the input is malformed or does not
+     *                          contain goals.
+     */
+    public static Goals readGoals(byte[] input) throws ReadingException {
+        try {
+            Goals goals = openBytes(input).readGoals();
+            if (goals == null) {
+                throw malformed("no records");
+            }
+            return goals;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private static BinarySpiderDiagramReader openBytes(byte[] input) throws ReadingException, IOException {
+        if (input == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "input"));
+        }
+        return new BinarySpiderDiagramReader(new ByteArrayInputStream(input));
+    }
+
+    /**
+     * Reads the payload of the next record into the reused payload array.
+     *
+     * @return the payload or {@code null} at the end of the stream.
+     */
+    private ByteBuffer readRecord() throws ReadingException, IOException {
+        int length = readVarInt(true);
+        if (length < 0) {
+            return null;
+        }
+        if (length > payload.length) {
+            payload = new byte[Math.max(length, payload.length * 2)];
+        }
+        if (readFully(payload, length) < length) {
+            throw malformed("truncated record");
+        }
+        return ByteBuffer.wrap(payload, 0, length);
+    }
+
+    /**
+     * Reads a varint from the stream.
+     *
+     * @param eofAllowed whether the stream may end before the first byte of
+     *                   the varint.
+     * @return the varint, or {@code -1} if the stream ended before it.
+     */
+    private int readVarInt(boolean eofAllowed) throws ReadingException, IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (eofAllowed && shift == 0) {
+                    return -1;
+                }
+                throw malformed("truncated varint");
+            }
+            value |= (b & 0x7f) << shift;
+            if (b < 0x80) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw malformed("varint out of range");
+    }
+
+    private int readFully(byte[] target, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = in.read(target, read, length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+    // </editor-fold>
+}
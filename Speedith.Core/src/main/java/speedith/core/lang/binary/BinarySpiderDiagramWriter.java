@@ -0,0 +1,138 @@
+package speedith.core.lang.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.reasoning.Goals;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.binary.BinaryFormat.*;
+
+/**
+ * Writes spider diagrams and goals in the {@link BinaryFormat binary format}.
+ * <p>The header of the format is written when the writer is created. Every
+ * call to {@link BinarySpiderDiagramWriter#write(SpiderDiagram)} or {@link
+ * BinarySpiderDiagramWriter#write(Goals)} then appends one record, which can
+ * be read back with a {@link BinarySpiderDiagramReader}.</p>
+ * <p>Within a record, every name is stored once and every sub-diagram that
+ * appears more than once is stored once and referenced afterwards.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class BinarySpiderDiagramWriter implements Closeable, Flushable {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final OutputStream out;
+    private final BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates a writer and writes the header of the binary format to the
+     * given stream.
+     *
+     * @param out the stream to which to write the records.
+     * @throws IOException thrown if the header could not be written.
+     */
+    public BinarySpiderDiagramWriter(OutputStream out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "out"));
+        }
+        this.out = out;
+        out.write(Magic);
+        writeVarInt(out, Version);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Appends a record with the given spider diagram.
+     *
+     * @param diagram the diagram to write.
+     * @throws IOException thrown if the record could not be written.
+     */
+    public void write(SpiderDiagram diagram) throws IOException {
+        if (diagram == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "diagram"));
+        }
+        encoder.encode(diagram);
+        writeRecord();
+    }
+
+    /**
+     * Appends a record with the given goals. Sub-diagrams that appear in
+     * several goals are stored only once.
+     *
+     * @param goals the goals to write.
+     * @throws IOException thrown if the record could not be written.
+     */
+    public void write(Goals goals) throws IOException {
+        if (goals == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "goals"));
+        }
+        encoder.encode(goals);
+        writeRecord();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Returns a complete binary stream (the header and a single record) with
+     * the given spider diagram.
+     *
+     * @param diagram the diagram to encode.
+     * @return the encoded diagram.
+     */
+    public static byte[] toBytes(SpiderDiagram diagram) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            new BinarySpiderDiagramWriter(bytes).write(diagram);
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns a complete binary stream (the header and a single record) with
+     * the given goals.
+     *
+     * @param goals the goals to encode.
+     * @return the encoded goals.
+     */
+    public static byte[] toBytes(Goals goals) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            new BinarySpiderDiagramWriter(bytes).write(goals);
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private void writeRecord() throws IOException {
+        writeVarInt(out, encoder.size());
+        encoder.writeTo(out);
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,276 @@
+package speedith.core.lang.binary;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.reader.ReadingException;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.binary.BinaryFormat.*;
+
+/**
+ * A read-only, random-access file of spider diagrams (a corpus), as written
+ * by a {@link DiagramCorpusWriter}.
+ * <p>The file is memory-mapped. Diagrams are decoded only when they are
+ * requested, either by their ordinals (see {@link DiagramCorpus#get(int)}) or
+ * by their {@link SpiderDiagram#getFingerprint() fingerprints} (see {@link
+ * DiagramCorpus#getByFingerprint(long)}). The {@link DiagramCorpus#iterator()
+ * iterator} decodes one diagram at a time, so a corpus of any size can be
+ * scanned with a bounded heap.</p>
+ * <p>A corpus file consists of:</p>
+ * <ul>
+ * <li>a header (the magic bytes, the version, the offset of the index, the
+ * number of records and the length of the longest record),</li>
+ * <li>the records, each the payload of a spider diagram record of the {@link
+ * BinaryFormat binary format},</li>
+ * <li>the index with the offset, the length and the fingerprint of every
+ * record, and</li>
+ * <li>an open-addressing hash table from fingerprints to ordinals.</li>
+ * </ul>
+ * <p>Instances of this class are thread-safe.</p>
+ */
+public final class DiagramCorpus implements Closeable, Iterable<SpiderDiagram> {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long indexOffset;
+    private final int count;
+    private final int maxRecordLength;
+    private final ByteBuffer index;
+    private final int tableOffset;
+    private final int tableCapacity;
+    private final MappedByteBuffer[] segments;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Opens the given corpus file and maps its index.
+     *
+     * @param corpusFile the corpus file.
+     * @throws ReadingException thrown if the file is not a complete corpus of
+     *                          a supported version.
+     * @throws IOException      thrown if the file could not be opened.
+     */
+    public DiagramCorpus(File corpusFile) throws ReadingException, IOException {
+        if (corpusFile == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "corpusFile"));
+        }
+        file = new RandomAccessFile(corpusFile, "r");
+        try {
+            channel = file.getChannel();
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(CorpusHeaderSize);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new ReadingException(i18n("ERR_CORPUS_NOT_A_CORPUS"));
+                }
+            }
+            header.flip();
+            byte[] magic = new byte[CorpusMagic.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, CorpusMagic)) {
+                throw new ReadingException(i18n("ERR_CORPUS_NOT_A_CORPUS"));
+            }
+            int version = header.getInt();
+            if (version != CorpusVersion) {
+                throw new ReadingException(i18n("ERR_CORPUS_UNSUPPORTED_VERSION", version, CorpusVersion));
+            }
+            indexOffset = header.getLong();
+            count = header.getInt();
+            maxRecordLength = header.getInt();
+            if (indexOffset < CorpusHeaderSize || indexOffset > fileSize || count < 0 || count > MaxCorpusRecords
+                    || maxRecordLength < 0 || maxRecordLength > MaxCorpusRecordLength) {
+                throw malformedCorpus("invalid header");
+            }
+
+            long indexSize = fileSize - indexOffset;
+            tableOffset = count * CorpusIndexEntrySize;
+            if (indexSize > Integer.MAX_VALUE || indexSize < tableOffset + 4) {
+                throw malformedCorpus("invalid index size");
+            }
+            index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexSize);
+            tableCapacity = index.getInt(tableOffset);
+            if (tableCapacity < 2 || Integer.bitCount(tableCapacity) != 1
+                    || indexSize != tableOffset + 4 + (long) tableCapacity * CorpusTableSlotSize) {
+                throw malformedCorpus("invalid fingerprint table");
+            }
+            segments = new MappedByteBuffer[(int) ((indexOffset - 1) >>> CorpusSegmentShift) + 1];
+        } catch (ReadingException | IOException | RuntimeException ex) {
+            file.close();
+            throw ex;
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Returns the number of diagrams in this corpus.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Decodes the diagram with the given ordinal.
+     *
+     * @param ordinal the ordinal of the diagram (its position in the corpus).
+     * @return the diagram.
+     * @throws ReadingException thrown if the record of the diagram is
+     *                          malformed.
+     * @throws IOException      thrown if the record could not be mapped.
+     */
+    public SpiderDiagram get(int ordinal) throws ReadingException, IOException {
+        checkOrdinal(ordinal);
+        int entry = ordinal * CorpusIndexEntrySize;
+        long offset = index.getLong(entry);
+        int length = index.getInt(entry + 8);
+        if (offset < CorpusHeaderSize || length < 0 || length > maxRecordLength || offset + length > indexOffset) {
+            throw malformedCorpus("invalid index entry " + ordinal);
+        }
+        int segment = (int) (offset >>> CorpusSegmentShift);
+        ByteBuffer record = getSegment(segment).duplicate();
+        int start = (int) (offset - ((long) segment << CorpusSegmentShift));
+        record.limit(start + length).position(start);
+        return BinaryRecordDecoder.decodeSpiderDiagram(record);
+    }
+
+    /**
+     * Returns the fingerprint of the diagram with the given ordinal (without
+     * decoding the diagram).
+     *
+     * @param ordinal the ordinal of the diagram.
+     * @return the {@link SpiderDiagram#getFingerprint() fingerprint} of the
+     *         diagram.
+     */
+    public long getFingerprint(int ordinal) {
+        checkOrdinal(ordinal);
+        return index.getLong(ordinal * CorpusIndexEntrySize + 12);
+    }
+
+    /**
+     * Returns the ordinal of the first diagram with the given fingerprint.
+     *
+     * @param fingerprint the {@link SpiderDiagram#getFingerprint()
+     *                    fingerprint} to look up.
+     * @return the ordinal, or {@code -1} if there is no diagram with the given
+     *         fingerprint.
+     */
+    public int indexOf(long fingerprint) {
+        int slot = fingerprintSlot(fingerprint, tableCapacity);
+        for (int probes = 0; probes < tableCapacity; probes++) {
+            int position = tableOffset + 4 + slot * CorpusTableSlotSize;
+            int ordinal = index.getInt(position + 8) - 1;
+            if (ordinal < 0) {
+                return -1;
+            }
+            if (index.getLong(position) == fingerprint && ordinal < count) {
+                return ordinal;
+            }
+            slot = (slot + 1) & (tableCapacity - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the first diagram with the given fingerprint.
+     *
+     * @param fingerprint the {@link SpiderDiagram#getFingerprint()
+     *                    fingerprint} to look up.
+     * @return the diagram, or {@code null} if there is no diagram with the
+     *         given fingerprint.
+     * @throws ReadingException thrown if the record of the diagram is
+     *                          malformed.
+     * @throws IOException      thrown if the record could not be mapped.
+     */
+    public SpiderDiagram getByFingerprint(long fingerprint) throws ReadingException, IOException {
+        int ordinal = indexOf(fingerprint);
+        return ordinal < 0 ? null : get(ordinal);
+    }
+
+    /**
+     * Returns an iterator that decodes the diagrams in the order of their
+     * ordinals. Only the current diagram is kept in memory.
+     * <p>The iterator throws an {@link IllegalStateException} (with the
+     * {@link ReadingException} or {@link IOException} as its cause) if a
+     * record cannot be decoded.</p>
+     *
+     * @return an iterator over all diagrams of this corpus.
+     */
+    @Override
+    public Iterator<SpiderDiagram> iterator() {
+        return new Iterator<SpiderDiagram>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public SpiderDiagram next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return get(next++);
+                } catch (ReadingException | IOException ex) {
+                    throw new IllegalStateException(ex.getLocalizedMessage(), ex);
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Closes the corpus file. The mapped buffers are released once they are
+     * garbage collected.
+     *
+     * @throws IOException thrown if the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IndexOutOfBoundsException(i18n("GERR_INDEX_OUT_OF_BOUNDS"));
+        }
+    }
+
+    /**
+     * Maps the records that start within the given segment. The mapping
+     * extends by the length of the longest record past the end of the segment,
+     * so every record lies within the segment in which it starts.
+     */
+    private synchronized MappedByteBuffer getSegment(int segment) throws IOException {
+        MappedByteBuffer mapped = segments[segment];
+        if (mapped == null) {
+            long start = (long) segment << CorpusSegmentShift;
+            long end = Math.min(indexOffset, start + (1L << CorpusSegmentShift) + maxRecordLength);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            segments[segment] = mapped;
+        }
+        return mapped;
+    }
+
+    private static ReadingException malformedCorpus(String detail) {
+        return new ReadingException(i18n("ERR_CORPUS_MALFORMED", detail));
+    }
+    // </editor-fold>
+}
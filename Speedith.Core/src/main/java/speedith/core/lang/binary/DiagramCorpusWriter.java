@@ -0,0 +1,163 @@
+package speedith.core.lang.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import speedith.core.lang.SpiderDiagram;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.binary.BinaryFormat.*;
+
+/**
+ * Writes a {@link DiagramCorpus corpus file}.
+ * <p>Diagrams are appended one by one with {@link
+ * DiagramCorpusWriter#add(SpiderDiagram)}. The index is written when the
+ * writer is {@link DiagramCorpusWriter#close() closed}. A corpus that was not
+ * closed cannot be opened.</p>
+ * <p>The writer keeps 20 bytes per diagram in memory (for the index).</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class DiagramCorpusWriter implements Closeable {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final RandomAccessFile file;
+    private final DataOutputStream out;
+    private final BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+    private long position = CorpusHeaderSize;
+    private int count;
+    private int maxRecordLength;
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private long[] fingerprints = new long[64];
+    private boolean closed;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates a new corpus file (or truncates an existing one).
+     *
+     * @param file the corpus file.
+     * @throws IOException thrown if the file could not be created.
+     */
+    public DiagramCorpusWriter(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "file"));
+        }
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(this.file.getChannel()), 1 << 16));
+        // The header is written when the writer is closed.
+        out.write(new byte[CorpusHeaderSize]);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Appends the given diagram to the corpus.
+     *
+     * @param diagram the diagram to append.
+     * @return the ordinal of the diagram in the corpus.
+     * @throws IOException thrown if the diagram could not be written.
+     */
+    public int add(SpiderDiagram diagram) throws IOException {
+        if (diagram == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "diagram"));
+        }
+        if (closed || count == MaxCorpusRecords) {
+            throw new IllegalStateException(i18n("GERR_ILLEGAL_STATE"));
+        }
+        encoder.encode(diagram);
+        int length = encoder.size();
+        if (length > MaxCorpusRecordLength) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "diagram"));
+        }
+        encoder.writeTo(out);
+
+        if (count == offsets.length) {
+            int capacity = count * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+        }
+        offsets[count] = position;
+        lengths[count] = length;
+        fingerprints[count] = diagram.getFingerprint();
+        position += length;
+        maxRecordLength = Math.max(maxRecordLength, length);
+        return count++;
+    }
+
+    /**
+     * Returns the number of diagrams added so far.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Writes the index and the header and closes the file.
+     *
+     * @throws IOException thrown if the index could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long indexOffset = position;
+            writeIndex();
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(CorpusHeaderSize);
+            header.put(CorpusMagic).putInt(CorpusVersion).putLong(indexOffset).putInt(count).putInt(maxRecordLength);
+            header.flip();
+            FileChannel channel = file.getChannel();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            file.close();
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private void writeIndex() throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeLong(offsets[i]);
+            out.writeInt(lengths[i]);
+            out.writeLong(fingerprints[i]);
+        }
+
+        // An open-addressing table (with linear probing) that maps fingerprints
+        // to the ordinals of their first records.
+        int capacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+        long[] tableFingerprints = new long[capacity];
+        int[] tableOrdinals = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            int slot = fingerprintSlot(fingerprints[i], capacity);
+            while (tableOrdinals[slot] != 0 && tableFingerprints[slot] != fingerprints[i]) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (tableOrdinals[slot] == 0) {
+                tableFingerprints[slot] = fingerprints[i];
+                tableOrdinals[slot] = i + 1;
+            }
+        }
+        out.writeInt(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            out.writeLong(tableFingerprints[slot]);
+            out.writeInt(tableOrdinals[slot]);
+        }
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,9 @@
+/**
+ * This package contains the writer and the reader of the compact binary
+ * format for spider diagrams and proof goals.
+ * <p>The binary format is meant for storing and exchanging large numbers of
+ * diagrams. Unlike the textual notation (see {@link
+ * speedith.core.lang.reader.SpiderDiagramsReader}), it shares repeated names
+ * and sub-diagrams and can be decoded without a parser.</p>
+ */
+package speedith.core.lang.binary;
@@ -30,7 +30,9 @@ import propity.util.Sequences;
 import propity.util.Sets;
 import speedith.core.lang.*;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.*;
 
@@ -85,6 +87,12 @@ public class Isabelle2011ExportProvider extends SDExportProvider {
     /**
      * The actual exporter class. This class does the actual translation from
      * spider diagrams to Isabelle's formulas.
+     * <p>A batch of diagrams (see {@link Exporter#exportAllTo(java.util.Collection, java.io.Writer)})
+     * is exported as a single list of formulae. Sub-diagrams that occur more
+     * than once in the batch are exported only once, in a {@code let}
+     * abbreviation, so the size of the output grows with the number of
+     * distinct sub-diagrams (and not with the size of the fully unfolded
+     * diagrams).</p>
      */
     private static class Exporter extends SDExporter {
 
@@ -93,6 +101,11 @@ public class Isabelle2011ExportProvider extends SDExportProvider {
         // Isabelle automatically?
         public static final String ISA_SYM_EX = "EX";
         public static final String ISA_XSYM_EXISTS = "∃";
+        /**
+         * The prefix of the names of {@code let} abbreviations in batch
+         * exports.
+         */
+        public static final String ISA_ABBREVIATION_PREFIX = "sd";
         private boolean useXSymbols;
         private boolean useML;
 
@@ -110,12 +123,56 @@ public class Isabelle2011ExportProvider extends SDExportProvider {
             if (output == null) {
                 throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "output"));
             }
+            Writer bufferedOutput = buffered(output);
             if (useML) {
-                exportDiagramML(sd, output);
+                exportDiagramML(sd, bufferedOutput);
             } else {
-                exportDiagram(sd, output);
+                exportDiagram(sd, bufferedOutput);
             }
-            output.flush();
+            bufferedOutput.flush();
+        }
+
+        /**
+         * Exports the given diagrams as a single list of formulae (e.g.: {@code
+         * let sd1 = ...; sd2 = ... in [goal1, goal2, ...]}). In the ML-SNF
+         * form every diagram is exported into its own line (meta-level
+         * formulae cannot be abbreviated).
+         */
+        @Override
+        public void exportAllTo(Collection<SpiderDiagram> spiderDiagrams, Writer output) throws ExportException, IOException {
+            if (spiderDiagrams == null) {
+                throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "spiderDiagrams"));
+            }
+            if (output == null) {
+                throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "output"));
+            }
+            if (useML) {
+                super.exportAllTo(spiderDiagrams, output);
+                return;
+            }
+            Writer bufferedOutput = buffered(output);
+            Map<SpiderDiagram, String> abbreviations = findRepeatedSubDiagrams(spiderDiagrams);
+            if (!abbreviations.isEmpty()) {
+                exportAbbreviations(abbreviations, bufferedOutput);
+            }
+            bufferedOutput.append('[');
+            boolean first = true;
+            for (SpiderDiagram sd : spiderDiagrams) {
+                if (!first) {
+                    bufferedOutput.append(", ");
+                }
+                exportDiagram(sd, bufferedOutput, abbreviations);
+                first = false;
+            }
+            bufferedOutput.append(']');
+            bufferedOutput.flush();
+        }
+
+        private static Writer buffered(Writer output) {
+            if (output instanceof BufferedWriter || output instanceof StringWriter) {
+                return output;
+            }
+            return new BufferedWriter(output);
         }
 
         private Writer printAnd(Writer output) throws IOException {
@@ -254,29 +311,29 @@ public class Isabelle2011ExportProvider extends SDExportProvider {
             printTrue(output);
         }
 
-        private void exportInfixOperator(CompoundSpiderDiagram nsd, Writer output, PrintCallback operatorSymbolPrinter) throws IOException, RuntimeException {
+        private void exportInfixOperator(CompoundSpiderDiagram nsd, Writer output, PrintCallback operatorSymbolPrinter, Map<SpiderDiagram, String> abbreviations) throws IOException, RuntimeException {
             // We have to print an infix operator application.
             if (nsd.getOperandCount() < 2) {
                 throw new RuntimeException(i18n("ERR_EXPORT_ARG_COUNT_INVALID", nsd.getOperandCount()));
             } else {
-                exportDiagram(nsd.getOperand(0), output);
+                exportDiagram(nsd.getOperand(0), output, abbreviations);
                 for (int i = 1; i < nsd.getOperandCount(); i++) {
                     operatorSymbolPrinter.print(output);
-                    exportDiagram(nsd.getOperand(i), output);
+                    exportDiagram(nsd.getOperand(i), output, abbreviations);
                 }
             }
         }
 
-        private void exportCompoundDiagram(CompoundSpiderDiagram nsd, Writer output) throws IOException {
+        private void exportCompoundDiagram(CompoundSpiderDiagram nsd, Writer output, Map<SpiderDiagram, String> abbreviations) throws IOException {
             final Operator op = nsd.getOperator();
             if (op.equals(Operator.Implication.getName())) {
-                exportInfixOperator(nsd, output, new ImpOperatorPrinter());
+                exportInfixOperator(nsd, output, new ImpOperatorPrinter(), abbreviations);
             } else if (op.equals(Operator.Conjunction.getName())) {
-                exportInfixOperator(nsd, output, new AndOperatorPrinter());
+                exportInfixOperator(nsd, output, new AndOperatorPrinter(), abbreviations);
             } else if (op.equals(Operator.Disjunction.getName())) {
-                exportInfixOperator(nsd, output, new OrOperatorPrinter());
+                exportInfixOperator(nsd, output, new OrOperatorPrinter(), abbreviations);
             } else if (op.equals(Operator.Equivalence.getName())) {
-                exportInfixOperator(nsd, output, new EqOperatorPrinter());
+                exportInfixOperator(nsd, output, new EqOperatorPrinter(), abbreviations);
             } else {
                 throw new RuntimeException(i18n("GERR_ILLEGAL_STATE"));
             }
@@ -351,10 +408,27 @@ public class Isabelle2011ExportProvider extends SDExportProvider {
         }
 
         private void exportDiagram(SpiderDiagram sd, Writer output) throws IOException {
+            exportDiagram(sd, output, Collections.<SpiderDiagram, String>emptyMap());
+        }
+
+        /**
+         * Exports the given diagram or, if the diagram has an abbreviation,
+         * the name of the abbreviation.
+         */
+        private void exportDiagram(SpiderDiagram sd, Writer output, Map<SpiderDiagram, String> abbreviations) throws IOException {
+            String abbreviation = abbreviations.get(sd);
+            if (abbreviation != null) {
+                output.append(abbreviation);
+            } else {
+                exportUnabbreviatedDiagram(sd, output, abbreviations);
+            }
+        }
+
+        private void exportUnabbreviatedDiagram(SpiderDiagram sd, Writer output, Map<SpiderDiagram, String> abbreviations) throws IOException {
             if (sd instanceof NullSpiderDiagram) {
                 exportNullDiagram(output);
             } else if (sd instanceof CompoundSpiderDiagram) {
-                exportCompoundDiagram((CompoundSpiderDiagram) sd, output);
+                exportCompoundDiagram((CompoundSpiderDiagram) sd, output, abbreviations);
             } else if (sd instanceof PrimarySpiderDiagram) {
                 exportPrimaryDiagram((PrimarySpiderDiagram) sd, output);
             } else {
@@ -383,6 +457,76 @@ public class Isabelle2011ExportProvider extends SDExportProvider {
             throw new ExportException(i18n("ERR_EXPORT_INVALID_SD_FOR_ML"));
         }
 
+        private void exportAbbreviations(Map<SpiderDiagram, String> abbreviations, Writer output) throws IOException {
+            output.append("let ");
+            boolean first = true;
+            for (Map.Entry<SpiderDiagram, String> abbreviation : abbreviations.entrySet()) {
+                if (!first) {
+                    output.append("; ");
+                }
+                output.append(abbreviation.getValue()).append(" = ");
+                SpiderDiagram sd = abbreviation.getKey();
+                if (sd instanceof CompoundSpiderDiagram) {
+                    output.append('(');
+                    exportUnabbreviatedDiagram(sd, output, abbreviations);
+                    output.append(')');
+                } else {
+                    exportUnabbreviatedDiagram(sd, output, abbreviations);
+                }
+                first = false;
+            }
+            output.append(" in ");
+        }
+
+        /**
+         * Returns the sub-diagrams that occur more than once in the given
+         * diagrams together with the names of their abbreviations. A
+         * sub-diagram is counted once per occurrence in a distinct parent,
+         * so the operands of a repeated sub-diagram are not abbreviated
+         * unless they also occur elsewhere. The abbreviations are ordered so
+         * that every abbreviation refers only to the ones before it.
+         */
+        private static LinkedHashMap<SpiderDiagram, String> findRepeatedSubDiagrams(Collection<SpiderDiagram> spiderDiagrams) {
+            HashMap<SpiderDiagram, Integer> occurrences = new HashMap<>();
+            ArrayList<SpiderDiagram> postOrder = new ArrayList<>();
+            HashSet<String> usedNames = new HashSet<>();
+            for (SpiderDiagram sd : spiderDiagrams) {
+                countOccurrences(sd, occurrences, postOrder, usedNames);
+            }
+            LinkedHashMap<SpiderDiagram, String> abbreviations = new LinkedHashMap<>();
+            for (SpiderDiagram sd : postOrder) {
+                // 'True' is shorter than any abbreviation.
+                if (occurrences.get(sd) > 1 && !(sd instanceof NullSpiderDiagram)) {
+                    String name = ISA_ABBREVIATION_PREFIX + (abbreviations.size() + 1);
+                    // The abbreviations must not hide the contours.
+                    while (usedNames.contains(name)) {
+                        name += "'";
+                    }
+                    abbreviations.put(sd, name);
+                }
+            }
+            return abbreviations;
+        }
+
+        private static void countOccurrences(SpiderDiagram sd, HashMap<SpiderDiagram, Integer> occurrences, ArrayList<SpiderDiagram> postOrder, HashSet<String> usedNames) {
+            if (sd == null) {
+                throw new IllegalArgumentException(i18n("ERR_EXPORT_INVALID_SD"));
+            }
+            Integer count = occurrences.get(sd);
+            occurrences.put(sd, count == null ? 1 : count + 1);
+            if (count == null) {
+                if (sd instanceof CompoundSpiderDiagram) {
+                    for (SpiderDiagram operand : ((CompoundSpiderDiagram) sd).getOperands()) {
+                        countOccurrences(operand, occurrences, postOrder, usedNames);
+                    }
+                } else if (sd instanceof PrimarySpiderDiagram) {
+                    usedNames.addAll(((PrimarySpiderDiagram) sd).getAllContours());
+                    usedNames.addAll(((PrimarySpiderDiagram) sd).getSpiders());
+                }
+                postOrder.add(sd);
+            }
+        }
+
         private void printMLAntecedent(PrimarySpiderDiagram psd, Writer output) throws IOException {
             // Print the meta-universal quantifier part
             SortedSet<String> spiders = psd.getSpiders();
@@ -35,7 +35,11 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
 import speedith.core.lang.SpiderDiagram;
+import speedith.core.reasoning.Goals;
+import speedith.core.reasoning.Proof;
 import static speedith.core.i18n.Translations.i18n;
 
 /**
@@ -146,5 +150,87 @@ public abstract class SDExporter {
      * writing to the output.
      */
     public abstract void exportTo(SpiderDiagram spiderDiagram, Writer output) throws ExportException, IOException;
+
+    /**
+     * Converts the given {@link SpiderDiagram spider diagrams} to a textual
+     * form, and returns the latter as a Java string.
+     * <p>The default implementation of this method simply calls
+     * {@link SDExporter#exportAllTo(java.util.Collection, java.io.Writer)}
+     * with a {@link StringWriter}.</p>
+     * @param spiderDiagrams the spider diagrams to export to a textual form.
+     * @return the textual form of the given spider diagrams.
+     * @throws ExportException thrown by the exporter if the exporting of one
+     * of the spider diagrams failed for some reason.
+     */
+    public String exportAll(Collection<SpiderDiagram> spiderDiagrams) throws ExportException {
+        StringWriter sw = new StringWriter();
+        try {
+            exportAllTo(spiderDiagrams, sw);
+        } catch (IOException ex) {
+            throw new RuntimeException(i18n("GERR_ILLEGAL_STATE"));
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Converts the given {@link SpiderDiagram spider diagrams} to a textual
+     * form, and writes the latter to the given {@link Writer output}.
+     * <p>The default implementation exports every diagram with {@link
+     * SDExporter#exportTo(speedith.core.lang.SpiderDiagram, java.io.Writer)}
+     * and puts every diagram into its own line. Exporters may override this
+     * method to produce a more compact output (e.g.: by exporting repeated
+     * sub-diagrams only once).</p>
+     * @param spiderDiagrams the spider diagrams to export to a textual form.
+     * @param output the object to which to write the textual form of the
+     * spider diagrams to.
+     * @throws ExportException thrown by the exporter if the exporting of one
+     * of the spider diagrams failed for some reason.
+     * @throws IOException this exception is thrown if an error occurred during
+     * writing to the output.
+     */
+    public void exportAllTo(Collection<SpiderDiagram> spiderDiagrams, Writer output) throws ExportException, IOException {
+        if (spiderDiagrams == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "spiderDiagrams"));
+        }
+        if (output == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "output"));
+        }
+        boolean first = true;
+        for (SpiderDiagram spiderDiagram : spiderDiagrams) {
+            if (!first) {
+                output.write('\n');
+            }
+            exportTo(spiderDiagram, output);
+            first = false;
+        }
+        output.flush();
+    }
+
+    /**
+     * Converts the goals of all steps of the given {@link Proof proof} (in
+     * the order of the steps) to a textual form, and writes the latter to the
+     * given {@link Writer output}.
+     * <p>This method passes the goals to {@link
+     * SDExporter#exportAllTo(java.util.Collection, java.io.Writer)}.</p>
+     * @param proof the proof whose goals to export to a textual form.
+     * @param output the object to which to write the textual form of the
+     * goals to.
+     * @throws ExportException thrown by the exporter if the exporting of one
+     * of the goals failed for some reason.
+     * @throws IOException this exception is thrown if an error occurred during
+     * writing to the output.
+     */
+    public void exportProofTo(Proof proof, Writer output) throws ExportException, IOException {
+        if (proof == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "proof"));
+        }
+        ArrayList<SpiderDiagram> goals = new ArrayList<>();
+        for (Goals step : proof.getGoals()) {
+            if (step != null && !step.isEmpty()) {
+                goals.addAll(step.getGoals());
+            }
+        }
+        exportAllTo(goals, output);
+    }
     // </editor-fold>
 }
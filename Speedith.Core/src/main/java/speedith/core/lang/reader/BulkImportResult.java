@@ -0,0 +1,124 @@
+package speedith.core.lang.reader;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import speedith.core.lang.SpiderDiagram;
+
+/**
+ * The outcome of a {@link BulkImporter bulk import}: the {@link ImportedFile
+ * results of the individual files} and the throughput of the import.
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class BulkImportResult {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final List<ImportedFile> files;
+    private final int threadCount;
+    private final long elapsedNanos;
+    private final int diagramCount;
+    private final int distinctDiagramCount;
+    private final int errorCount;
+    private final int failedFileCount;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    BulkImportResult(List<ImportedFile> files, int threadCount, long elapsedNanos) {
+        this.files = Collections.unmodifiableList(files);
+        this.threadCount = threadCount;
+        this.elapsedNanos = elapsedNanos;
+        // Equal diagrams are the same (pooled) instance.
+        IdentityHashMap<SpiderDiagram, Boolean> distinct = new IdentityHashMap<>();
+        int diagrams = 0;
+        int errors = 0;
+        int failedFiles = 0;
+        for (ImportedFile file : files) {
+            for (SpiderDiagram diagram : file.getDiagrams()) {
+                distinct.put(diagram, Boolean.TRUE);
+            }
+            diagrams += file.getDiagrams().size();
+            errors += file.getErrors().size();
+            if (file.hasErrors()) {
+                failedFiles++;
+            }
+        }
+        this.diagramCount = diagrams;
+        this.distinctDiagramCount = distinct.size();
+        this.errorCount = errors;
+        this.failedFileCount = failedFiles;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Properties">
+    /**
+     * Returns the results of the individual files (in the order in which the
+     * files were given to the importer).
+     */
+    public List<ImportedFile> getFiles() {
+        return files;
+    }
+
+    /**
+     * Returns the number of threads that read the files.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Returns the wall-clock time of the whole import (in nanoseconds).
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of diagrams read from all files.
+     */
+    public int getDiagramCount() {
+        return diagramCount;
+    }
+
+    /**
+     * Returns the number of different diagrams read from all files (equal
+     * diagrams are counted once).
+     */
+    public int getDistinctDiagramCount() {
+        return distinctDiagramCount;
+    }
+
+    /**
+     * Returns the number of errors in all files.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns the number of files with at least one error.
+     */
+    public int getFailedFileCount() {
+        return failedFileCount;
+    }
+
+    /**
+     * Returns the number of files read per second.
+     */
+    public double getFilesPerSecond() {
+        return perSecond(files.size());
+    }
+
+    /**
+     * Returns the number of diagrams read per second.
+     */
+    public double getDiagramsPerSecond() {
+        return perSecond(diagramCount);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private double perSecond(int count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,232 @@
+package speedith.core.lang.reader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import speedith.core.lang.SpiderDiagram;
+
+import static speedith.core.i18n.Translations.i18n;
+
+/**
+ * Reads many spider diagram files in parallel.
+ * <p>Every file is read by a single thread (with {@link
+ * SpiderDiagramsReader#readSpiderDiagrams(java.io.Reader)}, so a file may
+ * contain several diagrams). At most {@link BulkImporter#getThreadCount()}
+ * files are read at the same time. The diagrams are created through {@link
+ * speedith.core.lang.SpiderDiagrams}, so equal diagrams from different files
+ * collapse into the same pooled instance.</p>
+ * <p>An error in one file does not stop the import. The errors are reported
+ * per file (see {@link ImportedFile#getErrors()}).</p>
+ * <p>Instances of this class are immutable and thread-safe.</p>
+ */
+public final class BulkImporter {
+
+    // <editor-fold defaultstate="collapsed" desc="Constants">
+    /**
+     * The extensions of the files that {@link
+     * BulkImporter#findDiagramFiles(java.io.File)} looks for.
+     */
+    public static final List<String> DiagramFileExtensions = Collections.unmodifiableList(Arrays.asList(".sd", ".sdt"));
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final int threadCount;
+    private final Charset charset;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates an importer that reads the files in the default encoding of the
+     * platform.
+     *
+     * @param threadCount the maximum number of files to read at the same time,
+     *                    or {@code 0} to use one thread per available
+     *                    processor.
+     */
+    public BulkImporter(int threadCount) {
+        this(threadCount, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param threadCount the maximum number of files to read at the same time,
+     *                    or {@code 0} to use one thread per available
+     *                    processor.
+     * @param charset     the encoding of the files.
+     */
+    public BulkImporter(int threadCount, Charset charset) {
+        if (threadCount < 0) {
+            throw new IllegalArgumentException(i18n("GERR_ILLEGAL_ARGUMENT", "threadCount"));
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "charset"));
+        }
+        this.threadCount = threadCount == 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        this.charset = charset;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Properties">
+    /**
+     * Returns the maximum number of files that are read at the same time.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * Reads the given files in parallel.
+     *
+     * @param files the files to read.
+     * @return the diagrams and errors of every file (in the given order) and
+     *         the throughput of the import.
+     * @throws InterruptedException thrown if the calling thread was
+     *                              interrupted while waiting for the files to
+     *                              be read. The files that have not been read
+     *                              yet are skipped.
+     */
+    public BulkImportResult importFiles(Collection<File> files) throws InterruptedException {
+        if (files == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "files"));
+        }
+        long start = System.nanoTime();
+        int threads = Math.max(1, Math.min(threadCount, files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<ImportedFile>> futures = new ArrayList<>(files.size());
+            for (final File file : files) {
+                if (file == null) {
+                    throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "files"));
+                }
+                futures.add(executor.submit(new Callable<ImportedFile>() {
+                    @Override
+                    public ImportedFile call() {
+                        return importFile(file, charset);
+                    }
+                }));
+            }
+            ArrayList<ImportedFile> results = new ArrayList<>(futures.size());
+            for (Future<ImportedFile> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    // The task itself catches all errors of the file, so
+                    // this is an error in the reader.
+                    throw new IllegalStateException(i18n("GERR_ILLEGAL_STATE"), ex.getCause());
+                }
+            }
+            return new BulkImportResult(results, threads, System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads all diagram files in the given directory and its subdirectories
+     * in parallel (see {@link BulkImporter#findDiagramFiles(java.io.File)}).
+     *
+     * @param directory the directory with diagram files.
+     * @return the diagrams and errors of every file and the throughput of the
+     *         import.
+     * @throws IOException          thrown if the directory could not be
+     *                              listed.
+     * @throws InterruptedException thrown if the calling thread was
+     *                              interrupted while waiting for the files to
+     *                              be read.
+     */
+    public BulkImportResult importDirectory(File directory) throws IOException, InterruptedException {
+        return importFiles(findDiagramFiles(directory));
+    }
+
+    /**
+     * Returns the files in the given directory and its subdirectories whose
+     * names end with one of the {@link BulkImporter#DiagramFileExtensions
+     * diagram file extensions}. The files are sorted by their paths.
+     *
+     * @param directory the directory to search.
+     * @return the diagram files.
+     * @throws IOException thrown if the directory (or one of its
+     *                     subdirectories) could not be listed.
+     */
+    public static List<File> findDiagramFiles(File directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "directory"));
+        }
+        ArrayList<File> files = new ArrayList<>();
+        addDiagramFiles(directory, files);
+        return files;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private static void addDiagramFiles(File directory, List<File> files) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new IOException(i18n("ERR_BULK_IMPORT_NOT_A_DIRECTORY", directory.getPath()));
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                addDiagramFiles(child, files);
+            } else if (isDiagramFile(child)) {
+                files.add(child);
+            }
+        }
+    }
+
+    private static boolean isDiagramFile(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        for (String extension : DiagramFileExtensions) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ImportedFile importFile(File file, Charset charset) {
+        long start = System.nanoTime();
+        ArrayList<SpiderDiagram> diagrams = new ArrayList<>();
+        ArrayList<ReadingException> errors = new ArrayList<>();
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset))) {
+            Iterator<SpiderDiagramRecord> records = SpiderDiagramsReader.readSpiderDiagrams(reader);
+            while (records.hasNext()) {
+                SpiderDiagramRecord record = records.next();
+                if (record.hasError()) {
+                    errors.add(record.getError());
+                } else {
+                    diagrams.add(record.getDiagram());
+                }
+            }
+            if (diagrams.isEmpty() && errors.isEmpty()) {
+                errors.add(new ReadingException(i18n("ERR_BULK_IMPORT_NO_DIAGRAMS")));
+            }
+        } catch (IOException ex) {
+            errors.add(new ReadingException(i18n("ERR_READING_IO", ex.getLocalizedMessage()), ex));
+        } catch (ReadingException ex) {
+            // Cannot happen: the records without errors return their diagrams.
+            errors.add(ex);
+        }
+        return new ImportedFile(file, diagrams, errors, System.nanoTime() - start);
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,74 @@
+package speedith.core.lang.reader;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import speedith.core.lang.SpiderDiagram;
+
+/**
+ * The diagrams and errors of a single file read by a {@link BulkImporter}.
+ * <p>A file may contain several diagrams (see {@link
+ * SpiderDiagramsReader#readSpiderDiagrams(java.io.Reader)}). A diagram that
+ * could not be read does not prevent the others from being read.</p>
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class ImportedFile {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final File file;
+    private final List<SpiderDiagram> diagrams;
+    private final List<ReadingException> errors;
+    private final long elapsedNanos;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    ImportedFile(File file, List<SpiderDiagram> diagrams, List<ReadingException> errors, long elapsedNanos) {
+        this.file = file;
+        this.diagrams = Collections.unmodifiableList(diagrams);
+        this.errors = Collections.unmodifiableList(errors);
+        this.elapsedNanos = elapsedNanos;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Properties">
+    /**
+     * Returns the file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the diagrams that were read from the file (in the order in which
+     * they appear in it). The diagrams are taken from the shared pool (see
+     * {@link speedith.core.lang.SpiderDiagrams}), so equal diagrams from
+     * different files are the same instance.
+     */
+    public List<SpiderDiagram> getDiagrams() {
+        return diagrams;
+    }
+
+    /**
+     * Returns the errors of the diagrams that could not be read, and the error
+     * that prevented the file from being read (if any). The positions of the
+     * errors refer to the whole file.
+     */
+    public List<ReadingException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Indicates whether some diagram (or the file itself) could not be read.
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * Returns the time it took to read the file (in nanoseconds).
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,208 @@
+package speedith.core.lang.reader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import speedith.core.lang.ElementPools;
+import speedith.core.lang.Region;
+import speedith.core.lang.Zone;
+
+/**
+ * The names, zones and regions read so far while reading a diagram.
+ * <p>The same zone is usually mentioned many times in a diagram (in the
+ * habitats of several spiders, in the shaded and in the present zones). The
+ * table creates a single instance for every distinct name, zone and region,
+ * so repeated mentions do not allocate new ones.</p>
+ * <p>If the table is global, the zones and regions are also interned in the
+ * {@link ElementPools global pools}, so they are shared with other diagrams
+ * too.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+final class ReaderInternTable {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final boolean global;
+    /**
+     * An open-addressing hash table of names (so that a name can be looked up
+     * by its characters, without creating a string first).
+     */
+    private String[] names = new String[32];
+    private int nameCount;
+    private final HashMap<ZoneKey, Zone> zonesByContours = new HashMap<>();
+    private final HashMap<Zone, Zone> zones = new HashMap<>();
+    private final HashMap<List<Zone>, Region> regionsByZones = new HashMap<>();
+    private final HashMap<Region, Region> regions = new HashMap<>();
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates an empty table.
+     *
+     * @param global whether to intern the zones and regions in the {@link
+     *               ElementPools global pools} too.
+     */
+    ReaderInternTable(boolean global) {
+        this.global = global;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Interning">
+    /**
+     * Returns the name that equals the given one.
+     */
+    String name(String name) {
+        int hash = name.hashCode();
+        int mask = names.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String existing = names[slot];
+            if (existing == null) {
+                return addName(slot, name);
+            }
+            if (existing.hashCode() == hash && existing.equals(name)) {
+                return existing;
+            }
+        }
+    }
+
+    /**
+     * Returns the name that consists of the given characters. A new string is
+     * created only if the name has not been read yet.
+     */
+    String name(char[] data, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + data[offset + i];
+        }
+        int mask = names.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String existing = names[slot];
+            if (existing == null) {
+                return addName(slot, new String(data, offset, length));
+            }
+            if (existing.hashCode() == hash && equals(existing, data, offset, length)) {
+                return existing;
+            }
+        }
+    }
+
+    /**
+     * Returns the zone with the given in- and out-contours. A new zone is
+     * created only if no equal zone has been read yet.
+     *
+     * @param inContours  the in-contours (may be {@code null}).
+     * @param outContours the out-contours (may be {@code null}).
+     */
+    Zone zone(List<String> inContours, List<String> outContours) {
+        ZoneKey key = new ZoneKey(inContours, outContours);
+        Zone zone = zonesByContours.get(key);
+        if (zone == null) {
+            // The same zone may be written in different ways (e.g.: with
+            // contours in a different order).
+            zone = new Zone(inContours, outContours);
+            Zone existing = zones.get(zone);
+            if (existing == null) {
+                if (global) {
+                    zone = ElementPools.intern(zone);
+                }
+                zones.put(zone, zone);
+            } else {
+                zone = existing;
+            }
+            zonesByContours.put(key, zone);
+        }
+        return zone;
+    }
+
+    /**
+     * Returns the region with the given zones. A new region is created only
+     * if no equal region has been read yet.
+     *
+     * @param regionZones the zones of the region (zones returned by {@link
+     *                    ReaderInternTable#zone(java.util.List,
+     *                    java.util.List)}, may be {@code null}).
+     */
+    Region region(List<Zone> regionZones) {
+        List<Zone> key = regionZones == null ? new ArrayList<Zone>() : regionZones;
+        Region region = regionsByZones.get(key);
+        if (region == null) {
+            region = new Region(key);
+            Region existing = regions.get(region);
+            if (existing == null) {
+                if (global) {
+                    region = ElementPools.intern(region);
+                }
+                regions.put(region, region);
+            } else {
+                region = existing;
+            }
+            regionsByZones.put(key, region);
+        }
+        return region;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Private Helper Methods">
+    private String addName(int slot, String name) {
+        names[slot] = name;
+        if (++nameCount > names.length >>> 1) {
+            String[] oldNames = names;
+            names = new String[oldNames.length << 1];
+            int mask = names.length - 1;
+            for (String oldName : oldNames) {
+                if (oldName != null) {
+                    int newSlot = oldName.hashCode() & mask;
+                    while (names[newSlot] != null) {
+                        newSlot = (newSlot + 1) & mask;
+                    }
+                    names[newSlot] = oldName;
+                }
+            }
+        }
+        return name;
+    }
+
+    private static boolean equals(String name, char[] data, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != data[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The contours of a zone as they were written.
+     */
+    private static final class ZoneKey {
+
+        private final List<String> inContours;
+        private final List<String> outContours;
+        private final int hash;
+
+        ZoneKey(List<String> inContours, List<String> outContours) {
+            this.inContours = inContours;
+            this.outContours = outContours;
+            this.hash = (inContours == null ? 0 : inContours.hashCode()) * 31 + (outContours == null ? 0 : outContours.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ZoneKey)) {
+                return false;
+            }
+            ZoneKey other = (ZoneKey) obj;
+            return hash == other.hash
+                    && (inContours == null ? other.inContours == null : inContours.equals(other.inContours))
+                    && (outContours == null ? other.outContours == null : outContours.equals(other.outContours));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    // </editor-fold>
+}
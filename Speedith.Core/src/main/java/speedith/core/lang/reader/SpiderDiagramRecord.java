@@ -0,0 +1,79 @@
+package speedith.core.lang.reader;
+
+import speedith.core.lang.SpiderDiagram;
+
+/**
+ * One spider diagram read from an input with several diagrams (see {@link
+ * SpiderDiagramsReader#readSpiderDiagrams(java.io.Reader)}). It contains
+ * either the diagram or the error that prevented it from being read.
+ * <p>Instances of this class are immutable.</p>
+ */
+public final class SpiderDiagramRecord {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final int index;
+    private final int lineNumber;
+    private final SpiderDiagram diagram;
+    private final ReadingException error;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    SpiderDiagramRecord(int index, int lineNumber, SpiderDiagram diagram, ReadingException error) {
+        this.index = index;
+        this.lineNumber = lineNumber;
+        this.diagram = diagram;
+        this.error = error;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Properties">
+    /**
+     * Returns the position of this record in the input (the first record has
+     * the index {@code 0}).
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the number of the line at which this record starts (the first
+     * line has the number {@code 1}).
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Indicates whether the diagram of this record could not be read.
+     */
+    public boolean hasError() {
+        return error != null;
+    }
+
+    /**
+     * Returns the error that prevented the diagram from being read. Its
+     * {@link ReadingException#getLineNumber() position} refers to the whole
+     * input.
+     *
+     * @return the error, or {@code null} if the diagram was read.
+     */
+    public ReadingException getError() {
+        return error;
+    }
+
+    /**
+     * Returns the diagram of this record.
+     *
+     * @return the diagram.
+     * @throws ReadingException the {@link SpiderDiagramRecord#getError()
+     *                          error} of this record if the diagram could
+     *                          not be read.
+     */
+    public SpiderDiagram getDiagram() throws ReadingException {
+        if (error != null) {
+            throw error;
+        }
+        return diagram;
+    }
+    // </editor-fold>
+}
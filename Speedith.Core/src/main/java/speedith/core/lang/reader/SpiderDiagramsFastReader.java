@@ -0,0 +1,937 @@
+package speedith.core.lang.reader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import org.antlr.runtime.Token;
+import speedith.core.lang.NullSpiderDiagram;
+import speedith.core.lang.PrimarySpiderDiagramBuilder;
+import speedith.core.lang.Region;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.SpiderDiagrams;
+import speedith.core.lang.Zone;
+
+import static speedith.core.i18n.Translations.i18n;
+import static speedith.core.lang.CompoundSpiderDiagram.SDTextArgAttribute;
+import static speedith.core.lang.CompoundSpiderDiagram.SDTextOperatorAttribute;
+import static speedith.core.lang.PrimarySpiderDiagram.*;
+import static speedith.core.lang.reader.SpiderDiagramsParser.*;
+
+/**
+ * A hand-written recursive-descent reader of the textual representation of
+ * spider diagrams.
+ * <p>It accepts exactly the language of the 'SpiderDiagrams.g' grammar, but
+ * reads the characters directly and builds the zones, regions and diagrams
+ * as it goes (without the ANTLR tokens and the abstract syntax tree).</p>
+ * <p>The errors are the same as those of the ANTLR-based reader (with the same
+ * positions and messages):</p>
+ * <ul>
+ * <li>Syntax errors are reported where the ANTLR lexer and parser report them
+ * (including their single-token insertion and deletion checks). The lexer
+ * reads only one token past the parsed diagram.</li>
+ * <li>Translation errors (e.g.: a missing attribute) are reported only once
+ * the whole diagram has been parsed. The first one in the order in which the
+ * ANTLR-based translator visits the abstract syntax tree is reported.</li>
+ * </ul>
+ * <p>Equal names, zones and regions are created only once (see {@link
+ * ReaderInternTable}).</p>
+ * <p>An instance reads a single diagram and is not thread-safe.</p>
+ */
+final class SpiderDiagramsFastReader {
+
+    // <editor-fold defaultstate="collapsed" desc="Constants">
+    private static final int Comma = T__23;
+    private static final int RightBrace = T__24;
+    private static final int RightBracket = T__25;
+    private static final int RightParenthesis = T__26;
+    /**
+     * Indicates that a token closes the top-level diagram (which is not
+     * followed by anything in the grammar).
+     */
+    private static final int TopLevel = Token.EOR_TOKEN_TYPE;
+    // The kinds of values the translation expects.
+    private static final int AnyValue = 0;
+    private static final int StringValue = 1;
+    private static final int DiagramValue = 2;
+    private static final int StringListValue = 3;
+    private static final int ZoneValue = 4;
+    private static final int ZoneListValue = 5;
+    private static final int HabitatsValue = 6;
+    private static final int HabitatValue = 7;
+    // The attribute names (in the order of the ANTLR-based translators, so
+    // that they are listed in the same order in the error messages).
+    private static final Set<String> PrimaryAttributes = new HashSet<>(Arrays.asList(SDTextSpidersAttribute, SDTextHabitatsAttribute, SDTextShadedZonesAttribute, SDTextPresentZonesAttribute));
+    private static final Set<String> CompoundAttributes = new HashSet<>(Arrays.asList(SDTextOperatorAttribute));
+    private static final Set<String> NullAttributes = new HashSet<>();
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final char[] data;
+    private final int end;
+    private int position;
+    private int line;
+    private int lineStart;
+    // The current token.
+    private int type;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenLine;
+    private int tokenColumn;
+    // The position of the previous token.
+    private int previousLine;
+    private int previousColumn;
+    // The position of the current key (in a key-value pair).
+    private int keyStart;
+    private int keyEnd;
+    private int keyLine;
+    private int keyColumn;
+    /**
+     * The first translation error (a {@link ReadingException} or a {@link
+     * RuntimeException}). Nothing is built once it is set.
+     */
+    private Exception translationError;
+    private final ReaderInternTable interns;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates a reader of the given characters.
+     *
+     * @param data   the characters.
+     * @param offset the index of the first character to read.
+     * @param length the number of characters to read.
+     * @param line   the line of the first character (starting with 1).
+     * @param column the position of the first character in its line (starting
+     *               with 0).
+     */
+    SpiderDiagramsFastReader(char[] data, int offset, int length, int line, int column) {
+        this.data = data;
+        this.end = offset + length;
+        this.position = offset;
+        this.line = line;
+        this.lineStart = offset - column;
+        this.interns = new ReaderInternTable(SpiderDiagramsReader.isGlobalInterning());
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Reading">
+    /**
+     * Reads the spider diagram.
+     *
+     * @return the spider diagram.
+     * @throws ReadingException thrown if the input is malformed or could not
+     *                          be translated.
+     */
+    SpiderDiagram read() throws ReadingException {
+        nextToken();
+        if (!isDiagramStart(type)) {
+            throw noViableAlternative();
+        }
+        SpiderDiagram diagram = spiderDiagram(true, TopLevel);
+        if (translationError instanceof RuntimeException) {
+            throw (RuntimeException) translationError;
+        } else if (translationError != null) {
+            throw (ReadingException) translationError;
+        }
+        return diagram;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Parser">
+    /**
+     * Reads a spider diagram starting with its keyword.
+     *
+     * @param translate whether to build the diagram (otherwise only its syntax
+     *                  is checked).
+     * @param closer    the closing token of the enclosing element.
+     */
+    private SpiderDiagram spiderDiagram(boolean translate, int closer) throws ReadingException {
+        int diagramType = type;
+        int line = tokenLine;
+        int column = tokenColumn;
+        consume();
+        if (diagramType == SD_NULL) {
+            if (type != DICT) {
+                return translate ? NullSpiderDiagram.getInstance() : null;
+            }
+            consume();
+        } else {
+            match(DICT, type == ID || type == RightBrace);
+        }
+        SpiderDiagram diagram;
+        switch (diagramType) {
+            case SD_PRIMARY:
+                diagram = primaryAttributes(translate, line, column);
+                break;
+            case SD_NULL:
+                diagram = nullAttributes(translate);
+                break;
+            default:
+                diagram = compoundAttributes(translate, line, column);
+                break;
+        }
+        matchCloser(RightBrace, closer);
+        return diagram;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SpiderDiagram primaryAttributes(boolean translate, int line, int column) throws ReadingException {
+        boolean hasSpiders = false, hasHabitats = false, hasShadedZones = false, hasPresentZones = false;
+        ArrayList<String> spiders = null;
+        HashMap<String, Region> habitats = null;
+        ArrayList<Zone> shadedZones = null, presentZones = null;
+        if (type == ID) {
+            while (true) {
+                readKey();
+                String attribute = null;
+                int kind = AnyValue;
+                if (translate) {
+                    if (isKey(SDTextSpidersAttribute)) {
+                        attribute = SDTextSpidersAttribute;
+                        kind = StringListValue;
+                        hasSpiders = true;
+                    } else if (isKey(SDTextHabitatsAttribute)) {
+                        attribute = SDTextHabitatsAttribute;
+                        kind = HabitatsValue;
+                        hasHabitats = true;
+                    } else if (isKey(SDTextShadedZonesAttribute)) {
+                        attribute = SDTextShadedZonesAttribute;
+                        kind = ZoneListValue;
+                        hasShadedZones = true;
+                    } else if (isKey(SDTextPresentZonesAttribute)) {
+                        attribute = SDTextPresentZonesAttribute;
+                        kind = ZoneListValue;
+                        hasPresentZones = true;
+                    } else {
+                        failUnexpectedKey(PrimaryAttributes);
+                    }
+                }
+                Object value = element(kind, RightBrace);
+                if (attribute == SDTextSpidersAttribute) {
+                    spiders = (ArrayList<String>) value;
+                } else if (attribute == SDTextHabitatsAttribute) {
+                    habitats = (HashMap<String, Region>) value;
+                } else if (attribute == SDTextShadedZonesAttribute) {
+                    shadedZones = (ArrayList<Zone>) value;
+                } else if (attribute == SDTextPresentZonesAttribute) {
+                    presentZones = (ArrayList<Zone>) value;
+                }
+                if (type != Comma) {
+                    break;
+                }
+                consume();
+            }
+        }
+        if (!translate) {
+            return null;
+        }
+        if (!hasSpiders || !hasHabitats || !hasShadedZones) {
+            fail(i18n("ERR_TRANSLATE_MISSING_ELEMENTS", PrimaryAttributes), line, column);
+        }
+        if (translationError != null) {
+            return null;
+        }
+        try {
+            PrimarySpiderDiagramBuilder builder = new PrimarySpiderDiagramBuilder()
+                    .addSpiders(spiders)
+                    .setHabitats(habitats)
+                    .addShadedZones(shadedZones);
+            if (hasPresentZones) {
+                builder.addPresentZones(presentZones);
+            }
+            return builder.build();
+        } catch (RuntimeException ex) {
+            fail(ex);
+            return null;
+        }
+    }
+
+    private SpiderDiagram compoundAttributes(boolean translate, int line, int column) throws ReadingException {
+        // A hash map (as in the ANTLR-based translator), so that the unknown
+        // attributes are reported in the same order.
+        HashMap<String, Attribute> attributes = translate ? new HashMap<String, Attribute>() : null;
+        if (type == ID) {
+            while (true) {
+                readKey();
+                int kind = AnyValue;
+                String key = null;
+                if (translate) {
+                    key = new String(data, keyStart, keyEnd - keyStart);
+                    kind = key.equals(SDTextOperatorAttribute) ? StringValue : DiagramValue;
+                }
+                int valueKeyLine = keyLine;
+                int valueKeyColumn = keyColumn;
+                Object value = element(kind, RightBrace);
+                if (translate) {
+                    attributes.put(key, new Attribute(value, valueKeyLine, valueKeyColumn));
+                }
+                if (type != Comma) {
+                    break;
+                }
+                consume();
+            }
+        }
+        if (!translate) {
+            return null;
+        }
+        if (!attributes.containsKey(SDTextOperatorAttribute)) {
+            fail(i18n("ERR_TRANSLATE_MISSING_ELEMENTS", CompoundAttributes), line, column);
+        }
+        if (translationError != null) {
+            return null;
+        }
+        String operator = (String) attributes.remove(SDTextOperatorAttribute).value;
+        ArrayList<SpiderDiagram> operands = new ArrayList<>();
+        Attribute operand, lastOperand = null;
+        while ((operand = attributes.remove(SDTextArgAttribute + (operands.size() + 1))) != null) {
+            operands.add((SpiderDiagram) operand.value);
+            lastOperand = operand;
+        }
+        if (!attributes.isEmpty()) {
+            Attribute unknown = attributes.values().iterator().next();
+            fail(i18n("ERR_TRANSLATE_UNKNOWN_ATTRIBUTES", attributes.keySet()), unknown.keyLine, unknown.keyColumn);
+            return null;
+        }
+        try {
+            return SpiderDiagrams.createCompoundSD(operator, operands, false);
+        } catch (Exception e) {
+            fail(e.getLocalizedMessage(), lastOperand == null ? line : lastOperand.keyLine, lastOperand == null ? column : lastOperand.keyColumn);
+            return null;
+        }
+    }
+
+    private SpiderDiagram nullAttributes(boolean translate) throws ReadingException {
+        if (type == ID) {
+            while (true) {
+                readKey();
+                if (translate) {
+                    failUnexpectedKey(NullAttributes);
+                }
+                element(AnyValue, RightBrace);
+                if (type != Comma) {
+                    break;
+                }
+                consume();
+            }
+        }
+        return translate ? NullSpiderDiagram.getInstance() : null;
+    }
+
+    /**
+     * Reads the key of a key-value pair and the equals sign after it.
+     */
+    private void readKey() throws ReadingException {
+        if (type != ID) {
+            throw mismatch(ID, type == PAIR);
+        }
+        keyStart = tokenStart;
+        keyEnd = tokenEnd;
+        keyLine = tokenLine;
+        keyColumn = tokenColumn;
+        consume();
+        match(PAIR, isElementStart(type));
+    }
+
+    /**
+     * Reads a language element (a string, a map, a list, a sorted list or a
+     * spider diagram).
+     *
+     * @param kind   the kind of value the translation expects.
+     * @param closer the closing token of the enclosing element.
+     * @return the translated value (or {@code null} if it was not
+     *         translated).
+     */
+    private Object element(int kind, int closer) throws ReadingException {
+        switch (type) {
+            case STRING:
+                Object value = null;
+                if (kind != StringValue) {
+                    failUnexpectedElement(kind);
+                } else if (translationError == null) {
+                    value = interns.name(data, tokenStart + 1, tokenEnd - tokenStart - 2);
+                }
+                consume();
+                return value;
+            case DICT:
+                failUnexpectedElement(kind);
+                consume();
+                if (type == ID) {
+                    while (true) {
+                        readKey();
+                        element(AnyValue, RightBrace);
+                        if (type != Comma) {
+                            break;
+                        }
+                        consume();
+                    }
+                }
+                matchCloser(RightBrace, closer);
+                return null;
+            case LIST:
+                return list(kind, closer);
+            case SLIST:
+                return sortedList(kind, closer);
+            case SD_PRIMARY:
+            case SD_UNARY:
+            case SD_BINARY:
+            case SD_COMPOUND:
+            case SD_NULL:
+                if (kind != DiagramValue) {
+                    failUnexpectedElement(kind);
+                }
+                return spiderDiagram(kind == DiagramValue, closer);
+            default:
+                throw noViableAlternative();
+        }
+    }
+
+    /**
+     * Reads a list. Empty lists are translated to {@code null} (as in the
+     * ANTLR-based translator).
+     */
+    private Object list(int kind, int closer) throws ReadingException {
+        int elementKind;
+        switch (kind) {
+            case StringListValue:
+                elementKind = StringValue;
+                break;
+            case ZoneListValue:
+                elementKind = ZoneValue;
+                break;
+            case HabitatsValue:
+                elementKind = HabitatValue;
+                break;
+            default:
+                failUnexpectedElement(kind);
+                kind = elementKind = AnyValue;
+                break;
+        }
+        consume();
+        ArrayList<Object> elements = null;
+        if (isElementStart(type)) {
+            while (true) {
+                Object element = element(elementKind, RightBracket);
+                if (kind != AnyValue && translationError == null) {
+                    if (elements == null) {
+                        elements = new ArrayList<>();
+                    }
+                    elements.add(element);
+                }
+                if (type != Comma) {
+                    break;
+                }
+                consume();
+            }
+        }
+        matchCloser(RightBracket, closer);
+        if (kind == AnyValue || translationError != null) {
+            return null;
+        }
+        if (kind == HabitatsValue && elements != null) {
+            HashMap<String, Region> habitats = new HashMap<>();
+            try {
+                for (Object habitat : elements) {
+                    Object[] spiderAndZones = (Object[]) habitat;
+                    habitats.put((String) spiderAndZones[0], newRegion(spiderAndZones[1]));
+                }
+            } catch (RuntimeException ex) {
+                fail(ex);
+                return null;
+            }
+            return habitats;
+        }
+        return elements;
+    }
+
+    /**
+     * Reads a sorted list, which is translated either to a zone or to a
+     * habitat (the name of a spider and a list of zones).
+     */
+    private Object sortedList(int kind, int closer) throws ReadingException {
+        int line = tokenLine;
+        int column = tokenColumn;
+        if (kind != ZoneValue && kind != HabitatValue) {
+            failUnexpectedElement(kind);
+            kind = AnyValue;
+        }
+        Exception errorBefore = translationError;
+        consume();
+        Object[] elements = kind == AnyValue ? null : new Object[2];
+        int count = 0;
+        if (isElementStart(type)) {
+            while (true) {
+                int elementKind = AnyValue;
+                if (kind == ZoneValue) {
+                    elementKind = StringListValue;
+                } else if (kind == HabitatValue && count < 2) {
+                    elementKind = count == 0 ? StringValue : ZoneListValue;
+                }
+                Object element = element(elementKind, RightParenthesis);
+                if (kind != AnyValue && count < 2) {
+                    elements[count] = element;
+                }
+                count++;
+                if (type != Comma) {
+                    break;
+                }
+                consume();
+            }
+        }
+        matchCloser(RightParenthesis, closer);
+        if (kind == HabitatValue && count != 2 && errorBefore == null) {
+            // The translator checks the number of elements of a tuple before
+            // it translates them.
+            translationError = new ReadingException(i18n("ERR_TRANSLATE_ELEMENTS_COUNT", 2, count), line, column);
+        } else if (kind == ZoneValue && count != 2) {
+            fail(i18n("ERR_TRANSLATE_ZONE"), line, column);
+        }
+        if (kind == AnyValue || translationError != null) {
+            return null;
+        }
+        if (kind == HabitatValue) {
+            return elements;
+        }
+        try {
+            return newZone(elements[0], elements[1]);
+        } catch (RuntimeException ex) {
+            fail(ex);
+            return null;
+        }
+    }
+
+    private void match(int expected, boolean isFollowing) throws ReadingException {
+        if (type != expected) {
+            throw mismatch(expected, isFollowing);
+        }
+        consume();
+    }
+
+    /**
+     * Matches the closing token of an element.
+     *
+     * @param expected the closing token.
+     * @param closer   the closing token of the enclosing element.
+     */
+    private void matchCloser(int expected, int closer) throws ReadingException {
+        match(expected, closer == TopLevel || type == Comma || type == closer);
+    }
+
+    private static boolean isDiagramStart(int type) {
+        return type == SD_PRIMARY || type == SD_UNARY || type == SD_BINARY || type == SD_COMPOUND || type == SD_NULL;
+    }
+
+    private static boolean isElementStart(int type) {
+        return type == STRING || type == DICT || type == LIST || type == SLIST || isDiagramStart(type);
+    }
+
+    private boolean isKey(String key) {
+        int length = keyEnd - keyStart;
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[keyStart + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Zone newZone(Object inContours, Object outContours) {
+        return interns.zone((ArrayList<String>) inContours, (ArrayList<String>) outContours);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Region newRegion(Object zones) {
+        return interns.region((ArrayList<Zone>) zones);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Translation Errors">
+    private void fail(String message, int line, int column) {
+        if (translationError == null) {
+            translationError = new ReadingException(message, line, column);
+        }
+    }
+
+    private void fail(Exception error) {
+        if (translationError == null) {
+            translationError = error;
+        }
+    }
+
+    private void failUnexpectedKey(Set<String> allowedKeys) {
+        fail(i18n("ERR_TRANSLATE_UNEXPECTED_KEY_VALUE", new String(data, keyStart, keyEnd - keyStart), allowedKeys), keyLine, keyColumn);
+    }
+
+    /**
+     * Records the error of the translator that expected a value of the given
+     * kind and found the current element instead.
+     */
+    private void failUnexpectedElement(int kind) {
+        switch (kind) {
+            case AnyValue:
+                break;
+            case StringValue:
+                fail(i18n("ERR_TRANSLATE_INVALID_STRING"), tokenLine, tokenColumn);
+                break;
+            case DiagramValue:
+                fail(new ReadingException(i18n("ERR_UNKNOWN_SD_TYPE")));
+                break;
+            default:
+                fail(i18n("ERR_TRANSLATE_UNEXPECTED_ELEMENT", i18n("ERR_TRANSLATE_LIST_OR_SLIST")), tokenLine, tokenColumn);
+                break;
+        }
+    }
+
+    /**
+     * An attribute of a compound diagram together with the position of its
+     * key.
+     */
+    private static final class Attribute {
+
+        private final Object value;
+        private final int keyLine;
+        private final int keyColumn;
+
+        Attribute(Object value, int keyLine, int keyColumn) {
+            this.value = value;
+            this.keyLine = keyLine;
+            this.keyColumn = keyColumn;
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Syntax Errors">
+    /**
+     * Creates the error for a token that does not match the expected one. Like
+     * the ANTLR parser, it first checks whether the current token is
+     * extraneous (i.e.: the expected token follows it) and then whether the
+     * expected token is missing (i.e.: the current token may follow the
+     * expected one).
+     *
+     * @param expected    the expected token.
+     * @param isFollowing whether the current token may follow the expected
+     *                    one.
+     */
+    private ReadingException mismatch(int expected, boolean isFollowing) throws ReadingException {
+        String current = tokenDisplay();
+        int line = tokenLine;
+        int column = tokenColumn;
+        if (type == Token.EOF) {
+            if (isFollowing) {
+                return syntaxError("missing " + tokenNames[expected] + " at " + current, previousLine, previousColumn);
+            }
+        } else {
+            nextToken();
+            if (type == expected) {
+                return syntaxError("extraneous input " + current + " expecting " + tokenNames[expected], line, column);
+            } else if (isFollowing) {
+                return syntaxError("missing " + tokenNames[expected] + " at " + current, line, column);
+            }
+        }
+        return syntaxError("mismatched input " + current + " expecting " + tokenNames[expected], line, column);
+    }
+
+    private ReadingException noViableAlternative() {
+        return syntaxError("no viable alternative at input " + tokenDisplay(), tokenLine, tokenColumn);
+    }
+
+    private String tokenDisplay() {
+        if (type == Token.EOF) {
+            return "'<EOF>'";
+        }
+        String text = new String(data, tokenStart, tokenEnd - tokenStart);
+        return "'" + text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "'";
+    }
+
+    private ReadingException lexerMismatch(int expected) {
+        return syntaxError("mismatched character " + charDisplay(peek(position)) + " expecting " + charDisplay(expected), line, position - lineStart);
+    }
+
+    private ReadingException lexerSetMismatch() {
+        return syntaxError("mismatched character " + charDisplay(peek(position)) + " expecting set null", line, position - lineStart);
+    }
+
+    private ReadingException lexerNoViableAlternative() {
+        return syntaxError("no viable alternative at character " + charDisplay(peek(position)), line, position - lineStart);
+    }
+
+    private static String charDisplay(int c) {
+        switch (c) {
+            case Token.EOF:
+                return "'<EOF>'";
+            case '\n':
+                return "'\\n'";
+            case '\t':
+                return "'\\t'";
+            case '\r':
+                return "'\\r'";
+            default:
+                return "'" + (char) c + "'";
+        }
+    }
+
+    private static ReadingException syntaxError(String detail, int line, int column) {
+        return new ReadingException(i18n("ERR_PARSE_INVALID_SYNTAX") + " (" + detail + ")", line, column);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Lexer">
+    private void consume() throws ReadingException {
+        previousLine = tokenLine;
+        previousColumn = tokenColumn;
+        nextToken();
+    }
+
+    /**
+     * Reads the next token that is neither whitespace nor a comment.
+     */
+    private void nextToken() throws ReadingException {
+        while (true) {
+            tokenStart = position;
+            tokenLine = line;
+            tokenColumn = position - lineStart;
+            if (position == end) {
+                type = Token.EOF;
+                tokenEnd = position;
+                return;
+            }
+            char c = data[position];
+            switch (c) {
+                case '\n':
+                    position++;
+                    newLine();
+                    continue;
+                case ' ':
+                case '\t':
+                case '\r':
+                    position++;
+                    continue;
+                case '/':
+                    skipComment();
+                    continue;
+                case '"':
+                    readString();
+                    type = STRING;
+                    break;
+                case '{':
+                    type = DICT;
+                    position++;
+                    break;
+                case '=':
+                    type = PAIR;
+                    position++;
+                    break;
+                case '[':
+                    type = LIST;
+                    position++;
+                    break;
+                case '(':
+                    type = SLIST;
+                    position++;
+                    break;
+                case ',':
+                    type = Comma;
+                    position++;
+                    break;
+                case '}':
+                    type = RightBrace;
+                    position++;
+                    break;
+                case ']':
+                    type = RightBracket;
+                    position++;
+                    break;
+                case ')':
+                    type = RightParenthesis;
+                    position++;
+                    break;
+                default:
+                    if (!isIdentifierStart(c)) {
+                        throw lexerNoViableAlternative();
+                    }
+                    position++;
+                    while (position < end && isIdentifierPart(data[position])) {
+                        position++;
+                    }
+                    type = identifierType();
+                    break;
+            }
+            tokenEnd = position;
+            return;
+        }
+    }
+
+    private void skipComment() throws ReadingException {
+        int next = peek(position + 1);
+        if (next == '/') {
+            position += 2;
+            while (position < end && data[position] != '\n' && data[position] != '\r') {
+                position++;
+            }
+            if (peek(position) == '\r') {
+                position++;
+            }
+            if (peek(position) != '\n') {
+                throw lexerMismatch('\n');
+            }
+            position++;
+            newLine();
+        } else if (next == '*') {
+            position += 2;
+            while (true) {
+                if (position == end) {
+                    throw lexerMismatch('*');
+                }
+                char c = data[position];
+                if (c == '*') {
+                    next = peek(position + 1);
+                    if (next == '/') {
+                        position += 2;
+                        return;
+                    } else if (next == Token.EOF) {
+                        position++;
+                        throw lexerMismatch('/');
+                    }
+                }
+                position++;
+                if (c == '\n') {
+                    newLine();
+                }
+            }
+        } else {
+            throw lexerNoViableAlternative();
+        }
+    }
+
+    private void readString() throws ReadingException {
+        position++;
+        while (true) {
+            if (position == end) {
+                throw lexerMismatch('"');
+            }
+            char c = data[position];
+            if (c == '"') {
+                position++;
+                return;
+            } else if (c == '\\') {
+                readEscapeSequence();
+            } else {
+                position++;
+                if (c == '\n') {
+                    newLine();
+                }
+            }
+        }
+    }
+
+    private void readEscapeSequence() throws ReadingException {
+        switch (peek(position + 1)) {
+            case '"':
+            case '\'':
+            case '\\':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                position += 2;
+                break;
+            case 'u':
+                position += 2;
+                for (int i = 0; i < 4; i++) {
+                    if (!isHexDigit(peek(position))) {
+                        throw lexerSetMismatch();
+                    }
+                    position++;
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+                position += 2;
+                if (isOctalDigit(peek(position))) {
+                    position++;
+                    if (isOctalDigit(peek(position))) {
+                        position++;
+                    }
+                }
+                break;
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+                position += 2;
+                if (isOctalDigit(peek(position))) {
+                    position++;
+                }
+                break;
+            default:
+                throw lexerNoViableAlternative();
+        }
+    }
+
+    /**
+     * Returns the type of the identifier between {@code tokenStart} and
+     * {@code position} (one of the keywords or {@code ID}).
+     */
+    private int identifierType() {
+        switch (position - tokenStart) {
+            case 6:
+                return isToken("NullSD") ? SD_NULL : ID;
+            case 7:
+                return isToken("UnarySD") ? SD_UNARY : ID;
+            case 8:
+                return isToken("BinarySD") ? SD_BINARY : ID;
+            case 9:
+                return isToken("PrimarySD") ? SD_PRIMARY : ID;
+            case 10:
+                return isToken("CompoundSD") ? SD_COMPOUND : ID;
+            default:
+                return ID;
+        }
+    }
+
+    private boolean isToken(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (data[tokenStart + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void newLine() {
+        line++;
+        lineStart = position;
+    }
+
+    private int peek(int index) {
+        return index < end ? data[index] : Token.EOF;
+    }
+
+    private static boolean isHexDigit(int c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isOctalDigit(int c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$'
+                || (c >= '\u00a2' && c <= '\u00a5') || c == '\u00aa' || c == '\u00b5' || c == '\u00ba'
+                || (c >= '\u00c0' && c <= '\u00d6') || (c >= '\u00d8' && c <= '\udfff');
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9') || c <= '\u0008' || (c >= '\u000e' && c <= '\u001b')
+                || (c >= '\u007f' && c <= '\u009f') || c == '\u00ad';
+    }
+    // </editor-fold>
+}
@@ -30,14 +30,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
 import org.antlr.runtime.ANTLRFileStream;
 import org.antlr.runtime.ANTLRInputStream;
@@ -52,6 +55,7 @@ import speedith.core.lang.CompoundSpiderDiagram;
 import static speedith.core.lang.CompoundSpiderDiagram.*;
 import speedith.core.lang.NullSpiderDiagram;
 import speedith.core.lang.PrimarySpiderDiagram;
+import speedith.core.lang.PrimarySpiderDiagramBuilder;
 import static speedith.core.lang.PrimarySpiderDiagram.*;
 import speedith.core.lang.Region;
 import speedith.core.lang.SpiderDiagram;
@@ -68,15 +72,48 @@ import speedith.core.lang.reader.SpiderDiagramsParser.spiderDiagram_return;
  * in the 'SpiderDiagrams.g' ANTLR file (which generates the
  * {@link SpiderDiagramsParser parser} and the {@link SpiderDiagramsLexer
  * lexer}).</p>
+ * <p>While a diagram is read, equal names, zones and regions are created only
+ * once (e.g.: a zone that is mentioned in several habitats and in the shaded
+ * zones). With {@link SpiderDiagramsReader#setGlobalInterning(boolean) global
+ * interning}, zones and regions are also shared between diagrams (see
+ * {@link speedith.core.lang.ElementPools}).</p>
  * @author Matej Urbas [matej.urbas@gmail.com]
  */
 public final class SpiderDiagramsReader {
 
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private static volatile boolean globalInterning;
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Disabled Constructor">
     private SpiderDiagramsReader() {
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="Interning">
+    /**
+     * Indicates whether the zones and regions of the diagrams that are read are
+     * interned in the global, weakly referencing {@link
+     * speedith.core.lang.ElementPools pools}.
+     * <p>Global interning is disabled by default.</p>
+     * @return {@code true} if global interning is enabled.
+     */
+    public static boolean isGlobalInterning() {
+        return globalInterning;
+    }
+
+    /**
+     * Enables or disables the global interning of zones and regions (see
+     * {@link SpiderDiagramsReader#isGlobalInterning()}). Global interning pays
+     * off when many diagrams that share zones are kept in memory (e.g.: after
+     * a {@link BulkImporter bulk import}).
+     * @param enabled whether to intern the zones and regions globally.
+     */
+    public static void setGlobalInterning(boolean enabled) {
+        globalInterning = enabled;
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Public Reading Methods">
     /**
      * This method takes a string, parses it, and converts it to the internal
@@ -183,6 +220,101 @@ public final class SpiderDiagramsReader {
         return readSpiderDiagram(new ANTLRFileStream(inputFile.getPath(), encoding));
     }
 
+    /**
+     * This method takes an array of characters, parses it, and converts it to
+     * the internal representation of spider diagrams (see {@link
+     * SpiderDiagram}).
+     * <p>Unlike the other reading methods, this one does not use the ANTLR
+     * parser. It reads the characters directly (without copying them) and
+     * builds the diagram without an intermediate syntax tree. It accepts the
+     * same syntax and reports the same errors (at the same positions) as
+     * {@link SpiderDiagramsReader#readSpiderDiagram(java.lang.String)}.</p>
+     * @param input the textual representation of a spider diagram.
+     * @return the internal representation of the spider diagram.
+     * @throws ReadingException this exception is thrown if the textual
+     * representation could not be translated or is malformed.
+     */
+    public static SpiderDiagram readSpiderDiagram(char[] input) throws ReadingException {
+        if (input == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "input"));
+        }
+        return new SpiderDiagramsFastReader(input, 0, input.length, 1, 0).read();
+    }
+
+    /**
+     * This method takes a part of an array of characters, parses it, and
+     * converts it to the internal representation of spider diagrams (see
+     * {@link SpiderDiagram}).
+     * <p>See {@link SpiderDiagramsReader#readSpiderDiagram(char[])}. The
+     * positions of errors are relative to the first character of the
+     * part.</p>
+     * @param input the array that contains the textual representation of a
+     * spider diagram.
+     * @param offset the index of the first character of the diagram.
+     * @param length the number of characters to read.
+     * @return the internal representation of the spider diagram.
+     * @throws ReadingException this exception is thrown if the textual
+     * representation could not be translated or is malformed.
+     */
+    public static SpiderDiagram readSpiderDiagram(char[] input, int offset, int length) throws ReadingException {
+        if (input == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "input"));
+        }
+        if (offset < 0 || length < 0 || offset > input.length - length) {
+            throw new IndexOutOfBoundsException(i18n("GERR_INDEX_OUT_OF_BOUNDS"));
+        }
+        return new SpiderDiagramsFastReader(input, offset, length, 1, 0).read();
+    }
+
+    /**
+     * This method takes the remaining characters of the given buffer, parses
+     * them, and converts them to the internal representation of spider
+     * diagrams (see {@link SpiderDiagram}).
+     * <p>See {@link SpiderDiagramsReader#readSpiderDiagram(char[])}. The
+     * position of the buffer is not changed. The characters are copied only
+     * if the buffer is not backed by an accessible array (e.g.: if it is
+     * read-only or wraps a string).</p>
+     * @param input the textual representation of a spider diagram.
+     * @return the internal representation of the spider diagram.
+     * @throws ReadingException this exception is thrown if the textual
+     * representation could not be translated or is malformed.
+     */
+    public static SpiderDiagram readSpiderDiagram(CharBuffer input) throws ReadingException {
+        if (input == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "input"));
+        }
+        if (input.hasArray()) {
+            return new SpiderDiagramsFastReader(input.array(), input.arrayOffset() + input.position(), input.remaining(), 1, 0).read();
+        }
+        char[] chars = new char[input.remaining()];
+        input.duplicate().get(chars);
+        return new SpiderDiagramsFastReader(chars, 0, chars.length, 1, 0).read();
+    }
+
+    /**
+     * Returns an iterator over the spider diagrams in the given input. The
+     * diagrams may be separated by whitespace or comments (e.g.: one diagram
+     * per line) or simply concatenated.
+     * <p>The input is read lazily: every call to {@link Iterator#next()} reads
+     * and parses only the next diagram, so only its text is kept in
+     * memory.</p>
+     * <p>A diagram that cannot be read does not stop the iteration. Instead,
+     * its {@link SpiderDiagramRecord record} contains the {@link
+     * SpiderDiagramRecord#getError() error} (with the position of the error in
+     * the whole input) and the iteration continues with the next diagram. If
+     * the input itself cannot be read, the last record contains the
+     * error (caused by the {@link IOException}). Note that a diagram with an
+     * unclosed brace extends to the end of the input.</p>
+     * @param reader the textual representation of several spider diagrams.
+     * @return an iterator over the records of individual diagrams.
+     */
+    public static Iterator<SpiderDiagramRecord> readSpiderDiagrams(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "reader"));
+        }
+        return new RecordIterator(new SpiderDiagramsSplitter(reader));
+    }
+
     /**
      * Reads a region from the string.
      * <p>An example of a region:
@@ -201,7 +333,8 @@ public final class SpiderDiagramsReader {
                 if (list == null || list.tree == null) {
                     throw new ReadingException(i18n("ERR_READING_INVALID_REGION"));
                 }
-                return new Region(ZoneTranslator.ZoneListTranslator.fromASTNode(list.tree));
+                ReaderInternTable interns = new ReaderInternTable(globalInterning);
+                return interns.region(ZoneTranslator.ZoneListTranslator.fromASTNode(list.tree, interns));
             }
         });
     }
@@ -220,6 +353,66 @@ public final class SpiderDiagramsReader {
         }
     }
 
+    private static SpiderDiagramRecord readRecord(SpiderDiagramsSplitter splitter, int index) {
+        // Report the errors at their positions in the whole input.
+        SpiderDiagramsFastReader reader = new SpiderDiagramsFastReader(splitter.getRecordChars(), 0, splitter.getRecordLength(), splitter.getRecordLine(), splitter.getRecordColumn());
+        try {
+            return new SpiderDiagramRecord(index, splitter.getRecordLine(), reader.read(), null);
+        } catch (ReadingException ex) {
+            return new SpiderDiagramRecord(index, splitter.getRecordLine(), null, ex);
+        } catch (RuntimeException ex) {
+            return new SpiderDiagramRecord(index, splitter.getRecordLine(), null, new ReadingException(i18n("ERR_PARSE_INVALID_SYNTAX"), ex));
+        }
+    }
+
+    /**
+     * Reads one record ahead, so that {@link Iterator#hasNext()} knows whether
+     * there is another diagram.
+     */
+    private static class RecordIterator implements Iterator<SpiderDiagramRecord> {
+
+        private final SpiderDiagramsSplitter splitter;
+        private SpiderDiagramRecord next;
+        private int index;
+        private boolean finished;
+
+        RecordIterator(SpiderDiagramsSplitter splitter) {
+            this.splitter = splitter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    if (splitter.next()) {
+                        next = readRecord(splitter, index++);
+                    } else {
+                        finished = true;
+                    }
+                } catch (IOException ex) {
+                    finished = true;
+                    next = new SpiderDiagramRecord(index++, splitter.getLine(), null, new ReadingException(i18n("ERR_READING_IO", ex.getLocalizedMessage()), ex));
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public SpiderDiagramRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SpiderDiagramRecord record = next;
+            next = null;
+            return record;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     private static interface ElementReader<T> {
 
         public T readElement(SpiderDiagramsParser parser) throws ReadingException, RecognitionException;
@@ -241,12 +434,12 @@ public final class SpiderDiagramsReader {
         if (spiderDiagram == null) {
             throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "spiderDiagram"));
         }
-        return SDTranslator.Instance.fromASTNode(spiderDiagram.tree);
+        return SDTranslator.Instance.fromASTNode(spiderDiagram.tree, new ReaderInternTable(globalInterning));
     }
 
     private abstract static class ElementTranslator<T> {
 
-        public abstract T fromASTNode(CommonTree treeNode) throws ReadingException;
+        public abstract T fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException;
     }
 
     private static class ZoneTranslator extends ElementTranslator<Zone> {
@@ -260,12 +453,12 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        public Zone fromASTNode(CommonTree treeNode) throws ReadingException {
-            ArrayList<ArrayList<String>> inOutContours = translator.fromASTNode(treeNode);
+        public Zone fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
+            ArrayList<ArrayList<String>> inOutContours = translator.fromASTNode(treeNode, interns);
             if (inOutContours == null || inOutContours.size() != 2) {
                 throw new ReadingException(i18n("ERR_TRANSLATE_ZONE"), treeNode);
             }
-            return new Zone(inOutContours.get(0), inOutContours.get(1));
+            return interns.zone(inOutContours.get(0), inOutContours.get(1));
         }
     }
 
@@ -281,15 +474,15 @@ public final class SpiderDiagramsReader {
 
         @Override
         @SuppressWarnings("unchecked")
-        public Map<String, Region> fromASTNode(CommonTree treeNode) throws ReadingException {
-            ArrayList<ArrayList<Object>> rawHabitats = regionListTranslator.fromASTNode(treeNode);
+        public Map<String, Region> fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
+            ArrayList<ArrayList<Object>> rawHabitats = regionListTranslator.fromASTNode(treeNode, interns);
             if (rawHabitats == null || rawHabitats.size() < 1) {
                 return null;
             }
             HashMap<String, Region> habitats = new HashMap<String, Region>();
             for (ArrayList<Object> rawHabitat : rawHabitats) {
                 if (rawHabitat.size() == 2) {
-                    habitats.put((String) rawHabitat.get(0), new Region((ArrayList<Zone>) rawHabitat.get(1)));
+                    habitats.put((String) rawHabitat.get(0), interns.region((ArrayList<Zone>) rawHabitat.get(1)));
                 }
             }
             return habitats;
@@ -301,11 +494,11 @@ public final class SpiderDiagramsReader {
         public static final StringTranslator Instance = new StringTranslator();
 
         @Override
-        public String fromASTNode(CommonTree treeNode) throws ReadingException {
+        public String fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
             if (treeNode.token != null && treeNode.token.getType() == SpiderDiagramsParser.STRING) {
                 String str = treeNode.token.getText();
                 if (str != null && str.length() >= 2) {
-                    return str.substring(1, str.length() - 1);
+                    return interns.name(str.substring(1, str.length() - 1));
                 }
             }
             throw new ReadingException(i18n("ERR_TRANSLATE_INVALID_STRING"), treeNode);
@@ -317,7 +510,7 @@ public final class SpiderDiagramsReader {
         public static final IDTranslator Instance = new IDTranslator();
 
         @Override
-        public String fromASTNode(CommonTree treeNode) throws ReadingException {
+        public String fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
             if (treeNode.token != null && treeNode.token.getType() == SpiderDiagramsParser.ID) {
                 return treeNode.token.getText();
             }
@@ -353,7 +546,7 @@ public final class SpiderDiagramsReader {
         private boolean areMandatoryPresent(Map<String, ? extends Object> attributes) {
             if (mandatoryAttributes != null) {
                 for (String string : mandatoryAttributes) {
-                    if (!attributes.containsKey(string)) {
+                    if (attributes == null || !attributes.containsKey(string)) {
                         return false;
                     }
                 }
@@ -362,8 +555,8 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        public V fromASTNode(CommonTree treeNode) throws ReadingException {
-            Map<String, Entry<Object, CommonTree>> attrs = keyValueMapTranslator.fromASTNode(treeNode);
+        public V fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
+            Map<String, Entry<Object, CommonTree>> attrs = keyValueMapTranslator.fromASTNode(treeNode, interns);
             if (areMandatoryPresent(attrs)) {
                 return createSD(attrs, treeNode);
             } else {
@@ -382,18 +575,18 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        public SpiderDiagram fromASTNode(CommonTree treeNode) throws ReadingException {
+        public SpiderDiagram fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
             switch (treeNode.token.getType()) {
                 case SpiderDiagramsParser.SD_BINARY:
-                    return CompoundSDTranslator.BinaryTranslator.fromASTNode(treeNode);
+                    return CompoundSDTranslator.BinaryTranslator.fromASTNode(treeNode, interns);
                 case SpiderDiagramsParser.SD_UNARY:
-                    return CompoundSDTranslator.UnaryTranslator.fromASTNode(treeNode);
+                    return CompoundSDTranslator.UnaryTranslator.fromASTNode(treeNode, interns);
                 case SpiderDiagramsParser.SD_COMPOUND:
-                    return CompoundSDTranslator.CompoundTranslator.fromASTNode(treeNode);
+                    return CompoundSDTranslator.CompoundTranslator.fromASTNode(treeNode, interns);
                 case SpiderDiagramsParser.SD_PRIMARY:
-                    return PrimarySDTranslator.Instance.fromASTNode(treeNode);
+                    return PrimarySDTranslator.Instance.fromASTNode(treeNode, interns);
                 case SpiderDiagramsParser.SD_NULL:
-                    return NullSDTranslator.Instance.fromASTNode(treeNode);
+                    return NullSDTranslator.Instance.fromASTNode(treeNode, interns);
                 default:
                     throw new ReadingException(i18n("ERR_UNKNOWN_SD_TYPE"));
             }
@@ -451,11 +644,17 @@ public final class SpiderDiagramsReader {
         @Override
         @SuppressWarnings("unchecked")
         PrimarySpiderDiagram createSD(Map<String, Entry<Object, CommonTree>> attributes, CommonTree mainNode) throws ReadingException {
+            // The builder sorts the parsed lists straight into the diagram's
+            // own collections.
+            PrimarySpiderDiagramBuilder builder = new PrimarySpiderDiagramBuilder()
+                    .addSpiders((Collection<String>) attributes.get(SDTextSpidersAttribute).getKey())
+                    .setHabitats((Map<String, Region>) attributes.get(SDTextHabitatsAttribute).getKey())
+                    .addShadedZones((Collection<Zone>) attributes.get(SDTextShadedZonesAttribute).getKey());
             Entry<Object, CommonTree> presentZonesAttribute = attributes.get(SDTextPresentZonesAttribute);
-            return SpiderDiagrams.createPrimarySDNoCopy((Collection<String>) attributes.get(SDTextSpidersAttribute).getKey(),
-                    (Map<String, Region>) attributes.get(SDTextHabitatsAttribute).getKey(),
-                    (Collection<Zone>) attributes.get(SDTextShadedZonesAttribute).getKey(),
-                    presentZonesAttribute == null ? null : (Collection<Zone>) presentZonesAttribute.getKey());
+            if (presentZonesAttribute != null) {
+                builder.addPresentZones((Collection<Zone>) presentZonesAttribute.getKey());
+            }
+            return builder.build();
         }
     }
 
@@ -486,7 +685,7 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        public ArrayList<V> fromASTNode(CommonTree treeNode) throws ReadingException {
+        public ArrayList<V> fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
             if (treeNode.token != null && treeNode.token.getType() == headTokenType) {
                 checkNode(treeNode);
                 if (treeNode.getChildCount() < 1) {
@@ -495,14 +694,14 @@ public final class SpiderDiagramsReader {
                 ArrayList<V> objs = new ArrayList<V>(treeNode.getChildCount());
                 int i = 0;
                 for (Object obj : treeNode.getChildren()) {
-                    objs.add(fromASTChildAt(i++, (CommonTree) obj));
+                    objs.add(fromASTChildAt(i++, (CommonTree) obj, interns));
                 }
                 return objs;
             }
-            throw new ReadingException(i18n("ERR_TRANSLATE_UNEXPECTED_ELEMENT", i18n(i18n("ERR_TRANSLATE_LIST_OR_SLIST"))), treeNode);
+            throw new ReadingException(i18n("ERR_TRANSLATE_UNEXPECTED_ELEMENT", i18n("ERR_TRANSLATE_LIST_OR_SLIST")), treeNode);
         }
 
-        protected abstract V fromASTChildAt(int i, CommonTree treeNode) throws ReadingException;
+        protected abstract V fromASTChildAt(int i, CommonTree treeNode, ReaderInternTable interns) throws ReadingException;
 
         /**
          * Checks whether the node (which should be a list) is okay for
@@ -534,8 +733,8 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        protected V fromASTChildAt(int i, CommonTree treeNode) throws ReadingException {
-            return valueTranslator.fromASTNode(treeNode);
+        protected V fromASTChildAt(int i, CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
+            return valueTranslator.fromASTNode(treeNode, interns);
         }
     }
 
@@ -564,11 +763,11 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        protected V fromASTChildAt(int i, CommonTree treeNode) throws ReadingException {
+        protected V fromASTChildAt(int i, CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
             if (i >= valueTranslators.size()) {
                 throw new ReadingException(i18n("ERR_TRANSLATE_TOO_MANY_ELMNTS"), treeNode);
             }
-            return valueTranslators.get(i).fromASTNode(treeNode);
+            return valueTranslators.get(i).fromASTNode(treeNode, interns);
         }
 
         @Override
@@ -607,7 +806,7 @@ public final class SpiderDiagramsReader {
         }
 
         @Override
-        public Map<String, Entry<V, CommonTree>> fromASTNode(CommonTree treeNode) throws ReadingException {
+        public Map<String, Entry<V, CommonTree>> fromASTNode(CommonTree treeNode, ReaderInternTable interns) throws ReadingException {
             if (treeNode.token != null && treeNode.token.getType() == headTokenType) {
                 if (treeNode.getChildCount() < 1) {
                     return null;
@@ -616,7 +815,7 @@ public final class SpiderDiagramsReader {
                 for (Object obj : treeNode.getChildren()) {
                     CommonTree node = (CommonTree) obj;
                     if (node.token != null && node.token.getType() == SpiderDiagramsParser.PAIR && node.getChildCount() == 2) {
-                        String key = IDTranslator.Instance.fromASTNode((CommonTree) node.getChild(0));
+                        String key = IDTranslator.Instance.fromASTNode((CommonTree) node.getChild(0), interns);
                         ElementTranslator<? extends V> translator = null;
                         if (typedValueTranslators != null) {
                             translator = typedValueTranslators.get(key);
@@ -628,7 +827,7 @@ public final class SpiderDiagramsReader {
                                 throw new ReadingException(i18n("ERR_TRANSLATE_UNEXPECTED_KEY_VALUE", key, typedValueTranslators == null ? "" : typedValueTranslators.keySet()), (CommonTree) node.getChild(0));
                             }
                         }
-                        V value = translator.fromASTNode((CommonTree) node.getChild(1));
+                        V value = translator.fromASTNode((CommonTree) node.getChild(1), interns);
                         kVals.put(key, new SimpleEntry<V, CommonTree>(value, node));
                     } else {
                         throw new ReadingException(i18n("ERR_TRANSLATE_UNEXPECTED_ELEMENT", i18n("TRANSLATE_KEY_VALUE_PAIR")), node);
@@ -636,7 +835,7 @@ public final class SpiderDiagramsReader {
                 }
                 return kVals;
             }
-            throw new ReadingException(i18n("ERR_TRANSLATE_UNEXPECTED_ELEMENT", i18n(i18n("ERR_TRANSLATE_LIST_OR_SLIST"))), treeNode);
+            throw new ReadingException(i18n("ERR_TRANSLATE_UNEXPECTED_ELEMENT", i18n("ERR_TRANSLATE_LIST_OR_SLIST")), treeNode);
         }
     }
     // </editor-fold>
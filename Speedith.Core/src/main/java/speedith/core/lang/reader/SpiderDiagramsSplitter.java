@@ -0,0 +1,251 @@
+package speedith.core.lang.reader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits the textual input with several spider diagrams into the texts of
+ * individual diagrams (records), without parsing them.
+ * <p>A record starts with the first character that is neither whitespace nor
+ * a part of a comment. If it starts with a name (e.g.: {@code PrimarySD}), it
+ * continues with the braces that follow it (if any). The record ends once all
+ * its braces, brackets and parentheses are closed. Strings and comments are
+ * skipped while counting them.</p>
+ * <p>Only the text of the current record is buffered.</p>
+ */
+final class SpiderDiagramsSplitter {
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int column;
+    private char[] record = new char[256];
+    private int recordLength;
+    private int recordLine;
+    private int recordColumn;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    SpiderDiagramsSplitter(Reader reader) {
+        this.reader = reader;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Records">
+    /**
+     * Reads the next record.
+     *
+     * @return {@code false} if there are no more records.
+     */
+    boolean next() throws IOException {
+        recordLength = 0;
+        skipSpaceAndComments(false);
+        int c = peek();
+        if (c < 0) {
+            return false;
+        }
+        recordLine = line;
+        recordColumn = column;
+        if (Character.isJavaIdentifierStart(c)) {
+            while (c >= 0 && Character.isJavaIdentifierPart(c)) {
+                append(read());
+                c = peek();
+            }
+            skipSpaceAndComments(true);
+            if (peek() != '{') {
+                // A diagram without a body (e.g.: 'NullSD').
+                return true;
+            }
+        }
+        int depth = 0;
+        do {
+            c = read();
+            append(c);
+            switch (c) {
+                case '{':
+                case '[':
+                case '(':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                case ')':
+                    depth--;
+                    break;
+                case '"':
+                    copyString();
+                    break;
+                case '/':
+                    copyComment();
+                    break;
+            }
+        } while (depth > 0 && peek() >= 0);
+        return true;
+    }
+
+    /**
+     * Returns the array that contains the text of the current record (from
+     * its start up to {@link SpiderDiagramsSplitter#getRecordLength()}). The
+     * array is reused by the following records.
+     */
+    char[] getRecordChars() {
+        return record;
+    }
+
+    /**
+     * Returns the number of characters of the current record.
+     */
+    int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * Returns the line at which the current record starts (starting with 1).
+     */
+    int getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Returns the line of the next unread character (starting with 1).
+     */
+    int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the position of the first character of the current record in
+     * its line (starting with 0).
+     */
+    int getRecordColumn() {
+        return recordColumn;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Tokens">
+    private void skipSpaceAndComments(boolean keep) throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                read();
+                if (keep) {
+                    append(c);
+                }
+            } else if (c == '/' && (peekSecond() == '/' || peekSecond() == '*')) {
+                read();
+                if (keep) {
+                    append(c);
+                    copyComment();
+                } else {
+                    int length = recordLength;
+                    copyComment();
+                    recordLength = length;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies the rest of a string (after its opening quote) to the record.
+     */
+    private void copyString() throws IOException {
+        int c;
+        while ((c = read()) >= 0) {
+            append(c);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\' && peek() >= 0) {
+                append(read());
+            }
+        }
+    }
+
+    /**
+     * Copies the rest of a comment (after its first slash) to the record. Does
+     * nothing if the slash does not start a comment.
+     */
+    private void copyComment() throws IOException {
+        int c = peek();
+        if (c == '/') {
+            while ((c = read()) >= 0) {
+                append(c);
+                if (c == '\n') {
+                    return;
+                }
+            }
+        } else if (c == '*') {
+            append(read());
+            int previous = 0;
+            while ((c = read()) >= 0) {
+                append(c);
+                if (previous == '*' && c == '/') {
+                    return;
+                }
+                previous = c;
+            }
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Characters">
+    private void append(int c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = (char) c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int peekSecond() throws IOException {
+        if (position + 1 >= limit && !fill()) {
+            return -1;
+        }
+        return position + 1 < limit ? buffer[position + 1] : -1;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            position++;
+            if (c == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Moves the unread characters to the start of the buffer and reads more.
+     *
+     * @return {@code false} if the end of the input was reached.
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit = remaining;
+        int count = reader.read(buffer, limit, buffer.length - limit);
+        if (count > 0) {
+            limit += count;
+            return true;
+        }
+        return false;
+    }
+    // </editor-fold>
+}
@@ -114,7 +114,8 @@ public class AddFeet extends SimpleInferenceRule<SpiderRegionArg> implements Bas
     private RuleApplicationResult apply(final RuleArg args, Goals goals, boolean applyForward) throws RuleApplicationException {
         SpiderRegionArg arg = getTypedRuleArgs(args);
         SpiderDiagram[] newSubgoals = goals.getGoals().toArray(new SpiderDiagram[goals.getGoalsCount()]);
-        newSubgoals[arg.getSubgoalIndex()] = getSubgoal(arg, goals).transform(new AddFeetTransformer(arg, applyForward));
+        SpiderDiagram subgoal = getSubgoal(arg, goals);
+        newSubgoals[arg.getSubgoalIndex()] = subgoal.transform(new AddFeetTransformer(subgoal, arg, applyForward));
         return createRuleApplicationResult(newSubgoals);
     }
     //</editor-fold>
@@ -122,10 +123,13 @@ public class AddFeet extends SimpleInferenceRule<SpiderRegionArg> implements Bas
     //<editor-fold defaultstate="collapsed" desc="Helper Classes">
     private class AddFeetTransformer extends IdTransformer {
 
+        private final SpiderDiagram subgoal;
         private final SpiderRegionArg arg;
         private final boolean applyForward;
 
-        public AddFeetTransformer(SpiderRegionArg arg, boolean applyForward) {
+        public AddFeetTransformer(SpiderDiagram subgoal, SpiderRegionArg arg, boolean applyForward) {
+            super(arg.getSubDiagramIndex());
+            this.subgoal = subgoal;
             this.arg = arg;
             this.applyForward = applyForward;
         }
@@ -148,8 +152,8 @@ public class AddFeet extends SimpleInferenceRule<SpiderRegionArg> implements Bas
                 }
                 // Are we applying this rule in a forward way or backward way?
                 if (applyForward
-                        ? !isAtPositivePosition(parents, childIndices)
-                        : !isAtNegativePosition(parents, childIndices)) {
+                        ? !isAtPositivePosition(subgoal, diagramIndex)
+                        : !isAtNegativePosition(subgoal, diagramIndex)) {
                     throw new TransformationException(Translations.i18n("GERR_RULE_WRONG_POSITION"));
                 }
                 // Now make sure that the spider actually exists in the diagram:
@@ -93,6 +93,7 @@ public class Combining extends UnaryForwardRule {
         private final SubDiagramIndexArg arg;
 
         public CombiningTransformer(SubDiagramIndexArg arg) {
+            super(arg.getSubDiagramIndex());
             this.arg = arg;
         }
 
@@ -127,11 +128,12 @@ public class Combining extends UnaryForwardRule {
                     // 2.) where each zone contains the number of spiders that equals to the maximum of the same zone in the two originating diagrams:
                     TreeMap<String, Region> spiders = new TreeMap<>(lhs.getHabitats());
                     // TODO: ...
+                    done = true;
                     return csd;
                 }
                 throw new TransformationException("Could not apply the 'combining' rule. This rule may be applied only on a conjunction of two unitary diagrams.");
             }
-            return null;
+            return super.transform(csd, diagramIndex, parents, childIndices);
         }
     }
 }
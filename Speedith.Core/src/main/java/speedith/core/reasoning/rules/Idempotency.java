@@ -119,6 +119,7 @@ public class Idempotency extends SimpleInferenceRule<SubDiagramIndexArg> impleme
         private final SubDiagramIndexArg arg;
 
         public IdempotencyTransformer(SubDiagramIndexArg arg) {
+            super(arg.getSubDiagramIndex());
             this.arg = arg;
         }
 
@@ -130,16 +131,18 @@ public class Idempotency extends SimpleInferenceRule<SubDiagramIndexArg> impleme
                 // Is it an implication or an equivalence?
                 if (Operator.Conjunction.equals(csd.getOperator()) || Operator.Disjunction.equals(csd.getOperator())) {
                     if (csd.getOperand(0).isSEquivalentTo(csd.getOperand(1))) {
+                        done = true;
                         return csd.getOperand(1);
                     }
                 } else if (Operator.Equivalence.equals(csd.getOperator()) || Operator.Implication.equals(csd.getOperator())) {
                     if (csd.getOperand(0).isSEquivalentTo(csd.getOperand(1))) {
+                        done = true;
                         return SpiderDiagrams.createNullSD();
                     }
                 }
                 throw new TransformationException(i18n("RULE_IDEMPOTENCY_NOT_APPLICABLE"));
             }
-            return null;
+            return super.transform(csd, diagramIndex, parents, childIndices);
         }
     }
 }
@@ -116,6 +116,7 @@ public class ImplicationTautology extends SimpleInferenceRule<SubDiagramIndexArg
         private final SubDiagramIndexArg arg;
 
         public IdempotencyTransformer(SubDiagramIndexArg arg) {
+            super(arg.getSubDiagramIndex());
             this.arg = arg;
         }
 
@@ -126,6 +127,7 @@ public class ImplicationTautology extends SimpleInferenceRule<SubDiagramIndexArg
                 // The compound diagram must be an implication:
                 if (Operator.Implication.equals(csd.getOperator())) {
                     if (csd.getOperand(0).isSEquivalentTo(csd.getOperand(1))) {
+                        done = true;
                         return SpiderDiagrams.createNullSD();
                     } else {
                         throw new TransformationException(i18n("RULE_IMPLICATION_TAUTOLOGY_NOT_APPLICABLE_SEM"));
@@ -134,7 +136,7 @@ public class ImplicationTautology extends SimpleInferenceRule<SubDiagramIndexArg
                     throw new TransformationException(i18n("RULE_IMPLICATION_TAUTOLOGY_NOT_APPLICABLE"));
                 }
             }
-            return null;
+            return super.transform(csd, diagramIndex, parents, childIndices);
         }
     }
 }
@@ -278,6 +278,26 @@ public abstract class SimpleInferenceRule<TArgs extends RuleArg> implements Infe
         return getPositionType(parents, childIndices, sourceParent, parents == null ? 0 : parents.size()) == NegativePosition;
     }
 
+    /**
+     * Indicates whether the sub-diagram at the given index appears positively
+     * within the whole diagram (see {@link
+     * SimpleInferenceRule#getPositionType(speedith.core.lang.SpiderDiagram,
+     * int)}).
+     */
+    public static boolean isAtPositivePosition(SpiderDiagram diagram, int subDiagramIndex) {
+        return getPositionType(diagram, subDiagramIndex) == PositivePosition;
+    }
+
+    /**
+     * Indicates whether the sub-diagram at the given index appears negatively
+     * within the whole diagram (see {@link
+     * SimpleInferenceRule#getPositionType(speedith.core.lang.SpiderDiagram,
+     * int)}).
+     */
+    public static boolean isAtNegativePosition(SpiderDiagram diagram, int subDiagramIndex) {
+        return getPositionType(diagram, subDiagramIndex) == NegativePosition;
+    }
+
     /**
      * Indicates whether the current subdiagram appears at the right position to
      * be a target of an inference rule application.
@@ -297,7 +317,21 @@ public abstract class SimpleInferenceRule<TArgs extends RuleArg> implements Infe
      * the right position to be a target of an inference rule application.
      */
     public static boolean isAtFittingPosition(ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, int sourceParent, ApplyStyle applyStyle, boolean isForwardRule) {
-        int positionType = getPositionType(parents, childIndices, sourceParent);
+        return isFittingPositionType(getPositionType(parents, childIndices, sourceParent), applyStyle, isForwardRule);
+    }
+
+    /**
+     * Indicates whether the sub-diagram at the given index appears at the
+     * right position to be a target of an inference rule application.
+     *
+     * @return a flag that indicates whether the sub-diagram appears at the
+     * right position to be a target of an inference rule application.
+     */
+    public static boolean isAtFittingPosition(SpiderDiagram diagram, int subDiagramIndex, ApplyStyle applyStyle, boolean isForwardRule) {
+        return isFittingPositionType(getPositionType(diagram, subDiagramIndex), applyStyle, isForwardRule);
+    }
+
+    private static boolean isFittingPositionType(int positionType, ApplyStyle applyStyle, boolean isForwardRule) {
         if (isForwardRule) {
             if (applyStyle == ApplyStyle.Forward) {
                 return positionType == PositivePosition;
@@ -362,6 +396,35 @@ public abstract class SimpleInferenceRule<TArgs extends RuleArg> implements Infe
     public static int getPositionType(ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
         return getPositionType(parents, childIndices, -1, parents == null ? 0 : parents.size());
     }
+    /**
+     * Returns the position type of the sub-diagram at the given index relative
+     * to the whole diagram. <p>This method reads the {@link
+     * SpiderDiagram#getPolarityOf(int) polarity} of the sub-diagram, which the
+     * diagram computes once for all its sub-diagrams. It returns the same
+     * value as {@link SimpleInferenceRule#getPositionType(java.util.ArrayList,
+     * java.util.ArrayList)} with the parents of the sub-diagram.</p>
+     *
+     * @param diagram the whole diagram.
+     * @param subDiagramIndex the index of the sub-diagram.
+     * @return one of {@link SimpleInferenceRule#PositivePosition}, {@link
+     * SimpleInferenceRule#NegativePosition} and {@link
+     * SimpleInferenceRule#EquivalencePosition}.
+     * @throws IndexOutOfBoundsException if there is no sub-diagram at the
+     * given index.
+     */
+    public static int getPositionType(SpiderDiagram diagram, int subDiagramIndex) {
+        if (diagram == null) {
+            throw new IllegalArgumentException(i18n("GERR_NULL_ARGUMENT", "diagram"));
+        }
+        switch (diagram.getPolarityOf(subDiagramIndex)) {
+            case Positive:
+                return PositivePosition;
+            case Negative:
+                return NegativePosition;
+            default:
+                return EquivalencePosition;
+        }
+    }
     public static final int PositivePosition = 0x1;
     public static final int NegativePosition = 0x2;
     public static final int EquivalencePosition = PositivePosition & NegativePosition;
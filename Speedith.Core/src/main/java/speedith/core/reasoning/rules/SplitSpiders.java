@@ -111,6 +111,7 @@ public class SplitSpiders extends SimpleInferenceRule<SpiderRegionArg> implement
         private final SpiderRegionArg arg;
 
         public SplitSpiderTransformer(SpiderRegionArg arg) {
+            super(arg.getSubDiagramIndex());
             this.arg = arg;
         }
 
@@ -87,6 +87,7 @@ public abstract class UnaryForwardRule
         private final ApplyStyle applyStyle;
 
         public UnaryForwardTransformer(SubDiagramIndexArg arg, ApplyStyle applyStyle) {
+            super(arg.getSubDiagramIndex());
             this.arg = arg;
             this.applyStyle = applyStyle;
         }
@@ -97,12 +98,13 @@ public abstract class UnaryForwardRule
             if (diagramIndex == arg.getSubDiagramIndex()) {
                 // The diagram must appear at a fitting position (depending on the application style):
                 if (SimpleInferenceRule.isAtFittingPosition(parents, childIndices, applyStyle, true)) {
+                    done = true;
                     return apply(csd);
                 } else {
                     throw new TransformationException(i18n("RULE_NOT_POSITIVE_POSITION"));
                 }
             }
-            return null;
+            return super.transform(csd, diagramIndex, parents, childIndices);
         }
 
         @Override
@@ -111,6 +113,7 @@ public abstract class UnaryForwardRule
             if (diagramIndex == arg.getSubDiagramIndex()) {
                 // The diagram must appear as a positive term:
                 if (SimpleInferenceRule.isAtFittingPosition(parents, childIndices, applyStyle, true)) {
+                    done = true;
                     return apply(nsd);
                 } else {
                     throw new TransformationException(i18n("RULE_NOT_POSITIVE_POSITION"));
@@ -125,6 +128,7 @@ public abstract class UnaryForwardRule
             if (diagramIndex == arg.getSubDiagramIndex()) {
                 // The diagram must appear as a positive term:
                 if (SimpleInferenceRule.isAtFittingPosition(parents, childIndices, applyStyle, true)) {
+                    done = true;
                     return apply(psd);
                 } else {
                     throw new TransformationException(i18n("RULE_NOT_POSITIVE_POSITION"));
@@ -15,6 +15,7 @@ public class CopyContoursTransformer extends IdTransformer {
     private final List<ContourArg> targetContours;
 
     public CopyContoursTransformer(int indexOfParent, List<ContourArg> targetContours) {
+        super(indexOfParent);
         if (indexOfParent < 0) {
             throw new TransformationException("The target sub-diagram is not in a conjunction.");
         }
@@ -36,9 +37,10 @@ public class CopyContoursTransformer extends IdTransformer {
 
             assertDiagramContainsTargetContours(diagramWithContour);
 
+            done = true;
             return copyContours(diagramWithContour, diagramWithoutContour);
         }
-        return null;
+        return super.transform(currentDiagram, diagramIndex, parents, childIndices);
     }
 
     @Override
@@ -1,28 +1,37 @@
 package speedith.core.lang
 
-import scala.collection.JavaConversions.{setAsJavaSet, asJavaCollection, iterableAsScalaIterable, asScalaSet}
-import propity.util.Sets
-import java.util.Collections
+import scala.collection.JavaConversions.{asJavaCollection, asScalaIterator}
 import java.lang.StringBuilder
 
-case class Region(zones: Set[Zone]) extends Comparable[Region] {
+/**
+ * A set of zones.
+ * <p>The zones are stored in a sorted array (see [[speedith.core.lang.SortedZones]]),
+ * so set operations are linear merges. The Scala set view `zones` (which reads
+ * through to the array) and the Java sorted set view `sortedZones` are created
+ * only on first use.</p>
+ * <p>`Region(zones)` and `case Region(zones)` work as they did for the former
+ * case class (see the companion object).</p>
+ */
+class Region private(private val zoneArray: SortedZones) extends Comparable[Region] {
 
-  val sortedZones: java.util.SortedSet[Zone] = {
-    Collections.unmodifiableSortedSet(
-      new java.util.TreeSet[Zone](setAsJavaSet(zones))
-    )
+  lazy val zones: Set[Zone] = new Region.ZoneSetView(zoneArray)
+
+  lazy val sortedZones: java.util.SortedSet[Zone] = zoneArray.toSortedSet
+
+  def this(zones: Set[Zone]) = {
+    this(SortedZones.of(if (zones == null) null else asJavaCollection(zones)))
   }
 
   def this(zones: java.util.Set[Zone]) = {
-    this(if (zones == null) Set.empty[Zone] else asScalaSet(zones).toSet)
+    this(SortedZones.of(zones))
   }
 
   def this(zones: java.util.Collection[Zone]) = {
-    this(if (zones == null) Set.empty[Zone] else iterableAsScalaIterable(zones).toSet)
+    this(SortedZones.of(zones))
   }
 
   def this() = {
-    this(Set.empty)
+    this(SortedZones.Empty)
   }
 
   def this(zone1: Zone) = {
@@ -46,31 +55,42 @@ case class Region(zones: Set[Zone]) extends Comparable[Region] {
   }
 
   def isSubregionOf(otherRegion: Region): Boolean = {
-    zones.subsetOf(otherRegion.zones)
+    zoneArray.isSubsetOf(otherRegion.zoneArray)
   }
 
   def contains(zone: Zone): Boolean = {
-    zones.contains(zone)
+    zoneArray.contains(zone)
   }
 
   def getZonesCount: Int = {
-    zones.size
+    zoneArray.size
   }
 
   def union(otherRegion: Region): Region = {
-    Region(zones.union(otherRegion.zones))
+    val result = zoneArray.union(otherRegion.zoneArray)
+    if (result eq zoneArray) this else if (result eq otherRegion.zoneArray) otherRegion else new Region(result)
   }
 
   def subtract(otherRegion: Region): Region = {
-    Region(zones -- otherRegion.zones)
+    val result = zoneArray.subtract(otherRegion.zoneArray)
+    if (result eq zoneArray) this else new Region(result)
   }
 
   def compareTo(otherRegion: Region): Int = {
-    Sets.compareNaturally(sortedZones, otherRegion.sortedZones)
+    zoneArray.compareTo(otherRegion.zoneArray)
+  }
+
+  override def equals(other: Any): Boolean = other match {
+    case otherRegion: Region => zoneArray == otherRegion.zoneArray
+    case _ => false
+  }
+
+  override def hashCode: Int = {
+    zoneArray.hashCode
   }
 
   def toString(stringBuilder: Appendable): Appendable = {
-    SpiderDiagram.printZoneList(stringBuilder, sortedZones)
+    SpiderDiagram.printZoneList(stringBuilder, zoneArray)
     stringBuilder
   }
 
@@ -78,3 +98,32 @@ case class Region(zones: Set[Zone]) extends Comparable[Region] {
     toString(new StringBuilder()).toString
   }
 }
+
+object Region {
+
+  def apply(zones: Set[Zone]): Region = new Region(zones)
+
+  def unapply(region: Region): Option[Set[Zone]] = {
+    if (region == null) None else Some(region.zones)
+  }
+
+  /**
+   * An immutable Scala set that reads through to the sorted array of a region.
+   */
+  private class ZoneSetView(zoneArray: SortedZones) extends Set[Zone] {
+
+    def contains(zone: Zone): Boolean = zoneArray.contains(zone)
+
+    def iterator: Iterator[Zone] = asScalaIterator(zoneArray.iterator)
+
+    def +(zone: Zone): Set[Zone] = {
+      if (contains(zone)) this else Set.empty[Zone] ++ this + zone
+    }
+
+    def -(zone: Zone): Set[Zone] = {
+      if (contains(zone)) Set.empty[Zone] ++ this - zone else this
+    }
+
+    override def size: Int = zoneArray.size
+  }
+}
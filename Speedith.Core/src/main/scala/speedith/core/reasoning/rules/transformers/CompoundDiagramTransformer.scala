@@ -2,7 +2,7 @@ package speedith.core.reasoning.rules.transformers
 
 import speedith.core.lang._
 
-abstract class CompoundDiagramTransformer(compoundDiagramIndex: Int) extends IdTransformer {
+abstract class CompoundDiagramTransformer(compoundDiagramIndex: Int) extends IdTransformer(compoundDiagramIndex) {
 
   if (compoundDiagramIndex < 0) {
     throw new TransformationException("The target sub-diagram is not in a conjunction.")
@@ -12,9 +12,11 @@ abstract class CompoundDiagramTransformer(compoundDiagramIndex: Int) extends IdT
 
   override def transform(csd: CompoundSpiderDiagram, diagramIndex: Int, parents: java.util.ArrayList[CompoundSpiderDiagram], childIndices: java.util.ArrayList[java.lang.Integer]): SpiderDiagram = {
     if (diagramIndex == compoundDiagramIndex) {
-      transform(csd, parents, childIndices)
+      val transformedDiagram = transform(csd, parents, childIndices)
+      done = true
+      transformedDiagram
     } else {
-      null
+      super.transform(csd, diagramIndex, parents, childIndices)
     }
   }
 
@@ -3,10 +3,11 @@ package speedith.core.reasoning.rules.transformers
 import speedith.core.lang._
 import scala.collection.mutable
 
-class DoubleNegationEliminationTransformer(targetSubDiagramIndex: Int) extends SimpleTransformer {
+class DoubleNegationEliminationTransformer(targetSubDiagramIndex: Int) extends SimpleTransformer(targetSubDiagramIndex) {
 
   protected def transform(spiderDiagram: SpiderDiagram, currentDiagramIndex: Int, parents: mutable.Buffer[CompoundSpiderDiagram], childIndices: mutable.Buffer[Int]): SpiderDiagram = {
     if (currentDiagramIndex == targetSubDiagramIndex) {
+      _isDone = true
       spiderDiagram match {
         case csd: CompoundSpiderDiagram => {
           extractDoublyNegatedDiagram(csd)
@@ -4,7 +4,7 @@ import speedith.core.reasoning.args.ContourArg
 import speedith.core.lang._
 import scala.collection.JavaConversions._
 
-case class RemoveContoursTransformer(contourArgs: java.util.List[ContourArg]) extends IdTransformer {
+case class RemoveContoursTransformer(contourArgs: java.util.List[ContourArg]) extends IdTransformer(RemoveContoursTransformer.targetIndexOf(contourArgs)) {
 
   val subDiagramIndex = contourArgs(0).getSubDiagramIndex
   val contoursToRemove = contourArgs.map(_.getContour).toSet
@@ -31,6 +31,7 @@ case class RemoveContoursTransformer(contourArgs: java.util.List[ContourArg]) ex
                          childIndices: java.util.ArrayList[java.lang.Integer]): SpiderDiagram = {
     if (subDiagramIndex == diagramIndex) {
       try {
+        done = true
         SpiderDiagrams.createPrimarySD(
           psd.getSpiders,
           psd.getHabitats.map {
@@ -51,3 +52,12 @@ case class RemoveContoursTransformer(contourArgs: java.util.List[ContourArg]) ex
     }
   }
 }
+
+object RemoveContoursTransformer {
+  private def targetIndexOf(contourArgs: java.util.List[ContourArg]): Int = {
+    if (contourArgs == null || contourArgs.isEmpty) {
+      throw new TransformationException("At least one contour must be given to remove.")
+    }
+    contourArgs.get(0).getSubDiagramIndex
+  }
+}
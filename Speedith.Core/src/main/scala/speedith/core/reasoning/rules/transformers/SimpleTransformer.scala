@@ -4,10 +4,22 @@ import speedith.core.lang._
 import scala.collection.JavaConversions
 import scala.collection.mutable
 
-abstract class SimpleTransformer extends Transformer {
+/**
+ * A transformer that handles all kinds of sub-diagrams with the same method.
+ * Transformers that change only one sub-diagram should pass its index to the
+ * constructor. Compound sub-diagrams that do not contain the target are then
+ * returned unchanged, so the traversal skips them.
+ *
+ * @param targetSubDiagramIndex the index of the only sub-diagram this
+ *                              transformer changes (or a negative number if it
+ *                              may change any sub-diagram).
+ */
+abstract class SimpleTransformer(targetSubDiagramIndex: Int) extends Transformer {
 
   protected var _isDone: Boolean = false
 
+  def this() = this(-1)
+
   protected def transform(spiderDiagram: SpiderDiagram, currentDiagramIndex: Int, parents: mutable.Buffer[CompoundSpiderDiagram], childIndices: mutable.Buffer[Int]): SpiderDiagram
 
   override def transform(sd: PrimarySpiderDiagram, diagramIndex: Int, parents: java.util.ArrayList[CompoundSpiderDiagram], childIndices: java.util.ArrayList[java.lang.Integer]): SpiderDiagram = {
@@ -20,11 +32,25 @@ abstract class SimpleTransformer extends Transformer {
 
 
   override def transform(sd: CompoundSpiderDiagram, diagramIndex: Int, parents: java.util.ArrayList[CompoundSpiderDiagram], childIndices: java.util.ArrayList[java.lang.Integer]): SpiderDiagram = {
-    transform(sd, diagramIndex, JavaConversions.asScalaBuffer(parents), JavaConversions.asScalaBuffer(childIndices).asInstanceOf[mutable.Buffer[Int]])
+    if (containsTarget(sd, diagramIndex)) {
+      transform(sd, diagramIndex, JavaConversions.asScalaBuffer(parents), JavaConversions.asScalaBuffer(childIndices).asInstanceOf[mutable.Buffer[Int]])
+    } else {
+      sd
+    }
   }
 
 
   override def isDone: Boolean = {
     _isDone
   }
+
+  /**
+   * Indicates whether the given sub-diagram is the target of this transformer
+   * or contains it. This is always the case if the transformer has no single
+   * target.
+   */
+  protected def containsTarget(sd: SpiderDiagram, diagramIndex: Int): Boolean = {
+    targetSubDiagramIndex < 0 ||
+      (targetSubDiagramIndex >= diagramIndex && targetSubDiagramIndex < diagramIndex + sd.getSubDiagramCount)
+  }
 }
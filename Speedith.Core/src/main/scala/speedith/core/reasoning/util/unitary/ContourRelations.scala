@@ -1,10 +1,12 @@
 package speedith.core.reasoning.util.unitary
 
-import speedith.core.lang.{Zone, Zones, PrimarySpiderDiagram}
+import speedith.core.lang.{VennZones, Zone, Zones, PrimarySpiderDiagram}
 import scala.collection.JavaConversions._
 
 class ContourRelations(diagram: PrimarySpiderDiagram) {
 
+  private lazy val allPossibleZones = new VennZones(diagram.getAllContours)
+
   def areContoursDisjoint(contourA: String, contourB: String): Boolean = {
     assertContoursPresentInDiagram(contourA, contourB)
     allSharedContoursAreShaded(contourA, contourB) && noSharedContoursHaveSpiders(contourA, contourB)
@@ -21,8 +23,10 @@ class ContourRelations(diagram: PrimarySpiderDiagram) {
     val numberOfShadedZonesOutsideContainer = diagram.getShadedZones.count(shadedZone =>
       isZoneInAButNotB(shadedZone, contourA, contourB)
     )
-    val numberOfAllPossibleShadedZonesOutsideContainer = 1 << (diagram.getAllContours.size() - 2)
-    numberOfShadedZonesOutsideContainer == numberOfAllPossibleShadedZonesOutsideContainer
+    val numberOfAllPossibleShadedZonesOutsideContainer =
+      if (contourA == contourB) zonesCountForIdenticalContours
+      else allPossibleZones.countZones(java.util.Collections.singleton(contourA), java.util.Collections.singleton(contourB))
+    java.math.BigInteger.valueOf(numberOfShadedZonesOutsideContainer) == numberOfAllPossibleShadedZonesOutsideContainer
   }
 
   private def spiderExistsInAButOutsideB(contourA: String, contourB: String): Boolean = {
@@ -49,12 +53,18 @@ class ContourRelations(diagram: PrimarySpiderDiagram) {
 
   private def allSharedContoursAreShaded(contourA: String, contourB: String): Boolean = {
     val sharedShadedZones = Zones.getZonesInsideAllContours(diagram.getShadedZones, contourA, contourB)
-    sharedShadedZones.size() == numberOfAllSharedZones(2)
+    val numberOfAllSharedZones =
+      if (contourA == contourB) zonesCountForIdenticalContours
+      else allPossibleZones.countZones(java.util.Arrays.asList(contourA, contourB), null)
+    java.math.BigInteger.valueOf(sharedShadedZones.size()) == numberOfAllSharedZones
   }
 
-  private def numberOfAllSharedZones(numberOfTargetContours: Int): Int = {
-    val numberOfAllContours = diagram.getAllContours.size()
-    val numberOfRemainingContours = numberOfAllContours - numberOfTargetContours
-    1 << numberOfRemainingContours
+  /**
+   * The count that the former implementation used for any two contours. For
+   * a contour compared with itself it is kept as it was, so that such
+   * queries return the same answers as before.
+   */
+  private def zonesCountForIdenticalContours: java.math.BigInteger = {
+    java.math.BigInteger.valueOf(1 << (diagram.getAllContours.size() - 2))
   }
 }
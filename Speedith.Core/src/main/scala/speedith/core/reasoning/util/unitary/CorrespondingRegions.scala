@@ -1,13 +1,12 @@
 package speedith.core.reasoning.util.unitary
 
-import speedith.core.lang.{Zone, Region, PrimarySpiderDiagram}
+import speedith.core.lang.{VennZones, Zone, Region, PrimarySpiderDiagram}
 import scala.collection.JavaConversions._
-import speedith.core.lang.Zones.allZonesForContours
 import scala.collection.mutable
 
 case class CorrespondingRegions(sourceDiagram: PrimarySpiderDiagram, destinationDiagram: PrimarySpiderDiagram) {
 
-  val allPossibleZonesInDestination = allZonesForContours(destinationDiagram.getAllContours.toIterable.toSeq: _*)
+  val allPossibleZonesInDestination = new VennZones(destinationDiagram.getAllContours)
 
   def areRegionsCorresponding(regionInSourceDiagram: Region, regionInDestinationDiagram: Region): Boolean = {
     assertContoursOfRegionMatchContoursInDiagram(regionInSourceDiagram, sourceDiagram)
@@ -30,14 +29,9 @@ case class CorrespondingRegions(sourceDiagram: PrimarySpiderDiagram, destination
 
 
   private def getRegionWhenSourceContoursAreSubset(regionInSourceDiagram: Region): mutable.Buffer[Zone] = {
-    allPossibleZonesInDestination.filter {
-      destinationZone =>
-        regionInSourceDiagram.zones.exists {
-          sourceZone =>
-            sourceZone.getInContours.subsetOf(destinationZone.getInContours) &&
-              sourceZone.getOutContours.subsetOf(destinationZone.getOutContours)
-        }
-    }
+    // The destination zones that extend some source zone with the additional
+    // destination contours.
+    zonesAgreeingWithAnyOf(regionInSourceDiagram)
   }
 
 
@@ -52,14 +46,19 @@ case class CorrespondingRegions(sourceDiagram: PrimarySpiderDiagram, destination
   }
 
   private def getRegionWhenDestinationContoursAreSubset(regionInSourceDiagram: Region): mutable.Buffer[Zone] = {
-    allPossibleZonesInDestination.filter {
-      destinationZone =>
-        regionInSourceDiagram.zones.exists {
-          sourceZone =>
-            destinationZone.getInContours.subsetOf(sourceZone.getInContours) &&
-              destinationZone.getOutContours.subsetOf(sourceZone.getOutContours)
-        }
-    }
+    // The destination zones that are projections of some source zone onto the
+    // destination contours.
+    zonesAgreeingWithAnyOf(regionInSourceDiagram)
+  }
+
+  /**
+   * Returns the destination zones that agree with some zone of the given
+   * region on all contours shared by both diagrams.
+   */
+  private def zonesAgreeingWithAnyOf(regionInSourceDiagram: Region): mutable.Buffer[Zone] = {
+    regionInSourceDiagram.zones.flatMap {
+      sourceZone => iterableAsScalaIterable(allPossibleZonesInDestination.zonesWith(sourceZone.getInContours, sourceZone.getOutContours))
+    }.toBuffer
   }
 
   private def assertContoursOfRegionMatchContoursInDiagram(regionInSourceDiagram: Region, diagram: PrimarySpiderDiagram) {
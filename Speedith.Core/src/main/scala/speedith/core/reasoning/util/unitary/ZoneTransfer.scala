@@ -1,8 +1,7 @@
 package speedith.core.reasoning.util.unitary
 
-import speedith.core.lang.{Zones, Region, Zone, PrimarySpiderDiagram}
+import speedith.core.lang.{PrimarySpiderDiagramBuilder, VennZones, Zones, Region, Zone, PrimarySpiderDiagram}
 import scala.collection.JavaConversions._
-import speedith.core.lang.SpiderDiagrams.createPrimarySD
 
 class ZoneTransfer(sourceDiagram: PrimarySpiderDiagram, destinationDiagram: PrimarySpiderDiagram) {
 
@@ -10,7 +9,8 @@ class ZoneTransfer(sourceDiagram: PrimarySpiderDiagram, destinationDiagram: Prim
   private val sourceContourRelations = new ContourRelations(sourceDiagram)
   private val contoursInSourceDiagram: Set[String] = sourceDiagram.getAllContours.toSet
   private val allVisibleZonesInDestinationDiagram: Set[Zone] = (destinationDiagram.getPresentZones ++ destinationDiagram.getHabitats.values().flatMap(_.zones)).toSet
-  private val allPossibleZonesInDestinationDiagram: Set[Zone] = Zones.allZonesForContours(destinationDiagram.getAllContours.toSeq:_*).toSet
+  private val allPossibleZonesInDestinationDiagram = new VennZones(destinationDiagram.getAllContours)
+  private val contoursInBothDiagrams: Set[String] = contoursInSourceDiagram.intersect(destinationDiagram.getAllContours.toSet)
 
   def transferContour(contourFromSource: String): PrimarySpiderDiagram = {
     assertContourOnlyInSource(contourFromSource)
@@ -19,8 +19,9 @@ class ZoneTransfer(sourceDiagram: PrimarySpiderDiagram, destinationDiagram: Prim
     val zonesOut = zonesInDestinationOutsideContour(contourFromSource)
     val splitZones = allVisibleZonesInDestinationDiagram -- (zonesOut ++ zonesIn)
 
-    val spiderHabitats = destinationDiagram.getHabitats.map {
-      case (spider, habitat) => (spider, new Region(
+    val builder = new PrimarySpiderDiagramBuilder()
+    for ((spider, habitat) <- destinationDiagram.getHabitats) {
+      builder.addSpider(spider, new Region(
         (zonesOut ++ splitZones).intersect(habitat.zones).map(addOutContourToZone(_, contourFromSource)) ++
         (zonesIn ++ splitZones).intersect(habitat.zones).map(addInContourToZone(_, contourFromSource))
       ))
@@ -33,28 +34,39 @@ class ZoneTransfer(sourceDiagram: PrimarySpiderDiagram, destinationDiagram: Prim
     val presentZones = (zonesOut.intersect(allVisibleZonesInDestinationDiagram) ++ splitZones).map(zone => addOutContourToZone(zone, contourFromSource)) ++
       (zonesIn.intersect(allVisibleZonesInDestinationDiagram) ++ splitZones).map(zone => addInContourToZone(zone, contourFromSource))
 
-    createPrimarySD(spiderHabitats.keySet, spiderHabitats, shadedZones, presentZones)
+    builder.addShadedZones(shadedZones).addPresentZones(presentZones).build()
   }
 
 
   def zonesInDestinationOutsideContour(sourceContour: String): java.util.Set[Zone] = {
     assertContourOnlyInSource(sourceContour)
 
-    allPossibleZonesInDestinationDiagram.filter(destinationZone =>
-      contoursInSourceDiagram.exists(commonContour =>
-        (destinationZone.getInContours.contains(commonContour) && sourceContourRelations.areContoursDisjoint(sourceContour, commonContour)) ||
-          (destinationZone.getOutContours.contains(commonContour) && sourceContourRelations.contourContainsAnother(commonContour, sourceContour))
-      ))
+    // A destination zone is outside the source contour if it is inside a
+    // contour disjoint from it or outside a contour that contains it.
+    val zones: Set[Zone] = contoursInBothDiagrams.flatMap(commonContour =>
+      (if (sourceContourRelations.areContoursDisjoint(sourceContour, commonContour)) zonesInside(commonContour) else Nil) ++
+        (if (sourceContourRelations.contourContainsAnother(commonContour, sourceContour)) zonesOutside(commonContour) else Nil)
+    )
+    zones
   }
 
   def zonesInDestinationInsideContour(sourceContour: String): java.util.Set[Zone] = {
     assertContourOnlyInSource(sourceContour)
 
-    allPossibleZonesInDestinationDiagram.filter(destinationZone =>
-      contoursInSourceDiagram.exists(contour =>
-        destinationZone.getInContours.contains(contour) && sourceContourRelations.contourContainsAnother(sourceContour, contour)
-      )
+    // A destination zone is inside the source contour if it is inside a
+    // contour contained by it.
+    val zones: Set[Zone] = contoursInBothDiagrams.flatMap(contour =>
+      if (sourceContourRelations.contourContainsAnother(sourceContour, contour)) zonesInside(contour) else Nil
     )
+    zones
+  }
+
+  private def zonesInside(contour: String): Iterable[Zone] = {
+    allPossibleZonesInDestinationDiagram.zonesWith(java.util.Collections.singleton(contour), null)
+  }
+
+  private def zonesOutside(contour: String): Iterable[Zone] = {
+    allPossibleZonesInDestinationDiagram.zonesWith(null, java.util.Collections.singleton(contour))
   }
 
   private def addInContourToZone(zone: Zone, contourFromSource: String): Zone = {
@@ -0,0 +1,77 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class BddRegionTest {
+
+    private final List<String> contoursABC = asList("A", "B", "C");
+    private final Region regionA = new Region(Zones.getZonesInsideAnyContour(Zones.allZonesForContours("A", "B", "C"), "A"));
+    private final Region regionB = new Region(Zones.getZonesInsideAnyContour(Zones.allZonesForContours("A", "B", "C"), "B"));
+
+    @Test
+    public void toRegion_should_return_the_region_it_was_converted_from() {
+        assertEquals(regionA, BddRegion.fromRegion(regionA).toRegion());
+    }
+
+    @Test
+    public void fromRegion_should_return_the_same_region_as_zonesWith() {
+        assertEquals(BddRegion.zonesWith(contoursABC, asList("A"), null), BddRegion.fromRegion(regionA, contoursABC));
+    }
+
+    @Test
+    public void set_operations_should_agree_with_region_operations() {
+        BddRegion bddA = BddRegion.fromRegion(regionA);
+        BddRegion bddB = BddRegion.fromRegion(regionB);
+
+        assertEquals(regionA.union(regionB), bddA.union(bddB).toRegion());
+        assertEquals(regionA.subtract(regionB), bddA.subtract(bddB).toRegion());
+        assertEquals(regionA.subtract(regionA.subtract(regionB)), bddA.intersect(bddB).toRegion());
+        assertTrue(bddA.intersect(bddB).isSubregionOf(bddA));
+        assertFalse(bddA.isSubregionOf(bddB));
+    }
+
+    @Test
+    public void complement_should_contain_exactly_the_zones_outside_the_region() {
+        BddRegion outsideA = BddRegion.fromRegion(regionA).complement();
+
+        assertTrue(outsideA.contains(Zone.fromInContours("B").withOutContours("A", "C")));
+        assertFalse(outsideA.contains(Zone.fromInContours("A").withOutContours("B", "C")));
+        assertEquals(BddRegion.zonesWith(contoursABC, null, asList("A")), outsideA);
+    }
+
+    @Test
+    public void isEmpty_should_return_true_only_for_regions_without_zones() {
+        BddRegion bddA = BddRegion.fromRegion(regionA);
+
+        assertTrue(bddA.subtract(bddA).isEmpty());
+        assertTrue(BddRegion.empty(contoursABC).isEmpty());
+        assertFalse(bddA.isEmpty());
+    }
+
+    @Test
+    public void regions_over_many_contours_should_stay_small() {
+        ArrayList<String> contours = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            contours.add("C" + i);
+        }
+        BddRegion outsideFirst = BddRegion.zonesWith(contours, null, asList("C0"));
+        BddRegion insideLast = BddRegion.zonesWith(contours, asList("C199"), null);
+        BddRegion union = outsideFirst.union(insideLast);
+
+        assertEquals(BigInteger.ONE.shiftLeft(199).add(BigInteger.ONE.shiftLeft(198)), union.getZonesCount());
+        assertTrue(union.getDiagramSize() < 10);
+        assertTrue(outsideFirst.isSubregionOf(union));
+        assertEquals(BddRegion.all(contours), union.union(BddRegion.zonesWith(contours, asList("C0"), null)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void union_should_throw_an_exception_when_the_universes_differ() {
+        BddRegion.all(asList("A", "B")).union(BddRegion.all(contoursABC));
+    }
+}
@@ -0,0 +1,131 @@
+package speedith.core.lang;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A plain timing harness for the benchmarks in the test sources (the build
+ * has no JMH). The benchmarks are classes with a {@code main} method whose
+ * names end in {@code Benchmark}, so the test runner does not pick them up.
+ * Run them from the test class path, for example:
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; speedith.core.lang.ZoneBenchmark
+ * </pre>
+ * <p>Every workload is first run repeatedly for {@link Benchmarks#WarmUpMillis}
+ * milliseconds and then measured in {@link Benchmarks#MeasuredRuns} runs. The
+ * harness prints the best and the median time per operation and, where the
+ * JVM can count them, the bytes allocated per operation.</p>
+ * <p>Benchmarks that only use the public API can also be run against an
+ * older revision of the main sources to get the numbers from before a
+ * change.</p>
+ */
+public final class Benchmarks {
+
+    // <editor-fold defaultstate="collapsed" desc="Constants">
+    /**
+     * For how long every workload is run before it is measured.
+     */
+    public static final long WarmUpMillis = 2000;
+    /**
+     * How many times every workload is run and measured.
+     */
+    public static final int MeasuredRuns = 15;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Fields">
+    /**
+     * Keeps the results of the workloads alive, so that the JIT cannot drop
+     * the work.
+     */
+    private static volatile int sink;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Disabled Constructors">
+    private Benchmarks() {
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Public Methods">
+    /**
+     * A piece of work to measure.
+     */
+    public interface Workload {
+
+        /**
+         * Does the work once.
+         *
+         * @return any value that depends on the work (it is kept alive so
+         *         that the work cannot be optimised away).
+         * @throws Exception any exception aborts the benchmark.
+         */
+        Object run() throws Exception;
+    }
+
+    /**
+     * Warms the workload up, measures it and prints a line with the results.
+     *
+     * @param name       the name of the workload in the printed line.
+     * @param operations how many operations one run of the workload does (the
+     *                   times and allocations are printed per operation).
+     * @param workload   the work to measure.
+     * @throws Exception thrown if the workload throws an exception.
+     */
+    public static void measure(String name, int operations, Workload workload) throws Exception {
+        long warmUpEnd = System.nanoTime() + WarmUpMillis * 1000000L;
+        do {
+            consume(workload.run());
+        } while (System.nanoTime() < warmUpEnd);
+
+        boolean countsAllocations = allocatedBytes() >= 0;
+        long[] times = new long[MeasuredRuns];
+        long allocated = 0;
+        for (int i = 0; i < MeasuredRuns; i++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            consume(workload.run());
+            times[i] = System.nanoTime() - start;
+            allocated += allocatedBytes() - bytesBefore;
+        }
+        Arrays.sort(times);
+
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-40s best %12s  median %12s",
+                name, formatTime(times[0] / (double) operations), formatTime(times[MeasuredRuns / 2] / (double) operations)));
+        if (countsAllocations) {
+            line.append(String.format(Locale.ROOT, "  %,14.1f B/op", allocated / (double) MeasuredRuns / operations));
+        }
+        System.out.println(line);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Methods">
+    private static void consume(Object result) {
+        // Numbers are results of computations, everything else is built by
+        // the workload (and may be expensive to hash).
+        sink += result instanceof Number ? result.hashCode() : System.identityHashCode(result);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, or
+     * a negative number if the JVM does not count them.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private static String formatTime(double nanos) {
+        if (nanos >= 1e6) {
+            return String.format(Locale.ROOT, "%.2f ms/op", nanos / 1e6);
+        } else if (nanos >= 1e3) {
+            return String.format(Locale.ROOT, "%.2f us/op", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.1f ns/op", nanos);
+    }
+    // </editor-fold>
+}
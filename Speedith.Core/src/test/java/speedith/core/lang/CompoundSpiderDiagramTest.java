@@ -28,6 +28,8 @@ package speedith.core.lang;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import static org.junit.Assert.*;
 import org.junit.*;
 import speedith.core.lang.reader.ReadingException;
@@ -514,6 +516,291 @@ public class CompoundSpiderDiagramTest {
         checkSDIterator(SpiderDiagramsReader.readSpiderDiagram(SpiderDiagramsReaderTest.SD_EXAMPLE_17));
     }
 
+    @Test
+    public void sub_diagram_lookups_should_agree_with_the_visitor() throws ReadingException {
+        String[] examples = {SpiderDiagramsReaderTest.SD_EXAMPLE_1, SpiderDiagramsReaderTest.SD_EXAMPLE_2, SpiderDiagramsReaderTest.SD_EXAMPLE_3, SpiderDiagramsReaderTest.SD_EXAMPLE_4, SpiderDiagramsReaderTest.SD_EXAMPLE_6, SpiderDiagramsReaderTest.SD_EXAMPLE_7, SpiderDiagramsReaderTest.SD_EXAMPLE_12, SpiderDiagramsReaderTest.SD_EXAMPLE_16};
+        for (String example : examples) {
+            final SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(example);
+            sd.visit(new DiagramVisitor<Void>() {
+                @Override
+                public void init(SpiderDiagram root) {
+                }
+
+                @Override
+                public void end() {
+                }
+
+                @Override
+                public void visit(SpiderDiagram subDiagram, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
+                    assertSame(subDiagram, sd.getSubDiagramAt(subDiagramIndex));
+                    assertSame(subDiagram, sd.getSubDiagramAt(sd.getSubDiagramIndex(subDiagram)));
+                    if (parents.isEmpty()) {
+                        assertEquals(-1, sd.getParentIndexOf(subDiagramIndex));
+                        assertEquals(-1, sd.getChildPositionOf(subDiagramIndex));
+                    } else {
+                        assertEquals((int) parentIndices.get(parentIndices.size() - 1), sd.getParentIndexOf(subDiagramIndex));
+                        assertEquals((int) childIndices.get(childIndices.size() - 1), sd.getChildPositionOf(subDiagramIndex));
+                    }
+                }
+
+                @Override
+                public boolean isDone() {
+                    return false;
+                }
+
+                @Override
+                public Void getResult() {
+                    return null;
+                }
+            }, true);
+            assertEquals(-2, sd.getParentIndexOf(sd.getSubDiagramCount()));
+        }
+    }
+
+    @Test
+    public void getPolarityOf_should_flip_below_negations_and_left_of_implications() throws ReadingException {
+        SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(SpiderDiagramsReaderTest.SD_EXAMPLE_2);
+        assertEquals(Polarity.Positive, sd.getPolarityOf(0));
+        assertEquals(Polarity.Negative, sd.getPolarityOf(1));
+        assertEquals(Polarity.Positive, sd.getPolarityOf(2));
+        assertEquals(Polarity.Negative, sd.getPolarityOf(3));
+
+        sd = SpiderDiagramsReader.readSpiderDiagram(SpiderDiagramsReaderTest.SD_EXAMPLE_12);
+        assertEquals(Polarity.Positive, sd.getPolarityOf(0));
+        assertEquals(Polarity.Equivalence, sd.getPolarityOf(1));
+        assertEquals(Polarity.Equivalence, sd.getPolarityOf(2));
+    }
+
+    @Test
+    public void context_visit_should_reuse_one_context_that_agrees_with_the_parent_lists() throws ReadingException {
+        SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(SpiderDiagramsReaderTest.SD_EXAMPLE_2);
+        for (int i = 0; i < 10; i++) {
+            sd = SpiderDiagrams.createCompoundSD(Operator.Negation, sd);
+        }
+        final ArrayList<String> expected = sd.visit(new DiagramVisitor<ArrayList<String>>() {
+            private final ArrayList<String> positions = new ArrayList<>();
+
+            @Override
+            public void init(SpiderDiagram root) {
+            }
+
+            @Override
+            public void end() {
+            }
+
+            @Override
+            public void visit(SpiderDiagram subDiagram, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
+                positions.add(subDiagramIndex + ":" + parents + childIndices + parentIndices);
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+
+            @Override
+            public ArrayList<String> getResult() {
+                return positions;
+            }
+        });
+        ArrayList<String> actual = sd.visit(new ContextDiagramVisitor<ArrayList<String>>() {
+            private final ArrayList<String> positions = new ArrayList<>();
+            private TraversalContext firstContext;
+
+            @Override
+            public void init(SpiderDiagram root) {
+            }
+
+            @Override
+            public void end() {
+            }
+
+            @Override
+            public void visit(SpiderDiagram subDiagram, int subDiagramIndex, TraversalContext context) {
+                if (firstContext == null) {
+                    firstContext = context;
+                }
+                assertSame(firstContext, context);
+                ArrayList<Integer> parentIndices = new ArrayList<>();
+                for (int level = 0; level < context.getDepth(); level++) {
+                    parentIndices.add(context.getParentIndex(level));
+                }
+                positions.add(subDiagramIndex + ":" + context.copyParents() + context.copyChildIndices() + parentIndices);
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+
+            @Override
+            public ArrayList<String> getResult() {
+                return positions;
+            }
+        });
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void context_transform_should_give_the_same_result_as_the_list_transform() throws ReadingException {
+        SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(SpiderDiagramsReaderTest.SD_EXAMPLE_3);
+        SpiderDiagram transformedSD = sd.transform(new ContextTransformer() {
+            @Override
+            public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, TraversalContext context) {
+                assertEquals(2, context.getDepth());
+                assertEquals(0, context.getChildIndex(1));
+                assertSame(context.getParent(1), context.getDirectParent());
+                return SpiderDiagrams.createNullSD();
+            }
+
+            @Override
+            public SpiderDiagram transform(NullSpiderDiagram nsd, int diagramIndex, TraversalContext context) {
+                return null;
+            }
+
+            @Override
+            public SpiderDiagram transform(CompoundSpiderDiagram csd, int diagramIndex, TraversalContext context) {
+                return null;
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+        });
+        assertSame(SpiderDiagramsReader.readSpiderDiagram("UnarySD {operator = \"op not\", arg1 = BinarySD {operator = \"op &\", arg1 = NullSD {}, arg2 = NullSD {} }}"), transformedSD);
+    }
+
+    @Test
+    public void transform_and_visit_should_not_be_limited_by_the_call_stack() {
+        final int depth = 100000;
+        SpiderDiagram sd = SpiderDiagrams.createPrimarySD();
+        for (int i = 0; i < depth; i++) {
+            sd = SpiderDiagrams.createCompoundSD(Operator.Conjunction, sd, SpiderDiagrams.createNullSD());
+        }
+
+        SpiderDiagram transformedSD = sd.transform(new ContextTransformer() {
+            @Override
+            public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, TraversalContext context) {
+                assertEquals(depth, context.getDepth());
+                assertEquals(depth, diagramIndex);
+                return SpiderDiagrams.createNullSD();
+            }
+
+            @Override
+            public SpiderDiagram transform(NullSpiderDiagram nsd, int diagramIndex, TraversalContext context) {
+                return null;
+            }
+
+            @Override
+            public SpiderDiagram transform(CompoundSpiderDiagram csd, int diagramIndex, TraversalContext context) {
+                return null;
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+        });
+        assertEquals(sd.getSubDiagramCount(), transformedSD.getSubDiagramCount());
+        assertSame(SpiderDiagrams.createNullSD(), transformedSD.getSubDiagramAt(depth));
+
+        int visited = sd.visit(new ContextDiagramVisitor<Integer>() {
+            private int count;
+
+            @Override
+            public void init(SpiderDiagram root) {
+            }
+
+            @Override
+            public void end() {
+            }
+
+            @Override
+            public void visit(SpiderDiagram subDiagram, int subDiagramIndex, TraversalContext context) {
+                assertEquals(count++, subDiagramIndex);
+                assertTrue(context.getDepth() <= depth);
+            }
+
+            @Override
+            public boolean isDone() {
+                return false;
+            }
+
+            @Override
+            public Integer getResult() {
+                return count;
+            }
+        });
+        assertEquals(sd.getSubDiagramCount(), visited);
+    }
+
+    @Test
+    public void targeted_transform_should_skip_sub_diagrams_without_the_target() {
+        CompoundSpiderDiagram left = SpiderDiagrams.createCompoundSD(Operator.Conjunction, SpiderDiagrams.createNullSD(), SpiderDiagrams.createNullSD());
+        CompoundSpiderDiagram right = SpiderDiagrams.createCompoundSD(Operator.Disjunction, SpiderDiagrams.createPrimarySD(), SpiderDiagrams.createNullSD());
+        CompoundSpiderDiagram sd = SpiderDiagrams.createCompoundSD(Operator.Conjunction, left, right);
+        final ArrayList<Integer> visitedIndices = new ArrayList<>();
+
+        SpiderDiagram transformedSD = sd.transform(new IdTransformer(5) {
+            @Override
+            public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+                visitedIndices.add(diagramIndex);
+                done = true;
+                return SpiderDiagrams.createNullSD();
+            }
+
+            @Override
+            public SpiderDiagram transform(NullSpiderDiagram nsd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+                visitedIndices.add(diagramIndex);
+                return null;
+            }
+
+            @Override
+            public SpiderDiagram transform(CompoundSpiderDiagram csd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+                visitedIndices.add(diagramIndex);
+                return super.transform(csd, diagramIndex, parents, childIndices);
+            }
+        });
+
+        assertEquals(Arrays.asList(0, 1, 4, 5), visitedIndices);
+        assertSame(left, ((CompoundSpiderDiagram) transformedSD).getOperand(0));
+        assertSame(SpiderDiagrams.createCompoundSD(Operator.Disjunction, SpiderDiagrams.createNullSD(), SpiderDiagrams.createNullSD()), ((CompoundSpiderDiagram) transformedSD).getOperand(1));
+        assertSame(sd, sd.transform(new IdTransformer(42)));
+    }
+
+    @Test
+    public void parallel_transform_should_agree_with_the_sequential_transform() {
+        ArrayList<SpiderDiagram> operands = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            operands.add(SpiderDiagrams.createCompoundSD(Operator.Negation, SpiderDiagrams.createPrimarySD(Arrays.asList("s" + i), null, null, null)));
+        }
+        while (operands.size() > 1) {
+            ArrayList<SpiderDiagram> conjunctions = new ArrayList<>();
+            for (int i = 0; i + 1 < operands.size(); i += 2) {
+                conjunctions.add(SpiderDiagrams.createCompoundSD(Operator.Conjunction, operands.get(i), operands.get(i + 1)));
+            }
+            if (operands.size() % 2 == 1) {
+                conjunctions.add(operands.get(operands.size() - 1));
+            }
+            operands = conjunctions;
+        }
+        SpiderDiagram sd = operands.get(0);
+        RecordingTransformer sequential = new RecordingTransformer();
+        RecordingTransformer parallel = new RecordingTransformer();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SpiderDiagram expected = sd.transform(sequential);
+
+            assertSame(expected, sd.transform(parallel, pool, 8));
+            assertNotSame(sd, expected);
+            assertEquals(sequential.positions, parallel.positions);
+            assertEquals(sd.getSubDiagramCount(), parallel.positions.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     //<editor-fold defaultstate="collapsed" desc="Private Helper Methods">
     private void checkVisitSD(CompoundSpiderDiagram sd) {
         for (int i = 0; i < sd.getSubDiagramCount(); i++) {
@@ -606,4 +893,40 @@ public class CompoundSpiderDiagramTest {
         }
     }
     //</editor-fold>
+
+    private static class RecordingTransformer implements ThreadSafeTransformer {
+
+        private final ConcurrentHashMap<Integer, String> positions = new ConcurrentHashMap<>();
+
+        @Override
+        public SpiderDiagram transform(PrimarySpiderDiagram sd, int diagramIndex, TraversalContext context) {
+            record(diagramIndex, context);
+            return diagramIndex % 3 == 0 ? SpiderDiagrams.createNullSD() : null;
+        }
+
+        @Override
+        public SpiderDiagram transform(NullSpiderDiagram sd, int diagramIndex, TraversalContext context) {
+            record(diagramIndex, context);
+            return null;
+        }
+
+        @Override
+        public SpiderDiagram transform(CompoundSpiderDiagram sd, int diagramIndex, TraversalContext context) {
+            record(diagramIndex, context);
+            return null;
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        private void record(int diagramIndex, TraversalContext context) {
+            StringBuilder position = new StringBuilder();
+            for (int level = 0; level < context.getDepth(); level++) {
+                position.append(context.getParentIndex(level)).append(':').append(context.getChildIndex(level)).append(' ');
+            }
+            assertNull(positions.put(diagramIndex, position.toString()));
+        }
+    }
 }
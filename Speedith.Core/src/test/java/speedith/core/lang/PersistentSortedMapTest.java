@@ -0,0 +1,118 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class PersistentSortedMapTest {
+
+    @Test
+    public void plus_and_minus_should_agree_with_a_tree_map() {
+        Random random = new Random(42);
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                map = map.minus(key);
+                expected.remove(key);
+            } else {
+                map = map.plus(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(expected.firstKey(), map.firstKey());
+        assertEquals(expected.lastKey(), map.lastKey());
+        assertEquals(expected.subMap(50, 150), map.subMap(50, 150));
+        assertEquals(expected.headMap(100), map.headMap(100));
+        assertEquals(expected.tailMap(200), map.tailMap(200));
+        assertBalanced(root(map));
+    }
+
+    @Test
+    public void plus_and_minus_should_return_the_same_map_when_nothing_changes() {
+        PersistentSortedMap<String, Integer> map = PersistentSortedMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+
+        assertSame(map, map.plus("a", 1));
+        assertSame(map, map.minus("c"));
+        assertNotSame(map, map.plus("a", 3));
+    }
+
+    @Test
+    public void plus_should_not_change_the_original_map() {
+        PersistentSortedMap<String, Integer> original = PersistentSortedMap.copyOf(Collections.singletonMap("a", 1));
+
+        PersistentSortedMap<String, Integer> changed = original.plus("b", 2).minus("a");
+
+        assertEquals(Collections.singletonMap("a", 1), original);
+        assertEquals(Collections.singletonMap("b", 2), changed);
+    }
+
+    @Test
+    public void sets_should_equal_tree_sets_with_the_same_elements() {
+        PersistentSortedSet<String> set = PersistentSortedSet.copyOf(asList("c", "a", "b", "a"));
+
+        assertEquals(new TreeSet<>(asList("a", "b", "c")), set);
+        assertEquals(new TreeSet<>(asList("a", "b", "c")).hashCode(), set.hashCode());
+        assertEquals(asList("a", "b", "c"), new ArrayList<>(set));
+        assertEquals(new TreeSet<>(asList("b", "c")), set.tailSet("b"));
+        assertSame(set, set.plusAll(asList("a", "c")));
+        assertEquals(new TreeSet<>(asList("b")), set.minusAll(asList("a", "c", "d")));
+    }
+
+    @Test
+    public void derived_maps_should_share_most_of_their_nodes() {
+        ArrayList<PersistentSortedMap<Integer, Integer>> versions = new ArrayList<>();
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.empty();
+        for (int i = 0; i < 500; i++) {
+            map = map.plus(i, i);
+            versions.add(map);
+        }
+
+        Set<Object> nodes = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (PersistentSortedMap<Integer, Integer> version : versions) {
+            collectNodes(root(version), nodes);
+        }
+        // Copying every version would take 125,250 nodes. Path copying takes
+        // at most a few dozen nodes per version.
+        assertTrue(nodes.size() < 500 * 30);
+    }
+
+    /**
+     * Returns the root node of the map: the entries of the map are its nodes
+     * and only the root spans all of them.
+     */
+    private static PersistentSortedMap.Node<?, ?> root(PersistentSortedMap<?, ?> map) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            PersistentSortedMap.Node<?, ?> node = (PersistentSortedMap.Node<?, ?>) entry;
+            if (node.size == map.size()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static void collectNodes(PersistentSortedMap.Node<?, ?> node, Set<Object> nodes) {
+        if (node != null && nodes.add(node)) {
+            collectNodes(node.left, nodes);
+            collectNodes(node.right, nodes);
+        }
+    }
+
+    private static void assertBalanced(PersistentSortedMap.Node<?, ?> node) {
+        if (node != null) {
+            int left = node.left == null ? 1 : node.left.size + 1;
+            int right = node.right == null ? 1 : node.right.size + 1;
+            assertTrue(left <= 3 * right && right <= 3 * left);
+            assertBalanced(node.left);
+            assertBalanced(node.right);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class PrimarySpiderDiagramBuilderTest {
+
+    private final ArrayList<Zone> zonesAB = Zones.allZonesForContours("A", "B");
+    private final Region regionA = new Region(Zones.getZonesInsideAnyContour(zonesAB, "A"));
+    private final Region regionB = new Region(Zones.getZonesInsideAnyContour(zonesAB, "B"));
+
+    @Test
+    public void build_should_return_the_same_diagram_as_the_factory_method() {
+        PrimarySpiderDiagram diagram = new PrimarySpiderDiagramBuilder()
+                .addSpider("s1", regionA)
+                .addSpider("s2", regionB)
+                .addShadedZones(Zones.getZonesInsideAllContours(zonesAB, "A", "B"))
+                .addPresentZones(zonesAB)
+                .build();
+
+        PrimarySpiderDiagram expected = SpiderDiagrams.createPrimarySD(
+                asList("s1", "s2"),
+                new java.util.TreeMap<String, Region>() {{
+                    put("s1", regionA);
+                    put("s2", regionB);
+                }},
+                Zones.getZonesInsideAllContours(zonesAB, "A", "B"),
+                zonesAB);
+        assertSame(expected, diagram);
+    }
+
+    @Test
+    public void build_should_not_change_the_original_diagram() {
+        PrimarySpiderDiagram original = new PrimarySpiderDiagramBuilder().addSpider("s1", regionA).addShadedZones(asList(zonesAB.get(0))).build();
+        String originalText = original.toString();
+
+        PrimarySpiderDiagram changed = new PrimarySpiderDiagramBuilder(original)
+                .addSpider("s2", regionB)
+                .removeShadedZones(asList(zonesAB.get(0)))
+                .build();
+
+        assertEquals(originalText, original.toString());
+        assertEquals(2, changed.getSpidersCount());
+        assertEquals(0, changed.getShadedZonesCount());
+    }
+
+    @Test
+    public void build_should_share_unchanged_collections_with_the_original_diagram() {
+        PrimarySpiderDiagram original = new PrimarySpiderDiagramBuilder().addSpider("s1", regionA).addShadedZones(zonesAB).build();
+
+        PrimarySpiderDiagram changed = new PrimarySpiderDiagramBuilder(original).addSpider("s2", regionB).build();
+
+        assertSame(original.getShadedZoneSet(), changed.getShadedZoneSet());
+        assertNotSame(original.getSpiderSet(), changed.getSpiderSet());
+    }
+
+    @Test
+    public void build_should_return_the_original_diagram_when_nothing_changed() {
+        PrimarySpiderDiagram original = new PrimarySpiderDiagramBuilder().addSpider("s1", regionA).build();
+
+        assertSame(original, new PrimarySpiderDiagramBuilder(original).addSpider("s1", regionA).addShadedZones(new ArrayList<Zone>()).build());
+    }
+
+    @Test
+    public void builder_should_be_reusable_after_build() {
+        PrimarySpiderDiagramBuilder builder = new PrimarySpiderDiagramBuilder().addSpider("s1", regionA);
+        PrimarySpiderDiagram first = builder.build();
+        PrimarySpiderDiagram second = builder.removeSpider("s1").build();
+
+        assertEquals(1, first.getSpidersCount());
+        assertEquals(0, second.getSpidersCount());
+        assertEquals(0, second.getHabitatsCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void build_should_throw_an_exception_for_habitats_of_missing_spiders() {
+        new PrimarySpiderDiagramBuilder().setHabitat("s1", regionA).build();
+    }
+}
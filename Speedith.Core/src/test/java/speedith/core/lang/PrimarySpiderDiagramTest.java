@@ -28,16 +28,19 @@ package speedith.core.lang;
 
 import org.junit.Test;
 import speedith.core.lang.reader.ReadingException;
+import speedith.core.lang.reader.SpiderDiagramsReader;
 import speedith.core.reasoning.util.unitary.TestSpiderDiagrams;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import static org.hamcrest.Matchers.equalTo;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertThat;
+import static org.junit.Assert.*;
 import static speedith.core.reasoning.util.unitary.TestSpiderDiagrams.DIAGRAM_SPEEDITH_PAPER_FIG2_D1;
 import static speedith.core.reasoning.util.unitary.TestSpiderDiagrams.DIAGRAM_SPEEDITH_PAPER_FIG2_D2;
 
@@ -138,4 +141,60 @@ public class PrimarySpiderDiagramTest {
         psd = (PrimarySpiderDiagram) csd.getOperand(1);
         assertEquals(new TreeSet<>(Arrays.asList("t1", "t2", "t3")), psd.getSpidersInZone(Zone.fromInContours("B")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getSpidersInZone_should_find_the_spiders_of_every_zone_in_a_diagram_with_many_spiders() {
+        List<Zone> zones = Zones.allZonesForContours("A", "B", "C");
+        TreeMap<String, Region> habitats = new TreeMap<>();
+        for (int i = 0; i < 300; i++) {
+            habitats.put("s" + i, new Region(zones.get(i % zones.size()), zones.get((i * 7 + 3) % zones.size())));
+        }
+        PrimarySpiderDiagram psd = SpiderDiagrams.createPrimarySD(habitats.keySet(), habitats, null, null);
+
+        for (Zone zone : zones) {
+            TreeSet<String> expectedSpiders = new TreeSet<>();
+            for (String spider : habitats.keySet()) {
+                if (habitats.get(spider).contains(zone)) {
+                    expectedSpiders.add(spider);
+                }
+            }
+            assertEquals(expectedSpiders, psd.getSpidersInZone(zone));
+            assertEquals(expectedSpiders.size(), psd.getSpiderCountInZone(zone));
+        }
+        assertEquals(0, psd.getSpiderCountInZone(Zone.fromInContours("D")));
+    }
+
+    @Test
+    public void isSEquivalentTo_should_return_true_for_diagrams_with_renamed_spiders() throws ReadingException {
+        SpiderDiagram sd1 = SpiderDiagramsReader.readSpiderDiagram("PrimarySD {spiders = [\"s\", \"t\"], habitats = [(\"s\", [([\"A\"], [\"B\"])]), (\"t\", [([\"A\", \"B\"], [])])], sh_zones = [([\"B\"], [\"A\"])]}");
+        SpiderDiagram sd2 = SpiderDiagramsReader.readSpiderDiagram("PrimarySD {spiders = [\"u\", \"v\"], habitats = [(\"v\", [([\"A\"], [\"B\"])]), (\"u\", [([\"A\", \"B\"], [])])], sh_zones = [([\"B\"], [\"A\"])], present_zones = [([\"A\"], [\"B\"])]}");
+
+        assertNotEquals(sd1, sd2);
+        assertTrue(sd1.isSEquivalentTo(sd2));
+        assertTrue(sd2.isSEquivalentTo(sd1));
+        assertEquals(sd1.getCanonicalHash(), sd2.getCanonicalHash());
+        assertSame(sd1.getCanonicalForm(), sd2.getCanonicalForm());
+    }
+
+    @Test
+    public void isSEquivalentTo_should_return_false_for_diagrams_with_different_shading() throws ReadingException {
+        SpiderDiagram sd1 = SpiderDiagramsReader.readSpiderDiagram("PrimarySD {spiders = [\"s\"], habitats = [(\"s\", [([\"A\"], [\"B\"])])], sh_zones = [([\"B\"], [\"A\"])]}");
+        SpiderDiagram sd2 = SpiderDiagramsReader.readSpiderDiagram("PrimarySD {spiders = [\"t\"], habitats = [(\"t\", [([\"A\"], [\"B\"])])], sh_zones = [([\"A\", \"B\"], [])]}");
+
+        assertFalse(sd1.isSEquivalentTo(sd2));
+        assertNotEquals(sd1.getCanonicalHash(), sd2.getCanonicalHash());
+    }
+
+    @Test
+    public void getCanonicalForm_should_group_equivalent_diagrams_in_a_hash_map() throws ReadingException {
+        HashMap<SpiderDiagram, Integer> groups = new HashMap<>();
+        for (String spider : Arrays.asList("s", "t", "u")) {
+            SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram("PrimarySD {spiders = [\"" + spider + "\"], habitats = [(\"" + spider + "\", [([\"A\"], [])])], sh_zones = []}");
+            Integer count = groups.get(sd.getCanonicalForm());
+            groups.put(sd.getCanonicalForm(), count == null ? 1 : count + 1);
+        }
+
+        assertEquals(1, groups.size());
+        assertEquals(Integer.valueOf(3), groups.values().iterator().next());
+    }
+}
@@ -0,0 +1,126 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class SortedZonesTest {
+
+    private final ArrayList<Zone> zonesABC = Zones.allZonesForContours("A", "B", "C");
+    private final SortedZones insideA = SortedZones.of(Zones.getZonesInsideAnyContour(zonesABC, "A"));
+    private final SortedZones insideB = SortedZones.of(Zones.getZonesInsideAnyContour(zonesABC, "B"));
+    private final SortedZones mixed = SortedZones.of(asList(Zone.fromInContours("A", "B"), Zone.fromInContours("A").withOutContours("B", "C")));
+
+    @Test
+    public void iterator_should_return_the_zones_in_natural_order_without_duplicates() {
+        ArrayList<Zone> zones = new ArrayList<>(zonesABC);
+        zones.addAll(zonesABC);
+        Collections.shuffle(zones, new Random(42));
+
+        assertEquals(new ArrayList<>(new TreeSet<>(zonesABC)), new ArrayList<>(SortedZones.of(zones)));
+    }
+
+    @Test
+    public void contains_should_find_exactly_the_zones_of_the_set() {
+        assertTrue(insideA.contains(Zone.fromInContours("A", "C").withOutContours("B")));
+        assertFalse(insideA.contains(Zone.fromInContours("B", "C").withOutContours("A")));
+        assertFalse(insideA.contains(Zone.fromInContours("A", "C")));
+        assertTrue(mixed.contains(Zone.fromInContours("A", "B")));
+        assertFalse(mixed.contains(Zone.fromInContours("A", "B", "C")));
+    }
+
+    @Test
+    public void set_operations_should_agree_with_tree_sets() {
+        assertSameZones(union(insideA, insideB), insideA.union(insideB));
+        assertSameZones(union(insideA, mixed), insideA.union(mixed));
+        assertSameZones(difference(insideA, insideB), insideA.subtract(insideB));
+        assertSameZones(difference(insideA, mixed), insideA.subtract(mixed));
+        assertSameZones(difference(mixed, insideA), mixed.subtract(insideA));
+        assertSame(SortedZones.Empty, insideA.subtract(insideA));
+    }
+
+    @Test
+    public void isSubsetOf_should_check_zones_of_either_representation() {
+        assertTrue(insideA.subtract(insideB).isSubsetOf(insideA));
+        assertTrue(SortedZones.Empty.isSubsetOf(insideA));
+        assertFalse(insideA.isSubsetOf(insideB));
+        assertFalse(mixed.isSubsetOf(insideA));
+        assertTrue(mixed.subtract(SortedZones.of(asList(Zone.fromInContours("A", "B")))).isSubsetOf(insideA));
+    }
+
+    @Test
+    public void compareTo_should_compare_the_sorted_zones_lexicographically() {
+        SortedZones smaller = insideA.subtract(SortedZones.of(asList(insideA.get(0))));
+
+        assertEquals(0, insideA.compareTo(SortedZones.of(new ArrayList<>(insideA))));
+        assertEquals(-1, insideA.subtract(smaller).compareTo(insideA));
+        assertEquals(1, insideA.compareTo(insideA.subtract(smaller)));
+        assertEquals(compareLists(insideA, insideB), insideA.compareTo(insideB));
+        assertEquals(compareLists(insideA, mixed), insideA.compareTo(mixed));
+        assertEquals(compareLists(mixed, insideB), mixed.compareTo(insideB));
+    }
+
+    @Test
+    public void equal_sets_should_have_equal_hash_codes_regardless_of_how_they_were_built() {
+        SortedZones viaUnion = insideA.subtract(insideB).union(insideA.subtract(insideA.subtract(insideB)));
+
+        assertEquals(insideA, viaUnion);
+        assertEquals(insideA.hashCode(), viaUnion.hashCode());
+        assertEquals(mixed, SortedZones.of(new ArrayList<>(mixed)));
+    }
+
+    @Test
+    public void get_should_return_the_given_zone_instances() {
+        ArrayList<Zone> zones = Zones.getZonesInsideAnyContour(zonesABC, "A");
+        SortedZones set = SortedZones.of(zones);
+
+        for (int i = 0; i < set.size(); i++) {
+            assertSame(zones.get(zones.indexOf(set.get(i))), set.get(i));
+        }
+    }
+
+    @Test
+    public void get_should_return_the_same_instance_on_every_call() {
+        SortedZones viaUnion = insideA.subtract(insideB).union(insideB);
+
+        for (int i = 0; i < viaUnion.size(); i++) {
+            assertSame(viaUnion.get(i), viaUnion.get(i));
+        }
+        Iterator<Zone> iterator = viaUnion.iterator();
+        for (int i = 0; i < viaUnion.size(); i++) {
+            assertSame(viaUnion.get(i), iterator.next());
+        }
+    }
+
+    private static TreeSet<Zone> union(SortedZones a, SortedZones b) {
+        TreeSet<Zone> result = new TreeSet<>(a);
+        result.addAll(b);
+        return result;
+    }
+
+    private static TreeSet<Zone> difference(SortedZones a, SortedZones b) {
+        TreeSet<Zone> result = new TreeSet<>(a);
+        result.removeAll(new ArrayList<>(b));
+        return result;
+    }
+
+    private static int compareLists(SortedZones a, SortedZones b) {
+        Iterator<Zone> aZones = a.iterator();
+        Iterator<Zone> bZones = b.iterator();
+        while (aZones.hasNext() && bZones.hasNext()) {
+            int cmp = aZones.next().compareTo(bZones.next());
+            if (cmp != 0) {
+                return Integer.signum(cmp);
+            }
+        }
+        return aZones.hasNext() ? 1 : (bZones.hasNext() ? -1 : 0);
+    }
+
+    private static void assertSameZones(SortedSet<Zone> expected, SortedZones actual) {
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(expected, actual.toSortedSet());
+    }
+}
@@ -3,6 +3,8 @@ package speedith.core.lang;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static speedith.core.lang.SpiderDiagramsTest.createPrimaryDiagram;
 
 public class SpiderDiagramTest {
 
@@ -35,4 +37,31 @@ public class SpiderDiagramTest {
         int indexOfParent = bigCompoundSpiderDiagram.getParentIndexOf(6);
         assertEquals(4, indexOfParent);
     }
+
+    @Test
+    public void getFingerprint_should_be_equal_for_equal_diagrams() {
+        assertEquals(
+                SpiderDiagrams.createCompoundSD(Operator.Conjunction, createPrimaryDiagram("s"), createPrimaryDiagram("t")).getFingerprint(),
+                SpiderDiagrams.createCompoundSD(Operator.Conjunction, createPrimaryDiagram("s"), createPrimaryDiagram("t")).getFingerprint()
+        );
+    }
+
+    @Test
+    public void getFingerprint_should_differ_for_diagrams_with_swapped_operands() {
+        assertNotEquals(
+                SpiderDiagrams.createCompoundSD(Operator.Conjunction, createPrimaryDiagram("s"), createPrimaryDiagram("t")).getFingerprint(),
+                SpiderDiagrams.createCompoundSD(Operator.Conjunction, createPrimaryDiagram("t"), createPrimaryDiagram("s")).getFingerprint()
+        );
+    }
+
+    @Test
+    public void getFingerprint_should_differ_for_diagrams_with_renamed_spiders() {
+        assertNotEquals(createPrimaryDiagram("s").getFingerprint(), createPrimaryDiagram("t").getFingerprint());
+    }
+
+    @Test
+    public void getFingerprint_should_not_change_between_runs() {
+        assertEquals(0xa88b31b03b40a969L, SpiderDiagrams.createNullSD().getFingerprint());
+        assertEquals(0x5e924c16cdecec4bL, SpiderDiagrams.createCompoundSD(Operator.Implication, createPrimaryDiagram("s"), createPrimaryDiagram("t")).getFingerprint());
+    }
 }
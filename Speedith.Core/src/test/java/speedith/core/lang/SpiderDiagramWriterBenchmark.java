@@ -0,0 +1,96 @@
+package speedith.core.lang;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/**
+ * Compares {@link SpiderDiagram#toString()} with a reused {@link
+ * SpiderDiagramWriter} on large diagrams (see {@link Benchmarks} on how to run
+ * it).
+ * <p>The primary diagram has 300 spiders whose habitats are 20 shared regions
+ * of 40 zones each, and 128 shaded zones over 8 contours. The compound diagram
+ * is a chain of 8 conjunctions of the primary diagram.</p>
+ */
+public class SpiderDiagramWriterBenchmark {
+
+    private static final int Spiders = 300;
+    private static final int SharedRegions = 20;
+    private static final int ZonesPerRegion = 40;
+    private static final int Nesting = 8;
+
+    public static void main(String[] args) throws Exception {
+        PrimarySpiderDiagram primary = largePrimaryDiagram();
+        SpiderDiagram compound = primary;
+        for (int i = 0; i < Nesting; i++) {
+            compound = SpiderDiagrams.createCompoundSD(Operator.Conjunction, compound, primary);
+        }
+        measure("primary", primary);
+        measure("compound", compound);
+    }
+
+    private static void measure(String name, final SpiderDiagram sd) throws Exception {
+        final SpiderDiagramWriter writer = new SpiderDiagramWriter();
+        final Writer discardingWriter = new DiscardingWriter();
+        System.out.println(name + ": " + sd.toString().length() + " characters");
+        Benchmarks.measure(name + ", toString()", 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                return sd.toString();
+            }
+        });
+        Benchmarks.measure(name + ", writer to string", 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                return writer.toString(sd);
+            }
+        });
+        Benchmarks.measure(name + ", writer to Writer", 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() throws Exception {
+                writer.write(sd, discardingWriter);
+                return discardingWriter;
+            }
+        });
+    }
+
+    private static PrimarySpiderDiagram largePrimaryDiagram() {
+        ArrayList<Zone> zones = Zones.allZonesForContours("A", "B", "C", "D", "E", "F", "G", "H");
+        ArrayList<Zone> shadedZones = new ArrayList<>();
+        ArrayList<Zone> habitatZones = new ArrayList<>();
+        for (int i = 0; i < zones.size(); i++) {
+            (i % 2 == 0 ? shadedZones : habitatZones).add(zones.get(i));
+        }
+        Region[] regions = new Region[SharedRegions];
+        for (int i = 0; i < SharedRegions; i++) {
+            ArrayList<Zone> regionZones = new ArrayList<>();
+            for (int j = 0; j < ZonesPerRegion; j++) {
+                regionZones.add(habitatZones.get((i * 7 + j) % habitatZones.size()));
+            }
+            regions[i] = new Region(regionZones);
+        }
+        ArrayList<String> spiders = new ArrayList<>();
+        TreeMap<String, Region> habitats = new TreeMap<>();
+        for (int i = 0; i < Spiders; i++) {
+            String spider = "s" + i;
+            spiders.add(spider);
+            habitats.put(spider, regions[i % SharedRegions]);
+        }
+        return SpiderDiagrams.createPrimarySD(spiders, habitats, shadedZones, null);
+    }
+
+    private static class DiscardingWriter extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+import speedith.core.lang.reader.SpiderDiagramsReader;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static speedith.core.lang.reader.SpiderDiagramsReaderTest.*;
+
+public class SpiderDiagramWriterTest {
+
+    private static final List<String> Examples = Arrays.asList(
+            SD_EXAMPLE_1, SD_EXAMPLE_2, SD_EXAMPLE_3, SD_EXAMPLE_4, SD_EXAMPLE_5,
+            SD_EXAMPLE_6, SD_EXAMPLE_7, SD_EXAMPLE_8, SD_EXAMPLE_9, SD_EXAMPLE_10,
+            SD_EXAMPLE_11, SD_EXAMPLE_12, SD_EXAMPLE_13, SD_EXAMPLE_14, SD_EXAMPLE_15,
+            SD_EXAMPLE_16, SD_EXAMPLE_17, SD_EXAMPLE_18, SD_EXAMPLE_19);
+
+    @Test
+    public void toString_should_return_the_same_text_as_toString_with_an_appendable() throws Exception {
+        SpiderDiagramWriter writer = new SpiderDiagramWriter();
+        for (SpiderDiagram sd : readExamples()) {
+            // Twice: the second time the zones and regions come from the cache.
+            assertEquals(appendedText(sd), writer.toString(sd));
+            assertEquals(appendedText(sd), writer.toString(sd));
+            assertEquals(appendedText(sd), sd.toString());
+        }
+    }
+
+    @Test
+    public void toString_should_return_the_same_text_after_the_cache_is_cleared() throws Exception {
+        SpiderDiagramWriter writer = new SpiderDiagramWriter();
+        for (SpiderDiagram sd : readExamples()) {
+            String text = writer.toString(sd);
+            writer.clearCache();
+            assertEquals(text, writer.toString(sd));
+        }
+    }
+
+    @Test
+    public void toString_should_format_diagrams_larger_than_the_scratch_buffer() throws Exception {
+        SpiderDiagram sd = conjunctionOfExamples();
+
+        assertEquals(appendedText(sd), new SpiderDiagramWriter().toString(sd));
+        assertEquals(sd, SpiderDiagramsReader.readSpiderDiagram(sd.toString()));
+    }
+
+    @Test
+    public void write_should_write_the_text_to_a_writer() throws Exception {
+        SpiderDiagramWriter writer = new SpiderDiagramWriter();
+        StringWriter expected = new StringWriter();
+        StringWriter actual = new StringWriter();
+        for (SpiderDiagram sd : readExamples()) {
+            expected.append(appendedText(sd)).append('\n');
+            writer.write(sd, actual);
+            actual.append('\n');
+        }
+        SpiderDiagram large = conjunctionOfExamples();
+        expected.append(appendedText(large));
+        writer.write(large, actual);
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void write_should_encode_the_text_into_a_byte_buffer() throws Exception {
+        SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_1);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        buffer.put((byte) 'x');
+
+        new SpiderDiagramWriter().write(sd, buffer);
+
+        buffer.flip();
+        buffer.get();
+        assertEquals(appendedText(sd), Charset.forName("UTF-8").decode(buffer).toString());
+    }
+
+    @Test
+    public void write_should_not_change_a_byte_buffer_that_is_too_small() throws Exception {
+        SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_1);
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        buffer.put((byte) 'x');
+        try {
+            new SpiderDiagramWriter().write(sd, buffer);
+            fail("Expected a BufferOverflowException.");
+        } catch (BufferOverflowException ex) {
+            assertEquals(1, buffer.position());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_should_throw_an_exception_if_the_writer_is_null() throws Exception {
+        new SpiderDiagramWriter().write(SpiderDiagrams.createNullSD(), (StringWriter) null);
+    }
+
+    private static List<SpiderDiagram> readExamples() throws Exception {
+        ArrayList<SpiderDiagram> diagrams = new ArrayList<>();
+        for (String example : Examples) {
+            diagrams.add(SpiderDiagramsReader.readSpiderDiagram(example));
+        }
+        return diagrams;
+    }
+
+    private static SpiderDiagram conjunctionOfExamples() throws Exception {
+        SpiderDiagram sd = SpiderDiagrams.createNullSD();
+        for (SpiderDiagram operand : readExamples()) {
+            sd = SpiderDiagrams.createCompoundSD(Operator.getConjunction(), sd, operand);
+        }
+        return sd;
+    }
+
+    private static String appendedText(SpiderDiagram sd) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sd.toString(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class SpiderDiagramsTest {
+
+    private static final int ThreadsCount = 8;
+
+    @Test
+    public void createPrimarySD_should_return_the_same_instance_when_called_concurrently_with_equal_arguments() throws Exception {
+        List<SpiderDiagram> diagrams = createConcurrently(new Callable<SpiderDiagram>() {
+            @Override
+            public SpiderDiagram call() {
+                return createPrimaryDiagram("concurrent_s");
+            }
+        });
+        for (SpiderDiagram diagram : diagrams) {
+            assertSame(diagrams.get(0), diagram);
+        }
+    }
+
+    @Test
+    public void createCompoundSD_should_return_the_same_instance_when_called_concurrently_with_equal_arguments() throws Exception {
+        List<SpiderDiagram> diagrams = createConcurrently(new Callable<SpiderDiagram>() {
+            @Override
+            public SpiderDiagram call() {
+                return SpiderDiagrams.createCompoundSD(Operator.Conjunction, createPrimaryDiagram("concurrent_t"), createPrimaryDiagram("concurrent_u"));
+            }
+        });
+        for (SpiderDiagram diagram : diagrams) {
+            assertSame(diagrams.get(0), diagram);
+        }
+    }
+
+    @Test
+    public void getPoolStatistics_should_count_hits_and_misses() {
+        PrimarySpiderDiagram first = createPrimaryDiagram("statistics_s");
+        PoolStatistics before = SpiderDiagrams.getPoolStatistics();
+        PrimarySpiderDiagram second = createPrimaryDiagram("statistics_s");
+        PrimarySpiderDiagram third = createPrimaryDiagram("statistics_t");
+        PoolStatistics after = SpiderDiagrams.getPoolStatistics();
+
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertTrue(after.getHits() >= before.getHits() + 1);
+        assertTrue(after.getMisses() >= before.getMisses() + 1);
+    }
+
+    @Test
+    public void factory_methods_should_return_canonical_diagrams_with_distinct_structural_ids() {
+        PrimarySpiderDiagram psd = createPrimaryDiagram("id_s");
+        CompoundSpiderDiagram csd = SpiderDiagrams.createCompoundSD(Operator.Negation, psd);
+
+        assertTrue(psd.isCanonical());
+        assertTrue(csd.isCanonical());
+        assertTrue(SpiderDiagrams.createNullSD().isCanonical());
+        assertNotEquals(psd.getStructuralId(), csd.getStructuralId());
+        assertEquals(psd.getStructuralId(), createPrimaryDiagram("id_s").getStructuralId());
+    }
+
+    @Test
+    public void addShading_should_return_a_canonical_diagram() {
+        PrimarySpiderDiagram psd = createPrimaryDiagram("shading_s");
+        PrimarySpiderDiagram shaded = psd.addShading(Zone.fromInContours("A", "B"));
+
+        assertTrue(shaded.isCanonical());
+        assertSame(shaded, psd.addShading(Zone.fromInContours("A", "B")));
+    }
+
+    @Test
+    public void createCompoundSD_should_return_equal_diagrams_with_equal_hash_codes() {
+        CompoundSpiderDiagram csd1 = SpiderDiagrams.createCompoundSD(Operator.Disjunction, createPrimaryDiagram("hash_s"), createPrimaryDiagram("hash_t"));
+        CompoundSpiderDiagram csd2 = SpiderDiagrams.createCompoundSD(Operator.Disjunction, createPrimaryDiagram("hash_s"), createPrimaryDiagram("hash_t"));
+        CompoundSpiderDiagram swapped = SpiderDiagrams.createCompoundSD(Operator.Disjunction, createPrimaryDiagram("hash_t"), createPrimaryDiagram("hash_s"));
+
+        assertSame(csd1, csd2);
+        assertEquals(csd1.hashCode(), csd2.hashCode());
+        assertNotEquals(csd1, swapped);
+    }
+
+    static PrimarySpiderDiagram createPrimaryDiagram(String spider) {
+        Zone zone = Zone.fromInContours("A").withOutContours("B");
+        TreeMap<String, Region> habitats = new TreeMap<>();
+        habitats.put(spider, new Region(zone));
+        return SpiderDiagrams.createPrimarySD(habitats.keySet(), habitats, Arrays.asList(zone), null);
+    }
+
+    private static List<SpiderDiagram> createConcurrently(Callable<SpiderDiagram> factory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ThreadsCount);
+        try {
+            ArrayList<Callable<SpiderDiagram>> tasks = new ArrayList<>();
+            for (int i = 0; i < ThreadsCount * 16; i++) {
+                tasks.add(factory);
+            }
+            ArrayList<SpiderDiagram> diagrams = new ArrayList<>();
+            for (Future<SpiderDiagram> future : executor.invokeAll(tasks)) {
+                diagrams.add(future.get());
+            }
+            return diagrams;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package speedith.core.lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compares a {@link TransformerPipeline} with applying the same transformers
+ * one after the other (see {@link Benchmarks} on how to run it).
+ * <p>The diagram is a balanced conjunction of 4096 negated primary diagrams.
+ * Every transformer replaces one primary diagram with the null diagram. The
+ * sequential transformers come in two kinds: ones that visit the whole
+ * diagram and ones that declare their target index (see {@link
+ * IdTransformer#IdTransformer(int)}), so the traversal skips the operands
+ * without the target.</p>
+ */
+public class TransformerPipelineBenchmark {
+
+    private static final int Leaves = 4096;
+
+    public static void main(String[] args) throws Exception {
+        final SpiderDiagram sd = balancedTree(Leaves);
+        for (int targetCount : new int[]{4, 16, 64}) {
+            final int[] targets = spreadPrimaryTargets(sd, targetCount);
+            String name = targetCount + " targets";
+            Benchmarks.measure("sequential, whole diagram: " + name, 1, new Benchmarks.Workload() {
+                @Override
+                public Object run() {
+                    SpiderDiagram result = sd;
+                    for (int target : targets) {
+                        result = result.transform(new NullifyingTransformer(target, false));
+                    }
+                    return result;
+                }
+            });
+            Benchmarks.measure("sequential, target index: " + name, 1, new Benchmarks.Workload() {
+                @Override
+                public Object run() {
+                    SpiderDiagram result = sd;
+                    for (int target : targets) {
+                        result = result.transform(new NullifyingTransformer(target, true));
+                    }
+                    return result;
+                }
+            });
+            Benchmarks.measure("pipeline: " + name, 1, new Benchmarks.Workload() {
+                @Override
+                public Object run() {
+                    TransformerPipeline pipeline = new TransformerPipeline();
+                    for (int target : targets) {
+                        pipeline.add(target, new NullifyingTransformer(target, true));
+                    }
+                    return sd.transform(pipeline);
+                }
+            });
+        }
+    }
+
+    private static SpiderDiagram balancedTree(int leaves) {
+        ArrayList<SpiderDiagram> level = new ArrayList<>();
+        for (int i = 0; i < leaves; i++) {
+            level.add(SpiderDiagrams.createCompoundSD(Operator.Negation, SpiderDiagrams.createPrimarySD(Arrays.asList("s" + i), null, null, null)));
+        }
+        while (level.size() > 1) {
+            ArrayList<SpiderDiagram> nextLevel = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += 2) {
+                nextLevel.add(SpiderDiagrams.createCompoundSD(Operator.Conjunction, level.get(i), level.get(i + 1)));
+            }
+            level = nextLevel;
+        }
+        return level.get(0);
+    }
+
+    /**
+     * Returns the indices of the given number of primary sub-diagrams spread
+     * evenly over the diagram.
+     */
+    private static int[] spreadPrimaryTargets(SpiderDiagram sd, int count) {
+        ArrayList<Integer> primaries = new ArrayList<>();
+        for (int i = 0; i < sd.getSubDiagramCount(); i++) {
+            if (sd.getSubDiagramAt(i) instanceof PrimarySpiderDiagram) {
+                primaries.add(i);
+            }
+        }
+        int[] targets = new int[count];
+        for (int i = 0; i < count; i++) {
+            targets[i] = primaries.get((int) ((long) i * primaries.size() / count));
+        }
+        return targets;
+    }
+
+    private static class NullifyingTransformer extends IdTransformer {
+
+        private final int target;
+
+        NullifyingTransformer(int target, boolean declareTarget) {
+            super(declareTarget ? target : -1);
+            this.target = target;
+        }
+
+        @Override
+        public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+            if (diagramIndex == target) {
+                done = true;
+                return SpiderDiagrams.createNullSD();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static speedith.core.lang.SpiderDiagrams.*;
+
+public class TransformerPipelineTest {
+
+    // Sub-diagram indices: 0 (root), 1 (conjunction), 2 (primary), 3 (null),
+    // 4 (disjunction), 5 (primary), 6 (null).
+    private final CompoundSpiderDiagram left = createCompoundSD(Operator.Conjunction, createPrimarySD(), createNullSD());
+    private final CompoundSpiderDiagram right = createCompoundSD(Operator.Disjunction, createPrimarySD(), createNullSD());
+    private final CompoundSpiderDiagram diagram = createCompoundSD(Operator.Conjunction, left, right);
+
+    @Test
+    public void transform_should_give_the_same_result_as_sequential_transforms() {
+        SpiderDiagram sequential = diagram.transform(new NullifyingTransformer(2)).transform(new NullifyingTransformer(5));
+
+        SpiderDiagram fused = diagram.transform(new TransformerPipeline()
+                .add(5, new NullifyingTransformer(5))
+                .add(2, new NullifyingTransformer(2)));
+
+        assertSame(sequential, fused);
+        assertSame(createCompoundSD(Operator.Conjunction,
+                createCompoundSD(Operator.Conjunction, createNullSD(), createNullSD()),
+                createCompoundSD(Operator.Disjunction, createNullSD(), createNullSD())), fused);
+    }
+
+    @Test
+    public void transform_should_call_each_transformer_only_at_its_target() {
+        NullifyingTransformer transformer = new NullifyingTransformer(3);
+
+        SpiderDiagram transformed = diagram.transform(new TransformerPipeline().add(3, transformer));
+
+        assertEquals(asList(3), transformer.calls);
+        // The right operand contains no target and is kept as it is.
+        assertSame(right, ((CompoundSpiderDiagram) transformed).getOperand(1));
+    }
+
+    @Test
+    public void transform_should_not_descend_into_rewritten_targets() {
+        NullifyingTransformer inner = new NullifyingTransformer(5);
+
+        SpiderDiagram transformed = diagram.transform(new TransformerPipeline()
+                .add(4, new IdTransformer() {
+                    @Override
+                    public SpiderDiagram transform(CompoundSpiderDiagram csd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+                        return createNullSD();
+                    }
+                })
+                .add(5, inner));
+
+        assertTrue(inner.calls.isEmpty());
+        assertSame(createCompoundSD(Operator.Conjunction, left, createNullSD()), transformed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_should_reject_two_transformers_for_the_same_sub_diagram() {
+        new TransformerPipeline().add(1, new IdTransformer()).add(1, new IdTransformer());
+    }
+
+    private static class NullifyingTransformer extends IdTransformer {
+
+        private final ArrayList<Integer> calls = new ArrayList<>();
+
+        NullifyingTransformer(int targetSubDiagramIndex) {
+            super(targetSubDiagramIndex);
+        }
+
+        @Override
+        public SpiderDiagram transform(PrimarySpiderDiagram psd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+            return transformTarget(diagramIndex);
+        }
+
+        @Override
+        public SpiderDiagram transform(NullSpiderDiagram nsd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+            return transformTarget(diagramIndex);
+        }
+
+        private SpiderDiagram transformTarget(int diagramIndex) {
+            calls.add(diagramIndex);
+            if (diagramIndex == getTargetSubDiagramIndex()) {
+                done = true;
+                return createNullSD();
+            }
+            return null;
+        }
+    }
+}
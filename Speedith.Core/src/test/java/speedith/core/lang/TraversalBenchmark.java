@@ -0,0 +1,123 @@
+package speedith.core.lang;
+
+import java.util.ArrayList;
+
+/**
+ * Measures transforms and visits of deep and of wide compound diagrams (see
+ * {@link Benchmarks} on how to run it).
+ * <p>The transformer changes nothing and the visitor only counts the
+ * sub-diagrams, so the numbers are the cost of the traversal itself. Only
+ * {@link Transformer} and {@link DiagramVisitor} are used, so the benchmark
+ * also runs against the former recursive traversal. The last line tells
+ * whether a visit of a chain of {@link TraversalBenchmark#VeryDeepChain}
+ * conjunctions completes on the default thread stack.</p>
+ */
+public class TraversalBenchmark {
+
+    private static final int DeepChain = 2000;
+    private static final int BalancedLeaves = 5000;
+    private static final int VeryDeepChain = 100000;
+
+    public static void main(String[] args) throws Exception {
+        measure("chain of " + DeepChain + " conjunctions", chain(DeepChain));
+        measure("balanced tree of " + BalancedLeaves + " leaves", balancedTree(BalancedLeaves));
+        try {
+            chain(VeryDeepChain).visit(new CountingVisitor());
+            System.out.println("visit of a chain of " + VeryDeepChain + " conjunctions: completed");
+        } catch (StackOverflowError err) {
+            System.out.println("visit of a chain of " + VeryDeepChain + " conjunctions: StackOverflowError");
+        }
+    }
+
+    private static void measure(String name, final SpiderDiagram sd) throws Exception {
+        Benchmarks.measure("transform: " + name, 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                return sd.transform(new IdentityTransformer());
+            }
+        });
+        Benchmarks.measure("visit: " + name, 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                return sd.visit(new CountingVisitor());
+            }
+        });
+    }
+
+    private static SpiderDiagram chain(int length) {
+        SpiderDiagram sd = SpiderDiagrams.createPrimarySD();
+        for (int i = 0; i < length; i++) {
+            sd = SpiderDiagrams.createCompoundSD(Operator.Conjunction, sd, SpiderDiagrams.createNullSD());
+        }
+        return sd;
+    }
+
+    private static SpiderDiagram balancedTree(int leaves) {
+        ArrayList<SpiderDiagram> level = new ArrayList<>();
+        for (int i = 0; i < leaves; i++) {
+            level.add(SpiderDiagrams.createCompoundSD(Operator.Negation, SpiderDiagrams.createPrimarySD()));
+        }
+        while (level.size() > 1) {
+            ArrayList<SpiderDiagram> nextLevel = new ArrayList<>();
+            for (int i = 0; i + 1 < level.size(); i += 2) {
+                nextLevel.add(SpiderDiagrams.createCompoundSD(Operator.Conjunction, level.get(i), level.get(i + 1)));
+            }
+            if (level.size() % 2 == 1) {
+                nextLevel.add(level.get(level.size() - 1));
+            }
+            level = nextLevel;
+        }
+        return level.get(0);
+    }
+
+    private static class IdentityTransformer implements Transformer {
+
+        @Override
+        public SpiderDiagram transform(PrimarySpiderDiagram sd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+            return null;
+        }
+
+        @Override
+        public SpiderDiagram transform(NullSpiderDiagram sd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+            return null;
+        }
+
+        @Override
+        public SpiderDiagram transform(CompoundSpiderDiagram sd, int diagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices) {
+            return null;
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+    }
+
+    private static class CountingVisitor implements DiagramVisitor<Integer> {
+
+        private int count;
+
+        @Override
+        public void init(SpiderDiagram root) {
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public void visit(SpiderDiagram subDiagram, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
+            ++count;
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public Integer getResult() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package speedith.core.lang;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class VennZonesTest {
+
+    @Test
+    public void iterator_should_return_the_same_zones_as_allZonesForContours() {
+        assertEquals(
+                new HashSet<>(Zones.allZonesForContours("A", "B", "C", "D")),
+                toSet(new VennZones("A", "B", "C", "D"))
+        );
+    }
+
+    @Test
+    public void iterator_should_return_no_zones_when_there_are_no_contours() {
+        assertFalse(new VennZones().iterator().hasNext());
+        assertEquals(BigInteger.ZERO, new VennZones().getZonesCount());
+    }
+
+    @Test
+    public void getZonesCount_should_not_overflow_for_many_contours() {
+        assertEquals(BigInteger.ONE.shiftLeft(100), new VennZones(contours(100)).getZonesCount());
+    }
+
+    @Test
+    public void countZones_should_count_zones_with_the_given_in_and_out_contours() {
+        VennZones vennZones = new VennZones("A", "B", "C", "D");
+
+        assertEquals(BigInteger.valueOf(4), vennZones.countZones(asList("A"), asList("B")));
+        assertEquals(BigInteger.ZERO, vennZones.countZones(asList("A"), asList("A")));
+        assertEquals(BigInteger.valueOf(8), vennZones.countZones(asList("A", "E"), null));
+    }
+
+    @Test
+    public void contains_should_return_true_only_for_zones_over_exactly_the_same_contours() {
+        VennZones vennZones = new VennZones("A", "B", "C");
+
+        assertTrue(vennZones.contains(Zone.fromInContours("A", "C").withOutContours("B")));
+        assertFalse(vennZones.contains(Zone.fromInContours("A").withOutContours("B")));
+        assertFalse(vennZones.contains(Zone.fromInContours("A", "B", "C", "D")));
+    }
+
+    @Test
+    public void zonesWith_should_return_only_the_zones_with_the_given_in_and_out_contours() {
+        Set<Zone> expectedZones = new HashSet<>();
+        for (Zone zone : Zones.allZonesForContours("A", "B", "C", "D")) {
+            if (zone.getInContours().contains("B") && zone.getOutContours().contains("D")) {
+                expectedZones.add(zone);
+            }
+        }
+
+        assertEquals(expectedZones, toSet(new VennZones("A", "B", "C", "D").zonesWith(asList("B"), asList("D"))));
+    }
+
+    @Test
+    public void zonesWith_should_enumerate_few_zones_out_of_a_huge_set_of_zones() {
+        List<String> contours = contours(100);
+        List<String> inContours = contours.subList(0, 50);
+        List<String> outContours = contours.subList(50, 97);
+
+        Set<Zone> zones = toSet(new VennZones(contours).zonesWith(inContours, outContours));
+
+        assertEquals(8, zones.size());
+        for (Zone zone : zones) {
+            assertTrue(zone.isValid(new TreeSet<>(contours)));
+            assertTrue(zone.getInContours().containsAll(inContours));
+            assertTrue(zone.getOutContours().containsAll(outContours));
+        }
+    }
+
+    @Test
+    public void zonesWith_should_enumerate_zones_over_exactly_64_contours() {
+        List<String> contours = contours(64);
+
+        Set<Zone> zones = toSet(new VennZones(contours).zonesWith(contours.subList(0, 30), contours.subList(30, 60)));
+
+        assertEquals(16, zones.size());
+    }
+
+    private static List<String> contours(int count) {
+        ArrayList<String> contours = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            contours.add("C" + i);
+        }
+        return contours;
+    }
+
+    private static Set<Zone> toSet(Iterable<Zone> zones) {
+        HashSet<Zone> zoneSet = new HashSet<>();
+        for (Zone zone : zones) {
+            assertTrue(zoneSet.add(zone));
+        }
+        return zoneSet;
+    }
+}
@@ -0,0 +1,78 @@
+package speedith.core.lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Measures the comparison, equality, hashing and validation of zones (see
+ * {@link Benchmarks} on how to run it).
+ * <p>The workload is 2048 random zones over 10 contours. Every zone is
+ * compared with its predecessor and with a distinct but equal copy. Only the
+ * public API of {@link Zone} is used, so the benchmark also runs against the
+ * former set-based zones.</p>
+ */
+public class ZoneBenchmark {
+
+    private static final String[] Contours = {"Apple", "Banana", "Cherry", "Date", "Elder", "Fig", "Grape", "Hazel", "Iris", "Juniper"};
+    private static final int ZoneCount = 2048;
+
+    public static void main(String[] args) throws Exception {
+        final TreeSet<String> allContours = new TreeSet<>(Arrays.asList(Contours));
+        final Zone[] zones = new Zone[ZoneCount];
+        final Zone[] copies = new Zone[ZoneCount];
+        Random random = new Random(11);
+        for (int i = 0; i < ZoneCount; i++) {
+            ArrayList<String> in = new ArrayList<>();
+            ArrayList<String> out = new ArrayList<>();
+            int inMask = random.nextInt(1 << Contours.length);
+            for (int j = 0; j < Contours.length; j++) {
+                ((inMask >> j & 1) == 1 ? in : out).add(Contours[j]);
+            }
+            zones[i] = new Zone(in, out);
+            copies[i] = new Zone(new ArrayList<>(in), new ArrayList<>(out));
+        }
+
+        Benchmarks.measure("Zone.compareTo", ZoneCount - 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                int result = 0;
+                for (int i = 1; i < ZoneCount; i++) {
+                    result += zones[i].compareTo(zones[i - 1]);
+                }
+                return result;
+            }
+        });
+        Benchmarks.measure("Zone.equals", ZoneCount, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                int result = 0;
+                for (int i = 0; i < ZoneCount; i++) {
+                    result += zones[i].equals(copies[i]) ? 1 : 0;
+                }
+                return result;
+            }
+        });
+        Benchmarks.measure("Zone.hashCode", ZoneCount, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                int result = 0;
+                for (int i = 0; i < ZoneCount; i++) {
+                    result += copies[i].hashCode();
+                }
+                return result;
+            }
+        });
+        Benchmarks.measure("Zone.isValid", ZoneCount, new Benchmarks.Workload() {
+            @Override
+            public Object run() {
+                int result = 0;
+                for (int i = 0; i < ZoneCount; i++) {
+                    result += zones[i].isValid(allContours) ? 1 : 0;
+                }
+                return result;
+            }
+        });
+    }
+}
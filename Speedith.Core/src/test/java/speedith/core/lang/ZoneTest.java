@@ -510,4 +510,44 @@ public class ZoneTest {
         TreeSet<String> expectedContours = new TreeSet<>(Arrays.asList("Foo", "Bar", "Zar"));
         assertEquals(expectedContours, zone.getAllContours());
     }
+
+    @Test
+    public void compareTo_should_order_zones_over_the_same_contours_alphabetically() {
+        Zone zoneA_BC = Zone.fromInContours("A").withOutContours("B", "C");
+        Zone zoneAB_C = Zone.fromInContours("A", "B").withOutContours("C");
+        Zone zoneAC_B = Zone.fromInContours("A", "C").withOutContours("B");
+        Zone zoneB_AC = Zone.fromInContours("B").withOutContours("A", "C");
+        Zone zone_ABC = Zone.fromOutContours("A", "B", "C");
+        assertSame(zoneA_BC.getContourSymbols(), zone_ABC.getContourSymbols());
+        assertTrue(zoneA_BC.compareTo(zoneAB_C) < 0);
+        assertTrue(zoneAB_C.compareTo(zoneAC_B) < 0);
+        assertTrue(zoneAC_B.compareTo(zoneB_AC) < 0);
+        assertTrue(zoneB_AC.compareTo(zoneAC_B) > 0);
+        assertTrue(zone_ABC.compareTo(zoneA_BC) < 0);
+        assertEquals(0, zoneAB_C.compareTo(new Zone(Arrays.asList("B", "A"), Arrays.asList("C"))));
+    }
+
+    @Test
+    public void zones_over_more_than_64_contours_should_behave_like_small_zones() {
+        ArrayList<String> inContours = new ArrayList<>();
+        ArrayList<String> outContours = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            inContours.add("In" + i);
+            outContours.add("Out" + i);
+        }
+        Zone zone = new Zone(inContours, outContours);
+        Zone sameZone = new Zone(new TreeSet<>(inContours), new HashSet<>(outContours));
+        assertEquals(new TreeSet<>(inContours), zone.getInContours());
+        assertEquals(40, zone.getOutContoursCount());
+        assertEquals(zone, sameZone);
+        assertEquals(zone.hashCode(), sameZone.hashCode());
+        assertEquals(0, zone.compareTo(sameZone));
+        assertTrue(zone.isValid(zone.getAllContours()));
+
+        outContours.add(inContours.remove(0));
+        Zone otherZone = new Zone(inContours, outContours);
+        assertFalse(zone.equals(otherZone));
+        assertTrue(zone.compareTo(otherZone) < 0);
+        assertTrue(otherZone.compareTo(zone) > 0);
+    }
 }
@@ -0,0 +1,159 @@
+package speedith.core.lang.binary;
+
+import org.junit.Test;
+import speedith.core.lang.Operator;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.reader.ReadingException;
+import speedith.core.reasoning.Goals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static speedith.core.lang.SpiderDiagrams.createCompoundSD;
+import static speedith.core.lang.reader.SpiderDiagramsReader.readSpiderDiagram;
+import static speedith.core.lang.reader.SpiderDiagramsReaderTest.*;
+
+public class BinarySpiderDiagramFormatTest {
+
+    private static final String[] Examples = {
+            SD_EXAMPLE_1, SD_EXAMPLE_2, SD_EXAMPLE_3, SD_EXAMPLE_4, SD_EXAMPLE_5,
+            SD_EXAMPLE_6, SD_EXAMPLE_7, SD_EXAMPLE_8, SD_EXAMPLE_9, SD_EXAMPLE_10,
+            SD_EXAMPLE_11, SD_EXAMPLE_12, SD_EXAMPLE_13, SD_EXAMPLE_14, SD_EXAMPLE_15,
+            SD_EXAMPLE_16, SD_EXAMPLE_17, SD_EXAMPLE_18, SD_EXAMPLE_19
+    };
+
+    @Test
+    public void readSpiderDiagram_should_return_the_written_diagram() throws ReadingException {
+        for (String example : Examples) {
+            SpiderDiagram diagram = readSpiderDiagram(example);
+            assertSame(example, diagram, BinarySpiderDiagramReader.readSpiderDiagram(BinarySpiderDiagramWriter.toBytes(diagram)));
+        }
+    }
+
+    @Test
+    public void readGoals_should_return_the_written_goals() throws ReadingException {
+        Goals goals = Goals.createGoalsFrom(readSpiderDiagram(SD_EXAMPLE_1), readSpiderDiagram(SD_EXAMPLE_17), readSpiderDiagram(SD_EXAMPLE_1));
+
+        assertEquals(goals, BinarySpiderDiagramReader.readGoals(BinarySpiderDiagramWriter.toBytes(goals)));
+        assertEquals(Goals.createGoalsFrom(), BinarySpiderDiagramReader.readGoals(BinarySpiderDiagramWriter.toBytes(Goals.createGoalsFrom())));
+    }
+
+    @Test
+    public void reader_should_read_all_records_in_order() throws ReadingException, IOException {
+        SpiderDiagram first = readSpiderDiagram(SD_EXAMPLE_2);
+        SpiderDiagram second = readSpiderDiagram(SD_EXAMPLE_16);
+        Goals goals = Goals.createGoalsFrom(first, second);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinarySpiderDiagramWriter writer = new BinarySpiderDiagramWriter(bytes)) {
+            writer.write(first);
+            writer.write(goals);
+            writer.write(second);
+        }
+
+        try (BinarySpiderDiagramReader reader = new BinarySpiderDiagramReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(BinaryFormat.Version, reader.getVersion());
+            assertSame(first, reader.readSpiderDiagram());
+            assertEquals(goals, reader.readGoals());
+            assertSame(second, reader.readSpiderDiagram());
+            assertNull(reader.readSpiderDiagram());
+        }
+    }
+
+    @Test
+    public void writer_should_store_shared_sub_diagrams_once() throws ReadingException {
+        SpiderDiagram shared = readSpiderDiagram(SD_EXAMPLE_13);
+        SpiderDiagram diagram = createCompoundSD(Operator.Conjunction, shared, createCompoundSD(Operator.Negation, shared));
+
+        byte[] once = BinarySpiderDiagramWriter.toBytes(shared);
+        byte[] twice = BinarySpiderDiagramWriter.toBytes(diagram);
+
+        // The second occurrence takes only a few bytes (a back-reference).
+        assertTrue(twice.length < once.length + 16);
+        assertTrue(twice.length < diagram.toString().getBytes(Charset.forName("UTF-8")).length / 4);
+        assertSame(diagram, BinarySpiderDiagramReader.readSpiderDiagram(twice));
+    }
+
+    @Test
+    public void writer_should_handle_deeply_nested_diagrams() throws ReadingException {
+        SpiderDiagram diagram = readSpiderDiagram(SD_EXAMPLE_17);
+        for (int i = 0; i < 100000; i++) {
+            diagram = createCompoundSD(Operator.Negation, diagram);
+        }
+
+        assertSame(diagram, BinarySpiderDiagramReader.readSpiderDiagram(BinarySpiderDiagramWriter.toBytes(diagram)));
+    }
+
+    @Test(expected = ReadingException.class)
+    public void reader_should_reject_input_without_the_magic_bytes() throws ReadingException {
+        BinarySpiderDiagramReader.readSpiderDiagram(SD_EXAMPLE_4.getBytes(Charset.forName("UTF-8")));
+    }
+
+    @Test(expected = ReadingException.class)
+    public void reader_should_reject_unsupported_versions() throws ReadingException {
+        byte[] bytes = BinarySpiderDiagramWriter.toBytes(readSpiderDiagram(SD_EXAMPLE_4));
+        bytes[BinaryFormat.Magic.length] = BinaryFormat.Version + 1;
+        BinarySpiderDiagramReader.readSpiderDiagram(bytes);
+    }
+
+    @Test(expected = ReadingException.class)
+    public void readGoals_should_reject_spider_diagram_records() throws ReadingException {
+        BinarySpiderDiagramReader.readGoals(BinarySpiderDiagramWriter.toBytes(readSpiderDiagram(SD_EXAMPLE_1)));
+    }
+
+    @Test
+    public void reader_should_reject_truncated_and_corrupted_records() throws ReadingException {
+        byte[] bytes = BinarySpiderDiagramWriter.toBytes(readSpiderDiagram(SD_EXAMPLE_1));
+        int headerLength = BinaryFormat.Magic.length + 1;
+        for (int length = headerLength; length < bytes.length; length++) {
+            assertUnreadable(Arrays.copyOf(bytes, length));
+        }
+        for (int i = headerLength + 2; i < bytes.length; i++) {
+            byte[] corrupted = bytes.clone();
+            corrupted[i] = (byte) 0xff;
+            try {
+                BinarySpiderDiagramReader.readSpiderDiagram(corrupted);
+            } catch (ReadingException ex) {
+                // Either the record is rejected or it decodes to another diagram.
+            }
+        }
+    }
+
+    @Test
+    public void readVarInt_should_read_the_largest_int() throws ReadingException {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07});
+        assertEquals(Integer.MAX_VALUE, BinaryFormat.readVarInt(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void readVarInt_should_reject_values_that_do_not_fit_into_an_int() {
+        byte[][] tooLarge = {
+                {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f},
+                {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10},
+                {(byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x70},
+                {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}
+        };
+        for (byte[] bytes : tooLarge) {
+            try {
+                BinaryFormat.readVarInt(ByteBuffer.wrap(bytes));
+                fail("The varint should have been rejected: " + Arrays.toString(bytes));
+            } catch (ReadingException ex) {
+                assertNotNull(ex.getMessage());
+            }
+        }
+    }
+
+    private static void assertUnreadable(byte[] bytes) {
+        try {
+            BinarySpiderDiagramReader.readSpiderDiagram(bytes);
+            fail("The input should have been rejected: " + Arrays.toString(bytes));
+        } catch (ReadingException ex) {
+            assertNotNull(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package speedith.core.lang.binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import speedith.core.lang.Operator;
+import speedith.core.lang.SpiderDiagram;
+import speedith.core.lang.reader.ReadingException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+import static speedith.core.lang.SpiderDiagrams.createCompoundSD;
+import static speedith.core.lang.reader.SpiderDiagramsReader.readSpiderDiagram;
+import static speedith.core.lang.reader.SpiderDiagramsReaderTest.*;
+
+public class DiagramCorpusTest {
+
+    private File corpusFile;
+    private final ArrayList<SpiderDiagram> diagrams = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException, ReadingException {
+        corpusFile = File.createTempFile("speedith", ".sdbc");
+        for (String example : new String[]{SD_EXAMPLE_1, SD_EXAMPLE_4, SD_EXAMPLE_16, SD_EXAMPLE_19, SD_EXAMPLE_1}) {
+            diagrams.add(readSpiderDiagram(example));
+        }
+        SpiderDiagram nested = diagrams.get(2);
+        for (int i = 0; i < 50; i++) {
+            nested = createCompoundSD(Operator.Conjunction, nested, diagrams.get(i % 4));
+            diagrams.add(nested);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        corpusFile.delete();
+    }
+
+    @Test
+    public void get_should_return_the_diagrams_in_the_order_they_were_added() throws IOException, ReadingException {
+        writeCorpus();
+
+        try (DiagramCorpus corpus = new DiagramCorpus(corpusFile)) {
+            assertEquals(diagrams.size(), corpus.size());
+            // Random access, from the back.
+            for (int i = diagrams.size() - 1; i >= 0; i--) {
+                assertSame(diagrams.get(i), corpus.get(i));
+                assertEquals(diagrams.get(i).getFingerprint(), corpus.getFingerprint(i));
+            }
+        }
+    }
+
+    @Test
+    public void getByFingerprint_should_find_the_first_diagram_with_the_fingerprint() throws IOException, ReadingException {
+        writeCorpus();
+
+        try (DiagramCorpus corpus = new DiagramCorpus(corpusFile)) {
+            for (SpiderDiagram diagram : diagrams) {
+                assertSame(diagram, corpus.getByFingerprint(diagram.getFingerprint()));
+            }
+            // The first example is in the corpus twice.
+            assertEquals(0, corpus.indexOf(diagrams.get(4).getFingerprint()));
+            SpiderDiagram absent = createCompoundSD(Operator.Negation, diagrams.get(0));
+            assertEquals(-1, corpus.indexOf(absent.getFingerprint()));
+            assertNull(corpus.getByFingerprint(absent.getFingerprint()));
+        }
+    }
+
+    @Test
+    public void iterator_should_return_all_diagrams() throws IOException, ReadingException {
+        writeCorpus();
+
+        try (DiagramCorpus corpus = new DiagramCorpus(corpusFile)) {
+            Iterator<SpiderDiagram> iterator = corpus.iterator();
+            for (SpiderDiagram diagram : diagrams) {
+                assertTrue(iterator.hasNext());
+                assertSame(diagram, iterator.next());
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void an_empty_corpus_should_be_readable() throws IOException, ReadingException {
+        new DiagramCorpusWriter(corpusFile).close();
+
+        try (DiagramCorpus corpus = new DiagramCorpus(corpusFile)) {
+            assertEquals(0, corpus.size());
+            assertFalse(corpus.iterator().hasNext());
+            assertEquals(-1, corpus.indexOf(diagrams.get(0).getFingerprint()));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_should_reject_ordinals_out_of_range() throws IOException, ReadingException {
+        writeCorpus();
+
+        try (DiagramCorpus corpus = new DiagramCorpus(corpusFile)) {
+            corpus.get(diagrams.size());
+        }
+    }
+
+    @Test(expected = ReadingException.class)
+    public void a_corpus_that_was_not_closed_should_be_rejected() throws IOException, ReadingException {
+        writeCorpus();
+        // Simulate a crash before the header was written.
+        try (RandomAccessFile file = new RandomAccessFile(corpusFile, "rw")) {
+            file.write(new byte[BinaryFormat.CorpusHeaderSize]);
+        }
+
+        new DiagramCorpus(corpusFile).close();
+    }
+
+    @Test(expected = ReadingException.class)
+    public void a_corrupted_index_should_be_rejected() throws IOException, ReadingException {
+        writeCorpus();
+        try (RandomAccessFile file = new RandomAccessFile(corpusFile, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        new DiagramCorpus(corpusFile).close();
+    }
+
+    private void writeCorpus() throws IOException {
+        try (DiagramCorpusWriter writer = new DiagramCorpusWriter(corpusFile)) {
+            for (int i = 0; i < diagrams.size(); i++) {
+                assertEquals(i, writer.add(diagrams.get(i)));
+            }
+        }
+    }
+}
@@ -4,11 +4,18 @@ import org.junit.Test;
 import speedith.core.lang.*;
 import speedith.core.reasoning.InferenceRuleProvider;
 import speedith.core.reasoning.InferenceRules;
+import speedith.core.reasoning.ProofTrace;
 import speedith.core.reasoning.RuleApplicationException;
 import speedith.core.reasoning.args.*;
 import speedith.core.reasoning.rules.*;
 import speedith.core.reasoning.util.unitary.TestSpiderDiagrams;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static speedith.core.lang.SpiderDiagrams.createCompoundSD;
@@ -42,6 +49,44 @@ public class Isabelle2011ExportProviderTest {
         assertFormulaEquals("(EX s1 s2. distinct[s1, s2] & s1 : -(C Un D) & s2 : (C - D) Un (C Int D) & C - D <= {s1, s2} & D - C <= {s1, s2})", isabelleFormula);
     }
 
+    @Test
+    public void exporting_a_batch_must_abbreviate_repeated_sub_diagrams() throws ExportException {
+        SpiderDiagram implication = createCompoundSD(Operator.Implication, TestSpiderDiagrams.DIAGRAM_SPEEDITH_PAPER_FIG7_2, createNullSD());
+        SpiderDiagram conjunction = createCompoundSD(Operator.Conjunction, implication, TestSpiderDiagrams.DIAGRAM_SPEEDITH_PAPER_FIG7_2);
+        String isabelleFormulae = isabelleExporter.exportAll(Arrays.asList(implication, conjunction));
+        assertFormulaEquals("let sd1 = (EX s1 s2. distinct[s1, s2] & s1 : -(C Un D) & s2 : (C - D) Un (C Int D) & C - D <= {s1, s2} & D - C <= {s1, s2}); sd2 = (sd1 --> True) in [sd2, sd2 & sd1]", isabelleFormulae);
+    }
+
+    @Test
+    public void exporting_a_batch_without_repeated_sub_diagrams_must_produce_a_plain_list() throws ExportException {
+        String isabelleFormulae = isabelleExporter.exportAll(Arrays.<SpiderDiagram>asList(createNullSD(), TestSpiderDiagrams.DIAGRAM_SPEEDITH_PAPER_FIG7_2, createNullSD()));
+        assertFormulaEquals("[True, (EX s1 s2. distinct[s1, s2] & s1 : -(C Un D) & s2 : (C - D) Un (C Int D) & C - D <= {s1, s2} & D - C <= {s1, s2}), True]", isabelleFormulae);
+    }
+
+    @Test
+    public void abbreviations_must_not_hide_contours() throws ExportException {
+        SpiderDiagram diagram = SpiderDiagrams.createPrimarySD(Arrays.asList("s"), Collections.singletonMap("s", new Region(Zone.fromInContours("sd1"))), null, null);
+        String isabelleFormulae = isabelleExporter.exportAll(Arrays.asList(diagram, diagram));
+        assertFormulaEquals("let sd1' = (EX s. s : sd1) in [sd1', sd1']", isabelleFormulae);
+    }
+
+    @Test
+    public void exporting_a_proof_must_export_the_goals_of_all_steps() throws ExportException, IOException {
+        SpiderDiagram implication = createCompoundSD(Operator.Implication, TestSpiderDiagrams.DIAGRAM_SPEEDITH_PAPER_FIG7_2, createNullSD());
+        StringWriter output = new StringWriter();
+        isabelleExporter.exportProofTo(new ProofTrace(implication, createNullSD(), implication), output);
+        assertFormulaEquals("let sd1 = ((EX s1 s2. distinct[s1, s2] & s1 : -(C Un D) & s2 : (C - D) Un (C Int D) & C - D <= {s1, s2} & D - C <= {s1, s2}) --> True) in [sd1, True, sd1]", output.toString());
+    }
+
+    @Test
+    public void exporting_a_batch_in_ml_form_must_export_every_diagram_into_its_own_line() throws ExportException {
+        HashMap<String, String> parameters = new HashMap<>();
+        parameters.put(Isabelle2011ExportProvider.Parameter_ML, "true");
+        SDExporter mlExporter = SDExporting.getExporter(Isabelle2011ExportProvider.FormatName, parameters);
+        SpiderDiagram implication = createCompoundSD(Operator.Implication, createNullSD(), createNullSD());
+        assertFormulaEquals("[|True|] ==> True\n[|True|] ==> True", mlExporter.exportAll(Arrays.asList(implication, implication)));
+    }
+
     @Test
     public void speedith_paper_fig1_proof() throws ExportException, RuleApplicationException {
         SpiderDiagram diagram1 = assertFig1InitialGoal();
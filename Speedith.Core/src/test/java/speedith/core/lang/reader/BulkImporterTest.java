@@ -0,0 +1,130 @@
+package speedith.core.lang.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static speedith.core.lang.reader.SpiderDiagramsReader.readSpiderDiagram;
+import static speedith.core.lang.reader.SpiderDiagramsReaderTest.*;
+
+public class BulkImporterTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("speedith", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        write("a.sd", SD_EXAMPLE_1);
+        write("b.sdt", SD_EXAMPLE_4 + "\n" + SD_EXAMPLE_1 + "\n" + SD_EXAMPLE_17);
+        write("c.sd", SD_EXAMPLE_3 + "\n" + SD_EXAMPLE_ERR_1);
+        write("notes.txt", SD_EXAMPLE_ERR_3);
+        assertTrue(new File(directory, "sub").mkdir());
+        write("sub/d.SD", SD_EXAMPLE_5);
+        write("sub/e.sd", "// Nothing here.\n");
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void importDirectory_should_read_all_diagram_files() throws Exception {
+        BulkImportResult result = new BulkImporter(3, UTF8).importDirectory(directory);
+
+        List<ImportedFile> files = result.getFiles();
+        assertEquals(5, files.size());
+        assertEquals(new File(directory, "a.sd"), files.get(0).getFile());
+        assertEquals(new File(directory, "sub/e.sd"), files.get(4).getFile());
+        assertEquals(Arrays.asList(readSpiderDiagram(SD_EXAMPLE_1)), files.get(0).getDiagrams());
+        assertEquals(3, files.get(1).getDiagrams().size());
+        assertEquals(Arrays.asList(readSpiderDiagram(SD_EXAMPLE_5)), files.get(3).getDiagrams());
+        assertEquals(3, result.getThreadCount());
+        assertEquals(6, result.getDiagramCount());
+        assertTrue(result.getFilesPerSecond() > 0);
+        assertTrue(result.getDiagramsPerSecond() > 0);
+    }
+
+    @Test
+    public void importDirectory_should_collapse_equal_diagrams_of_different_files() throws Exception {
+        BulkImportResult result = new BulkImporter(2, UTF8).importDirectory(directory);
+
+        assertSame(result.getFiles().get(0).getDiagrams().get(0), result.getFiles().get(1).getDiagrams().get(1));
+        assertEquals(5, result.getDistinctDiagramCount());
+    }
+
+    @Test
+    public void importDirectory_should_report_errors_per_file() throws Exception {
+        BulkImportResult result = new BulkImporter(0, UTF8).importDirectory(directory);
+
+        ImportedFile withError = result.getFiles().get(2);
+        assertEquals(Arrays.asList(readSpiderDiagram(SD_EXAMPLE_3)), withError.getDiagrams());
+        assertEquals(1, withError.getErrors().size());
+        assertEquals(2, withError.getErrors().get(0).getLineNumber());
+        assertEquals(30, withError.getErrors().get(0).getCharIndex());
+        assertTrue(result.getFiles().get(4).hasErrors());
+        assertFalse(result.getFiles().get(0).hasErrors());
+        assertEquals(2, result.getFailedFileCount());
+        assertEquals(2, result.getErrorCount());
+    }
+
+    @Test
+    public void importFiles_should_report_files_that_cannot_be_read() throws Exception {
+        File missing = new File(directory, "missing.sd");
+        BulkImportResult result = new BulkImporter(1, UTF8).importFiles(Arrays.asList(missing, new File(directory, "a.sd")));
+
+        assertEquals(missing, result.getFiles().get(0).getFile());
+        assertTrue(result.getFiles().get(0).hasErrors());
+        assertTrue(result.getFiles().get(0).getErrors().get(0).getCause() instanceof IOException);
+        assertFalse(result.getFiles().get(1).hasErrors());
+        assertEquals(1, result.getThreadCount());
+    }
+
+    @Test
+    public void importFiles_should_return_an_empty_result_for_no_files() throws Exception {
+        BulkImportResult result = new BulkImporter(4).importFiles(new ArrayList<File>());
+
+        assertTrue(result.getFiles().isEmpty());
+        assertEquals(0, result.getDiagramCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void findDiagramFiles_should_throw_an_exception_if_the_directory_does_not_exist() throws Exception {
+        BulkImporter.findDiagramFiles(new File(directory, "missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_should_throw_an_exception_if_the_thread_count_is_negative() {
+        new BulkImporter(-1);
+    }
+
+    private void write(String name, String contents) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, name)), UTF8)) {
+            writer.write(contents);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,53 @@
+package speedith.core.lang.reader;
+
+import speedith.core.lang.Benchmarks;
+
+import static speedith.core.lang.reader.SpiderDiagramsReaderTest.*;
+
+/**
+ * Compares the ANTLR path ({@link SpiderDiagramsReader#readSpiderDiagram(String)})
+ * with the hand-written reader ({@link SpiderDiagramsReader#readSpiderDiagram(char[])})
+ * on small and large diagrams (see {@link Benchmarks} on how to run it).
+ * <p>The large diagram is a chain of {@link SpiderDiagramsReaderBenchmark#ChainLength}
+ * conjunctions of primary diagrams, each with its own spider names.</p>
+ */
+public class SpiderDiagramsReaderBenchmark {
+
+    private static final int ChainLength = 200;
+
+    public static void main(String[] args) throws Exception {
+        measure("binary SD", SD_EXAMPLE_1);
+        measure("primary SD (4 spiders)", SD_EXAMPLE_18);
+        measure("unary SD over NullSD", SD_EXAMPLE_6);
+        String chain = conjunctionChain();
+        measure("chain (" + chain.length() / 1024 + " KB)", chain);
+    }
+
+    private static void measure(String name, final String input) throws Exception {
+        final char[] chars = input.toCharArray();
+        Benchmarks.measure("ANTLR: " + name, 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() throws ReadingException {
+                return SpiderDiagramsReader.readSpiderDiagram(input);
+            }
+        });
+        Benchmarks.measure("char[]: " + name, 1, new Benchmarks.Workload() {
+            @Override
+            public Object run() throws ReadingException {
+                return SpiderDiagramsReader.readSpiderDiagram(chars);
+            }
+        });
+    }
+
+    private static String conjunctionChain() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ChainLength; i++) {
+            sb.append("BinarySD {operator = \"op &\", arg1 = ").append(SD_EXAMPLE_18.replace("\"s", "\"s" + i + "_")).append(", arg2 = ");
+        }
+        sb.append(SD_EXAMPLE_4);
+        for (int i = 0; i < ChainLength; i++) {
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+}
@@ -34,8 +34,10 @@ import speedith.core.reasoning.util.unitary.TestSpiderDiagrams;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.CharBuffer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.TreeSet;
 
 import static org.junit.Assert.*;
@@ -337,6 +339,201 @@ public class SpiderDiagramsReaderTest {
         assertFalse(expected.equals(r));
     }
 
+    /**
+     * Test of readSpiderDiagrams method, of class SpiderDiagramsReader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagrams_Reader() throws Exception {
+        String input = SD_EXAMPLE_1 + "\n" + SD_EXAMPLE_4 + SD_EXAMPLE_7 + "\n// A comment with a brace }\n"
+                + "NullSD\n/* UnarySD { */ " + SD_EXAMPLE_17 + "\n\n";
+        Iterator<SpiderDiagramRecord> records = SpiderDiagramsReader.readSpiderDiagrams(new StringReader(input));
+        String[] expected = {SD_EXAMPLE_1, SD_EXAMPLE_4, SD_EXAMPLE_7, SD_EXAMPLE_4, SD_EXAMPLE_17};
+        int[] expectedLines = {1, 2, 2, 4, 5};
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(records.hasNext());
+            SpiderDiagramRecord record = records.next();
+            assertFalse(record.hasError());
+            assertEquals(i, record.getIndex());
+            assertEquals(expectedLines[i], record.getLineNumber());
+            assertSame(SpiderDiagramsReader.readSpiderDiagram(expected[i]), record.getDiagram());
+        }
+        assertFalse(records.hasNext());
+    }
+
+    /**
+     * Test of readSpiderDiagrams method, of class SpiderDiagramsReader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagrams_Reader_Err() throws Exception {
+        String input = SD_EXAMPLE_2 + "\n" + SD_EXAMPLE_ERR_1 + "\n  " + SD_EXAMPLE_ERR_3 + "\n" + SD_EXAMPLE_3;
+        Iterator<SpiderDiagramRecord> records = SpiderDiagramsReader.readSpiderDiagrams(new StringReader(input));
+
+        assertSame(SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_2), records.next().getDiagram());
+        // The errors are reported at their positions in the whole input.
+        ReadingException error = records.next().getError();
+        assertEquals(2, error.getLineNumber());
+        assertEquals(30, error.getCharIndex());
+        error = records.next().getError();
+        assertEquals(3, error.getLineNumber());
+        assertEquals(2, error.getCharIndex());
+        assertSame(SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_3), records.next().getDiagram());
+        assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testReadSpiderDiagrams_Unterminated() throws Exception {
+        String input = SD_EXAMPLE_6 + " " + SD_EXAMPLE_1.substring(0, 40);
+        Iterator<SpiderDiagramRecord> records = SpiderDiagramsReader.readSpiderDiagrams(new StringReader(input));
+
+        assertSame(SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_6), records.next().getDiagram());
+        assertTrue(records.next().hasError());
+        assertFalse(records.hasNext());
+    }
+
+    /**
+     * Test of readSpiderDiagram method (the one that reads a character
+     * array), of class SpiderDiagramsReader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagram_CharArray() throws Exception {
+        String[] examples = {SD_EXAMPLE_1, SD_EXAMPLE_2, SD_EXAMPLE_3, SD_EXAMPLE_4, SD_EXAMPLE_5, SD_EXAMPLE_6, SD_EXAMPLE_7,
+            SD_EXAMPLE_8, SD_EXAMPLE_9, SD_EXAMPLE_10, SD_EXAMPLE_11, SD_EXAMPLE_12, SD_EXAMPLE_13, SD_EXAMPLE_14, SD_EXAMPLE_15,
+            SD_EXAMPLE_16, SD_EXAMPLE_17, SD_EXAMPLE_18, SD_EXAMPLE_19, "NullSD", "/* A comment */ NullSD // Another one\n",
+            "PrimarySD {spiders = [\"s\\u00e9\\n\"], habitats = [(\"s\\u00e9\\n\", [([\"A\"], [])])], sh_zones = []}"};
+        for (String example : examples) {
+            assertSame(SpiderDiagramsReader.readSpiderDiagram(example), SpiderDiagramsReader.readSpiderDiagram(example.toCharArray()));
+        }
+
+        char[] padded = ("xx" + SD_EXAMPLE_1 + "yy").toCharArray();
+        assertSame(SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_1), SpiderDiagramsReader.readSpiderDiagram(padded, 2, SD_EXAMPLE_1.length()));
+    }
+
+    /**
+     * Test of readSpiderDiagram method (the one that reads a character
+     * array), of class SpiderDiagramsReader. The errors must be the same as
+     * those of the ANTLR-based reader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagram_CharArray_Err() throws Exception {
+        String[] examples = {SD_EXAMPLE_ERR_1, SD_EXAMPLE_ERR_2, SD_EXAMPLE_ERR_3, SD_EXAMPLE_ERR_4, SD_EXAMPLE_ERR_5,
+            SD_EXAMPLE_ERR_6, SD_EXAMPLE_ERR_7, SD_EXAMPLE_ERR_8, SD_EXAMPLE_ERR_9, SD_EXAMPLE_ERR_10,
+            // Syntax errors that the parser recovers from.
+            "UnarySD {operator \"op not\", arg1 = NullSD {}}", "BinarySD {arg1 = NullSD {}} }",
+            "PrimarySD {spiders = [\"s\",, \"t\"]}",
+            // Lexer errors.
+            "NullSD {} /* unterminated", "PrimarySD {spiders = [\"\\q\"]}", "NullSD { # }",
+            // Translation errors.
+            "PrimarySD {}", "PrimarySD {spiders = [\"s\"], habitats = [(\"s\", [([\"A\"], [])], \"x\")]}",
+            "BinarySD {operator = \"op &\", arg1 = NullSD {}}", "UnarySD {operator = \"op not\", arg1 = \"x\"}",
+            "PrimarySD {spiders = \"s\", sh_zones = [([\"A\"])]}",
+            "UnarySD {operator = \"op not\",\n arg1 = PrimarySD {spiders = [[\"s\"]]}}"};
+        for (String example : examples) {
+            ReadingException expected = null;
+            try {
+                SpiderDiagramsReader.readSpiderDiagram(example);
+            } catch (ReadingException ex) {
+                expected = ex;
+            }
+            assertNotNull(example, expected);
+            try {
+                SpiderDiagramsReader.readSpiderDiagram(example.toCharArray());
+                fail("An exception should have been thrown.");
+            } catch (ReadingException ex) {
+                assertEquals(example, expected.getMessage(), ex.getMessage());
+                assertEquals(example, expected.getLineNumber(), ex.getLineNumber());
+                assertEquals(example, expected.getCharIndex(), ex.getCharIndex());
+            }
+        }
+    }
+
+    /**
+     * Test of readSpiderDiagram method (the one that reads a character
+     * buffer), of class SpiderDiagramsReader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagram_CharBuffer() throws Exception {
+        SpiderDiagram expected = SpiderDiagramsReader.readSpiderDiagram(SD_EXAMPLE_2);
+        CharBuffer buffer = CharBuffer.wrap(("xx" + SD_EXAMPLE_2).toCharArray());
+        buffer.position(2);
+        assertSame(expected, SpiderDiagramsReader.readSpiderDiagram(buffer));
+        assertEquals(2, buffer.position());
+        assertSame(expected, SpiderDiagramsReader.readSpiderDiagram(buffer.slice()));
+        assertSame(expected, SpiderDiagramsReader.readSpiderDiagram(buffer.asReadOnlyBuffer()));
+        assertSame(expected, SpiderDiagramsReader.readSpiderDiagram(CharBuffer.wrap(SD_EXAMPLE_2)));
+    }
+
+    /**
+     * Tests that equal zones and regions of a diagram are the same instance.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagram_InternsZonesAndRegions() throws Exception {
+        String input = "PrimarySD {spiders = [\"s\", \"t\"], habitats = [(\"s\", [([\"P\"], [\"Q\"]), ([\"Q\"], [\"P\"])]), (\"t\", [([\"Q\"], [\"P\"]), ([\"P\"], [\"Q\"])])], "
+                + "sh_zones = [([\"P\"], [\"Q\"])], present_zones = [([\"P\"], [\"Q\"]), ([\"Q\", \"P\"], [])]}";
+        // Each reader gets its own text, so that the second diagram is not
+        // just the first one returned from the pool of diagrams.
+        String otherInput = input.replace("\"P\"", "\"R\"").replace("\"Q\"", "\"T\"");
+        PrimarySpiderDiagram psd1 = (PrimarySpiderDiagram) SpiderDiagramsReader.readSpiderDiagram(input);
+        PrimarySpiderDiagram psd2 = (PrimarySpiderDiagram) SpiderDiagramsReader.readSpiderDiagram(otherInput.toCharArray());
+        assertNotSame(psd1, psd2);
+        assertInternedZonesAndRegions(psd1, "P", "Q");
+        assertInternedZonesAndRegions(psd2, "R", "T");
+    }
+
+    private static void assertInternedZonesAndRegions(PrimarySpiderDiagram psd, String a, String b) {
+        Zone onlyA = Zone.fromInContours(a).withOutContours(b);
+        Zone onlyB = Zone.fromInContours(b).withOutContours(a);
+        Region habitat = psd.getHabitats().get("s");
+        assertEquals(new Region(onlyA, onlyB), habitat);
+        assertSame(habitat, psd.getHabitats().get("t"));
+        Zone shadedZone = find(psd.getShadedZones(), onlyA);
+        assertSame(shadedZone, find(psd.getPresentZones(), onlyA));
+        assertSame(shadedZone, find(habitat.sortedZones(), onlyA));
+    }
+
+    private static Zone find(Collection<Zone> zones, Zone expected) {
+        for (Zone zone : zones) {
+            if (zone.equals(expected)) {
+                return zone;
+            }
+        }
+        fail("The zone " + expected + " is missing from " + zones);
+        return null;
+    }
+
+    /**
+     * Tests that equal zones and regions of different diagrams are the same
+     * instance if global interning is enabled.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadSpiderDiagram_GlobalInterning() throws Exception {
+        String first = "PrimarySD {spiders = [\"s\"], habitats = [(\"s\", [([\"R\"], [\"T\"])])], sh_zones = [([\"T\"], [\"R\"])]}";
+        String second = "PrimarySD {spiders = [\"u\"], habitats = [(\"u\", [([\"R\"], [\"T\"])])], sh_zones = [([\"T\"], [\"R\"])]}";
+        assertFalse(SpiderDiagramsReader.isGlobalInterning());
+        SpiderDiagramsReader.setGlobalInterning(true);
+        try {
+            PrimarySpiderDiagram psd1 = (PrimarySpiderDiagram) SpiderDiagramsReader.readSpiderDiagram(first);
+            PrimarySpiderDiagram psd2 = (PrimarySpiderDiagram) SpiderDiagramsReader.readSpiderDiagram(second.toCharArray());
+            assertSame(psd1.getHabitats().get("s"), psd2.getHabitats().get("u"));
+            assertSame(psd1.getShadedZones().first(), psd2.getShadedZones().first());
+        } finally {
+            SpiderDiagramsReader.setGlobalInterning(false);
+        }
+    }
+
     @Test
     public void testFileReading() throws ReadingException, IOException {
         for (int i = 0; i < TestSpiderDiagrams.getSpiderDiagramSDTFilesCount(); i++) {
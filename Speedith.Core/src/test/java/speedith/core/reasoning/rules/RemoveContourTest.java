@@ -0,0 +1,16 @@
+package speedith.core.reasoning.rules;
+
+import org.junit.Test;
+import speedith.core.reasoning.RuleApplicationException;
+import speedith.core.reasoning.args.ContourArg;
+import speedith.core.reasoning.args.MultipleRuleArgs;
+
+import java.util.ArrayList;
+
+public class RemoveContourTest {
+
+    @Test(expected = RuleApplicationException.class)
+    public void apply_should_throw_an_exception_when_the_arguments_empty() throws RuleApplicationException {
+        new RemoveContour().apply(new MultipleRuleArgs(new ArrayList<ContourArg>()), null);
+    }
+}
@@ -263,6 +263,20 @@ public class SimpleInferenceRuleTest {
         }, true);
     }
 
+    @Test
+    public void getPositionType_of_a_sub_diagram_index_should_agree_with_the_parents() throws ReadingException {
+        String[] examples = {SpiderDiagramsReaderTest.SD_EXAMPLE_1, SpiderDiagramsReaderTest.SD_EXAMPLE_2, SpiderDiagramsReaderTest.SD_EXAMPLE_3, SpiderDiagramsReaderTest.SD_EXAMPLE_6, SpiderDiagramsReaderTest.SD_EXAMPLE_8, SpiderDiagramsReaderTest.SD_EXAMPLE_12, SpiderDiagramsReaderTest.SD_EXAMPLE_16};
+        for (String example : examples) {
+            final SpiderDiagram sd = SpiderDiagramsReader.readSpiderDiagram(example);
+            sd.visit(new DiagramVisitorImpl() {
+                @Override
+                public void visit(SpiderDiagram subDiagram, int subDiagramIndex, ArrayList<CompoundSpiderDiagram> parents, ArrayList<Integer> childIndices, ArrayList<Integer> parentIndices) {
+                    assertEquals(SimpleInferenceRule.getPositionType(parents, childIndices), SimpleInferenceRule.getPositionType(sd, subDiagramIndex));
+                }
+            }, true);
+        }
+    }
+
     private static abstract class DiagramVisitorImpl implements DiagramVisitor<Void> {
 
         public DiagramVisitorImpl() {
@@ -0,0 +1,15 @@
+package speedith.core.reasoning.rules.transformers;
+
+import org.junit.Test;
+import speedith.core.lang.TransformationException;
+import speedith.core.reasoning.args.ContourArg;
+
+import java.util.ArrayList;
+
+public class RemoveContoursTransformerTest {
+
+    @Test(expected = TransformationException.class)
+    public void should_throw_an_exception_if_no_contours_are_given() {
+        new RemoveContoursTransformer(new ArrayList<ContourArg>());
+    }
+}
@@ -35,6 +35,12 @@ public class ContourRelationsTest {
         new ContourRelations(diagramWithContoursAB).areContoursDisjoint("C", "D");
     }
 
+    @Test
+    public void areContoursDisjoint_should_return_false_if_the_contours_are_the_same() {
+        assertFalse(new ContourRelations(diagramWithContoursAB).areContoursDisjoint("A", "A"));
+        assertFalse(new ContourRelations(diagramWithShadedB).areContoursDisjoint("B", "B"));
+    }
+
     @Test
     public void areContoursDisjoint_should_return_true_when_zone_AsubB_is_shaded() {
         ContourRelations contourRelations = new ContourRelations(diagramWithShadedIntersection);
@@ -85,6 +91,12 @@ public class ContourRelationsTest {
         diagramContourRelations.contourContainsAnother("A", "C");
     }
 
+    @Test
+    public void contourContainsAnother_should_return_false_when_the_contours_are_the_same() {
+        assertFalse(new ContourRelations(diagramWithContoursAB).contourContainsAnother("A", "A"));
+        assertFalse(new ContourRelations(diagramWithShadedB).contourContainsAnother("B", "B"));
+    }
+
     @Test
     public void contourContainsAnother_should_return_true_when_the_other_contour_is_entirely_shaded() {
         ContourRelations diagramContourRelations = new ContourRelations(diagramWithShadedB);
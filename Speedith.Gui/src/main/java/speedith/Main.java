@@ -26,6 +26,8 @@
  */
 package speedith;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.SortedSet;
 import java.util.Arrays;
 import java.util.Set;
@@ -37,6 +39,9 @@ import speedith.core.lang.SpiderDiagram;
 import speedith.core.lang.export.SDExportProvider;
 import speedith.core.lang.export.SDExporter;
 import speedith.core.lang.export.SDExporting;
+import speedith.core.lang.reader.BulkImportResult;
+import speedith.core.lang.reader.BulkImporter;
+import speedith.core.lang.reader.ImportedFile;
 import speedith.core.lang.reader.ReadingException;
 import speedith.core.lang.reader.SpiderDiagramsReader;
 import speedith.core.reasoning.Goals;
@@ -89,6 +94,10 @@ public class Main {
                 printKnownFormats();
             } else if (clargs.isListInferenceRules()) {
                 printKnownInferenceRules();
+            } else if (clargs.getImportPath() != null) {
+                if (!importDiagrams(clargs.getImportPath(), clargs.getThreadCount())) {
+                    System.exit(1);
+                }
             } else if (clargs.isBatchMode()) {
                 // ---- Starting up Speedith
                 // Did the user provide a spider diagram to Speedith?
@@ -165,6 +174,33 @@ public class Main {
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="Bulk Import">
+    /**
+     * Reads all spider diagram files in the given directory (or the given
+     * file) in parallel and prints the errors and the throughput of the import
+     * (see {@link BulkImporter}).
+     *
+     * @return {@code true} if all files were read without errors.
+     */
+    private static boolean importDiagrams(String path, int threadCount) throws IOException, InterruptedException {
+        File file = new File(path);
+        BulkImporter importer = new BulkImporter(threadCount);
+        BulkImportResult result = file.isDirectory()
+                ? importer.importDirectory(file)
+                : importer.importFiles(Arrays.asList(file));
+        for (ImportedFile importedFile : result.getFiles()) {
+            for (ReadingException error : importedFile.getErrors()) {
+                System.out.println(i18n("MSG_IMPORT_FILE_ERROR", importedFile.getFile().getPath(), error.getLocalizedMessage()));
+            }
+        }
+        System.out.println(i18n("MSG_IMPORT_SUMMARY", result.getDiagramCount(), result.getDistinctDiagramCount(),
+                result.getFiles().size(), result.getThreadCount(), result.getElapsedNanos() / 1e9,
+                result.getFailedFileCount(), result.getErrorCount()));
+        System.out.println(i18n("MSG_IMPORT_THROUGHPUT", result.getFilesPerSecond(), result.getDiagramsPerSecond()));
+        return result.getErrorCount() == 0;
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Help Printing Methods">
     /**
      * Prints a list of known spider diagram formula export formats (see {@link
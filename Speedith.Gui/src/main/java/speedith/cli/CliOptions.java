@@ -170,6 +170,19 @@ public class CliOptions extends Options {
      * inference rules.
      */
     public static final String OPTION_LIR = "lir";
+    /**
+     * <p>This option tells Speedith to read all spider diagram files in the
+     * given directory (and its subdirectories), or the given file, and to
+     * print the errors and the throughput of the import.</p>
+     * <p>The files are read in parallel. The number of threads can be set with
+     * the {@link CliOptions#OPTION_THREADS threads} option.</p>
+     */
+    public static final String OPTION_IMPORT = "import";
+    /**
+     * The maximum number of files the {@link CliOptions#OPTION_IMPORT import}
+     * option reads at the same time.
+     */
+    public static final String OPTION_THREADS = "threads";
     private static final long serialVersionUID = 0xda37a6808b7a1245L;
     // </editor-fold>
     //<editor-fold defaultstate="collapsed" desc="Private Fields">
@@ -325,6 +338,40 @@ public class CliOptions extends Options {
         return null;
     }
 
+    /**
+     * Returns the path of the file or directory to {@link
+     * CliOptions#OPTION_IMPORT import} (or {@code null} if none was given).
+     * @return the path of the file or directory to import.
+     */
+    public String getImportPath() {
+        return getParsedOptions().getOptionValue(OPTION_IMPORT);
+    }
+
+    /**
+     * Returns the number of threads to use for the {@link
+     * CliOptions#OPTION_IMPORT import} (or {@code 0} if none was given, which
+     * means one thread per available processor).
+     * <p>This is the value of the arguments to the {@link
+     * CliOptions#OPTION_THREADS threads} option.</p>
+     * @return the number of threads to use for the import.
+     * @throws RuntimeException if the given number is not formatted correctly.
+     */
+    public int getThreadCount() {
+        String threads = getParsedOptions().getOptionValue(OPTION_THREADS);
+        if (threads != null) {
+            try {
+                int retVal = Integer.parseInt(threads);
+                if (retVal < 0) {
+                    throw new NumberFormatException(i18n("GERR_NEGATIVE_INTEGER"));
+                }
+                return retVal;
+            } catch (NumberFormatException nfe) {
+                throw new RuntimeException(i18n("ERR_CLI_THREADS_INVALID", threads), nfe);
+            }
+        }
+        return 0;
+    }
+
     /**
      * Returns the spider diagram formula output format that should be used
      * when exporting spider diagrams (to the standard output) in the batch
@@ -488,6 +535,16 @@ public class CliOptions extends Options {
         // ---- List known inference rules
         opt = new Option(OPTION_LIR, false, i18n("CLI_ARG_DESCRIPTION_LIR"));
         addOption(opt);
+
+        // ---- Bulk import
+        opt = new Option(OPTION_IMPORT, true, i18n("CLI_ARG_DESCRIPTION_IMPORT"));
+        opt.setArgName(i18n("CLI_ARG_IMPORT_VALUE_NAME"));
+        addOption(opt);
+
+        // ---- Number of import threads
+        opt = new Option(OPTION_THREADS, true, i18n("CLI_ARG_DESCRIPTION_THREADS"));
+        opt.setArgName(i18n("CLI_ARG_THREADS_VALUE_NAME"));
+        addOption(opt);
     }
     // </editor-fold>
 